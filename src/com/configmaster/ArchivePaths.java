@@ -0,0 +1,101 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Hilfsmethoden für Pfade auf Einträge innerhalb von Zip-Archiven.
+ * Ein solcher Pfad hat die Form "C:\backup\profiles.zip!profiles/default/chart01.chr".
+ * Der Teil vor dem Trennzeichen ist das Archiv im Dateisystem, der Teil danach der Eintrag
+ * im Archiv. Einträge werden über den Zip-FileSystem-Provider direkt in den Speicher gelesen,
+ * ohne das Archiv zu entpacken.
+ */
+public final class ArchivePaths {
+
+    /** Trennzeichen zwischen Archivpfad und Eintrag. */
+    public static final String SEPARATOR = "!";
+
+    private ArchivePaths() {
+    }
+
+    /**
+     * Prüft, ob ein Dateiname ein Zip-Archiv bezeichnet.
+     *
+     * @param fileName Der Dateiname
+     * @return true, wenn die Datei auf ".zip" endet
+     */
+    public static boolean isArchive(String fileName) {
+        return fileName.toLowerCase().endsWith(".zip");
+    }
+
+    /**
+     * Bildet den Pfad eines Eintrags in einem Archiv.
+     *
+     * @param archive Das Archiv
+     * @param entry Der Pfad des Eintrags im Archiv
+     * @return Der kombinierte Pfad
+     */
+    public static String toArchivePath(File archive, Path entry) {
+        String entryPath = entry.toString();
+        if (entryPath.startsWith("/")) {
+            entryPath = entryPath.substring(1);
+        }
+        return archive.getAbsolutePath() + SEPARATOR + entryPath;
+    }
+
+    /**
+     * Prüft, ob ein Pfad auf einen Eintrag in einem Archiv verweist.
+     *
+     * @param path Der Pfad
+     * @return true, wenn der Pfad ein Archiv und einen Eintrag enthält
+     */
+    public static boolean isArchivePath(String path) {
+        int separator = archiveEnd(path);
+        return separator > 0 && new File(path.substring(0, separator)).isFile();
+    }
+
+    /**
+     * Ermittelt das Ende des Archivpfads innerhalb eines kombinierten Pfads.
+     *
+     * @return Die Position direkt hinter ".zip" oder -1
+     */
+    private static int archiveEnd(String path) {
+        int index = path.toLowerCase().indexOf(".zip" + SEPARATOR);
+        return index < 0 ? -1 : index + 4;
+    }
+
+    /**
+     * Liest eine Datei oder einen Archiveintrag vollständig in den Speicher.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @return Die Bytes der Datei
+     * @throws IOException Wenn die Datei nicht gelesen werden kann
+     */
+    public static byte[] readAllBytes(String path) throws IOException {
+        if (!isArchivePath(path)) {
+            return Files.readAllBytes(Paths.get(path));
+        }
+        int separator = archiveEnd(path);
+        Path archive = Paths.get(path.substring(0, separator));
+        String entry = path.substring(separator + SEPARATOR.length());
+        try (FileSystem zipFileSystem = openArchive(archive)) {
+            return Files.readAllBytes(zipFileSystem.getPath(entry));
+        }
+    }
+
+    /**
+     * Öffnet ein Zip-Archiv als eigenes Dateisystem.
+     *
+     * @param archive Der Pfad des Archivs
+     * @return Das Dateisystem des Archivs; muss vom Aufrufer geschlossen werden
+     * @throws IOException Wenn das Archiv nicht geöffnet werden kann
+     */
+    public static FileSystem openArchive(Path archive) throws IOException {
+        return FileSystems.newFileSystem(archive);
+    }
+}
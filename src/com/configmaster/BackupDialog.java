@@ -0,0 +1,170 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Fenster zum Wiederherstellen einer Sicherung aus dem {@link BackupStore}.
+ * Die Dateien können an ihren ursprünglichen Ort oder in ein anderes Verzeichnis
+ * zurückgeschrieben werden.
+ */
+public class BackupDialog {
+
+    private static final Logger logger = LogManager.getLogger(BackupDialog.class);
+
+    private final BackupStore backupStore;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm:ss");
+
+    private Shell shell;
+    private Table table;
+    private Button originalButton;
+
+    /**
+     * Erstellt einen neuen BackupDialog.
+     *
+     * @param backupStore Der Sicherungsspeicher
+     */
+    public BackupDialog(BackupStore backupStore) {
+        this.backupStore = backupStore;
+    }
+
+    /**
+     * Öffnet das Fenster mit den vorhandenen Sicherungen.
+     *
+     * @param parentShell Das Elternfenster
+     * @param manifests Die Manifeste der Sicherungen, das neueste zuerst
+     */
+    public void open(Shell parentShell, List<File> manifests) {
+        shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Sicherung wiederherstellen");
+        shell.setSize(600, 400);
+        GridLayout layout = new GridLayout(1, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        table = new Table(shell, SWT.BORDER | SWT.SINGLE | SWT.FULL_SELECTION | SWT.V_SCROLL);
+        table.setHeaderVisible(true);
+        table.setLinesVisible(true);
+        table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        TableColumn nameColumn = new TableColumn(table, SWT.LEFT);
+        nameColumn.setText("Sicherung");
+        nameColumn.setWidth(250);
+        TableColumn timeColumn = new TableColumn(table, SWT.LEFT);
+        timeColumn.setText("Zeitpunkt");
+        timeColumn.setWidth(150);
+        for (File manifest : manifests) {
+            TableItem item = new TableItem(table, SWT.NONE);
+            item.setText(new String[] {
+                manifest.getParentFile().getName(),
+                dateFormat.format(new Date(manifest.lastModified()))
+            });
+            item.setData(manifest);
+        }
+        table.select(0);
+
+        originalButton = new Button(shell, SWT.RADIO);
+        originalButton.setText("An den ursprünglichen Ort wiederherstellen");
+        originalButton.setSelection(true);
+        Button directoryButton = new Button(shell, SWT.RADIO);
+        directoryButton.setText("In ein anderes Verzeichnis wiederherstellen...");
+
+        Composite buttonArea = new Composite(shell, SWT.NONE);
+        buttonArea.setLayout(new GridLayout(2, false));
+        buttonArea.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, true, false));
+
+        Button restoreButton = new Button(buttonArea, SWT.PUSH);
+        restoreButton.setText("Wiederherstellen");
+        restoreButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                restore();
+            }
+        });
+
+        Button closeButton = new Button(buttonArea, SWT.PUSH);
+        closeButton.setText("Schließen");
+        closeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                shell.close();
+            }
+        });
+
+        shell.open();
+    }
+
+    /**
+     * Stellt die ausgewählte Sicherung wieder her.
+     */
+    private void restore() {
+        TableItem[] selection = table.getSelection();
+        if (selection.length == 0) {
+            return;
+        }
+        File manifestFile = (File) selection[0].getData();
+        File targetDir = null;
+        if (originalButton.getSelection()) {
+            MessageBox confirmBox = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO);
+            confirmBox.setText("Sicherung wiederherstellen");
+            confirmBox.setMessage("Geänderte Dateien werden mit dem Stand der Sicherung überschrieben. Fortfahren?");
+            if (confirmBox.open() != SWT.YES) {
+                return;
+            }
+        } else {
+            DirectoryDialog directoryDialog = new DirectoryDialog(shell, SWT.OPEN);
+            directoryDialog.setText("Zielverzeichnis auswählen");
+            String directory = directoryDialog.open();
+            if (directory == null) {
+                return;
+            }
+            targetDir = new File(directory);
+        }
+
+        File target = targetDir;
+        BackupStore.Summary[] summary = new BackupStore.Summary[1];
+        IOException[] error = new IOException[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> {
+            try {
+                summary[0] = backupStore.restore(backupStore.readManifest(manifestFile), target);
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+
+        MessageBox messageBox;
+        if (error[0] != null) {
+            logger.error("Fehler beim Wiederherstellen der Sicherung: {}", error[0].getMessage());
+            messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler beim Wiederherstellen der Sicherung: " + error[0].getMessage());
+        } else {
+            messageBox = new MessageBox(shell, summary[0].getErrorCount() > 0 ? SWT.ICON_WARNING : SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage(String.format("%d Dateien wiederhergestellt, %d unverändert, %d Fehler (%d ms).",
+                    summary[0].getProcessedCount(), summary[0].getSkippedCount(), summary[0].getErrorCount(),
+                    summary[0].getMillis()));
+        }
+        messageBox.open();
+    }
+}
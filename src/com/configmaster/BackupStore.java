@@ -0,0 +1,642 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sicherung von Konfigurationsdateien in einem inhaltsadressierten Speicher.
+ *
+ * Jede Datei wird unter dem SHA-256-Hash ihres Inhalts als Objekt "objects/&lt;xx&gt;/&lt;hash&gt;"
+ * abgelegt, sodass identische Dateien, auch aus verschiedenen Sicherungen, nur einmal gespeichert
+ * werden. Eine Sicherung besteht aus einem Manifest mit Pfad, Suchpfad, Größe, Änderungszeit und
+ * Hash jeder Datei. Manifeste werden je Name unter "manifests/&lt;Name&gt;/" abgelegt.
+ *
+ * Sicherungen sind inkrementell: Stimmen Größe und Änderungszeit einer Datei mit dem letzten
+ * Manifest desselben Namens überein, wird dessen Hash übernommen, ohne die Datei zu lesen.
+ * Gelesen, gehasht und gespeichert werden nur neue und geänderte Dateien. Dateien werden über den
+ * {@link IoScheduler} parallel gelesen und beim Wiederherstellen parallel geschrieben; jede
+ * Datei wird dabei zuerst temporär geschrieben und dann atomar umbenannt.
+ */
+public class BackupStore {
+
+    private static final Logger logger = LogManager.getLogger(BackupStore.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String BACKUP_DIR = "backup";
+    private static final String OBJECTS_DIR = "objects";
+    private static final String MANIFESTS_DIR = "manifests";
+
+    private static final int MAGIC = 0x434D424B; // "CMBK"
+    private static final int VERSION = 1;
+
+    /** Dateiendung eines Manifests. */
+    public static final String EXTENSION = ".cmbk";
+
+    private final File directory;
+    private final AtomicLong tempCounter = new AtomicLong();
+
+    /**
+     * Eine gesicherte Datei.
+     */
+    public static class Entry {
+        private final String path;
+        private final String root;
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        Entry(String path, String root, long size, long lastModified, String hash) {
+            this.path = path;
+            this.root = root;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Gibt den Pfad relativ zum Suchpfad zurück.
+         *
+         * @return Der relative Pfad
+         */
+        public String getRelativePath() {
+            if (!root.isEmpty() && path.startsWith(root) && path.length() > root.length()) {
+                return path.substring(root.length()).replaceFirst("^[\\\\/]+", "");
+            }
+            return new File(path).getName();
+        }
+    }
+
+    /**
+     * Das Manifest einer Sicherung.
+     */
+    public static class Manifest {
+        private final File file;
+        private final String name;
+        private final long createdAt;
+        private final List<Entry> entries;
+
+        Manifest(File file, String name, long createdAt, List<Entry> entries) {
+            this.file = file;
+            this.name = name;
+            this.createdAt = createdAt;
+            this.entries = entries;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Gibt die Gesamtgröße der gesicherten Dateien zurück.
+         *
+         * @return Die Größe in Bytes
+         */
+        public long getTotalBytes() {
+            long total = 0;
+            for (Entry entry : entries) {
+                total += entry.size;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Ergebnis einer Sicherung oder Wiederherstellung.
+     */
+    public static class Summary {
+        private final int fileCount;
+        private final int processedCount;
+        private final int skippedCount;
+        private final int errorCount;
+        private final long bytes;
+        private final long millis;
+
+        Summary(int fileCount, int processedCount, int skippedCount, int errorCount, long bytes, long millis) {
+            this.fileCount = fileCount;
+            this.processedCount = processedCount;
+            this.skippedCount = skippedCount;
+            this.errorCount = errorCount;
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        /**
+         * Gibt die Anzahl der gelesenen und gehashten bzw. der geschriebenen Dateien zurück.
+         *
+         * @return Die Anzahl der Dateien
+         */
+        public int getProcessedCount() {
+            return processedCount;
+        }
+
+        /**
+         * Gibt die Anzahl der Dateien zurück, die unverändert waren und nicht gelesen bzw.
+         * geschrieben wurden.
+         *
+         * @return Die Anzahl der Dateien
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * Gibt die Anzahl der neu gespeicherten bzw. geschriebenen Bytes zurück.
+         *
+         * @return Die Anzahl der Bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    /**
+     * Erstellt einen Sicherungsspeicher im Standard-Verzeichnis von ConfigMaster.
+     */
+    public BackupStore() {
+        this(new File(ROOT_PATH + File.separator + BACKUP_DIR));
+    }
+
+    /**
+     * Erstellt einen Sicherungsspeicher in einem bestimmten Verzeichnis.
+     *
+     * @param directory Das Verzeichnis des Speichers
+     */
+    public BackupStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sichert alle Dateien eines Verzeichnisses, z.B. eines Profils, mit seinen Unterverzeichnissen.
+     * Die Pfade werden relativ zu diesem Verzeichnis gesichert.
+     *
+     * @param name Der Name der Sicherung
+     * @param sourceDir Das zu sichernde Verzeichnis
+     * @return Das Ergebnis der Sicherung
+     * @throws IOException Wenn das Manifest nicht geschrieben werden kann
+     */
+    public Summary backupDirectory(String name, File sourceDir) throws IOException {
+        ConfigFileStore files = new ConfigFileStore();
+        String root = sourceDir.getAbsolutePath();
+        try (Stream<Path> stream = Files.walk(sourceDir.toPath())) {
+            stream.filter(Files::isRegularFile).forEach(path -> files.add(path.toAbsolutePath().toString(), root));
+        }
+        return backup(name, files);
+    }
+
+    /**
+     * Sichert die angegebenen Dateien als neue Sicherung. Einträge aus Archiven werden übersprungen.
+     *
+     * @param name Der Name der Sicherung; Sicherungen gleichen Namens bauen aufeinander auf
+     * @param files Die zu sichernden Dateien mit ihren Suchpfaden
+     * @return Das Ergebnis der Sicherung
+     * @throws IOException Wenn das Manifest nicht geschrieben werden kann
+     */
+    public Summary backup(String name, ConfigFileStore files) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Entry> previous = new HashMap<>();
+        Manifest latest = getLatestManifest(name);
+        if (latest != null) {
+            for (Entry entry : latest.entries) {
+                previous.put(entry.path, entry);
+            }
+        }
+
+        // Dateien je Suchpfad über den Thread-Pool seines Datenträgers lesen
+        IoScheduler ioScheduler = new IoScheduler();
+        Map<String, IoScheduler.Volume> volumes = new HashMap<>();
+        List<Future<Entry>> futures = new ArrayList<>();
+        AtomicInteger hashed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong storedBytes = new AtomicLong();
+        for (int i = 0; i < files.size(); i++) {
+            String path = files.getPath(i);
+            String root = files.getRoot(i);
+            if (ArchivePaths.isArchivePath(path)) {
+                continue;
+            }
+            IoScheduler.Volume volume = volumes.computeIfAbsent(root,
+                    r -> ioScheduler.getVolume(new File(r.isEmpty() ? path : r).toPath()));
+            futures.add(volume.submit(() -> {
+                File file = new File(path);
+                long size = file.length();
+                long lastModified = file.lastModified();
+                Entry known = previous.get(path);
+                if (known != null && known.size == size && known.lastModified == lastModified) {
+                    return new Entry(path, root, size, lastModified, known.hash);
+                }
+                try {
+                    byte[] bytes = Files.readAllBytes(file.toPath());
+                    String hash = sha256(bytes);
+                    storedBytes.addAndGet(storeObject(hash, bytes));
+                    hashed.incrementAndGet();
+                    return new Entry(path, root, bytes.length, lastModified, hash);
+                } catch (IOException e) {
+                    logger.error("Fehler beim Sichern von {}: {}", path, e.getMessage());
+                    errors.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+
+        List<Entry> entries = new ArrayList<>(futures.size());
+        try {
+            for (Future<Entry> future : futures) {
+                Entry entry = future.get();
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Sicherung abgebrochen");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            ioScheduler.shutdown();
+        }
+
+        entries.sort(Comparator.comparing(Entry::getPath));
+        File manifestFile = writeManifest(name, entries);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Sicherung '{}' in {}: {} Dateien, {} gehasht, {} Bytes neu gespeichert in {} ms", name,
+                manifestFile.getName(), entries.size(), hashed.get(), storedBytes.get(), millis);
+        return new Summary(entries.size(), hashed.get(), entries.size() - hashed.get(), errors.get(),
+                storedBytes.get(), millis);
+    }
+
+    /**
+     * Stellt die Dateien einer Sicherung parallel wieder her. Dateien, die am Ziel bereits mit
+     * gleichem Inhalt vorhanden sind, werden nicht geschrieben; nur ihre Änderungszeit wird
+     * wiederhergestellt.
+     *
+     * @param manifest Das Manifest der Sicherung
+     * @param targetDir Das Zielverzeichnis, in dem die Pfade relativ zum Suchpfad angelegt werden,
+     *                  oder null für die ursprünglichen Pfade. Bei mehreren Suchpfaden erhält jeder
+     *                  ein eigenes Unterverzeichnis, siehe {@link #rootDirectoryNames(Manifest)}
+     * @return Das Ergebnis der Wiederherstellung
+     */
+    public Summary restore(Manifest manifest, File targetDir) {
+        long start = System.nanoTime();
+        IoScheduler ioScheduler = new IoScheduler();
+        Map<String, IoScheduler.Volume> volumes = new HashMap<>();
+        Map<String, String> rootDirs = rootDirectoryNames(manifest);
+        boolean multipleRoots = rootDirs.size() > 1;
+        List<Future<Boolean>> futures = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong writtenBytes = new AtomicLong();
+        for (Entry entry : manifest.entries) {
+            File target;
+            if (targetDir == null) {
+                target = new File(entry.path);
+            } else if (multipleRoots) {
+                target = new File(new File(targetDir, rootDirs.get(entry.root)), entry.getRelativePath());
+            } else {
+                target = new File(targetDir, entry.getRelativePath());
+            }
+            String volumeKey = targetDir != null ? "" : entry.root;
+            IoScheduler.Volume volume = volumes.computeIfAbsent(volumeKey, key -> ioScheduler.getVolume(
+                    (targetDir != null ? targetDir : existingParent(target)).toPath()));
+            futures.add(volume.submit(() -> {
+                try {
+                    if (restoreFile(entry, target)) {
+                        writtenBytes.addAndGet(entry.size);
+                        return true;
+                    }
+                } catch (IOException e) {
+                    logger.error("Fehler beim Wiederherstellen von {}: {}", target, e.getMessage());
+                    errors.incrementAndGet();
+                }
+                return false;
+            }));
+        }
+
+        int written = 0;
+        try {
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    written++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Fehler beim Wiederherstellen: {}", e.getCause().getMessage());
+            errors.incrementAndGet();
+        } finally {
+            ioScheduler.shutdown();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Sicherung '{}' wiederhergestellt: {} Dateien geschrieben, {} unverändert, {} Fehler in {} ms",
+                manifest.name, written, manifest.entries.size() - written - errors.get(), errors.get(), millis);
+        return new Summary(manifest.entries.size(), written, manifest.entries.size() - written - errors.get(),
+                errors.get(), writtenBytes.get(), millis);
+    }
+
+    /**
+     * Vergibt für jeden Suchpfad einer Sicherung ein Unterverzeichnis des Zielverzeichnisses.
+     * Das ist der letzte Namensteil des Suchpfads; haben mehrere Suchpfade denselben, z.B. die
+     * profiles-Verzeichnisse zweier Terminals, erhalten die weiteren eine laufende Nummer.
+     *
+     * @return Die Unterverzeichnisse je Suchpfad in der Reihenfolge des Manifests
+     */
+    private static Map<String, String> rootDirectoryNames(Manifest manifest) {
+        Map<String, String> rootDirs = new LinkedHashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        for (Entry entry : manifest.entries) {
+            if (rootDirs.containsKey(entry.root)) {
+                continue;
+            }
+            String leaf = new File(entry.root).getName();
+            String name = leaf;
+            // Windows unterscheidet Groß- und Kleinschreibung nicht
+            for (int number = 2; !usedNames.add(name.toLowerCase()); number++) {
+                name = leaf + "-" + number;
+            }
+            rootDirs.put(entry.root, name);
+        }
+        return rootDirs;
+    }
+
+    /**
+     * Schreibt eine Datei aus ihrem Objekt, sofern sie am Ziel nicht bereits vorhanden ist.
+     * Eine bereits vorhandene Datei erhält die gesicherte Änderungszeit.
+     *
+     * @return true, wenn die Datei geschrieben wurde
+     */
+    private boolean restoreFile(Entry entry, File target) throws IOException {
+        if (target.length() == entry.size && target.isFile()
+                && sha256(Files.readAllBytes(target.toPath())).equals(entry.hash)) {
+            if (target.lastModified() != entry.lastModified && !target.setLastModified(entry.lastModified)) {
+                logger.warn("Änderungszeit von {} konnte nicht gesetzt werden", target);
+            }
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(objectFile(entry.hash).toPath());
+        if (!sha256(bytes).equals(entry.hash)) {
+            throw new IOException("Gesichertes Objekt ist beschädigt: " + entry.hash);
+        }
+        File parent = target.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File tempFile = new File(parent, target.getName() + "." + tempCounter.incrementAndGet() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), bytes);
+            tempFile.setLastModified(entry.lastModified);
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+        return true;
+    }
+
+    /**
+     * Gibt alle Manifeste zurück, das neueste zuerst. Die Einträge werden erst mit
+     * {@link #readManifest(File)} gelesen.
+     *
+     * @return Die Dateien der Manifeste
+     */
+    public List<File> listManifests() {
+        List<File> manifests = new ArrayList<>();
+        File[] nameDirs = new File(directory, MANIFESTS_DIR).listFiles(File::isDirectory);
+        if (nameDirs != null) {
+            for (File nameDir : nameDirs) {
+                File[] files = nameDir.listFiles((dir, fileName) -> fileName.endsWith(EXTENSION));
+                if (files != null) {
+                    manifests.addAll(Arrays.asList(files));
+                }
+            }
+        }
+        // Die Namen enthalten den Zeitpunkt der Sicherung
+        manifests.sort(Comparator.comparing(File::getName).reversed());
+        return manifests;
+    }
+
+    /**
+     * Liest ein Manifest.
+     *
+     * @param file Die Datei des Manifests
+     * @return Das Manifest
+     * @throws IOException Wenn die Datei nicht gelesen werden kann oder kein gültiges Format hat
+     */
+    public Manifest readManifest(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Kein gültiges Manifest: " + file.getName());
+            }
+            String name = in.readUTF();
+            long createdAt = in.readLong();
+            int rootCount = in.readInt();
+            String[] roots = new String[rootCount];
+            for (int i = 0; i < rootCount; i++) {
+                roots[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            byte[] hash = new byte[32];
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                String root = roots[in.readInt()];
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                in.readFully(hash);
+                entries.add(new Entry(path, root, size, lastModified, toHex(hash)));
+            }
+            return new Manifest(file, name, createdAt, entries);
+        }
+    }
+
+    /**
+     * Liest das neueste Manifest einer Sicherung.
+     */
+    private Manifest getLatestManifest(String name) {
+        File[] files = manifestDir(name).listFiles((dir, fileName) -> fileName.endsWith(EXTENSION));
+        if (files == null || files.length == 0) {
+            return null;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName).reversed());
+        try {
+            return readManifest(files[0]);
+        } catch (IOException e) {
+            logger.warn("Letzte Sicherung '{}' nicht lesbar, alle Dateien werden gelesen: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Schreibt ein Manifest. Die Datei wird zuerst temporär geschrieben und dann umbenannt.
+     */
+    private File writeManifest(String name, List<Entry> entries) throws IOException {
+        File manifestDir = manifestDir(name);
+        manifestDir.mkdirs();
+        long createdAt = System.currentTimeMillis();
+        File file = new File(manifestDir, String.format("%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS%1$tL%2$s", createdAt,
+                EXTENSION));
+        File tempFile = new File(file.getPath() + ".tmp");
+        Map<String, Integer> rootIds = new HashMap<>();
+        List<String> roots = new ArrayList<>();
+        for (Entry entry : entries) {
+            rootIds.computeIfAbsent(entry.root, root -> {
+                roots.add(root);
+                return roots.size() - 1;
+            });
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(name);
+            out.writeLong(createdAt);
+            out.writeInt(roots.size());
+            for (String root : roots) {
+                out.writeUTF(root);
+            }
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.path);
+                out.writeInt(rootIds.get(entry.root));
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.write(fromHex(entry.hash));
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Speichert den Inhalt einer Datei als Objekt, sofern es noch nicht vorhanden ist.
+     *
+     * @return Die Anzahl der neu gespeicherten Bytes
+     */
+    private long storeObject(String hash, byte[] bytes) throws IOException {
+        File objectFile = objectFile(hash);
+        if (objectFile.exists()) {
+            return 0;
+        }
+        objectFile.getParentFile().mkdirs();
+        File tempFile = new File(objectFile.getPath() + "." + tempCounter.incrementAndGet() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), bytes);
+            Files.move(tempFile.toPath(), objectFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+        return bytes.length;
+    }
+
+    private File objectFile(String hash) {
+        return new File(new File(new File(directory, OBJECTS_DIR), hash.substring(0, 2)), hash);
+    }
+
+    private File manifestDir(String name) {
+        return new File(new File(directory, MANIFESTS_DIR), name.replaceAll("[^\\w\\-. ]", "_"));
+    }
+
+    /**
+     * Gibt das Verzeichnis oder den nächsten vorhandenen übergeordneten Pfad zurück.
+     */
+    private static File existingParent(File file) {
+        File existing = file.getAbsoluteFile();
+        while (existing != null && !existing.exists()) {
+            existing = existing.getParentFile();
+        }
+        return existing != null ? existing : file.getAbsoluteFile();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
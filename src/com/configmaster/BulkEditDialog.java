@@ -0,0 +1,172 @@
+package com.configmaster;
+
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+/**
+ * Dialog zur Massenbearbeitung der gefundenen Konfigurationsdateien.
+ * Bietet Suchen/Ersetzen sowie das Setzen eines key=value-Parameters in allen Dateien
+ * der aktuellen Ergebnisliste.
+ */
+public class BulkEditDialog extends Dialog {
+
+    private Shell shell;
+    private List<ConfigFile> configFiles;
+    private BulkEditor bulkEditor = new BulkEditor();
+
+    private Button replaceButton;
+    private Button keyValueButton;
+    private Label firstLabel;
+    private Label secondLabel;
+    private Text firstText;
+    private Text secondText;
+
+    /**
+     * Erstellt einen neuen BulkEditDialog.
+     *
+     * @param parent Das Elternfenster
+     * @param configFiles Die zu bearbeitenden Konfigurationsdateien
+     */
+    public BulkEditDialog(Shell parent, List<ConfigFile> configFiles) {
+        super(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
+        this.configFiles = configFiles;
+    }
+
+    /**
+     * Öffnet den Dialog.
+     */
+    public void open() {
+        Shell parent = getParent();
+        shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
+        shell.setText("Massenbearbeitung");
+        shell.setSize(450, 230);
+
+        createContents();
+
+        shell.open();
+        Display display = parent.getDisplay();
+        while (!shell.isDisposed()) {
+            if (!display.readAndDispatch()) {
+                display.sleep();
+            }
+        }
+    }
+
+    /**
+     * Erstellt den Inhalt des Dialogs.
+     */
+    private void createContents() {
+        GridLayout layout = new GridLayout(2, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        Label infoLabel = new Label(shell, SWT.NONE);
+        infoLabel.setText("Änderung auf " + configFiles.size() + " gefundene Dateien anwenden:");
+        GridData infoData = new GridData();
+        infoData.horizontalSpan = 2;
+        infoLabel.setLayoutData(infoData);
+
+        // Art der Änderung
+        replaceButton = new Button(shell, SWT.RADIO);
+        replaceButton.setText("Suchen/Ersetzen");
+        replaceButton.setSelection(true);
+        keyValueButton = new Button(shell, SWT.RADIO);
+        keyValueButton.setText("Parameter setzen (key=value)");
+        SelectionAdapter modeListener = new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                updateLabels();
+            }
+        };
+        replaceButton.addSelectionListener(modeListener);
+        keyValueButton.addSelectionListener(modeListener);
+
+        firstLabel = new Label(shell, SWT.NONE);
+        firstText = new Text(shell, SWT.BORDER);
+        firstText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        secondLabel = new Label(shell, SWT.NONE);
+        secondText = new Text(shell, SWT.BORDER);
+        secondText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        updateLabels();
+
+        Button okButton = new Button(shell, SWT.PUSH);
+        okButton.setText("Ausführen");
+        okButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false));
+        okButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                execute();
+            }
+        });
+
+        Button cancelButton = new Button(shell, SWT.PUSH);
+        cancelButton.setText("Abbrechen");
+        cancelButton.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                shell.close();
+            }
+        });
+    }
+
+    /**
+     * Passt die Beschriftungen an die gewählte Art der Änderung an.
+     */
+    private void updateLabels() {
+        if (replaceButton.getSelection()) {
+            firstLabel.setText("Suchen nach:");
+            secondLabel.setText("Ersetzen durch:");
+        } else {
+            firstLabel.setText("Schlüssel:");
+            secondLabel.setText("Neuer Wert:");
+        }
+        shell.layout();
+    }
+
+    /**
+     * Führt die Änderung aus und zeigt das Ergebnis an.
+     */
+    private void execute() {
+        String first = firstText.getText();
+        if (first.trim().isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage(replaceButton.getSelection()
+                    ? "Bitte geben Sie einen Suchtext ein."
+                    : "Bitte geben Sie einen Schlüssel ein.");
+            messageBox.open();
+            return;
+        }
+
+        BulkEditor.Operation operation = replaceButton.getSelection()
+                ? BulkEditor.Operation.replace(first, secondText.getText())
+                : BulkEditor.Operation.setValue(first.trim(), secondText.getText().trim());
+
+        BulkEditor.Result[] result = new BulkEditor.Result[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> result[0] = bulkEditor.execute(configFiles, operation));
+
+        MessageBox messageBox = new MessageBox(shell, result[0].isRolledBack() ? SWT.ICON_ERROR : SWT.ICON_INFORMATION);
+        messageBox.setText("Massenbearbeitung");
+        messageBox.setMessage(result[0].toString());
+        messageBox.open();
+        if (!result[0].isRolledBack()) {
+            shell.close();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.configmaster;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Führt eine Änderung transaktional auf einer Menge von Konfigurationsdateien aus.
+ *
+ * Ablauf:
+ * 1. Alle Dateien werden parallel gelesen, geändert und neben dem Original als temporäre
+ *    Datei geschrieben. Zusätzlich wird eine Sicherungskopie des Originals angelegt.
+ *    Codierung und BOM der Originaldatei bleiben erhalten.
+ * 2. Erst wenn alle temporären Dateien fehlerfrei geschrieben sind, werden sie atomar
+ *    über die Originale umbenannt.
+ * Schlägt ein Schritt fehl, werden alle bereits ersetzten Dateien aus den Sicherungskopien
+ * wiederhergestellt, sodass entweder alle oder keine Datei geändert ist.
+ * Einträge in Zip-Archiven werden nicht bearbeitet.
+ */
+public class BulkEditor {
+
+    private static final Logger logger = LogManager.getLogger(BulkEditor.class);
+
+    private static final String TEMP_SUFFIX = ".cmtmp";
+    private static final String BACKUP_SUFFIX = ".cmbak";
+
+    /**
+     * Eine Änderung, die auf den Text einer Datei angewendet wird.
+     */
+    public static class Operation {
+        private final String find;
+        private final String replacement;
+        private final boolean keyValue;
+        private final Pattern keyPattern;
+
+        private Operation(String find, String replacement, boolean keyValue) {
+            this.find = find;
+            this.replacement = replacement;
+            this.keyValue = keyValue;
+            this.keyPattern = keyValue
+                    ? Pattern.compile("(?m)^(\\s*" + Pattern.quote(find) + "\\s*=)[^\\r\\n]*")
+                    : null;
+        }
+
+        /**
+         * Erstellt eine Suchen/Ersetzen-Operation für einen festen Text.
+         *
+         * @param find Der zu suchende Text
+         * @param replacement Der Ersatztext
+         * @return Die Operation
+         */
+        public static Operation replace(String find, String replacement) {
+            return new Operation(find, replacement, false);
+        }
+
+        /**
+         * Erstellt eine Operation, die den Wert aller Zeilen "key=..." auf den angegebenen Wert setzt.
+         *
+         * @param key Der Schlüssel
+         * @param value Der neue Wert
+         * @return Die Operation
+         */
+        public static Operation setValue(String key, String value) {
+            return new Operation(key, value, true);
+        }
+
+        /**
+         * Wendet die Operation auf einen Text an.
+         *
+         * @param text Der ursprüngliche Text
+         * @return Der geänderte Text (identisch zum Original, wenn nichts geändert wurde)
+         */
+        public String apply(String text) {
+            if (!keyValue) {
+                return text.replace(find, replacement);
+            }
+            return keyPattern.matcher(text).replaceAll("$1" + Matcher.quoteReplacement(replacement));
+        }
+
+        @Override
+        public String toString() {
+            return keyValue ? find + "=" + replacement : "'" + find + "' -> '" + replacement + "'";
+        }
+    }
+
+    /**
+     * Ergebnis einer Massenbearbeitung mit Durchsatzangaben.
+     */
+    public static class Result {
+        private final int filesChanged;
+        private final int filesUnchanged;
+        private final long bytesProcessed;
+        private final long durationMillis;
+        private final boolean rolledBack;
+        private final String error;
+        private final List<String> unrestoredFiles;
+
+        Result(int filesChanged, int filesUnchanged, long bytesProcessed, long durationMillis,
+                boolean rolledBack, String error, List<String> unrestoredFiles) {
+            this.filesChanged = filesChanged;
+            this.filesUnchanged = filesUnchanged;
+            this.bytesProcessed = bytesProcessed;
+            this.durationMillis = durationMillis;
+            this.rolledBack = rolledBack;
+            this.error = error;
+            this.unrestoredFiles = unrestoredFiles;
+        }
+
+        public int getFilesChanged() {
+            return filesChanged;
+        }
+
+        public int getFilesUnchanged() {
+            return filesUnchanged;
+        }
+
+        public long getBytesProcessed() {
+            return bytesProcessed;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * Gibt zurück, ob die Änderungen wegen eines Fehlers zurückgenommen wurden. Dateien, die
+         * dabei nicht wiederhergestellt werden konnten, liefert {@link #getUnrestoredFiles()}.
+         *
+         * @return true, wenn die Bearbeitung fehlgeschlagen ist
+         */
+        public boolean isRolledBack() {
+            return rolledBack;
+        }
+
+        /**
+         * Gibt die Dateien zurück, die nach einem Fehler nicht aus ihrer Sicherungskopie
+         * wiederhergestellt werden konnten, jeweils mit dem Pfad der Sicherungskopie.
+         *
+         * @return Die Dateien, leer wenn alle Änderungen zurückgenommen wurden
+         */
+        public List<String> getUnrestoredFiles() {
+            return unrestoredFiles;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Gibt den Durchsatz in Dateien pro Sekunde zurück.
+         *
+         * @return Verarbeitete Dateien pro Sekunde
+         */
+        public double getFilesPerSecond() {
+            return (filesChanged + filesUnchanged) * 1000.0 / Math.max(1, durationMillis);
+        }
+
+        /**
+         * Gibt den Durchsatz in Megabyte pro Sekunde zurück.
+         *
+         * @return Gelesene Megabyte pro Sekunde
+         */
+        public double getMegabytesPerSecond() {
+            return bytesProcessed / (1024.0 * 1024.0) * 1000.0 / Math.max(1, durationMillis);
+        }
+
+        @Override
+        public String toString() {
+            if (rolledBack && !unrestoredFiles.isEmpty()) {
+                return String.format("Fehler: %s%n%d Dateien konnten nicht wiederhergestellt werden, "
+                        + "ihre Sicherungskopien wurden behalten:%n%s", error, unrestoredFiles.size(),
+                        String.join(System.lineSeparator(), unrestoredFiles));
+            }
+            if (rolledBack) {
+                return String.format("Fehler, alle Änderungen wurden zurückgenommen: %s", error);
+            }
+            return String.format("%d Dateien geändert, %d unverändert in %d ms (%.0f Dateien/s, %.1f MB/s)",
+                    filesChanged, filesUnchanged, durationMillis, getFilesPerSecond(), getMegabytesPerSecond());
+        }
+    }
+
+    /**
+     * Eine vorbereitete Änderung: temporäre Datei mit neuem Inhalt und Sicherungskopie.
+     */
+    private static class PendingWrite {
+        final Path target;
+        final Path temp;
+        final Path backup;
+        boolean committed;
+        boolean keepBackup;
+
+        PendingWrite(Path target, Path temp, Path backup) {
+            this.target = target;
+            this.temp = temp;
+            this.backup = backup;
+        }
+    }
+
+    /**
+     * Wendet eine Operation auf alle angegebenen Dateien an.
+     *
+     * @param configFiles Die zu bearbeitenden Dateien
+     * @param operation Die anzuwendende Operation
+     * @return Das Ergebnis mit Durchsatzangaben
+     */
+    public Result execute(List<ConfigFile> configFiles, Operation operation) {
+        logger.info("Starte Massenbearbeitung von {} Dateien: {}", configFiles.size(), operation);
+        long start = System.currentTimeMillis();
+
+        List<PendingWrite> pending = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong bytesProcessed = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        // Phase 1: parallel lesen, ändern und temporär schreiben
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<?>> futures = new ArrayList<>();
+        for (ConfigFile configFile : configFiles) {
+            futures.add(executor.submit(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                if (ArchivePaths.isArchivePath(configFile.getPath())) {
+                    // Einträge in Zip-Archiven sind schreibgeschützt
+                    logger.info("Überspringe Archiveintrag: {}", configFile.getPath());
+                    return null;
+                }
+                try {
+                    PendingWrite write = prepare(Paths.get(configFile.getPath()), operation, bytesProcessed);
+                    if (write != null) {
+                        pending.add(write);
+                    }
+                } catch (IOException e) {
+                    // Übrige Dateien nicht mehr vorbereiten
+                    failed.set(true);
+                    throw e;
+                }
+                return null;
+            }));
+        }
+
+        String error = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failed.set(true);
+                if (error == null) {
+                    error = e.getCause().getMessage();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                error = "Abgebrochen";
+            }
+        }
+        executor.shutdown();
+
+        // Phase 2: atomar umbenennen
+        if (!failed.get()) {
+            try {
+                for (PendingWrite write : pending) {
+                    Files.move(write.temp, write.target, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                    write.committed = true;
+                }
+            } catch (IOException e) {
+                failed.set(true);
+                error = e.getMessage();
+            }
+        }
+
+        List<String> unrestored = Collections.emptyList();
+        if (failed.get()) {
+            logger.error("Massenbearbeitung fehlgeschlagen, nehme Änderungen zurück: {}", error);
+            unrestored = rollback(pending);
+        }
+        cleanup(pending);
+
+        long duration = System.currentTimeMillis() - start;
+        // Nicht wiederhergestellte Dateien bleiben geändert
+        int changed = failed.get() ? unrestored.size() : pending.size();
+        Result result = new Result(changed, configFiles.size() - changed, bytesProcessed.get(), duration,
+                failed.get(), error, unrestored);
+        logger.info("Massenbearbeitung abgeschlossen: {}", result);
+        return result;
+    }
+
+    /**
+     * Liest eine Datei, wendet die Operation an und schreibt bei einer Änderung den neuen
+     * Inhalt sowie eine Sicherungskopie neben die Originaldatei.
+     *
+     * @return Die vorbereitete Änderung oder null, wenn die Datei unverändert bleibt
+     */
+    private PendingWrite prepare(Path target, Operation operation, AtomicLong bytesProcessed) throws IOException {
+        byte[] original = Files.readAllBytes(target);
+        bytesProcessed.addAndGet(original.length);
+
+        ConfigFileContent content = ConfigFileContent.decode(original);
+        String changedText = operation.apply(content.getText());
+        if (changedText.equals(content.getText())) {
+            return null;
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        Path backup = target.resolveSibling(target.getFileName() + BACKUP_SUFFIX);
+        try {
+            Files.write(temp, content.encode(changedText));
+            Files.write(backup, original);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(backup);
+            throw new IOException(target + ": " + e.getMessage(), e);
+        }
+        return new PendingWrite(target, temp, backup);
+    }
+
+    /**
+     * Stellt alle bereits ersetzten Dateien aus ihren Sicherungskopien wieder her.
+     *
+     * @return Die Dateien, die nicht wiederhergestellt werden konnten, mit ihrer Sicherungskopie
+     */
+    private List<String> rollback(List<PendingWrite> pending) {
+        List<String> unrestored = new ArrayList<>();
+        for (PendingWrite write : pending) {
+            if (!write.committed) {
+                continue;
+            }
+            try {
+                Files.move(write.backup, write.target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // Sicherungskopie behalten, damit die Datei von Hand wiederhergestellt werden kann
+                write.keepBackup = true;
+                logger.error("Fehler beim Wiederherstellen von {}, Sicherung liegt in {}: {}",
+                        write.target, write.backup, e.getMessage());
+                unrestored.add(write.target + " (Sicherung: " + write.backup + ")");
+            }
+        }
+        return unrestored;
+    }
+
+    /**
+     * Entfernt verbliebene temporäre Dateien und Sicherungskopien.
+     */
+    private void cleanup(List<PendingWrite> pending) {
+        for (PendingWrite write : pending) {
+            try {
+                Files.deleteIfExists(write.temp);
+                if (!write.keepBackup) {
+                    Files.deleteIfExists(write.backup);
+                }
+            } catch (IOException e) {
+                logger.warn("Temporäre Datei konnte nicht gelöscht werden: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Fenster mit den Änderungen zwischen zwei Scans.
+ * Verglichen werden zwei Momentaufnahmen von {@link ScanSnapshot}, standardmäßig die beiden
+ * neuesten. Angezeigt werden hinzugekommene und entfernte Dateien, geänderte Dateien und Dateien,
+ * die jetzt ein Suchmuster enthalten oder nicht mehr enthalten. Die Tabelle zeigt höchstens
+ * {@link #MAX_ROWS} Änderungen; die Zusammenfassung zählt alle.
+ */
+public class ChangeReportDialog {
+
+    private static final Logger logger = LogManager.getLogger(ChangeReportDialog.class);
+
+    /** Höchstzahl der angezeigten Änderungen. */
+    public static final int MAX_ROWS = 10000;
+
+    private static final Color COLOR_ADDED = new Color(220, 245, 220);
+    private static final Color COLOR_REMOVED = new Color(250, 220, 220);
+    private static final Color COLOR_MATCH_CHANGED = new Color(255, 240, 200);
+
+    private final ConfigFileViewer configFileViewer;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm:ss");
+
+    // Eine angezeigte Änderung
+    private static class Change {
+        final SnapshotDiff.Kind kind;
+        final ScanSnapshot.Entry before;
+        final ScanSnapshot.Entry after;
+
+        Change(SnapshotDiff.Kind kind, ScanSnapshot.Entry before, ScanSnapshot.Entry after) {
+            this.kind = kind;
+            this.before = before;
+            this.after = after;
+        }
+
+        String getPath() {
+            return after != null ? after.getPath() : before.getPath();
+        }
+    }
+
+    /**
+     * Erstellt einen neuen ChangeReportDialog.
+     *
+     * @param configFileViewer Der Viewer zum Öffnen einzelner Dateien
+     */
+    public ChangeReportDialog(ConfigFileViewer configFileViewer) {
+        this.configFileViewer = configFileViewer;
+    }
+
+    /**
+     * Öffnet das Fenster und vergleicht die beiden neuesten Momentaufnahmen.
+     *
+     * @param parentShell Das Elternfenster
+     * @param snapshots Die Momentaufnahmen, die neueste zuerst; mindestens zwei
+     */
+    public void open(Shell parentShell, List<File> snapshots) {
+        Shell shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Änderungen zwischen Scans");
+        shell.setSize(1000, 600);
+        GridLayout layout = new GridLayout(1, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        // Auswahl der beiden Scans
+        Composite selectionArea = new Composite(shell, SWT.NONE);
+        selectionArea.setLayout(new GridLayout(5, false));
+        new Label(selectionArea, SWT.NONE).setText("Vorher:");
+        Combo beforeCombo = new Combo(selectionArea, SWT.READ_ONLY);
+        new Label(selectionArea, SWT.NONE).setText("Nachher:");
+        Combo afterCombo = new Combo(selectionArea, SWT.READ_ONLY);
+        for (File snapshot : snapshots) {
+            String label = dateFormat.format(new Date(snapshot.lastModified()));
+            beforeCombo.add(label);
+            afterCombo.add(label);
+        }
+        afterCombo.select(0);
+        beforeCombo.select(1);
+        Button matchesOnlyButton = new Button(selectionArea, SWT.CHECK);
+        matchesOnlyButton.setText("Nur Dateien mit Treffern");
+
+        Label summaryLabel = new Label(shell, SWT.WRAP);
+        summaryLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL | SWT.VIRTUAL);
+        table.setHeaderVisible(true);
+        table.setLinesVisible(true);
+        table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        String[] titles = { "Änderung", "Pfad", "Treffer vorher", "Treffer jetzt", "Geändert" };
+        int[] widths = { 140, 520, 90, 90, 130 };
+        for (int i = 0; i < titles.length; i++) {
+            TableColumn column = new TableColumn(table, i == 2 || i == 3 ? SWT.RIGHT : SWT.LEFT);
+            column.setText(titles[i]);
+            column.setWidth(widths[i]);
+        }
+
+        List<Change> changes = new ArrayList<>();
+        table.addListener(SWT.SetData, event -> {
+            TableItem item = (TableItem) event.item;
+            Change change = changes.get(table.indexOf(item));
+            ScanSnapshot.Entry latest = change.after != null ? change.after : change.before;
+            item.setText(new String[] {
+                change.kind.getLabel(),
+                change.getPath(),
+                change.before != null ? String.valueOf(change.before.getMatchCount()) : "",
+                change.after != null ? String.valueOf(change.after.getMatchCount()) : "",
+                dateFormat.format(new Date(latest.getLastModified()))
+            });
+            item.setData(change.kind != SnapshotDiff.Kind.REMOVED ? change.getPath() : null);
+            switch (change.kind) {
+                case ADDED:
+                    item.setBackground(COLOR_ADDED);
+                    break;
+                case REMOVED:
+                    item.setBackground(COLOR_REMOVED);
+                    break;
+                case NOW_MATCHING:
+                case NO_LONGER_MATCHING:
+                    item.setBackground(COLOR_MATCH_CHANGED);
+                    break;
+                default:
+                    item.setBackground(null);
+                    break;
+            }
+        });
+
+        // Vergleich bei jeder Änderung der Auswahl neu durchführen
+        Runnable compare = () -> {
+            File before = snapshots.get(beforeCombo.getSelectionIndex());
+            File after = snapshots.get(afterCombo.getSelectionIndex());
+            boolean matchesOnly = matchesOnlyButton.getSelection();
+            SnapshotDiff diff = new SnapshotDiff(before, after);
+            changes.clear();
+            try {
+                diff.run((kind, oldEntry, newEntry) -> {
+                    boolean relevant = !matchesOnly || (oldEntry != null && oldEntry.matches())
+                            || (newEntry != null && newEntry.matches());
+                    if (relevant && changes.size() < MAX_ROWS) {
+                        changes.add(new Change(kind, oldEntry, newEntry));
+                    }
+                });
+            } catch (IOException e) {
+                logger.error("Fehler beim Vergleich der Momentaufnahmen: {}", e.getMessage());
+                MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+                messageBox.setText("Fehler");
+                messageBox.setMessage("Die Scans konnten nicht verglichen werden: " + e.getMessage());
+                messageBox.open();
+            }
+            table.clearAll();
+            table.setItemCount(changes.size());
+            summaryLabel.setText(summarize(diff, changes.size()));
+            shell.layout(true, true);
+        };
+        SelectionAdapter compareListener = new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                BusyIndicator.showWhile(shell.getDisplay(), compare);
+            }
+        };
+        beforeCombo.addSelectionListener(compareListener);
+        afterCombo.addSelectionListener(compareListener);
+        matchesOnlyButton.addSelectionListener(compareListener);
+
+        // Doppelklick öffnet die Datei im Viewer, sofern sie noch vorhanden ist
+        table.addListener(SWT.MouseDoubleClick, event -> {
+            TableItem[] selection = table.getSelection();
+            if (selection.length > 0 && selection[0].getData() instanceof String) {
+                configFileViewer.viewConfigFile(shell, (String) selection[0].getData());
+            }
+        });
+
+        Button closeButton = new Button(shell, SWT.PUSH);
+        closeButton.setText("Schließen");
+        closeButton.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, true, false));
+        closeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                shell.close();
+            }
+        });
+
+        BusyIndicator.showWhile(shell.getDisplay(), compare);
+        shell.open();
+    }
+
+    /**
+     * Erstellt die Zusammenfassung eines Vergleichs.
+     */
+    private String summarize(SnapshotDiff diff, int shown) {
+        StringBuilder summary = new StringBuilder(String.format(
+                "%d neu, %d entfernt, %d geändert, %d treffen jetzt zu, %d treffen nicht mehr zu, %d unverändert",
+                diff.getCount(SnapshotDiff.Kind.ADDED), diff.getCount(SnapshotDiff.Kind.REMOVED),
+                diff.getCount(SnapshotDiff.Kind.MODIFIED), diff.getCount(SnapshotDiff.Kind.NOW_MATCHING),
+                diff.getCount(SnapshotDiff.Kind.NO_LONGER_MATCHING), diff.getUnchangedCount()));
+        if (diff.getPatterns() != null) {
+            summary.append(" (Suchmuster: ").append(String.join(", ", diff.getPatterns())).append(')');
+        }
+        if (shown == MAX_ROWS) {
+            summary.append("\nEs werden nur die ersten ").append(MAX_ROWS).append(" Änderungen angezeigt.");
+        }
+        if (diff.getPatterns() != null && diff.isPatternChanged()) {
+            summary.append("\nAchtung: Die Scans verwenden unterschiedliche Suchmuster.");
+        }
+        if (diff.getPatterns() != null && diff.isSearchDirsChanged()) {
+            summary.append("\nAchtung: Die Scans verwenden unterschiedliche Suchpfade.");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package com.configmaster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Strukturbewusster Vergleich zweier .chr-Dateien.
+ * Die Abschnitte beider Dateien werden über ihren Pfad zugeordnet. Abschnitte mit gleichem
+ * Hashwert gelten ohne weiteren Aufwand als gleich; nur für geänderte Abschnitte wird bei
+ * Bedarf ein Zeilenvergleich nach Myers durchgeführt. Innerhalb eines geänderten Blocks
+ * werden Zeilen mit gleichem Schlüssel nebeneinander dargestellt.
+ */
+public class ChrDiff {
+
+    /**
+     * Status eines Abschnitts im Vergleich.
+     */
+    public enum Status {
+        EQUAL, CHANGED, REMOVED, ADDED
+    }
+
+    /**
+     * Art einer Zeile in der Gegenüberstellung.
+     */
+    public enum RowType {
+        EQUAL, CHANGED, DELETED, INSERTED
+    }
+
+    /**
+     * Eine Zeile der Gegenüberstellung. Ein Index von -1 bedeutet, dass die Seite leer ist.
+     */
+    public static class Row {
+        private final RowType type;
+        private final int leftIndex;
+        private final int rightIndex;
+
+        Row(RowType type, int leftIndex, int rightIndex) {
+            this.type = type;
+            this.leftIndex = leftIndex;
+            this.rightIndex = rightIndex;
+        }
+
+        public RowType getType() {
+            return type;
+        }
+
+        public int getLeftIndex() {
+            return leftIndex;
+        }
+
+        public int getRightIndex() {
+            return rightIndex;
+        }
+    }
+
+    /**
+     * Vergleich eines einzelnen Abschnitts. Die Zeilen werden erst beim ersten Zugriff verglichen.
+     */
+    public class SectionDiff {
+        private final String path;
+        private final ChrDocument.Section left;
+        private final ChrDocument.Section right;
+        private final Status status;
+        private List<Row> rows;
+
+        SectionDiff(String path, ChrDocument.Section left, ChrDocument.Section right) {
+            this.path = path;
+            this.left = left;
+            this.right = right;
+            if (left == null) {
+                status = Status.ADDED;
+            } else if (right == null) {
+                status = Status.REMOVED;
+            } else if (left.getHash() == right.getHash()
+                    && Arrays.equals(leftDocument.getLineIds(left), rightDocument.getLineIds(right))) {
+                status = Status.EQUAL;
+            } else {
+                status = Status.CHANGED;
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gibt die Zeilen der Gegenüberstellung zurück und berechnet sie beim ersten Aufruf.
+         *
+         * @return Die Zeilen der Gegenüberstellung
+         */
+        public List<Row> getRows() {
+            if (rows == null) {
+                rows = computeRows(left, right);
+            }
+            return rows;
+        }
+    }
+
+    private final ChrDocument leftDocument;
+    private final ChrDocument rightDocument;
+    private final List<SectionDiff> sectionDiffs = new ArrayList<>();
+
+    /**
+     * Erstellt einen Vergleich zweier .chr-Dateien. Beide Dokumente müssen mit derselben
+     * Zeilen-ID-Tabelle eingelesen worden sein.
+     *
+     * @param leftDocument Die linke Datei
+     * @param rightDocument Die rechte Datei
+     */
+    public ChrDiff(ChrDocument leftDocument, ChrDocument rightDocument) {
+        this.leftDocument = leftDocument;
+        this.rightDocument = rightDocument;
+
+        // Abschnitte in der Reihenfolge der linken Datei, danach neue Abschnitte der rechten Datei
+        Map<String, ChrDocument.Section> remaining = new LinkedHashMap<>(rightDocument.getSections());
+        for (ChrDocument.Section left : leftDocument.getSections().values()) {
+            ChrDocument.Section right = remaining.remove(left.getPath());
+            sectionDiffs.add(new SectionDiff(left.getPath(), left, right));
+        }
+        for (ChrDocument.Section right : remaining.values()) {
+            sectionDiffs.add(new SectionDiff(right.getPath(), null, right));
+        }
+    }
+
+    /**
+     * Liest zwei Dateien ein und vergleicht sie.
+     *
+     * @param leftPath Der Pfad der linken Datei
+     * @param rightPath Der Pfad der rechten Datei
+     * @return Der Vergleich
+     * @throws IOException Wenn eine der Dateien nicht gelesen werden kann
+     */
+    public static ChrDiff compare(String leftPath, String rightPath) throws IOException {
+        Map<String, Integer> lineIdTable = new HashMap<>();
+        ChrDocument left = new ChrDocument(ConfigFileContent.read(leftPath).getLines(), lineIdTable);
+        ChrDocument right = new ChrDocument(ConfigFileContent.read(rightPath).getLines(), lineIdTable);
+        return new ChrDiff(left, right);
+    }
+
+    /**
+     * Gibt die Vergleiche aller Abschnitte zurück.
+     *
+     * @return Die Abschnittsvergleiche
+     */
+    public List<SectionDiff> getSectionDiffs() {
+        return sectionDiffs;
+    }
+
+    public ChrDocument getLeftDocument() {
+        return leftDocument;
+    }
+
+    public ChrDocument getRightDocument() {
+        return rightDocument;
+    }
+
+    /**
+     * Berechnet die Gegenüberstellung der Zeilen zweier Abschnitte.
+     */
+    private List<Row> computeRows(ChrDocument.Section left, ChrDocument.Section right) {
+        List<Integer> leftLines = left != null ? left.getLineIndexes() : new ArrayList<>();
+        List<Integer> rightLines = right != null ? right.getLineIndexes() : new ArrayList<>();
+        int[] leftIds = left != null ? leftDocument.getLineIds(left) : new int[0];
+        int[] rightIds = right != null ? rightDocument.getLineIds(right) : new int[0];
+
+        MyersDiff.Result result = MyersDiff.diff(leftIds, rightIds);
+        List<Row> rows = new ArrayList<>();
+
+        int i = 0;
+        int j = 0;
+        while (i < leftIds.length || j < rightIds.length) {
+            if (i < leftIds.length && j < rightIds.length && !result.isDeleted(i) && !result.isInserted(j)) {
+                rows.add(new Row(RowType.EQUAL, leftLines.get(i), rightLines.get(j)));
+                i++;
+                j++;
+                continue;
+            }
+
+            // Zusammenhängenden Änderungsblock sammeln
+            List<Integer> deletedBlock = new ArrayList<>();
+            List<Integer> insertedBlock = new ArrayList<>();
+            while (i < leftIds.length && result.isDeleted(i)) {
+                deletedBlock.add(leftLines.get(i++));
+            }
+            while (j < rightIds.length && result.isInserted(j)) {
+                insertedBlock.add(rightLines.get(j++));
+            }
+            addChangeBlock(rows, deletedBlock, insertedBlock);
+        }
+        return rows;
+    }
+
+    /**
+     * Stellt einen Änderungsblock dar. Zeilen mit gleichem Schlüssel werden als geänderte
+     * Werte nebeneinander gezeigt, die übrigen als gelöscht bzw. eingefügt.
+     */
+    private void addChangeBlock(List<Row> rows, List<Integer> deletedBlock, List<Integer> insertedBlock) {
+        Map<String, Integer> insertedByKey = new HashMap<>();
+        for (int index : insertedBlock) {
+            String key = ChrDocument.keyOf(rightDocument.getLine(index));
+            if (key != null) {
+                insertedByKey.putIfAbsent(key, index);
+            }
+        }
+
+        Set<Integer> pairedRight = new HashSet<>();
+        for (int leftIndex : deletedBlock) {
+            String key = ChrDocument.keyOf(leftDocument.getLine(leftIndex));
+            Integer rightIndex = key != null ? insertedByKey.remove(key) : null;
+            if (rightIndex != null) {
+                rows.add(new Row(RowType.CHANGED, leftIndex, rightIndex));
+                pairedRight.add(rightIndex);
+            } else {
+                rows.add(new Row(RowType.DELETED, leftIndex, -1));
+            }
+        }
+        for (int rightIndex : insertedBlock) {
+            if (!pairedRight.contains(rightIndex)) {
+                rows.add(new Row(RowType.INSERTED, -1, rightIndex));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.configmaster;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strukturierte Sicht auf eine .chr-Datei.
+ * Eine .chr-Datei besteht aus verschachtelten Abschnitten wie {@code <chart>}, {@code <window>}
+ * und {@code <indicator>}, die jeweils key=value-Zeilen enthalten. Jeder Abschnitt erhält einen
+ * eindeutigen Pfad (z.B. "chart/window[1]/indicator[0]"), über den gleiche Abschnitte zweier
+ * Dateien einander zugeordnet werden. Die Zeilen werden beim Einlesen auf ganzzahlige IDs
+ * abgebildet und pro Abschnitt zu einem Hashwert verdichtet, sodass unveränderte Abschnitte
+ * ohne Zeilenvergleich erkannt werden.
+ */
+public class ChrDocument {
+
+    private final String[] lines;
+    private final int[] lineIds;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+
+    /**
+     * Ein Abschnitt der Datei mit den Indizes seiner eigenen Zeilen.
+     * Zeilen verschachtelter Abschnitte gehören zum jeweiligen Unterabschnitt.
+     */
+    public static class Section {
+        private final String path;
+        private final List<Integer> lineIndexes = new ArrayList<>();
+        private long hash = 1;
+
+        Section(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Gibt den Pfad des Abschnitts zurück.
+         *
+         * @return Der Pfad, z.B. "chart/window[0]"
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Gibt die Indizes der Zeilen dieses Abschnitts in der Datei zurück.
+         *
+         * @return Die Zeilenindizes
+         */
+        public List<Integer> getLineIndexes() {
+            return lineIndexes;
+        }
+
+        /**
+         * Gibt den Hashwert über alle Zeilen-IDs des Abschnitts zurück.
+         *
+         * @return Der Hashwert
+         */
+        public long getHash() {
+            return hash;
+        }
+    }
+
+    /**
+     * Zerlegt die Zeilen einer .chr-Datei in Abschnitte.
+     *
+     * @param lines Die Zeilen der Datei
+     * @param lineIdTable Gemeinsame Tabelle, die gleichen Zeilen dieselbe ID zuordnet
+     */
+    public ChrDocument(String[] lines, Map<String, Integer> lineIdTable) {
+        this.lines = lines;
+        this.lineIds = new int[lines.length];
+
+        Deque<Section> stack = new ArrayDeque<>();
+        Deque<Map<String, Integer>> childCounters = new ArrayDeque<>();
+        Section root = new Section("");
+        sections.put(root.getPath(), root);
+        stack.push(root);
+        childCounters.push(new HashMap<>());
+
+        for (int i = 0; i < lines.length; i++) {
+            Integer id = lineIdTable.get(lines[i]);
+            if (id == null) {
+                id = lineIdTable.size();
+                lineIdTable.put(lines[i], id);
+            }
+            lineIds[i] = id;
+
+            String trimmed = lines[i].trim();
+            if (trimmed.startsWith("</") && trimmed.endsWith(">")) {
+                // Abschnittsende: zum übergeordneten Abschnitt zurückkehren
+                if (stack.size() > 1) {
+                    stack.pop();
+                    childCounters.pop();
+                }
+                continue;
+            }
+            if (trimmed.startsWith("<") && trimmed.endsWith(">") && trimmed.length() > 2) {
+                // Abschnittsanfang: Pfad aus Tag-Name und laufender Nummer bilden
+                String tag = trimmed.substring(1, trimmed.length() - 1);
+                Map<String, Integer> counters = childCounters.peek();
+                int ordinal = counters.merge(tag, 1, Integer::sum) - 1;
+                String parentPath = stack.peek().getPath();
+                String path = (parentPath.isEmpty() ? "" : parentPath + "/") + tag + "[" + ordinal + "]";
+                Section section = new Section(path);
+                sections.put(path, section);
+                stack.push(section);
+                childCounters.push(new HashMap<>());
+                continue;
+            }
+
+            Section current = stack.peek();
+            current.lineIndexes.add(i);
+            current.hash = current.hash * 1_000_003L + id;
+        }
+    }
+
+    /**
+     * Gibt alle Abschnitte in Dateireihenfolge zurück.
+     *
+     * @return Die Abschnitte, nach Pfad indiziert
+     */
+    public Map<String, Section> getSections() {
+        return sections;
+    }
+
+    /**
+     * Gibt den Text einer Zeile zurück.
+     *
+     * @param index Der Zeilenindex
+     * @return Der Zeilentext
+     */
+    public String getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Gibt die IDs der Zeilen eines Abschnitts in Dateireihenfolge zurück.
+     *
+     * @param section Der Abschnitt
+     * @return Die Zeilen-IDs
+     */
+    public int[] getLineIds(Section section) {
+        List<Integer> indexes = section.getLineIndexes();
+        int[] ids = new int[indexes.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = lineIds[indexes.get(i)];
+        }
+        return ids;
+    }
+
+    /**
+     * Gibt den Schlüssel einer key=value-Zeile zurück.
+     *
+     * @param line Die Zeile
+     * @return Der Schlüssel oder null, wenn die Zeile kein Gleichheitszeichen enthält
+     */
+    public static String keyOf(String line) {
+        int separator = line.indexOf('=');
+        return separator > 0 ? line.substring(0, separator).trim() : null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.configmaster;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Fenster mit Gruppen ähnlicher Konfigurationsdateien.
+ * Der Ähnlichkeitsschwellwert kann angepasst werden; die Signaturen werden dabei nicht neu
+ * berechnet, sondern nur die Gruppierung.
+ */
+public class ClusterDialog {
+
+    private final SimilarityClusterer clusterer = new SimilarityClusterer();
+    private final ConfigFileViewer configFileViewer;
+
+    private Shell shell;
+    private Spinner thresholdSpinner;
+    private Label summaryLabel;
+    private Tree tree;
+    private SimilarityClusterer.SignatureSet signatureSet;
+
+    /**
+     * Erstellt einen neuen ClusterDialog.
+     *
+     * @param configFileViewer Der Viewer zum Öffnen einzelner Dateien
+     */
+    public ClusterDialog(ConfigFileViewer configFileViewer) {
+        this.configFileViewer = configFileViewer;
+    }
+
+    /**
+     * Öffnet das Fenster für die angegebenen Signaturen.
+     *
+     * @param parentShell Das Elternfenster
+     * @param signatureSet Die vorab berechneten Signaturen
+     */
+    public void open(Shell parentShell, SimilarityClusterer.SignatureSet signatureSet) {
+        this.signatureSet = signatureSet;
+
+        shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Ähnliche Konfigurationsdateien");
+        shell.setSize(800, 500);
+        GridLayout layout = new GridLayout(3, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        Label thresholdLabel = new Label(shell, SWT.NONE);
+        thresholdLabel.setText("Mindestähnlichkeit (%):");
+
+        thresholdSpinner = new Spinner(shell, SWT.BORDER);
+        thresholdSpinner.setValues(80, 30, 100, 0, 5, 10);
+
+        Button applyButton = new Button(shell, SWT.PUSH);
+        applyButton.setText("Neu gruppieren");
+        applyButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                updateClusters();
+            }
+        });
+
+        summaryLabel = new Label(shell, SWT.NONE);
+        GridData summaryData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+        summaryData.horizontalSpan = 3;
+        summaryLabel.setLayoutData(summaryData);
+
+        tree = new Tree(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+        tree.setHeaderVisible(true);
+        tree.setLinesVisible(true);
+        GridData treeData = new GridData(SWT.FILL, SWT.FILL, true, true);
+        treeData.horizontalSpan = 3;
+        tree.setLayoutData(treeData);
+
+        TreeColumn pathColumn = new TreeColumn(tree, SWT.NONE);
+        pathColumn.setText("Datei");
+        pathColumn.setWidth(640);
+        TreeColumn similarityColumn = new TreeColumn(tree, SWT.NONE);
+        similarityColumn.setText("Ähnlichkeit");
+        similarityColumn.setWidth(100);
+
+        // Doppelklick öffnet die Datei im Viewer
+        tree.addListener(SWT.MouseDoubleClick, event -> {
+            TreeItem[] selection = tree.getSelection();
+            if (selection.length > 0 && selection[0].getData() instanceof String) {
+                configFileViewer.viewConfigFile(shell, (String) selection[0].getData());
+            }
+        });
+
+        updateClusters();
+        shell.open();
+    }
+
+    /**
+     * Gruppiert die Dateien mit dem eingestellten Schwellwert und zeigt die Gruppen an.
+     */
+    private void updateClusters() {
+        double threshold = thresholdSpinner.getSelection() / 100.0;
+        AtomicReference<List<SimilarityClusterer.Cluster>> result = new AtomicReference<>();
+        BusyIndicator.showWhile(shell.getDisplay(), () -> result.set(clusterer.cluster(signatureSet, threshold)));
+        List<SimilarityClusterer.Cluster> clusters = result.get();
+
+        tree.setRedraw(false);
+        tree.removeAll();
+        int clusteredFiles = 0;
+        for (SimilarityClusterer.Cluster cluster : clusters) {
+            clusteredFiles += cluster.getPaths().size();
+            TreeItem clusterItem = new TreeItem(tree, SWT.NONE);
+            clusterItem.setText(0, cluster.getPaths().size() + " ähnliche Dateien");
+            for (int i = 0; i < cluster.getPaths().size(); i++) {
+                TreeItem fileItem = new TreeItem(clusterItem, SWT.NONE);
+                fileItem.setText(new String[] {
+                    cluster.getPaths().get(i),
+                    String.format("%.0f %%", cluster.getSimilarity(i) * 100)
+                });
+                fileItem.setData(cluster.getPaths().get(i));
+            }
+        }
+        tree.setRedraw(true);
+
+        summaryLabel.setText(String.format("%d Gruppen mit %d von %d Dateien",
+                clusters.size(), clusteredFiles, signatureSet.size()));
+    }
+}
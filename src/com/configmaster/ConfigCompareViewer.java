@@ -0,0 +1,244 @@
+package com.configmaster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Fenster zum Vergleich von zwei oder mehr .chr-Dateien.
+ * Die erste Datei dient als Referenz, mit der jeweils eine der übrigen Dateien verglichen wird.
+ * Links werden die Abschnitte mit ihrem Vergleichsstatus aufgelistet, rechts die Zeilen des
+ * ausgewählten Abschnitts nebeneinander. Der Zeilenvergleich eines Abschnitts wird erst
+ * berechnet, wenn der Abschnitt ausgewählt wird.
+ */
+public class ConfigCompareViewer {
+
+    private static final Logger logger = LogManager.getLogger(ConfigCompareViewer.class);
+
+    private static final Color COLOR_CHANGED = new Color(255, 240, 180);
+    private static final Color COLOR_DELETED = new Color(255, 210, 210);
+    private static final Color COLOR_INSERTED = new Color(210, 255, 210);
+
+    private Shell shell;
+    private Combo partnerCombo;
+    private Button onlyDifferencesButton;
+    private Table sectionTable;
+    private Table lineTable;
+
+    private List<String> filePaths;
+    private ChrDiff currentDiff;
+    private List<ChrDiff.SectionDiff> visibleSections = new ArrayList<>();
+
+    /**
+     * Öffnet das Vergleichsfenster für die angegebenen Dateien.
+     *
+     * @param parentShell Das Elternfenster
+     * @param filePaths Die Pfade der zu vergleichenden Dateien (mindestens zwei)
+     */
+    public void compareConfigFiles(Shell parentShell, List<String> filePaths) {
+        this.filePaths = filePaths;
+
+        shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Dateivergleich - " + filePaths.get(0));
+        shell.setSize(1000, 600);
+        shell.setLayout(new GridLayout(3, false));
+
+        Label partnerLabel = new Label(shell, SWT.NONE);
+        partnerLabel.setText("Vergleichen mit:");
+
+        partnerCombo = new Combo(shell, SWT.READ_ONLY);
+        partnerCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        for (int i = 1; i < filePaths.size(); i++) {
+            partnerCombo.add(filePaths.get(i));
+        }
+        partnerCombo.select(0);
+        partnerCombo.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                loadComparison();
+            }
+        });
+
+        onlyDifferencesButton = new Button(shell, SWT.CHECK);
+        onlyDifferencesButton.setText("Nur Unterschiede");
+        onlyDifferencesButton.setSelection(true);
+        onlyDifferencesButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                updateSectionTable();
+            }
+        });
+
+        SashForm sashForm = new SashForm(shell, SWT.HORIZONTAL);
+        GridData sashData = new GridData(SWT.FILL, SWT.FILL, true, true);
+        sashData.horizontalSpan = 3;
+        sashForm.setLayoutData(sashData);
+
+        // Abschnittsliste
+        sectionTable = new Table(sashForm, SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE);
+        sectionTable.setHeaderVisible(true);
+        TableColumn sectionColumn = new TableColumn(sectionTable, SWT.NONE);
+        sectionColumn.setText("Abschnitt");
+        sectionColumn.setWidth(180);
+        TableColumn statusColumn = new TableColumn(sectionTable, SWT.NONE);
+        statusColumn.setText("Status");
+        statusColumn.setWidth(80);
+        sectionTable.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                int index = sectionTable.getSelectionIndex();
+                if (index >= 0) {
+                    showSection(visibleSections.get(index));
+                }
+            }
+        });
+
+        // Zeilengegenüberstellung
+        lineTable = new Table(sashForm, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+        lineTable.setHeaderVisible(true);
+        lineTable.setLinesVisible(true);
+        String[] titles = { "Zeile", "Referenz", "Zeile", "Vergleich" };
+        int[] widths = { 50, 300, 50, 300 };
+        for (int i = 0; i < titles.length; i++) {
+            TableColumn column = new TableColumn(lineTable, SWT.NONE);
+            column.setText(titles[i]);
+            column.setWidth(widths[i]);
+        }
+
+        sashForm.setWeights(new int[] { 1, 3 });
+
+        loadComparison();
+        shell.open();
+    }
+
+    /**
+     * Vergleicht die Referenzdatei mit der aktuell ausgewählten Vergleichsdatei.
+     */
+    private void loadComparison() {
+        String leftPath = filePaths.get(0);
+        String rightPath = filePaths.get(partnerCombo.getSelectionIndex() + 1);
+        logger.info("Vergleiche {} mit {}", leftPath, rightPath);
+
+        try {
+            long start = System.currentTimeMillis();
+            currentDiff = ChrDiff.compare(leftPath, rightPath);
+            logger.info("Abschnitte verglichen in {} ms", System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der Dateien: {}", e.getMessage(), e);
+            currentDiff = null;
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler beim Lesen der Dateien: " + e.getMessage());
+            messageBox.open();
+        }
+        updateSectionTable();
+    }
+
+    /**
+     * Füllt die Abschnittsliste und zeigt den ersten Abschnitt an.
+     */
+    private void updateSectionTable() {
+        sectionTable.removeAll();
+        lineTable.removeAll();
+        visibleSections.clear();
+        if (currentDiff == null) {
+            return;
+        }
+
+        boolean onlyDifferences = onlyDifferencesButton.getSelection();
+        for (ChrDiff.SectionDiff sectionDiff : currentDiff.getSectionDiffs()) {
+            if (onlyDifferences && sectionDiff.getStatus() == ChrDiff.Status.EQUAL) {
+                continue;
+            }
+            visibleSections.add(sectionDiff);
+            TableItem item = new TableItem(sectionTable, SWT.NONE);
+            String path = sectionDiff.getPath().isEmpty() ? "(Dateianfang)" : sectionDiff.getPath();
+            item.setText(new String[] { path, statusText(sectionDiff.getStatus()) });
+            item.setBackground(statusColor(sectionDiff.getStatus()));
+        }
+
+        if (!visibleSections.isEmpty()) {
+            sectionTable.select(0);
+            showSection(visibleSections.get(0));
+        }
+    }
+
+    /**
+     * Zeigt die Zeilengegenüberstellung eines Abschnitts an.
+     *
+     * @param sectionDiff Der anzuzeigende Abschnitt
+     */
+    private void showSection(ChrDiff.SectionDiff sectionDiff) {
+        lineTable.setRedraw(false);
+        lineTable.removeAll();
+        for (ChrDiff.Row row : sectionDiff.getRows()) {
+            TableItem item = new TableItem(lineTable, SWT.NONE);
+            int left = row.getLeftIndex();
+            int right = row.getRightIndex();
+            item.setText(new String[] {
+                left >= 0 ? String.valueOf(left + 1) : "",
+                left >= 0 ? currentDiff.getLeftDocument().getLine(left) : "",
+                right >= 0 ? String.valueOf(right + 1) : "",
+                right >= 0 ? currentDiff.getRightDocument().getLine(right) : ""
+            });
+            switch (row.getType()) {
+                case CHANGED:
+                    item.setBackground(COLOR_CHANGED);
+                    break;
+                case DELETED:
+                    item.setBackground(COLOR_DELETED);
+                    break;
+                case INSERTED:
+                    item.setBackground(COLOR_INSERTED);
+                    break;
+                default:
+                    break;
+            }
+        }
+        lineTable.setRedraw(true);
+    }
+
+    private static String statusText(ChrDiff.Status status) {
+        switch (status) {
+            case CHANGED:
+                return "geändert";
+            case REMOVED:
+                return "entfernt";
+            case ADDED:
+                return "neu";
+            default:
+                return "gleich";
+        }
+    }
+
+    private static Color statusColor(ChrDiff.Status status) {
+        switch (status) {
+            case CHANGED:
+                return COLOR_CHANGED;
+            case REMOVED:
+                return COLOR_DELETED;
+            case ADDED:
+                return COLOR_INSERTED;
+            default:
+                return null;
+        }
+    }
+}
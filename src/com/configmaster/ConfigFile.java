@@ -2,11 +2,12 @@ package com.configmaster;
 
 /**
  * Repräsentiert eine Konfigurationsdatei im ConfigMaster-System.
- * Speichert den Namen und den Pfad der Datei.
+ * Speichert den Namen und den Pfad der Datei sowie das Suchverzeichnis, in dem sie gefunden wurde.
  */
 public class ConfigFile {
     private String name;
     private String path;
+    private String root;
     
     /**
      * Erstellt ein neues ConfigFile-Objekt.
@@ -15,8 +16,20 @@ public class ConfigFile {
      * @param path Der absolute Pfad zur Konfigurationsdatei
      */
     public ConfigFile(String name, String path) {
+        this(name, path, "");
+    }
+    
+    /**
+     * Erstellt ein neues ConfigFile-Objekt mit Angabe des Suchverzeichnisses.
+     * 
+     * @param name Der Name der Konfigurationsdatei
+     * @param path Der absolute Pfad zur Konfigurationsdatei
+     * @param root Das Suchverzeichnis, in dem die Datei gefunden wurde
+     */
+    public ConfigFile(String name, String path, String root) {
         this.name = name;
         this.path = path;
+        this.root = root;
     }
     
     /**
@@ -54,4 +67,22 @@ public class ConfigFile {
     public void setPath(String path) {
         this.path = path;
     }
+    
+    /**
+     * Gibt das Suchverzeichnis zurück, in dem die Datei gefunden wurde.
+     * 
+     * @return Das Suchverzeichnis
+     */
+    public String getRoot() {
+        return root;
+    }
+    
+    /**
+     * Setzt das Suchverzeichnis, in dem die Datei gefunden wurde.
+     * 
+     * @param root Das neue Suchverzeichnis
+     */
+    public void setRoot(String root) {
+        this.root = root;
+    }
 }
\ No newline at end of file
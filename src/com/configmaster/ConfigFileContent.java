@@ -0,0 +1,244 @@
+package com.configmaster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dekodierter Inhalt einer Konfigurationsdatei.
+ * Merkt sich neben dem Text die erkannte Codierung und ob die Datei mit einer
+ * Byte-Order-Mark (BOM) beginnt, damit die Datei später unverändert zurückgeschrieben werden kann.
+ */
+public class ConfigFileContent {
+
+    private final Charset charset;
+    private final int bomLength;
+    private final String text;
+
+    /**
+     * Erstellt einen neuen dekodierten Dateiinhalt.
+     *
+     * @param charset Die erkannte Codierung
+     * @param bomLength Die Länge der Byte-Order-Mark in Bytes (0, wenn keine vorhanden ist)
+     * @param text Der dekodierte Text ohne BOM
+     */
+    public ConfigFileContent(Charset charset, int bomLength, String text) {
+        this.charset = charset;
+        this.bomLength = bomLength;
+        this.text = text;
+    }
+
+    /**
+     * Liest eine Datei oder einen Archiveintrag und dekodiert sie mit der erkannten Codierung.
+     *
+     * @param filePath Der Pfad zur Datei oder zum Archiveintrag
+     * @return Der dekodierte Dateiinhalt
+     * @throws IOException Wenn ein Fehler beim Lesen der Datei auftritt
+     */
+    public static ConfigFileContent read(String filePath) throws IOException {
+        return decode(ArchivePaths.readAllBytes(filePath));
+    }
+
+    /**
+     * Dekodiert die Bytes einer Datei mit der erkannten Codierung.
+     *
+     * @param bytes Die Bytes der Datei
+     * @return Der dekodierte Dateiinhalt
+     */
+    public static ConfigFileContent decode(byte[] bytes) {
+        Charset charset = detectCharset(bytes);
+        int bomLength = detectBomLength(bytes);
+        String text = new String(bytes, bomLength, bytes.length - bomLength, charset);
+        return new ConfigFileContent(charset, bomLength, text);
+    }
+
+    /**
+     * Kodiert einen Text wieder mit der Codierung und BOM dieses Inhalts.
+     *
+     * @param newText Der zu kodierende Text
+     * @return Die Bytes inklusive der ursprünglichen BOM
+     */
+    public byte[] encode(String newText) {
+        byte[] body = newText.getBytes(charset);
+        byte[] bom = bomBytes();
+        byte[] result = new byte[bom.length + body.length];
+        System.arraycopy(bom, 0, result, 0, bom.length);
+        System.arraycopy(body, 0, result, bom.length, body.length);
+        return result;
+    }
+
+    /**
+     * Gibt die erkannte Codierung zurück.
+     *
+     * @return Die Codierung
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Gibt zurück, ob die Datei mit einer Byte-Order-Mark beginnt.
+     *
+     * @return true, wenn eine BOM vorhanden ist
+     */
+    public boolean hasBom() {
+        return bomLength > 0;
+    }
+
+    /**
+     * Gibt den dekodierten Text ohne BOM zurück.
+     *
+     * @return Der Text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Zerlegt den Text in Zeilen. Zeilenenden (\n oder \r\n) werden entfernt.
+     *
+     * @return Die Zeilen des Textes
+     */
+    public String[] getLines() {
+        return text.split("\r?\n", -1);
+    }
+
+    /**
+     * Liefert die Bytes der BOM passend zur Codierung.
+     *
+     * @return Die BOM-Bytes oder ein leeres Array, wenn keine BOM vorhanden war
+     */
+    private byte[] bomBytes() {
+        if (bomLength == 0) {
+            return new byte[0];
+        }
+        if (StandardCharsets.UTF_16BE.equals(charset)) {
+            return new byte[] { (byte)0xFE, (byte)0xFF };
+        }
+        if (StandardCharsets.UTF_16LE.equals(charset)) {
+            return new byte[] { (byte)0xFF, (byte)0xFE };
+        }
+        return new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+    }
+
+    /**
+     * Ermittelt die Länge der Byte-Order-Mark am Dateianfang.
+     *
+     * @param bytes Die Bytes der Datei
+     * @return Die Länge der BOM in Bytes oder 0
+     */
+    private static int detectBomLength(byte[] bytes) {
+        if (bytes.length >= 3 && bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB && bytes[2] == (byte)0xBF) {
+            return 3;
+        }
+        if (bytes.length >= 2 && ((bytes[0] == (byte)0xFE && bytes[1] == (byte)0xFF)
+                || (bytes[0] == (byte)0xFF && bytes[1] == (byte)0xFE))) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Erkennt die Codierung einer Datei anhand der Byte-Order-Mark (BOM) oder
+     * durch Testen verschiedener Codierungen.
+     *
+     * @param bytes Die Bytes der Datei
+     * @return Die erkannte Codierung
+     */
+    public static Charset detectCharset(byte[] bytes) {
+        // BOM-basierte Erkennung
+        if (bytes.length >= 3 && bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB && bytes[2] == (byte)0xBF) {
+            return StandardCharsets.UTF_8;
+        } else if (bytes.length >= 2 && bytes[0] == (byte)0xFE && bytes[1] == (byte)0xFF) {
+            return StandardCharsets.UTF_16BE;
+        } else if (bytes.length >= 2 && bytes[0] == (byte)0xFF && bytes[1] == (byte)0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        // Keine BOM gefunden: UTF-16 ohne BOM an den Nullbytes der ASCII-Zeichen erkennen
+        Charset utf16 = detectUtf16WithoutBom(bytes);
+        if (utf16 != null) {
+            return utf16;
+        }
+
+        // Versuche verschiedene Codierungen
+        if (isValidUTF8(bytes)) {
+            return StandardCharsets.UTF_8;
+        }
+
+        if (isValidEncoding(bytes, StandardCharsets.UTF_16LE)) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        if (isValidEncoding(bytes, StandardCharsets.UTF_16BE)) {
+            return StandardCharsets.UTF_16BE;
+        }
+
+        // Fallback: Wenn keine spezifische Codierung erkannt wurde, verwende ISO-8859-1 (Latin-1)
+        // Dies ist eine 8-Bit-Codierung, die alle möglichen Byte-Werte abdeckt
+        return StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * Erkennt UTF-16 ohne BOM. Bei überwiegend ASCII-Text ist in UTF-16LE jedes zweite Byte
+     * (ungerade Position) und in UTF-16BE jedes erste Byte (gerade Position) ein Nullbyte.
+     * Ohne diese Prüfung würde solcher Text als gültiges UTF-8 mit Nullzeichen erkannt.
+     *
+     * @param bytes Die zu überprüfenden Bytes
+     * @return UTF-16LE, UTF-16BE oder null, wenn kein UTF-16 erkannt wurde
+     */
+    private static Charset detectUtf16WithoutBom(byte[] bytes) {
+        int sample = Math.min(bytes.length, 4096) & ~1;
+        if (sample < 4) {
+            return null;
+        }
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < sample; i += 2) {
+            if (bytes[i] == 0) {
+                evenZeros++;
+            }
+            if (bytes[i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        int pairs = sample / 2;
+        if (oddZeros > pairs * 0.6 && evenZeros < pairs * 0.1) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (evenZeros > pairs * 0.6 && oddZeros < pairs * 0.1) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * Überprüft, ob die Bytes in UTF-8 codiert sind.
+     *
+     * @param bytes Die zu überprüfenden Bytes
+     * @return true, wenn die Bytes in UTF-8 codiert sind
+     */
+    private static boolean isValidUTF8(byte[] bytes) {
+        return isValidEncoding(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Überprüft, ob die Bytes in der angegebenen Codierung codiert sind.
+     *
+     * @param bytes Die zu überprüfenden Bytes
+     * @param charset Die zu testende Codierung
+     * @return true, wenn die Bytes in der angegebenen Codierung codiert sind
+     */
+    private static boolean isValidEncoding(byte[] bytes, Charset charset) {
+        try {
+            CharsetDecoder decoder = charset.newDecoder();
+            decoder.decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
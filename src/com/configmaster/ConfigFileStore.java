@@ -0,0 +1,842 @@
+package com.configmaster;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Speicherplatzsparende Ergebnisliste für sehr viele gefundene Konfigurationsdateien.
+ * Statt für jedes Ergebnis einen vollständigen Pfad-String zu halten, werden die Verzeichnisse
+ * in einer Elterntabelle (Pfad-Trie) nur einmal gespeichert. Jedes Verzeichnis ist ein Segment
+ * inklusive seines abschließenden Trennzeichens ("C:\", "forex\", "profiles.zip!") mit einem
+ * Verweis auf das übergeordnete Verzeichnis. Alle Segmente und Dateinamen liegen in einem
+ * gemeinsamen char-Array.
+ *
+ * Zu jeder Datei werden spaltenweise in primitiven Arrays die beim Scan ermittelten Metadaten
+ * gehalten (Größe, Änderungszeit, Codierung, Trefferzahl, gefundene Suchmuster, Scandauer).
+ * Dadurch kann nach diesen Spalten sortiert werden, ohne das Dateisystem erneut zu lesen.
+ *
+ * Die {@link ConfigFile}-Objekte werden erst beim Zugriff über {@link #get(int)} erzeugt. Es
+ * handelt sich um Kopien; Änderungen daran wirken nicht auf die Liste zurück.
+ */
+public class ConfigFileStore extends AbstractList<ConfigFile> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_PARENT = -1;
+
+    /** Höchstzahl der Suchmuster, die einzeln in der Mustermaske erfasst werden. */
+    public static final int MAX_PATTERN_IDS = 64;
+
+    /**
+     * Spalten, nach denen die Liste sortiert werden kann.
+     */
+    public enum Column {
+        NAME, PATH, ROOT, SIZE, MODIFIED, ENCODING, MATCHES, PATTERNS, SCAN_TIME
+    }
+
+    /**
+     * Beim Scan ermittelte Metadaten einer Datei.
+     */
+    public static class Metadata {
+        private final long size;
+        private final long lastModified;
+        private final Charset charset;
+        private final int matchCount;
+        private final long patternMask;
+        private final long scanNanos;
+
+        /**
+         * Erstellt neue Metadaten.
+         *
+         * @param size Die Dateigröße in Bytes
+         * @param lastModified Die Änderungszeit in Millisekunden
+         * @param charset Die erkannte Codierung oder null
+         * @param matchCount Die Anzahl aller Treffer der Suchmuster
+         * @param patternMask Bitmaske der gefundenen Suchmuster (Bit i für Muster i)
+         * @param scanNanos Die Dauer von Lesen und Durchsuchen in Nanosekunden
+         */
+        public Metadata(long size, long lastModified, Charset charset, int matchCount, long patternMask,
+                long scanNanos) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.charset = charset;
+            this.matchCount = matchCount;
+            this.patternMask = patternMask;
+            this.scanNanos = scanNanos;
+        }
+
+        /**
+         * Gibt die Änderungszeit zurück.
+         *
+         * @return Die Änderungszeit in Millisekunden
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        public int getMatchCount() {
+            return matchCount;
+        }
+
+        public long getPatternMask() {
+            return patternMask;
+        }
+
+        public long getScanNanos() {
+            return scanNanos;
+        }
+    }
+
+    // Gemeinsamer Speicher für Verzeichnissegmente und Dateinamen
+    private char[] chars = new char[INITIAL_CAPACITY * 16];
+    private int charCount;
+
+    // Verzeichnisse: Elternverweis und Segment im char-Array
+    private int[] dirParent = new int[INITIAL_CAPACITY];
+    private int[] dirStart = new int[INITIAL_CAPACITY];
+    private char[] dirLength = new char[INITIAL_CAPACITY];
+    private int dirCount;
+
+    // Offene Hashtabelle (Verzeichnis-ID + 1) zum Wiederfinden vorhandener Verzeichnisse
+    private int[] dirTable = new int[INITIAL_CAPACITY * 2];
+
+    // Dateien: Verzeichnis, Name im char-Array und Suchverzeichnis
+    private int[] fileDir = new int[INITIAL_CAPACITY];
+    private int[] fileStart = new int[INITIAL_CAPACITY];
+    private char[] fileLength = new char[INITIAL_CAPACITY];
+    private short[] fileRoot = new short[INITIAL_CAPACITY];
+    private int fileCount;
+
+    // Metadaten der Dateien, eine Spalte pro Eigenschaft
+    private long[] fileSize = new long[INITIAL_CAPACITY];
+    private long[] fileModified = new long[INITIAL_CAPACITY];
+    private byte[] fileCharset = new byte[INITIAL_CAPACITY];
+    private int[] fileMatches = new int[INITIAL_CAPACITY];
+    private long[] filePatterns = new long[INITIAL_CAPACITY];
+    private int[] fileScanMicros = new int[INITIAL_CAPACITY];
+
+    // Suchverzeichnisse, Codierungen und Suchmuster kommen nur wenige vor und werden direkt gehalten
+    private final List<String> roots = new ArrayList<>();
+    private final List<Charset> charsets = new ArrayList<>();
+    private String[] patterns = new String[0];
+
+    /**
+     * Erstellt eine leere Ergebnisliste.
+     */
+    public ConfigFileStore() {
+    }
+
+    /**
+     * Erstellt eine Ergebnisliste mit den Dateien der angegebenen Liste.
+     *
+     * @param configFiles Die zu übernehmenden Dateien
+     */
+    public ConfigFileStore(List<ConfigFile> configFiles) {
+        addAll(configFiles);
+    }
+
+    /**
+     * Fügt eine Datei hinzu. Der Name wird aus dem letzten Segment des Pfads gebildet.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @param root Das Suchverzeichnis, in dem die Datei gefunden wurde
+     */
+    public void add(String path, String root) {
+        add(path, root, null);
+    }
+
+    /**
+     * Fügt eine Datei mit ihren Scan-Metadaten hinzu.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @param root Das Suchverzeichnis, in dem die Datei gefunden wurde
+     * @param metadata Die Metadaten oder null, wenn keine bekannt sind
+     */
+    public synchronized void add(String path, String root, Metadata metadata) {
+        // '!' trennt nur bei echten Archivpfaden, sonst gehört es zum Dateinamen (z.B. EURUSD!H1.chr)
+        boolean archive = path.indexOf('!') >= 0 && ArchivePaths.isArchivePath(path);
+        int nameStart = lastSeparator(path, archive) + 1;
+        int dir = internDirectories(path, nameStart, archive);
+
+        ensureFileCapacity(fileCount + 1);
+        fileDir[fileCount] = dir;
+        fileStart[fileCount] = appendChars(path, nameStart, path.length());
+        fileLength[fileCount] = (char) (path.length() - nameStart);
+        fileRoot[fileCount] = (short) internRoot(root);
+        if (metadata != null) {
+            fileSize[fileCount] = metadata.size;
+            fileModified[fileCount] = metadata.lastModified;
+            fileCharset[fileCount] = (byte) internCharset(metadata.charset);
+            fileMatches[fileCount] = metadata.matchCount;
+            filePatterns[fileCount] = metadata.patternMask;
+            fileScanMicros[fileCount] = (int) Math.min(Integer.MAX_VALUE, metadata.scanNanos / 1000);
+        } else {
+            fileSize[fileCount] = -1;
+            fileModified[fileCount] = 0;
+            fileCharset[fileCount] = -1;
+            fileMatches[fileCount] = 0;
+            filePatterns[fileCount] = 0;
+            fileScanMicros[fileCount] = 0;
+        }
+        fileCount++;
+        modCount++;
+    }
+
+    @Override
+    public boolean add(ConfigFile configFile) {
+        add(configFile.getPath(), configFile.getRoot());
+        return true;
+    }
+
+    /**
+     * Hängt alle Dateien einer anderen Ergebnisliste samt Metadaten an.
+     *
+     * @param other Die anzuhängende Liste
+     */
+    public void addAll(ConfigFileStore other) {
+        int count = other.size();
+        for (int i = 0; i < count; i++) {
+            add(other.getPath(i), other.getRoot(i), other.getMetadata(i));
+        }
+    }
+
+    /**
+     * Erstellt eine neue Ergebnisliste mit den Dateien, deren Position die Bedingung erfüllt.
+     * Reihenfolge, Metadaten und Suchmuster bleiben erhalten.
+     *
+     * @param accept Die Bedingung für die Position in dieser Liste
+     * @return Die gefilterte Liste
+     */
+    public synchronized ConfigFileStore filter(IntPredicate accept) {
+        ConfigFileStore result = new ConfigFileStore();
+        result.patterns = patterns;
+        for (int i = 0; i < fileCount; i++) {
+            if (accept.test(i)) {
+                result.add(getPath(i), getRoot(i), getMetadata(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized ConfigFile get(int index) {
+        checkIndex(index);
+        return new ConfigFile(getName(index), getPath(index), getRoot(index));
+    }
+
+    @Override
+    public synchronized int size() {
+        return fileCount;
+    }
+
+    @Override
+    public synchronized void clear() {
+        charCount = 0;
+        dirCount = 0;
+        Arrays.fill(dirTable, 0);
+        fileCount = 0;
+        roots.clear();
+        charsets.clear();
+        patterns = new String[0];
+        modCount++;
+    }
+
+    /**
+     * Gibt den Dateinamen eines Ergebnisses zurück, ohne ein {@link ConfigFile} zu erzeugen.
+     *
+     * @param index Die Position in der Liste
+     * @return Der Dateiname
+     */
+    public synchronized String getName(int index) {
+        checkIndex(index);
+        return new String(chars, fileStart[index], fileLength[index]);
+    }
+
+    /**
+     * Gibt den vollständigen Pfad eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Der Pfad der Datei
+     */
+    public synchronized String getPath(int index) {
+        checkIndex(index);
+        StringBuilder path = new StringBuilder(64);
+        appendPath(index, path);
+        return path.toString();
+    }
+
+    /**
+     * Gibt das Suchverzeichnis eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Das Suchverzeichnis
+     */
+    public synchronized String getRoot(int index) {
+        checkIndex(index);
+        return roots.get(fileRoot[index]);
+    }
+
+    /**
+     * Gibt die Dateigröße eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Größe in Bytes oder -1, wenn sie nicht bekannt ist
+     */
+    public synchronized long getSize(int index) {
+        checkIndex(index);
+        return fileSize[index];
+    }
+
+    /**
+     * Gibt die Änderungszeit eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Änderungszeit in Millisekunden oder 0, wenn sie nicht bekannt ist
+     */
+    public synchronized long getLastModified(int index) {
+        checkIndex(index);
+        return fileModified[index];
+    }
+
+    /**
+     * Gibt die beim Scan erkannte Codierung eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Codierung oder null, wenn sie nicht bekannt ist
+     */
+    public synchronized Charset getCharset(int index) {
+        checkIndex(index);
+        return fileCharset[index] < 0 ? null : charsets.get(fileCharset[index]);
+    }
+
+    /**
+     * Gibt die Anzahl aller Treffer der Suchmuster in einem Ergebnis zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Trefferzahl
+     */
+    public synchronized int getMatchCount(int index) {
+        checkIndex(index);
+        return fileMatches[index];
+    }
+
+    /**
+     * Gibt die Bitmaske der in einem Ergebnis gefundenen Suchmuster zurück.
+     * Bit i ist gesetzt, wenn Muster i aus {@link #getPatterns()} gefunden wurde.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Bitmaske
+     */
+    public synchronized long getPatternMask(int index) {
+        checkIndex(index);
+        return filePatterns[index];
+    }
+
+    /**
+     * Gibt die in einem Ergebnis gefundenen Suchmuster als komma-getrennte Liste zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die gefundenen Suchmuster
+     */
+    public synchronized String getMatchedPatterns(int index) {
+        checkIndex(index);
+        StringBuilder matched = new StringBuilder();
+        long mask = filePatterns[index];
+        for (int id = 0; id < patterns.length && id < MAX_PATTERN_IDS; id++) {
+            if ((mask & (1L << id)) != 0) {
+                if (matched.length() > 0) {
+                    matched.append(',');
+                }
+                matched.append(patterns[id]);
+            }
+        }
+        return matched.toString();
+    }
+
+    /**
+     * Gibt die Dauer zurück, die Lesen und Durchsuchen eines Ergebnisses gebraucht haben.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Scandauer in Mikrosekunden
+     */
+    public synchronized int getScanMicros(int index) {
+        checkIndex(index);
+        return fileScanMicros[index];
+    }
+
+    /**
+     * Gibt alle Metadaten eines Ergebnisses zurück.
+     *
+     * @param index Die Position in der Liste
+     * @return Die Metadaten
+     */
+    public synchronized Metadata getMetadata(int index) {
+        checkIndex(index);
+        return new Metadata(fileSize[index], fileModified[index], getCharset(index), fileMatches[index],
+                filePatterns[index], fileScanMicros[index] * 1000L);
+    }
+
+    /**
+     * Legt die Suchmuster fest, auf die sich die Mustermasken beziehen.
+     *
+     * @param patterns Die Suchmuster in der Reihenfolge ihrer IDs
+     */
+    public synchronized void setPatterns(String[] patterns) {
+        this.patterns = patterns.clone();
+    }
+
+    /**
+     * Gibt die Suchmuster zurück, auf die sich die Mustermasken beziehen.
+     *
+     * @return Die Suchmuster in der Reihenfolge ihrer IDs
+     */
+    public synchronized String[] getPatterns() {
+        return patterns.clone();
+    }
+
+    /**
+     * Gibt die Anzahl der unterschiedlichen Verzeichnisse zurück.
+     *
+     * @return Die Anzahl der Verzeichnisse
+     */
+    public synchronized int getDirectoryCount() {
+        return dirCount;
+    }
+
+    /**
+     * Sortiert die Ergebnisse nach ihrem vollständigen Pfad.
+     */
+    public void sortByPath() {
+        sort(Column.PATH, true);
+    }
+
+    /**
+     * Sortiert die Ergebnisse nach einer Spalte. Bei gleichen Werten bleibt die bisherige
+     * Reihenfolge erhalten, so dass nacheinander nach mehreren Spalten sortiert werden kann.
+     *
+     * @param column Die Spalte
+     * @param ascending true für aufsteigende, false für absteigende Sortierung
+     */
+    public synchronized void sort(Column column, boolean ascending) {
+        Comparator<Integer> comparator;
+        switch (column) {
+            case NAME:
+                comparator = this::compareNames;
+                break;
+            case PATH:
+                comparator = pathComparator();
+                break;
+            case ROOT:
+                comparator = (left, right) -> roots.get(fileRoot[left]).compareTo(roots.get(fileRoot[right]));
+                break;
+            case SIZE:
+                comparator = (left, right) -> Long.compare(fileSize[left], fileSize[right]);
+                break;
+            case MODIFIED:
+                comparator = (left, right) -> Long.compare(fileModified[left], fileModified[right]);
+                break;
+            case ENCODING:
+                comparator = Comparator.comparing(index -> fileCharset[index] < 0 ? "" : charsets.get(fileCharset[index]).name());
+                break;
+            case MATCHES:
+                comparator = (left, right) -> Integer.compare(fileMatches[left], fileMatches[right]);
+                break;
+            case PATTERNS:
+                comparator = (left, right) -> Long.compareUnsigned(
+                        Long.reverse(filePatterns[left]), Long.reverse(filePatterns[right]));
+                break;
+            case SCAN_TIME:
+                comparator = (left, right) -> Integer.compare(fileScanMicros[left], fileScanMicros[right]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unbekannte Spalte: " + column);
+        }
+        if (!ascending) {
+            comparator = comparator.reversed();
+        }
+
+        Integer[] order = new Integer[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, comparator);
+        applyOrder(order);
+    }
+
+    /**
+     * Erstellt einen Vergleich der vollständigen Pfade für den aktuellen Stand der Verzeichnisse.
+     */
+    private Comparator<Integer> pathComparator() {
+        // Verzeichnispfade nur einmal pro Verzeichnis zusammensetzen; es gibt weit weniger
+        // Verzeichnisse als Dateien
+        String[] dirPaths = new String[dirCount];
+        int[] dirDepth = new int[dirCount];
+        for (int dir = 0; dir < dirCount; dir++) {
+            String segment = new String(chars, dirStart[dir], dirLength[dir]);
+            // Elternverzeichnisse werden immer vor ihren Unterverzeichnissen angelegt
+            int parent = dirParent[dir];
+            dirPaths[dir] = parent == NO_PARENT ? segment : dirPaths[parent] + segment;
+            dirDepth[dir] = parent == NO_PARENT ? 0 : dirDepth[parent] + 1;
+        }
+
+        // Rang jedes Verzeichnisses in der sortierten Reihenfolge der Verzeichnispfade
+        Integer[] dirOrder = new Integer[dirCount];
+        for (int dir = 0; dir < dirCount; dir++) {
+            dirOrder[dir] = dir;
+        }
+        Arrays.sort(dirOrder, (left, right) -> dirPaths[left].compareTo(dirPaths[right]));
+        int[] dirRank = new int[dirCount];
+        for (int rank = 0; rank < dirCount; rank++) {
+            dirRank[dirOrder[rank]] = rank;
+        }
+
+        return (left, right) -> comparePaths(dirPaths, dirDepth, dirRank, left, right);
+    }
+
+    /**
+     * Ordnet alle Spalten entsprechend der angegebenen Reihenfolge neu an.
+     *
+     * @param order Für jede neue Position der bisherige Index
+     */
+    private void applyOrder(Integer[] order) {
+        int[] sortedDir = new int[fileDir.length];
+        int[] sortedStart = new int[fileStart.length];
+        char[] sortedLength = new char[fileLength.length];
+        short[] sortedRoot = new short[fileRoot.length];
+        long[] sortedSize = new long[fileSize.length];
+        long[] sortedModified = new long[fileModified.length];
+        byte[] sortedCharset = new byte[fileCharset.length];
+        int[] sortedMatches = new int[fileMatches.length];
+        long[] sortedPatterns = new long[filePatterns.length];
+        int[] sortedScanMicros = new int[fileScanMicros.length];
+        for (int i = 0; i < fileCount; i++) {
+            int source = order[i];
+            sortedDir[i] = fileDir[source];
+            sortedStart[i] = fileStart[source];
+            sortedLength[i] = fileLength[source];
+            sortedRoot[i] = fileRoot[source];
+            sortedSize[i] = fileSize[source];
+            sortedModified[i] = fileModified[source];
+            sortedCharset[i] = fileCharset[source];
+            sortedMatches[i] = fileMatches[source];
+            sortedPatterns[i] = filePatterns[source];
+            sortedScanMicros[i] = fileScanMicros[source];
+        }
+        fileDir = sortedDir;
+        fileStart = sortedStart;
+        fileLength = sortedLength;
+        fileRoot = sortedRoot;
+        fileSize = sortedSize;
+        fileModified = sortedModified;
+        fileCharset = sortedCharset;
+        fileMatches = sortedMatches;
+        filePatterns = sortedPatterns;
+        fileScanMicros = sortedScanMicros;
+        modCount++;
+    }
+
+    /**
+     * Schätzt den belegten Heap-Speicher dieser Liste anhand der Größe der internen Arrays.
+     *
+     * @return Die geschätzte Größe in Bytes
+     */
+    public synchronized long estimateHeapBytes() {
+        long bytes = arrayBytes(chars.length, 2)
+                + arrayBytes(dirParent.length, 4) + arrayBytes(dirStart.length, 4)
+                + arrayBytes(dirLength.length, 2) + arrayBytes(dirTable.length, 4)
+                + arrayBytes(fileDir.length, 4) + arrayBytes(fileStart.length, 4)
+                + arrayBytes(fileLength.length, 2) + arrayBytes(fileRoot.length, 2)
+                + arrayBytes(fileSize.length, 8) + arrayBytes(fileModified.length, 8)
+                + arrayBytes(fileCharset.length, 1) + arrayBytes(fileMatches.length, 4)
+                + arrayBytes(filePatterns.length, 8) + arrayBytes(fileScanMicros.length, 4);
+        for (String root : roots) {
+            bytes += stringBytes(root.length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Schätzt den Heap-Speicher, den dieselben Ergebnisse als Liste einzelner
+     * {@link ConfigFile}-Objekte mit eigenen Namens- und Pfad-Strings belegen würden.
+     * Dient als Vergleichswert für die Protokollierung.
+     *
+     * @return Die geschätzte Größe in Bytes
+     */
+    public synchronized long estimateListHeapBytes() {
+        // ArrayList mit Referenz-Array, pro Eintrag ein ConfigFile mit drei Referenzen
+        long bytes = 24 + arrayBytes(fileCount, 4) + (long) fileCount * 24;
+        StringBuilder path = new StringBuilder(64);
+        for (int i = 0; i < fileCount; i++) {
+            path.setLength(0);
+            appendPath(i, path);
+            bytes += stringBytes(fileLength[i]) + stringBytes(path.length());
+        }
+        for (String root : roots) {
+            bytes += stringBytes(root.length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Vergleicht die vollständigen Pfade zweier Ergebnisse, ohne sie zusammenzusetzen.
+     * Liegt keines der beiden Verzeichnisse im anderen, entscheidet bereits die Reihenfolge der
+     * Verzeichnispfade. Andernfalls wird ab dem Ende des gemeinsamen Verzeichnisses zeichenweise
+     * verglichen.
+     */
+    private int comparePaths(String[] dirPaths, int[] dirDepth, int[] dirRank, int left, int right) {
+        int leftDirId = fileDir[left];
+        int rightDirId = fileDir[right];
+        int commonLength = 0;
+        if (leftDirId == rightDirId) {
+            commonLength = leftDirId == NO_PARENT ? 0 : dirPaths[leftDirId].length();
+        } else if (isAncestor(leftDirId, rightDirId, dirDepth)) {
+            commonLength = leftDirId == NO_PARENT ? 0 : dirPaths[leftDirId].length();
+        } else if (isAncestor(rightDirId, leftDirId, dirDepth)) {
+            commonLength = rightDirId == NO_PARENT ? 0 : dirPaths[rightDirId].length();
+        } else {
+            return Integer.compare(dirRank[leftDirId], dirRank[rightDirId]);
+        }
+
+        String leftDir = leftDirId == NO_PARENT ? "" : dirPaths[leftDirId];
+        String rightDir = rightDirId == NO_PARENT ? "" : dirPaths[rightDirId];
+        int leftLength = leftDir.length() + fileLength[left];
+        int rightLength = rightDir.length() + fileLength[right];
+        int length = Math.min(leftLength, rightLength);
+        for (int i = commonLength; i < length; i++) {
+            char leftChar = i < leftDir.length() ? leftDir.charAt(i) : chars[fileStart[left] + i - leftDir.length()];
+            char rightChar = i < rightDir.length() ? rightDir.charAt(i) : chars[fileStart[right] + i - rightDir.length()];
+            if (leftChar != rightChar) {
+                return leftChar - rightChar;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    /**
+     * Vergleicht die Dateinamen zweier Ergebnisse im char-Array.
+     */
+    private int compareNames(int left, int right) {
+        int leftStart = fileStart[left];
+        int rightStart = fileStart[right];
+        int length = Math.min(fileLength[left], fileLength[right]);
+        for (int i = 0; i < length; i++) {
+            char leftChar = chars[leftStart + i];
+            char rightChar = chars[rightStart + i];
+            if (leftChar != rightChar) {
+                return leftChar - rightChar;
+            }
+        }
+        return fileLength[left] - fileLength[right];
+    }
+
+    /**
+     * Prüft, ob ein Verzeichnis ein übergeordnetes Verzeichnis eines anderen ist.
+     * NO_PARENT steht für den leeren Verzeichnisanteil und ist jedem Verzeichnis übergeordnet.
+     */
+    private boolean isAncestor(int ancestor, int dir, int[] dirDepth) {
+        if (ancestor == NO_PARENT) {
+            return true;
+        }
+        if (dir == NO_PARENT) {
+            return false;
+        }
+        while (dir != NO_PARENT && dirDepth[dir] > dirDepth[ancestor]) {
+            dir = dirParent[dir];
+        }
+        return dir == ancestor;
+    }
+
+    /**
+     * Hängt den vollständigen Pfad eines Ergebnisses an einen Puffer an.
+     */
+    private void appendPath(int index, StringBuilder path) {
+        int start = path.length();
+        for (int dir = fileDir[index]; dir != NO_PARENT; dir = dirParent[dir]) {
+            path.insert(start, chars, dirStart[dir], dirLength[dir]);
+        }
+        path.append(chars, fileStart[index], fileLength[index]);
+    }
+
+    /**
+     * Legt alle Verzeichnisse eines Pfads an, soweit sie noch nicht vorhanden sind.
+     *
+     * @param path Der Pfad
+     * @param end Das Ende des Verzeichnisanteils im Pfad
+     * @param archive true, wenn '!' als Trennzeichen zum Archiveintrag gilt
+     * @return Die ID des innersten Verzeichnisses oder NO_PARENT, wenn der Pfad kein Verzeichnis enthält
+     */
+    private int internDirectories(String path, int end, boolean archive) {
+        int parent = NO_PARENT;
+        int segmentStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (isSeparator(path.charAt(i), archive)) {
+                parent = internDirectory(parent, path, segmentStart, i + 1);
+                segmentStart = i + 1;
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * Sucht ein Verzeichnissegment unter dem angegebenen Elternverzeichnis oder legt es an.
+     */
+    private int internDirectory(int parent, String path, int start, int end) {
+        int mask = dirTable.length - 1;
+        int slot = hashSegment(parent, path, start, end) & mask;
+        while (dirTable[slot] != 0) {
+            int dir = dirTable[slot] - 1;
+            if (dirParent[dir] == parent && segmentEquals(dir, path, start, end)) {
+                return dir;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        ensureDirCapacity(dirCount + 1);
+        int dir = dirCount++;
+        dirParent[dir] = parent;
+        dirStart[dir] = appendChars(path, start, end);
+        dirLength[dir] = (char) (end - start);
+        dirTable[slot] = dir + 1;
+
+        // Hashtabelle höchstens zur Hälfte füllen
+        if (dirCount * 2 > dirTable.length) {
+            rehashDirectories();
+        }
+        return dir;
+    }
+
+    private boolean segmentEquals(int dir, String path, int start, int end) {
+        if (dirLength[dir] != end - start) {
+            return false;
+        }
+        int offset = dirStart[dir];
+        for (int i = start; i < end; i++) {
+            if (chars[offset++] != path.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hashSegment(int parent, CharSequence chars, int start, int end) {
+        int hash = parent * 0x9E3779B1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private void rehashDirectories() {
+        dirTable = new int[dirTable.length * 2];
+        int mask = dirTable.length - 1;
+        for (int dir = 0; dir < dirCount; dir++) {
+            String segment = new String(chars, dirStart[dir], dirLength[dir]);
+            int slot = hashSegment(dirParent[dir], segment, 0, segment.length()) & mask;
+            while (dirTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            dirTable[slot] = dir + 1;
+        }
+    }
+
+    private int internRoot(String root) {
+        int index = roots.indexOf(root);
+        if (index < 0) {
+            roots.add(root);
+            index = roots.size() - 1;
+        }
+        return index;
+    }
+
+    private int internCharset(Charset charset) {
+        if (charset == null) {
+            return -1;
+        }
+        int index = charsets.indexOf(charset);
+        if (index < 0) {
+            charsets.add(charset);
+            index = charsets.size() - 1;
+        }
+        return index;
+    }
+
+    private int appendChars(String source, int start, int end) {
+        int length = end - start;
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        source.getChars(start, end, chars, charCount);
+        int offset = charCount;
+        charCount += length;
+        return offset;
+    }
+
+    private void ensureDirCapacity(int capacity) {
+        if (capacity > dirParent.length) {
+            int newCapacity = Math.max(capacity, dirParent.length * 2);
+            dirParent = Arrays.copyOf(dirParent, newCapacity);
+            dirStart = Arrays.copyOf(dirStart, newCapacity);
+            dirLength = Arrays.copyOf(dirLength, newCapacity);
+        }
+    }
+
+    private void ensureFileCapacity(int capacity) {
+        if (capacity > fileDir.length) {
+            int newCapacity = Math.max(capacity, fileDir.length * 2);
+            fileDir = Arrays.copyOf(fileDir, newCapacity);
+            fileStart = Arrays.copyOf(fileStart, newCapacity);
+            fileLength = Arrays.copyOf(fileLength, newCapacity);
+            fileRoot = Arrays.copyOf(fileRoot, newCapacity);
+            fileSize = Arrays.copyOf(fileSize, newCapacity);
+            fileModified = Arrays.copyOf(fileModified, newCapacity);
+            fileCharset = Arrays.copyOf(fileCharset, newCapacity);
+            fileMatches = Arrays.copyOf(fileMatches, newCapacity);
+            filePatterns = Arrays.copyOf(filePatterns, newCapacity);
+            fileScanMicros = Arrays.copyOf(fileScanMicros, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fileCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Größe: " + fileCount);
+        }
+    }
+
+    private static int lastSeparator(String path, boolean archive) {
+        for (int i = path.length() - 1; i >= 0; i--) {
+            if (isSeparator(path.charAt(i), archive)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(char c, boolean archive) {
+        return c == '\\' || c == '/' || (archive && c == '!');
+    }
+
+    private static long arrayBytes(long length, int elementSize) {
+        return align(16 + length * elementSize);
+    }
+
+    private static long stringBytes(int length) {
+        // String-Objekt plus Latin-1-Array (kompakte Strings)
+        return 24 + arrayBytes(length, 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -1,162 +1,306 @@
 package com.configmaster;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CTabFolder;
+import org.eclipse.swt.custom.CTabItem;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 
 /**
- * Klasse zur Anzeige des Inhalts einer Konfigurationsdatei.
- * Öffnet ein neues Fenster mit dem Inhalt der ausgewählten Datei.
+ * Klasse zur Anzeige des Inhalts von Konfigurationsdateien.
+ * Alle Dateien werden als Reiter in einem gemeinsamen Fenster angezeigt.
  * Unterstützt verschiedene Zeichencodierungen (UTF-8, UTF-16, etc.).
+ *
+ * Dateien werden im Hintergrund gelesen, damit die Oberfläche nicht blockiert. Bereits
+ * gelesene Inhalte werden aus dem {@link ContentCache} übernommen; mit {@link #prefetch(List)}
+ * können Dateien vorab in den Cache geladen werden, z.B. die Nachbarzeilen der Ergebnistabelle.
  */
 public class ConfigFileViewer {
-    
+
     private static final Logger logger = LogManager.getLogger(ConfigFileViewer.class);
-    
+
+    // Anzahl der Threads für das Vorausladen
+    private static final int PREFETCH_THREADS = 2;
+
+    private final ContentCache contentCache;
+    private final ExecutorService loader;
+    private final ExecutorService prefetcher;
+
+    // Wird bei jedem Aufruf von prefetch erhöht; ältere, noch wartende Aufträge entfallen
+    private final AtomicInteger prefetchGeneration = new AtomicInteger();
+
+    private Shell viewerShell;
+    private CTabFolder tabFolder;
+    private Label statusLabel;
+    private CTabItem previewTab;
+
+    /**
+     * Der Inhalt eines Reiters.
+     */
+    private static class Tab {
+        private final Text text;
+        private String filePath;
+        private String status = "";
+
+        Tab(Text text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Erstellt einen neuen ConfigFileViewer mit eigenem Inhalts-Cache.
+     */
+    public ConfigFileViewer() {
+        this(new ContentCache());
+    }
+
     /**
-     * Zeigt den Inhalt einer Konfigurationsdatei in einem neuen Fenster an.
-     * 
+     * Erstellt einen neuen ConfigFileViewer.
+     *
+     * @param contentCache Der Cache für dekodierte Dateiinhalte
+     */
+    public ConfigFileViewer(ContentCache contentCache) {
+        this.contentCache = contentCache;
+        this.loader = Executors.newSingleThreadExecutor(runnable -> createThread(runnable, "ConfigFileViewer"));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.prefetcher = Executors.newFixedThreadPool(PREFETCH_THREADS,
+                runnable -> createThread(runnable, "ConfigFilePrefetch-" + threadNumber.incrementAndGet()));
+    }
+
+    private static Thread createThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Zeigt den Inhalt einer Konfigurationsdatei in einem eigenen Reiter an. Ist die Datei
+     * bereits geöffnet, wird ihr Reiter ausgewählt; ein Vorschau-Reiter mit dieser Datei wird
+     * dabei zu einem normalen Reiter.
+     *
      * @param parentShell Das Elternfenster
      * @param filePath Der Pfad zur anzuzeigenden Datei
      */
     public void viewConfigFile(Shell parentShell, String filePath) {
-        // Neues Fenster erstellen
-        Shell viewerShell = new Shell(parentShell, SWT.SHELL_TRIM);
-        viewerShell.setText("Dateiansicht - " + filePath);
-        viewerShell.setSize(700, 500);
-        viewerShell.setLayout(new GridLayout(1, false));
-        
-        // Textfeld für den Dateiinhalt erstellen
-        Text fileContentText = new Text(viewerShell, SWT.MULTI | SWT.V_SCROLL | SWT.H_SCROLL | SWT.BORDER);
-        fileContentText.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-        fileContentText.setEditable(false);
-        
-        // Dateiinhalt laden
-        try {
-            // Versuche die Dateicodierung zu erkennen und zu lesen
-            String content = readFileWithProperEncoding(filePath);
-            fileContentText.setText(content);
-        } catch (IOException e) {
-            logger.error("Fehler beim Lesen der Datei: {}", e.getMessage(), e);
-            fileContentText.setText("Fehler beim Lesen der Datei: " + e.getMessage());
+        openShell(parentShell);
+        CTabItem item = findTab(filePath);
+        if (item == previewTab && item != null) {
+            previewTab = null;
+        } else if (item == null) {
+            item = createTab();
+            loadFile(item, filePath);
         }
-        
-        // Fenster öffnen
-        viewerShell.open();
+        selectTab(item);
+        viewerShell.setVisible(true);
     }
-    
+
     /**
-     * Liest eine Datei mit der erkannten Codierung.
-     * 
-     * @param filePath Der Pfad zur Datei
-     * @return Der Inhalt der Datei als String
-     * @throws IOException Wenn ein Fehler beim Lesen der Datei auftritt
+     * Zeigt eine Datei im Vorschau-Reiter an, sofern das Fenster bereits geöffnet ist. Der
+     * Vorschau-Reiter wird bei jeder Auswahl wiederverwendet, sodass beim Blättern durch die
+     * Ergebnisse keine neuen Reiter entstehen.
+     *
+     * @param filePath Der Pfad zur anzuzeigenden Datei
      */
-    private String readFileWithProperEncoding(String filePath) throws IOException {
-        logger.info("Lese Datei: {} mit Codierungserkennung", filePath);
-        
-        // Datei einlesen
-        byte[] fileBytes = Files.readAllBytes(Paths.get(filePath));
-        
-        // BOM erkennen und Codierung bestimmen
-        Charset charset = detectCharset(fileBytes);
-        logger.info("Erkannte Codierung: {}", charset.name());
-        
-        // Datei mit erkannter Codierung lesen
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(filePath), charset))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+    public void previewConfigFile(String filePath) {
+        if (!isOpen()) {
+            return;
+        }
+        CTabItem item = findTab(filePath);
+        if (item == null) {
+            if (previewTab == null || previewTab.isDisposed()) {
+                previewTab = createTab();
             }
+            item = previewTab;
+            loadFile(item, filePath);
         }
-        
-        return content.toString();
+        selectTab(item);
     }
-    
+
     /**
-     * Erkennt die Codierung einer Datei anhand der Byte-Order-Mark (BOM) oder
-     * durch Testen verschiedener Codierungen.
-     * 
-     * @param bytes Die Bytes der Datei
-     * @return Die erkannte Codierung
+     * Gibt zurück, ob das Fenster des Viewers geöffnet ist.
+     *
+     * @return true, wenn das Fenster geöffnet ist
      */
-    private Charset detectCharset(byte[] bytes) {
-        // BOM-basierte Erkennung
-        if (bytes.length >= 3 && bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB && bytes[2] == (byte)0xBF) {
-            return StandardCharsets.UTF_8;
-        } else if (bytes.length >= 2 && bytes[0] == (byte)0xFE && bytes[1] == (byte)0xFF) {
-            return StandardCharsets.UTF_16BE;
-        } else if (bytes.length >= 2 && bytes[0] == (byte)0xFF && bytes[1] == (byte)0xFE) {
-            return StandardCharsets.UTF_16LE;
+    public boolean isOpen() {
+        return viewerShell != null && !viewerShell.isDisposed();
+    }
+
+    /**
+     * Lädt Dateien im Hintergrund in den Cache, ohne sie anzuzeigen. Noch nicht begonnene
+     * Aufträge aus einem früheren Aufruf werden verworfen. Einträge aus Archiven werden
+     * übersprungen, da der Cache sie nicht aufnimmt.
+     *
+     * @param filePaths Die Pfade der Dateien, die wichtigste zuerst
+     */
+    public void prefetch(List<String> filePaths) {
+        int generation = prefetchGeneration.incrementAndGet();
+        for (String filePath : filePaths) {
+            if (ArchivePaths.isArchivePath(filePath)) {
+                continue;
+            }
+            prefetcher.execute(() -> {
+                if (prefetchGeneration.get() != generation || contentCache.peek(filePath) != null) {
+                    return;
+                }
+                try {
+                    contentCache.get(filePath);
+                } catch (IOException e) {
+                    logger.debug("Vorausladen von {} fehlgeschlagen: {}", filePath, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Erstellt das Fenster mit den Reitern, falls es noch nicht geöffnet ist. Das Fenster
+     * gehört zum obersten Fenster, damit es beim Schließen eines Dialogs erhalten bleibt.
+     */
+    private void openShell(Shell parentShell) {
+        if (isOpen()) {
+            return;
         }
-        
-        // Keine BOM gefunden, versuche verschiedene Codierungen
-        if (isValidUTF8(bytes)) {
-            return StandardCharsets.UTF_8;
+        Shell owner = parentShell;
+        while (owner.getParent() instanceof Shell) {
+            owner = (Shell) owner.getParent();
         }
-        
-        if (isValidEncoding(bytes, StandardCharsets.UTF_16LE)) {
-            return StandardCharsets.UTF_16LE;
+        viewerShell = new Shell(owner, SWT.SHELL_TRIM);
+        viewerShell.setText("Dateiansicht");
+        viewerShell.setSize(700, 500);
+        viewerShell.setLayout(new GridLayout(1, false));
+
+        tabFolder = new CTabFolder(viewerShell, SWT.BORDER | SWT.CLOSE);
+        tabFolder.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        tabFolder.addListener(SWT.Selection, event -> updateStatus());
+
+        statusLabel = new Label(viewerShell, SWT.NONE);
+        statusLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        previewTab = null;
+        viewerShell.open();
+    }
+
+    private CTabItem createTab() {
+        CTabItem item = new CTabItem(tabFolder, SWT.CLOSE);
+        Text fileContentText = new Text(tabFolder, SWT.MULTI | SWT.V_SCROLL | SWT.H_SCROLL | SWT.READ_ONLY);
+        item.setControl(fileContentText);
+        item.setData(new Tab(fileContentText));
+        item.addDisposeListener(event -> {
+            fileContentText.dispose();
+            if (item == previewTab) {
+                previewTab = null;
+            }
+            if (!viewerShell.isDisposed() && !tabFolder.isDisposed() && tabFolder.getItemCount() <= 1) {
+                // Der letzte Reiter wurde geschlossen
+                viewerShell.getDisplay().asyncExec(() -> {
+                    if (isOpen() && tabFolder.getItemCount() == 0) {
+                        viewerShell.close();
+                    }
+                });
+            }
+        });
+        return item;
+    }
+
+    private CTabItem findTab(String filePath) {
+        if (!isOpen()) {
+            return null;
         }
-        
-        if (isValidEncoding(bytes, StandardCharsets.UTF_16BE)) {
-            return StandardCharsets.UTF_16BE;
+        for (CTabItem item : tabFolder.getItems()) {
+            if (filePath.equals(((Tab) item.getData()).filePath)) {
+                return item;
+            }
         }
-        
-        // Fallback: Wenn keine spezifische Codierung erkannt wurde, verwende ISO-8859-1 (Latin-1)
-        // Dies ist eine 8-Bit-Codierung, die alle möglichen Byte-Werte abdeckt
-        return StandardCharsets.ISO_8859_1;
+        return null;
+    }
+
+    private void selectTab(CTabItem item) {
+        tabFolder.setSelection(item);
+        updateStatus();
     }
-    
+
     /**
-     * Überprüft, ob die Bytes in UTF-8 codiert sind.
-     * 
-     * @param bytes Die zu überprüfenden Bytes
-     * @return true, wenn die Bytes in UTF-8 codiert sind
+     * Zeigt eine Datei in einem Reiter an. Liegt der Inhalt im Cache, wird er sofort angezeigt,
+     * sonst im Hintergrund gelesen. Ein Ergebnis für eine inzwischen ersetzte Datei wird verworfen.
      */
-    private boolean isValidUTF8(byte[] bytes) {
-        try {
-            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
-            decoder.decode(ByteBuffer.wrap(bytes));
-            return true;
-        } catch (CharacterCodingException e) {
-            return false;
+    private void loadFile(CTabItem item, String filePath) {
+        Tab tab = (Tab) item.getData();
+        tab.filePath = filePath;
+        item.setText(new File(filePath).getName());
+        item.setToolTipText(filePath);
+
+        ContentCache.Entry cached = contentCache.getCached(filePath);
+        if (cached != null) {
+            showContent(item, tab, filePath, cached, 0, true);
+            return;
         }
+        tab.text.setText("Lade " + filePath + " ...");
+        tab.status = "";
+        Display display = viewerShell.getDisplay();
+        long startTime = System.nanoTime();
+        loader.execute(() -> {
+            ContentCache.Entry entry = null;
+            IOException error = null;
+            try {
+                entry = contentCache.get(filePath);
+            } catch (IOException e) {
+                error = e;
+            }
+            ContentCache.Entry result = entry;
+            IOException readError = error;
+            long micros = (System.nanoTime() - startTime) / 1000;
+            display.asyncExec(() -> {
+                if (item.isDisposed() || !filePath.equals(tab.filePath)) {
+                    return;
+                }
+                if (readError != null) {
+                    logger.error("Fehler beim Lesen der Datei: {}", readError.getMessage(), readError);
+                    tab.text.setText("Fehler beim Lesen der Datei: " + readError.getMessage());
+                    tab.status = "";
+                    updateStatus();
+                } else {
+                    showContent(item, tab, filePath, result, micros, false);
+                }
+            });
+        });
     }
-    
+
+    private void showContent(CTabItem item, Tab tab, String filePath, ContentCache.Entry entry, long micros,
+            boolean fromCache) {
+        // Zeilenenden vereinheitlichen
+        tab.text.setText(entry.getNormalizedText());
+        tab.status = String.format("%d Zeilen, Codierung %s, %s", entry.getLineCount(),
+                entry.getContent().getCharset().name(), fromCache ? "aus dem Cache" : "gelesen in " + micros + " µs");
+        logger.info("Datei: {} ({})", filePath, tab.status);
+        if (tabFolder.getSelection() == item) {
+            updateStatus();
+        }
+    }
+
     /**
-     * Überprüft, ob die Bytes in der angegebenen Codierung codiert sind.
-     * 
-     * @param bytes Die zu überprüfenden Bytes
-     * @param charset Die zu testende Codierung
-     * @return true, wenn die Bytes in der angegebenen Codierung codiert sind
+     * Aktualisiert Titel und Statuszeile für den ausgewählten Reiter.
      */
-    private boolean isValidEncoding(byte[] bytes, Charset charset) {
-        try {
-            CharsetDecoder decoder = charset.newDecoder();
-            decoder.decode(ByteBuffer.wrap(bytes));
-            return true;
-        } catch (CharacterCodingException e) {
-            return false;
+    private void updateStatus() {
+        CTabItem item = tabFolder.getSelection();
+        if (item == null) {
+            viewerShell.setText("Dateiansicht");
+            statusLabel.setText(contentCache.getStatistics());
+            return;
         }
+        Tab tab = (Tab) item.getData();
+        viewerShell.setText("Dateiansicht - " + tab.filePath + (item == previewTab ? " (Vorschau)" : ""));
+        statusLabel.setText((tab.status.isEmpty() ? "" : tab.status + " | ") + contentCache.getStatistics());
     }
-}
\ No newline at end of file
+}
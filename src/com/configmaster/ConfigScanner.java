@@ -1,35 +1,215 @@
 package com.configmaster;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * Klasse zum Scannen von Verzeichnissen nach Konfigurationsdateien.
- * Sucht alle Dateien mit der Endung ".chr", deren Inhalt eines der angegebenen Suchmuster enthält.
+ * Sucht alle Konfigurationsdateien der im {@link FileTypeRegistry} registrierten Typen (.chr, .tpl,
+ * .set, .ini), deren Inhalt eines der angegebenen Suchmuster enthält. Alle Typen werden in einem
+ * einzigen Durchlauf der Verzeichnisse gefunden.
  * Die Suchmuster werden durch Kommas getrennt angegeben (z.B. "pattern1,pattern2").
+ * Zip-Archive werden ohne Entpacken durchsucht; gefundene Einträge erhalten einen Pfad der
+ * Form "archiv.zip!eintrag.chr". Mehrere Suchverzeichnisse werden gleichzeitig durchsucht.
+ * Verzeichnisse und Dateien, die durch die {@link ScanRules} ausgeschlossen sind, werden übersprungen.
  */
 public class ConfigScanner {
     
     private static final Logger logger = LogManager.getLogger(ConfigScanner.class);
     
+    private final ScanRules scanRules;
+    private final FileTypeRegistry fileTypes;
+    private final List<ScanListener> scanListeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Begrenzt die Ergebnisse eines Scans entsprechend den {@link ScanOptions} und stellt fest,
+     * wann der Scan vorzeitig beendet werden kann. Wird von allen Suchverzeichnissen eines Scans
+     * gemeinsam verwendet.
+     */
+    private static class ResultLimit {
+        private final ScanOptions options;
+        private final AtomicInteger accepted = new AtomicInteger();
+        private volatile boolean done;
+        
+        // Die bisher neuesten Treffer; die Wurzel ist der älteste davon
+        private final PriorityQueue<Candidate> newest;
+        
+        ResultLimit(ScanOptions options) {
+            this.options = options;
+            this.newest = isNewestFirst()
+                    ? new PriorityQueue<>(options.getLimit() + 1, Comparator.comparingLong(
+                            (Candidate candidate) -> candidate.metadata.getLastModified()))
+                    : null;
+        }
+        
+        /**
+         * Gibt zurück, ob nur die zuletzt geänderten Dateien gesucht werden.
+         */
+        boolean isNewestFirst() {
+            return options.isLimited() && options.getOrder() == ScanOptions.Order.MODIFIED_DESC;
+        }
+        
+        /**
+         * Gibt zurück, ob bereits genügend Ergebnisse gefunden wurden und der Scan enden kann.
+         */
+        boolean isDone() {
+            return done;
+        }
+        
+        /**
+         * Prüft vor dem Lesen, ob eine Datei mit dieser Änderungszeit noch ein Ergebnis werden kann.
+         * Sind bereits K Treffer bekannt, die alle neuer sind, muss die Datei nicht gelesen werden.
+         */
+        boolean mayMatch(long lastModified) {
+            if (done) {
+                return false;
+            }
+            if (newest == null) {
+                return true;
+            }
+            synchronized (newest) {
+                return newest.size() < options.getLimit() || lastModified > newest.peek().metadata.getLastModified();
+            }
+        }
+        
+        /**
+         * Nimmt einen Treffer entgegen.
+         * 
+         * @return true, wenn der Treffer direkt in die Liste des Suchverzeichnisses gehört
+         */
+        boolean accept(String path, String root, ConfigFileStore.Metadata metadata) {
+            if (newest != null) {
+                synchronized (newest) {
+                    newest.add(new Candidate(path, root, metadata));
+                    if (newest.size() > options.getLimit()) {
+                        newest.poll();
+                    }
+                }
+                return false;
+            }
+            if (!options.isLimited()) {
+                return true;
+            }
+            int count = accepted.incrementAndGet();
+            if (count >= options.getLimit()) {
+                done = true;
+            }
+            return count <= options.getLimit();
+        }
+        
+        /**
+         * Überträgt die neuesten Treffer, neueste zuerst, in eine Ergebnisliste.
+         */
+        void addNewestTo(ConfigFileStore configFiles) {
+            synchronized (newest) {
+                for (Candidate candidate : newest) {
+                    configFiles.add(candidate.path, candidate.root, candidate.metadata);
+                }
+            }
+            configFiles.sort(ConfigFileStore.Column.MODIFIED, false);
+        }
+        
+        /**
+         * Übergibt die neuesten Treffer, neueste zuerst, an einen Exporter.
+         */
+        void writeNewestTo(ResultExporter exporter) {
+            List<Candidate> candidates;
+            synchronized (newest) {
+                candidates = new ArrayList<>(newest);
+            }
+            candidates.sort(Comparator.comparingLong(
+                    (Candidate candidate) -> candidate.metadata.getLastModified()).reversed());
+            for (Candidate candidate : candidates) {
+                exporter.write(candidate.path, candidate.root, candidate.metadata);
+            }
+        }
+    }
+    
+    /**
+     * Ein Treffer, der noch durch neuere Treffer verdrängt werden kann.
+     */
+    private static class Candidate {
+        private final String path;
+        private final String root;
+        private final ConfigFileStore.Metadata metadata;
+        
+        Candidate(String path, String root, ConfigFileStore.Metadata metadata) {
+            this.path = path;
+            this.root = root;
+            this.metadata = metadata;
+        }
+    }
+    
+    /**
+     * Ziel der Treffer eines Suchverzeichnisses: die Ergebnisliste oder ein {@link ResultExporter}.
+     */
+    private interface ResultSink {
+        void add(String path, String root, ConfigFileStore.Metadata metadata);
+    }
+    
+    /**
+     * Erstellt einen neuen ConfigScanner mit den Ein- und Ausschlussregeln aus der Konfiguration.
+     */
+    public ConfigScanner() {
+        this(ScanRules.load());
+    }
+    
+    /**
+     * Erstellt einen neuen ConfigScanner mit den angegebenen Ein- und Ausschlussregeln.
+     * 
+     * @param scanRules Die Regeln, nach denen Verzeichnisse und Dateien übersprungen werden
+     */
+    public ConfigScanner(ScanRules scanRules) {
+        this(scanRules, FileTypeRegistry.defaults());
+    }
+    
+    /**
+     * Erstellt einen neuen ConfigScanner mit den angegebenen Regeln und Dateitypen.
+     * 
+     * @param scanRules Die Regeln, nach denen Verzeichnisse und Dateien übersprungen werden
+     * @param fileTypes Die Dateitypen, nach denen gesucht wird
+     */
+    public ConfigScanner(ScanRules scanRules, FileTypeRegistry fileTypes) {
+        this.scanRules = scanRules;
+        this.fileTypes = fileTypes;
+    }
+    
+    /**
+     * Registriert einen Listener, der über den Scan und jede gelesene Datei informiert wird.
+     * 
+     * @param listener Der Listener
+     */
+    public void addScanListener(ScanListener listener) {
+        scanListeners.add(listener);
+    }
+    
     /**
      * Scannt das angegebene Suchverzeichnis rekursiv nach Konfigurationsdateien.
      * 
      * @param searchDir Das zu durchsuchende Verzeichnis
      * @return Eine Liste der gefundenen Konfigurationsdateien
      */
-    public List<ConfigFile> scanForConfigFiles(File searchDir) {
+    public ConfigFileStore scanForConfigFiles(File searchDir) {
         // Die überladene Methode mit dem Standardmuster "default" aufrufen
         return scanForConfigFiles(searchDir, "default");
     }
@@ -42,12 +222,188 @@ public class ConfigScanner {
      * @param searchPatterns Komma-getrennte Liste von Suchmustern
      * @return Eine Liste der gefundenen Konfigurationsdateien
      */
-    public List<ConfigFile> scanForConfigFiles(File searchDir, String searchPatterns) {
-        logger.info("Starte Scan für Konfigurationsdateien in: {} mit Mustern: {}", 
-                searchDir.getAbsolutePath(), searchPatterns);
+    public ConfigFileStore scanForConfigFiles(File searchDir, String searchPatterns) {
+        return scanForConfigFiles(Collections.singletonList(searchDir), searchPatterns);
+    }
+    
+    /**
+     * Scannt mehrere Suchverzeichnisse gleichzeitig nach Konfigurationsdateien,
+     * die eines der angegebenen Suchmuster im Inhalt enthalten.
+     * Jedes Suchverzeichnis wird von einem eigenen Thread durchlaufen. Die Dateien werden über
+     * den {@link IoScheduler} gelesen, der jedem Datenträger eine eigene Parallelitätsgrenze gibt.
+     * Die Ergebnisse werden in der Reihenfolge der Suchverzeichnisse zusammengeführt und mit dem
+     * jeweiligen Suchverzeichnis gekennzeichnet.
+     * 
+     * @param searchDirs Die zu durchsuchenden Verzeichnisse
+     * @param searchPatterns Komma-getrennte Liste von Suchmustern
+     * @return Eine Liste der gefundenen Konfigurationsdateien
+     */
+    public ConfigFileStore scanForConfigFiles(List<File> searchDirs, String searchPatterns) {
+        return scanForConfigFiles(searchDirs, searchPatterns, new ScanOptions());
+    }
+    
+    /**
+     * Scannt mehrere Suchverzeichnisse gleichzeitig nach Konfigurationsdateien mit einer
+     * Höchstzahl und Reihenfolge der Ergebnisse.
+     * Bei der Reihenfolge nach Pfad endet der Scan, sobald genügend Treffer gefunden wurden.
+     * Bei der Reihenfolge nach Änderungszeit werden Verzeichnisse und Dateien mit der neuesten
+     * Änderungszeit zuerst besucht. Die bisher neuesten Treffer werden in einem begrenzten Heap
+     * gehalten; Dateien, die älter als der älteste davon sind, werden nicht mehr gelesen.
+     * 
+     * @param searchDirs Die zu durchsuchenden Verzeichnisse
+     * @param searchPatterns Komma-getrennte Liste von Suchmustern
+     * @param options Höchstzahl und Reihenfolge der Ergebnisse
+     * @return Eine Liste der gefundenen Konfigurationsdateien
+     */
+    public ConfigFileStore scanForConfigFiles(List<File> searchDirs, String searchPatterns, ScanOptions options) {
+        logger.info("Starte Scan für Konfigurationsdateien in: {} mit Mustern: {} ({})", 
+                searchDirs, searchPatterns, options);
+        
+        ConfigFileStore configFiles = new ConfigFileStore();
+        if (searchDirs.isEmpty()) {
+            return configFiles;
+        }
+        
+        String[] patterns = parsePatterns(searchPatterns);
+        configFiles.setPatterns(patterns);
+        
+        ResultLimit limit = new ResultLimit(options);
+        List<ConfigFileStore> rootResults = scan(searchDirs, patterns, limit, null);
+        for (ConfigFileStore rootFiles : rootResults) {
+            if (rootResults.size() == 1) {
+                configFiles = rootFiles;
+            } else {
+                configFiles.addAll(rootFiles);
+            }
+        }
+        
+        if (limit.isNewestFirst()) {
+            limit.addNewestTo(configFiles);
+        } else if (options.getOrder() == ScanOptions.Order.MODIFIED_DESC) {
+            configFiles.sort(ConfigFileStore.Column.MODIFIED, false);
+        }
+        
+        if (configFiles.size() > 0) {
+            logger.info("Scan abgeschlossen, gefundene Dateien: {}", configFiles.size());
+            logHeapUsage(configFiles);
+        } else {
+            logger.info("Scan abgeschlossen, keine Dateien gefunden.");
+        }
+        
+        return configFiles;
+    }
+    
+    /**
+     * Scannt mehrere Suchverzeichnisse wie {@link #scanForConfigFiles(List, String, ScanOptions)},
+     * schreibt die Treffer aber direkt während des Scans in einen {@link ResultExporter}, ohne eine
+     * Ergebnisliste aufzubauen. Kommt die Ausgabe nicht nach, warten die Lese-Threads des Scans.
+     * Die Treffer erscheinen in der Reihenfolge, in der sie gefunden werden. Nur bei einer
+     * Höchstzahl mit Reihenfolge nach Änderungszeit werden die neuesten Treffer erst am Ende,
+     * neueste zuerst, geschrieben.
+     * 
+     * @param searchDirs Die zu durchsuchenden Verzeichnisse
+     * @param searchPatterns Komma-getrennte Liste von Suchmustern
+     * @param options Höchstzahl und Reihenfolge der Ergebnisse
+     * @param exporter Der noch nicht gestartete Exporter; wird am Ende geschlossen
+     * @return Die Anzahl der geschriebenen Ergebnisse
+     * @throws IOException Wenn beim Schreiben ein Fehler aufgetreten ist
+     */
+    public long exportConfigFiles(List<File> searchDirs, String searchPatterns, ScanOptions options,
+            ResultExporter exporter) throws IOException {
+        logger.info("Starte Export für Konfigurationsdateien in: {} mit Mustern: {} ({})", 
+                searchDirs, searchPatterns, options);
+        
+        String[] patterns = parsePatterns(searchPatterns);
+        exporter.start(patterns);
+        try {
+            if (!searchDirs.isEmpty()) {
+                ResultLimit limit = new ResultLimit(options);
+                scan(searchDirs, patterns, limit, exporter);
+                if (limit.isNewestFirst()) {
+                    limit.writeNewestTo(exporter);
+                }
+            }
+        } finally {
+            exporter.close();
+        }
+        return exporter.getCount();
+    }
+    
+    /**
+     * Durchläuft die Suchverzeichnisse mit je einem Thread und benachrichtigt die Listener.
+     * 
+     * @param searchDirs Die zu durchsuchenden Verzeichnisse, nicht leer
+     * @param patterns Die Suchmuster
+     * @param limit Die gemeinsame Begrenzung der Ergebnisse
+     * @param exporter Der Exporter, an den die Treffer gehen, oder null für Ergebnislisten
+     * @return Die Treffer je Suchverzeichnis in dessen Reihenfolge; leer beim Export
+     */
+    private List<ConfigFileStore> scan(List<File> searchDirs, String[] patterns, ResultLimit limit,
+            ResultExporter exporter) {
+        for (ScanListener listener : scanListeners) {
+            listener.scanStarted(searchDirs);
+        }
         
-        List<ConfigFile> configFiles = new ArrayList<>();
+        // Ein Thread pro Suchverzeichnis, Lesezugriffe über die Thread-Pools der Datenträger
+        scanRules.resetCounters();
+        IoScheduler ioScheduler = new IoScheduler();
+        ExecutorService walkers = Executors.newFixedThreadPool(searchDirs.size());
+        List<Future<ConfigFileStore>> rootResults = new ArrayList<>();
+        for (File searchDir : searchDirs) {
+            IoScheduler.Volume volume = ioScheduler.getVolume(searchDir.toPath());
+            rootResults.add(walkers.submit(() -> scanRoot(searchDir, patterns, volume, limit, exporter)));
+        }
         
+        // Mit einer Höchstzahl wurden nicht alle Dateien gelesen
+        boolean complete = !limit.options.isLimited();
+        List<ConfigFileStore> results = new ArrayList<>();
+        for (int i = 0; i < rootResults.size(); i++) {
+            try {
+                ConfigFileStore rootFiles = rootResults.get(i).get();
+                if (rootFiles != null) {
+                    results.add(rootFiles);
+                }
+            } catch (ExecutionException e) {
+                logger.error("Fehler beim Scan von {}: {}", searchDirs.get(i), e.getCause().getMessage());
+                complete = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+                break;
+            }
+        }
+        walkers.shutdown();
+        ioScheduler.shutdown();
+        scanRules.logCounters();
+        
+        // Fehlt ein Suchverzeichnis, darf ein Listener die Dateien darunter nicht als entfernt ansehen
+        for (ScanListener listener : scanListeners) {
+            listener.scanFinished(searchDirs, complete);
+        }
+        return results;
+    }
+    
+    /**
+     * Protokolliert den geschätzten Speicherbedarf der Ergebnisse im Vergleich zu einer
+     * Liste einzelner ConfigFile-Objekte mit vollständigen Pfad-Strings.
+     * 
+     * @param configFiles Die gefundenen Dateien
+     */
+    private void logHeapUsage(ConfigFileStore configFiles) {
+        long storeBytes = configFiles.estimateHeapBytes();
+        long listBytes = configFiles.estimateListHeapBytes();
+        logger.info("Speicherbedarf der Ergebnisse: {} Bytes pro Datei ({} Verzeichnisse), "
+                + "als Objektliste wären es {} Bytes pro Datei",
+                storeBytes / configFiles.size(), configFiles.getDirectoryCount(), listBytes / configFiles.size());
+    }
+    
+    /**
+     * Zerlegt die komma-getrennte Liste von Suchmustern.
+     * 
+     * @param searchPatterns Komma-getrennte Liste von Suchmustern
+     * @return Die einzelnen Suchmuster
+     */
+    private String[] parsePatterns(String searchPatterns) {
         // Prüfen, ob das Suchmuster leer ist
         if (searchPatterns == null || searchPatterns.isEmpty()) {
             searchPatterns = "default"; // Standardwert verwenden, wenn kein Muster angegeben wurde
@@ -62,108 +418,323 @@ public class ConfigScanner {
         }
         
         logger.info("Verwende folgende Suchmuster im Dateiinhalt: {}", Arrays.toString(patterns));
+        return patterns;
+    }
+    
+    /**
+     * Durchsucht ein einzelnes Suchverzeichnis. Das Verzeichnis wird im aufrufenden Thread
+     * durchlaufen, die Dateien werden im Thread-Pool des Datenträgers gelesen.
+     * 
+     * @param searchDir Das zu durchsuchende Verzeichnis
+     * @param patterns Ein Array mit Suchmustern
+     * @param volume Der Datenträger, auf dem das Verzeichnis liegt
+     * @param limit Die gemeinsame Begrenzung der Ergebnisse
+     * @param exporter Der Exporter, an den die Treffer gehen, oder null
+     * @return Die gefundenen Dateien, nach Pfad sortiert; null beim Export
+     */
+    private ConfigFileStore scanRoot(File searchDir, String[] patterns, IoScheduler.Volume volume,
+            ResultLimit limit, ResultExporter exporter) {
+        long start = System.currentTimeMillis();
+        ConfigFileStore configFiles = null;
+        ResultSink sink;
+        if (exporter != null) {
+            sink = exporter::write;
+        } else {
+            configFiles = new ConfigFileStore();
+            configFiles.setPatterns(patterns);
+            sink = configFiles::add;
+        }
+        List<Future<?>> readTasks = new ArrayList<>();
         
-        // Rekursive Suche nach allen Dateien
-        searchForChrFiles(searchDir, configFiles, patterns);
+        searchForConfigFiles(searchDir, searchDir.getAbsolutePath(), sink, patterns, volume, readTasks, limit);
         
-        if (configFiles.size() > 0) {
-            logger.info("Scan abgeschlossen, gefundene Dateien: {}", configFiles.size());
-        } else {
-            logger.info("Scan abgeschlossen, keine Dateien gefunden.");
+        for (Future<?> readTask : readTasks) {
+            try {
+                readTask.get();
+            } catch (ExecutionException e) {
+                logger.error("Fehler beim Lesen: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
         
+        if (configFiles == null) {
+            logger.info("Suchverzeichnis {} exportiert in {} ms", searchDir.getAbsolutePath(),
+                    System.currentTimeMillis() - start);
+            return null;
+        }
+        configFiles.sortByPath();
+        logger.info("Suchverzeichnis {} durchsucht in {} ms: {} passende Dateien",
+                searchDir.getAbsolutePath(), System.currentTimeMillis() - start, configFiles.size());
         return configFiles;
     }
     
     /**
-     * Sucht rekursiv nach Dateien mit der Endung ".chr", deren Inhalt eines der 
-     * angegebenen Suchmuster enthält.
+     * Sucht rekursiv nach Konfigurationsdateien der registrierten Typen, deren Inhalt eines der 
+     * angegebenen Suchmuster enthält. Zip-Archive werden wie Verzeichnisse durchsucht.
+     * Das Lesen und Prüfen der Dateien wird an den Thread-Pool des Datenträgers übergeben.
      * 
      * @param directory Das zu durchsuchende Verzeichnis
-     * @param configFiles Die Liste, zu der gefundene Dateien hinzugefügt werden
+     * @param root Das Suchverzeichnis, mit dem gefundene Dateien gekennzeichnet werden
+     * @param sink Das Ziel, an das gefundene Dateien übergeben werden
      * @param patterns Ein Array mit Suchmustern
+     * @param volume Der Datenträger, dessen Thread-Pool die Dateien liest
+     * @param readTasks Die Liste, zu der die gestarteten Leseaufgaben hinzugefügt werden
+     * @param limit Die gemeinsame Begrenzung der Ergebnisse
      */
-    private void searchForChrFiles(File directory, List<ConfigFile> configFiles, String[] patterns) {
-        if (!directory.exists() || !directory.isDirectory()) {
+    private void searchForConfigFiles(File directory, String root, ResultSink sink, String[] patterns,
+            IoScheduler.Volume volume, List<Future<?>> readTasks, ResultLimit limit) {
+        if (limit.isDone() || !directory.exists() || !directory.isDirectory()) {
             return;
         }
         
-        // Nach .chr Dateien suchen
+        // Nach Konfigurationsdateien aller registrierten Typen und Zip-Archiven suchen
         File[] files = directory.listFiles(
-            (dir, name) -> name.toLowerCase().endsWith(".chr")
+            (dir, name) -> fileTypes.forFileName(name) != null || ArchivePaths.isArchive(name)
         );
         
-        if (files != null && files.length > 0) {
-            int foundFiles = 0;
-            
-            for (File file : files) {
-                // Prüfen, ob der Dateiinhalt eines der Suchmuster enthält
-                if (fileContainsAnyPattern(file, patterns)) {
-                    logger.info("  - {}", file.getName());
-                    configFiles.add(new ConfigFile(file.getName(), file.getAbsolutePath()));
-                    foundFiles++;
+        if (files != null) {
+            long[] lastModified = limit.isNewestFirst() ? sortByLastModifiedDesc(files) : null;
+            for (int i = 0; i < files.length && !limit.isDone(); i++) {
+                File file = files[i];
+                if (ArchivePaths.isArchive(file.getName()) && file.isFile()) {
+                    if (scanRules.isExcludedFile(ScanRules.relativePath(root, file))) {
+                        continue;
+                    }
+                    readTasks.add(volume.submit(() -> searchArchive(file, root, sink, patterns, limit)));
+                    continue;
                 }
-            }
-            
-            if (foundFiles > 0) {
-                logger.info("Gefunden: {} passende Dateien in {}", foundFiles, directory.getAbsolutePath());
+                
+                if (!scanRules.isIncludedFile(ScanRules.relativePath(root, file))) {
+                    continue;
+                }
+                
+                // Dateien, die älter als die bisher neuesten Treffer sind, nicht mehr lesen
+                long fileModified = lastModified != null ? lastModified[i] : 0;
+                if (!limit.mayMatch(fileModified)) {
+                    continue;
+                }
+                
+                // Prüfen, ob der Dateiinhalt eines der Suchmuster enthält; bis die Aufgabe an der
+                // Reihe ist, kann die Begrenzung bereits erreicht sein
+                readTasks.add(volume.submit(() -> {
+                    if (!limit.mayMatch(fileModified)) {
+                        return null;
+                    }
+                    ConfigFileStore.Metadata metadata = matchFile(file, fileTypes.forFileName(file.getName()), patterns);
+                    if (metadata != null && limit.accept(file.getAbsolutePath(), root, metadata)) {
+                        logger.info("  - {}", file.getAbsolutePath());
+                        sink.add(file.getAbsolutePath(), root, metadata);
+                    }
+                    return null;
+                }));
             }
         }
         
-        // Rekursiv alle Unterverzeichnisse durchsuchen
+        // Rekursiv alle Unterverzeichnisse durchsuchen, bei Suche nach Änderungszeit die neuesten zuerst.
+        // Ausgeschlossene Verzeichnisse werden übersprungen, bevor ihr Inhalt aufgelistet wird.
         File[] subdirs = directory.listFiles(File::isDirectory);
         if (subdirs != null) {
+            if (limit.isNewestFirst()) {
+                sortByLastModifiedDesc(subdirs);
+            }
             for (File subdir : subdirs) {
-                searchForChrFiles(subdir, configFiles, patterns);
+                if (scanRules.isExcludedDirectory(ScanRules.relativePath(root, subdir))) {
+                    continue;
+                }
+                searchForConfigFiles(subdir, root, sink, patterns, volume, readTasks, limit);
             }
         }
     }
     
     /**
-     * Prüft, ob der Inhalt einer Datei eines der angegebenen Suchmuster enthält.
+     * Sortiert Dateien absteigend nach ihrer Änderungszeit. Jede Änderungszeit wird nur
+     * einmal vom Dateisystem abgefragt.
      * 
-     * @param file Die zu prüfende Datei
-     * @param patterns Die Suchmuster
-     * @return true, wenn die Datei mindestens eines der Muster enthält
+     * @param files Die zu sortierenden Dateien
+     * @return Die Änderungszeiten in der neuen Reihenfolge der Dateien
      */
-    private boolean fileContainsAnyPattern(File file, String[] patterns) {
-        try {
-            // Datei mit verschiedenen Codierungen zu lesen versuchen
-            Charset[] charsets = {
-                StandardCharsets.UTF_8,
-                StandardCharsets.ISO_8859_1,
-                StandardCharsets.UTF_16,
-                StandardCharsets.UTF_16BE,
-                StandardCharsets.UTF_16LE
-            };
+    private long[] sortByLastModifiedDesc(File[] files) {
+        Integer[] order = new Integer[files.length];
+        long[] lastModified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            order[i] = i;
+            lastModified[i] = files[i].lastModified();
+        }
+        Arrays.sort(order, (left, right) -> Long.compare(lastModified[right], lastModified[left]));
+        
+        File[] sortedFiles = new File[files.length];
+        long[] sortedLastModified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            sortedFiles[i] = files[order[i]];
+            sortedLastModified[i] = lastModified[order[i]];
+        }
+        System.arraycopy(sortedFiles, 0, files, 0, files.length);
+        return sortedLastModified;
+    }
+    
+    /**
+     * Durchsucht die Einträge der registrierten Dateitypen in einem Zip-Archiv, ohne das Archiv
+     * zu entpacken.
+     * Die Einträge werden direkt in den Speicher gelesen.
+     * 
+     * @param archive Das Zip-Archiv
+     * @param root Das Suchverzeichnis, mit dem gefundene Einträge gekennzeichnet werden
+     * @param sink Das Ziel, an das gefundene Einträge übergeben werden
+     * @param patterns Ein Array mit Suchmustern
+     * @param limit Die gemeinsame Begrenzung der Ergebnisse
+     * @return Die Anzahl der gefundenen Einträge
+     */
+    private int searchArchive(File archive, String root, ResultSink sink, String[] patterns,
+            ResultLimit limit) {
+        int foundEntries = 0;
+        try (FileSystem zipFileSystem = ArchivePaths.openArchive(archive.toPath());
+             Stream<Path> entries = Files.walk(zipFileSystem.getPath("/"))) {
             
-            for (Charset charset : charsets) {
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(file), charset))) {
-                    
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        for (String pattern : patterns) {
-                            if (line.contains(pattern)) {
-                                logger.debug("Muster '{}' gefunden in Datei: {} mit Codierung: {}", 
-                                        pattern, file.getName(), charset.name());
-                                return true;
-                            }
-                        }
-                    }
-                    
-                } catch (IOException e) {
-                    // Bei einem Fehler mit dieser Codierung die nächste versuchen
+            Iterator<Path> iterator = entries.iterator();
+            while (iterator.hasNext() && !limit.isDone()) {
+                Path entry = iterator.next();
+                Path entryName = entry.getFileName();
+                FileTypeHandler fileType = entryName != null ? fileTypes.forFileName(entryName.toString()) : null;
+                if (fileType == null || Files.isDirectory(entry)) {
+                    continue;
+                }
+                
+                long start = System.nanoTime();
+                long lastModified = Files.getLastModifiedTime(entry).toMillis();
+                if (!limit.mayMatch(lastModified)) {
                     continue;
                 }
+                String archivePath = ArchivePaths.toArchivePath(archive, entry);
+                ConfigFileStore.Metadata metadata = matchPatterns(archivePath, Files.readAllBytes(entry),
+                        lastModified, fileType, patterns, start);
+                if (metadata != null && limit.accept(archivePath, root, metadata)) {
+                    logger.info("  - {}", archivePath);
+                    sink.add(archivePath, root, metadata);
+                    foundEntries++;
+                }
             }
-            
-            // Wenn keine der Codierungen erfolgreich war oder kein Muster gefunden wurde
-            return false;
-            
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen des Archivs {}: {}", archive.getAbsolutePath(), e.getMessage());
+        }
+        return foundEntries;
+    }
+    
+    /**
+     * Listet rekursiv alle Dateien mit der Endung ".chr" auf, ohne ihren Inhalt zu lesen.
+     * 
+     * @param directory Das zu durchsuchende Verzeichnis
+     * @return Die gefundenen .chr-Dateien
+     */
+    public List<File> listChrFiles(File directory) {
+        List<File> chrFiles = new ArrayList<>();
+        collectChrFiles(directory, directory.getAbsolutePath(), chrFiles);
+        return chrFiles;
+    }
+    
+    /**
+     * Listet rekursiv alle Dateien mit der Endung ".chr" in mehreren Verzeichnissen auf.
+     * 
+     * @param directories Die zu durchsuchenden Verzeichnisse
+     * @return Die gefundenen .chr-Dateien
+     */
+    public List<File> listChrFiles(List<File> directories) {
+        List<File> chrFiles = new ArrayList<>();
+        for (File directory : directories) {
+            collectChrFiles(directory, directory.getAbsolutePath(), chrFiles);
+        }
+        return chrFiles;
+    }
+    
+    /**
+     * Sammelt rekursiv alle Dateien mit der Endung ".chr". Die Ein- und Ausschlussregeln
+     * werden wie beim Scan angewendet.
+     * 
+     * @param directory Das zu durchsuchende Verzeichnis
+     * @param root Der absolute Pfad des Suchverzeichnisses, auf den sich die Regeln beziehen
+     * @param chrFiles Die Liste, zu der gefundene Dateien hinzugefügt werden
+     */
+    private void collectChrFiles(File directory, String root, List<File> chrFiles) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (!scanRules.isExcludedDirectory(ScanRules.relativePath(root, file))) {
+                    collectChrFiles(file, root, chrFiles);
+                }
+            } else if (file.getName().toLowerCase().endsWith(".chr")
+                    && scanRules.isIncludedFile(ScanRules.relativePath(root, file))) {
+                chrFiles.add(file);
+            }
+        }
+    }
+    
+    /**
+     * Liest eine Datei und prüft, ob ihr Inhalt eines der angegebenen Suchmuster enthält.
+     * 
+     * @param file Die zu prüfende Datei
+     * @param fileType Der Dateityp der Datei
+     * @param patterns Die Suchmuster
+     * @return Die Metadaten der Datei oder null, wenn keines der Muster enthalten ist
+     */
+    private ConfigFileStore.Metadata matchFile(File file, FileTypeHandler fileType, String[] patterns) {
+        long start = System.nanoTime();
+        try {
+            // Änderungszeit vor dem Lesen ermitteln, damit eine spätere Änderung erkannt wird
+            long lastModified = file.lastModified();
+            return matchPatterns(file.getAbsolutePath(), Files.readAllBytes(file.toPath()), lastModified,
+                    fileType, patterns, start);
         } catch (Exception e) {
             logger.error("Fehler beim Lesen der Datei {}: {}", file.getAbsolutePath(), e.getMessage());
-            return false;
+            return null;
+        }
+    }
+    
+    /**
+     * Durchsucht den Inhalt einer bereits eingelesenen Datei nach den Suchmustern.
+     * Die Datei wird einmal mit der erkannten Codierung dekodiert und vom Dateityp für die Suche
+     * aufbereitet. Dabei werden alle Treffer gezählt und die gefundenen Muster als Bitmaske
+     * festgehalten. Die registrierten {@link ScanListener} erhalten die Bytes und den dekodierten Inhalt und
+     * bei einem Treffer zusätzlich dessen Metadaten.
+     * 
+     * @param path Der Pfad der Datei, bei Archiven mit dem Eintrag im Archiv
+     * @param bytes Die Bytes der Datei
+     * @param lastModified Die Änderungszeit der Datei
+     * @param fileType Der Dateityp, der den Inhalt aufbereitet und die Treffer zählt
+     * @param patterns Die Suchmuster
+     * @param start Der Zeitpunkt in Nanosekunden, zu dem das Lesen begonnen hat
+     * @return Die Metadaten der Datei oder null, wenn keines der Muster enthalten ist
+     */
+    private ConfigFileStore.Metadata matchPatterns(String path, byte[] bytes, long lastModified,
+            FileTypeHandler fileType, String[] patterns, long start) {
+        ConfigFileContent content = ConfigFileContent.decode(bytes);
+        for (ScanListener listener : scanListeners) {
+            listener.fileRead(path, bytes.length, lastModified, fileType, content, bytes);
+        }
+        String text = fileType.parse(content);
+        int matchCount = 0;
+        long patternMask = 0;
+        for (int id = 0; id < patterns.length; id++) {
+            int patternMatches = fileType.countMatches(text, patterns[id]);
+            if (patternMatches > 0) {
+                matchCount += patternMatches;
+                if (id < ConfigFileStore.MAX_PATTERN_IDS) {
+                    patternMask |= 1L << id;
+                }
+            }
+        }
+        if (matchCount == 0) {
+            return null;
+        }
+        logger.debug("{} Treffer mit Codierung: {}", matchCount, content.getCharset().name());
+        ConfigFileStore.Metadata metadata = new ConfigFileStore.Metadata(bytes.length, lastModified,
+                content.getCharset(), matchCount, patternMask, System.nanoTime() - start);
+        for (ScanListener listener : scanListeners) {
+            listener.fileMatched(path, lastModified, bytes, metadata);
         }
+        return metadata;
     }
-}
\ No newline at end of file
+}
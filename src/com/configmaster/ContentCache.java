@@ -0,0 +1,323 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Zwischenspeicher für dekodierte Dateiinhalte, begrenzt auf eine Gesamtgröße in Bytes.
+ *
+ * Der Speicher wird vom {@link ConfigFileViewer} und vom Scanner gemeinsam genutzt: Als
+ * {@link ScanListener} übernimmt er jeden beim Scan dekodierten Inhalt, sodass eine gerade
+ * gescannte Datei ohne erneutes Lesen angezeigt werden kann. Ist die Grenze erreicht, werden die
+ * am längsten nicht verwendeten Einträge entfernt. Ein Eintrag gilt nur, solange sich die
+ * Änderungszeit der Datei nicht geändert hat. Zu jedem Eintrag wird ein Zeilenindex mit den
+ * Anfängen aller Zeilen gespeichert. Einträge aus Archiven werden nicht zwischengespeichert.
+ *
+ * Die Grenze kann in der Datei "contentcache.txt" im Konfigurationsverzeichnis mit
+ * "maxBytes=..." festgelegt werden.
+ */
+public class ContentCache implements ScanListener {
+
+    private static final String SETTINGS_FILE = "contentcache.txt";
+
+    /** Standardgrenze von 64 MB. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // Geschätzter Speicherbedarf eines Eintrags ohne Text und Zeilenindex
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    /**
+     * Ein zwischengespeicherter Inhalt mit Zeilenindex.
+     */
+    public static class Entry {
+        private final ConfigFileContent content;
+        private final long lastModified;
+        private final int[] lineStarts;
+        private final int weight;
+
+        Entry(String path, ConfigFileContent content, long lastModified) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.lineStarts = indexLines(content.getText());
+            this.weight = ENTRY_OVERHEAD + 2 * (path.length() + content.getText().length()) + 4 * lineStarts.length;
+        }
+
+        public ConfigFileContent getContent() {
+            return content;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gibt die Anzahl der Zeilen zurück. Wie bei {@link ConfigFileContent#getLines()} zählt
+         * nach einem abschließenden Zeilenende eine leere Zeile.
+         *
+         * @return Die Anzahl der Zeilen
+         */
+        public int getLineCount() {
+            return lineStarts.length;
+        }
+
+        /**
+         * Gibt eine Zeile ohne Zeilenende (\n oder \r\n) zurück.
+         *
+         * @param index Die Nummer der Zeile, beginnend mit 0
+         * @return Die Zeile
+         */
+        public String getLine(int index) {
+            int[] starts = lineStarts;
+            String text = content.getText();
+            int end = index + 1 < starts.length ? starts[index + 1] - 1 : text.length();
+            if (end > starts[index] && index + 1 < starts.length && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            return text.substring(starts[index], end);
+        }
+
+        /**
+         * Gibt den Text mit einheitlichen Zeilenenden (\n) zurück.
+         *
+         * @return Der Text
+         */
+        public String getNormalizedText() {
+            String text = content.getText();
+            if (text.indexOf('\r') < 0) {
+                return text;
+            }
+            int lineCount = getLineCount();
+            StringBuilder normalized = new StringBuilder(text.length());
+            for (int i = 0; i < lineCount; i++) {
+                if (i > 0) {
+                    normalized.append('\n');
+                }
+                normalized.append(getLine(i));
+            }
+            return normalized.toString();
+        }
+
+        private static int[] indexLines(String text) {
+            int count = 1;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    count++;
+                }
+            }
+            int[] starts = new int[count];
+            int line = 1;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    starts[line++] = i + 1;
+                }
+            }
+            return starts;
+        }
+    }
+
+    /**
+     * Erstellt einen Speicher mit der Grenze aus der Konfigurationsdatei.
+     */
+    public ContentCache() {
+        this(loadMaxBytes());
+    }
+
+    /**
+     * Erstellt einen Speicher mit einer bestimmten Grenze.
+     *
+     * @param maxBytes Die höchste Gesamtgröße der Einträge in Bytes
+     */
+    public ContentCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        if (!ArchivePaths.isArchivePath(path)) {
+            put(path, new Entry(path, content, lastModified));
+        }
+    }
+
+    /**
+     * Gibt den Inhalt einer Datei zurück. Fehlt er im Speicher oder hat sich die Datei seitdem
+     * geändert, wird sie gelesen, dekodiert und aufgenommen.
+     *
+     * @param path Der Pfad der Datei
+     * @return Der Inhalt mit Zeilenindex
+     * @throws IOException Wenn die Datei nicht gelesen werden kann
+     */
+    public Entry get(String path) throws IOException {
+        if (ArchivePaths.isArchivePath(path)) {
+            synchronized (this) {
+                misses++;
+            }
+            return new Entry(path, ConfigFileContent.read(path), 0);
+        }
+        // Änderungszeit vor dem Lesen ermitteln, damit eine spätere Änderung erkannt wird
+        long lastModified = new File(path).lastModified();
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.lastModified == lastModified) {
+                hits++;
+                return entry;
+            }
+            if (entry != null) {
+                invalidations++;
+                remove(path);
+            }
+            misses++;
+        }
+        Entry entry = new Entry(path, ConfigFileContent.read(path), lastModified);
+        put(path, entry);
+        return entry;
+    }
+
+    /**
+     * Gibt den Inhalt einer Datei zurück, wenn er im Speicher liegt und noch gültig ist, ohne
+     * die Datei zu lesen. Ein vorhandener Eintrag zählt als Treffer; fehlt er, wird erst beim
+     * anschließenden {@link #get(String)} ein Fehlzugriff gezählt.
+     *
+     * @param path Der Pfad der Datei
+     * @return Der Inhalt oder null
+     */
+    public Entry getCached(String path) {
+        if (ArchivePaths.isArchivePath(path)) {
+            return null;
+        }
+        long lastModified = new File(path).lastModified();
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.lastModified == lastModified) {
+                hits++;
+                return entry;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gibt den Inhalt einer Datei nur zurück, wenn er im Speicher liegt und noch gültig ist.
+     * Zählt weder als Treffer noch als Fehlzugriff.
+     *
+     * @param path Der Pfad der Datei
+     * @return Der Inhalt oder null
+     */
+    public Entry peek(String path) {
+        if (ArchivePaths.isArchivePath(path)) {
+            return null;
+        }
+        long lastModified = new File(path).lastModified();
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            return entry != null && entry.lastModified == lastModified ? entry : null;
+        }
+    }
+
+    /**
+     * Nimmt einen Eintrag auf und entfernt die am längsten nicht verwendeten Einträge, bis die
+     * Grenze wieder eingehalten wird. Ein Eintrag, der allein größer als die Grenze ist, wird
+     * nicht aufgenommen.
+     */
+    private synchronized void put(String path, Entry entry) {
+        remove(path);
+        if (entry.weight > maxBytes) {
+            return;
+        }
+        entries.put(path, entry);
+        currentBytes += entry.weight;
+        trim();
+    }
+
+    private void remove(String path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            currentBytes -= removed.weight;
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Entfernt alle Einträge. Die Statistik bleibt erhalten.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gibt die Anzahl der Einträge zurück, die wegen einer geänderten Datei verworfen wurden.
+     *
+     * @return Die Anzahl
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Gibt die Anzahl der Einträge zurück, die wegen der Größengrenze entfernt wurden.
+     *
+     * @return Die Anzahl
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Beschreibt die Statistik in einer Zeile, z.B. für eine Statusanzeige.
+     *
+     * @return Die Beschreibung
+     */
+    public synchronized String getStatistics() {
+        long requests = hits + misses;
+        return String.format("Cache: %d Treffer, %d Fehlzugriffe (%.0f %%), %d verworfen, %d verdrängt, "
+                + "%d Dateien, %.1f von %.0f MB", hits, misses, requests > 0 ? 100.0 * hits / requests : 0.0,
+                invalidations, evictions, entries.size(), currentBytes / 1048576.0, maxBytes / 1048576.0);
+    }
+
+    /**
+     * Lädt die Grenze aus der Konfigurationsdatei.
+     */
+    private static long loadMaxBytes() {
+        return SettingsFile.load(SETTINGS_FILE).getLong("maxBytes", DEFAULT_MAX_BYTES);
+    }
+}
@@ -0,0 +1,619 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Invertierter Index der Wörter im Inhalt aller gescannten Dateien für die unscharfe Suche.
+ *
+ * Wörter werden klein geschrieben und ohne Trennzeichen gespeichert. Zusätzlich zu den einzelnen
+ * Wörtern wird jeder Wert einer Zeile "key=value" als Ganzes ohne Leer- und Trennzeichen
+ * eingetragen, so dass "MACD_Custom", "MACD Custom" und "MACDcustom" alle zu "macdcustom"
+ * werden. Zu jedem Wort wird die Menge der Datei-IDs aus dem {@link ScanCache} als
+ * {@link IdBitmap} gehalten.
+ *
+ * Für eine Suche mit Fehlertoleranz wird ein {@link LevenshteinAutomaton} über das sortierte
+ * Wörterbuch geführt, nicht jede Datei oder jedes Wort einzeln verglichen. Das sortierte
+ * Wörterbuch wird nach Änderungen erst bei der nächsten Suche neu aufgebaut.
+ *
+ * Suchbegriffe haben die Form "wort" für eine genaue Suche oder "wort~n" für höchstens
+ * n Änderungen, z.B. "MACD_Custom~1".
+ *
+ * Der Inhalt des Index kann als {@link IndexSegment} in eine portable Datei geschrieben werden,
+ * damit die Indizes mehrerer Rechner zusammengeführt werden können. Mit einem {@link SegmentStore}
+ * wird der Index außerdem dauerhaft gespeichert: Nach jedem Scan werden nur die neu gelesenen
+ * Dateien und Löschmarken für entfernte Dateien als neues Segment geschrieben.
+ *
+ * Beim Start wird der zuletzt geschriebene Grundbestand als {@link MappedSegment} außerhalb des
+ * Heaps abgebildet. Im Heap liegen nur die Wörter der Segmente danach und der seither gelesenen
+ * Dateien sowie je Datei die Änderungszeit; geänderte oder entfernte Dateien werden im
+ * Grundbestand ausgeblendet. Eine Abfrage vereinigt die Ergebnisse beider Teile. Wahlweise kann
+ * der gespeicherte Index auch vollständig in den Heap geladen werden.
+ */
+public class ContentIndex implements ScanListener, WordIndex {
+
+    private static final Logger logger = LogManager.getLogger(ContentIndex.class);
+
+    // Längere Wörter sind meist Kodierungen oder Pfade und werden nicht aufgenommen
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final ScanCache scanCache;
+    private final SegmentStore segmentStore;
+
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<IdBitmap> postings = new ArrayList<>();
+
+    // Sortiertes Wörterbuch, neu aufgebaut bei Bedarf
+    private String[] dictionary = new String[0];
+    private boolean dictionaryDirty;
+
+    // Pro Datei-ID: Änderungszeit der indizierten Fassung und die enthaltenen Wörter
+    private long[] fileModified = new long[0];
+    private int[][] fileTokens = new int[0][];
+    private final IdBitmap indexedFiles = new IdBitmap();
+    private final BitSet seenFiles = new BitSet();
+
+    // Abgebildeter Grundbestand: Datei-IDs je Dateinummer und die IDs, deren Fassung dort gilt
+    private MappedSegment base;
+    private int[] baseFileIds = new int[0];
+    private final IdBitmap baseFiles = new IdBitmap();
+
+    // Änderungen seit dem letzten Segment: neu gelesene Dateien und entfernte Pfade mit Löschzeit
+    private IdBitmap changedFiles = new IdBitmap();
+    private final Map<String, Long> removedPaths = new TreeMap<>();
+
+    /**
+     * Erstellt einen leeren Index, der nicht gespeichert wird.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     */
+    public ContentIndex(ScanCache scanCache) {
+        this(scanCache, null);
+    }
+
+    /**
+     * Erstellt einen Index, dessen gespeicherter Stand außerhalb des Heaps abgebildet wird.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     * @param segmentStore Die Ablage, in die jede Änderung als Segment geschrieben wird, oder null
+     */
+    public ContentIndex(ScanCache scanCache, SegmentStore segmentStore) {
+        this(scanCache, segmentStore, true);
+    }
+
+    /**
+     * Erstellt einen Index und übernimmt den gespeicherten Stand aus den Segmenten. Dateien, die
+     * der Scan-Cache nicht kennt, werden beim nächsten Scan neu gelesen.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     * @param segmentStore Die Ablage, in die jede Änderung als Segment geschrieben wird, oder null
+     * @param mapped true, um den gespeicherten Stand abzubilden; false, um ihn in den Heap zu laden
+     */
+    public ContentIndex(ScanCache scanCache, SegmentStore segmentStore, boolean mapped) {
+        this.scanCache = scanCache;
+        this.segmentStore = segmentStore;
+        if (segmentStore != null) {
+            try {
+                if (mapped) {
+                    SegmentStore.MappedIndex mappedIndex = segmentStore.openMapped();
+                    if (mappedIndex.getBase() != null) {
+                        loadBase(mappedIndex.getBase());
+                        if (mappedIndex.getChanges() != null) {
+                            applyChanges(mappedIndex.getChanges());
+                        }
+                    } else if (mappedIndex.getChanges() != null) {
+                        load(mappedIndex.getChanges());
+                    }
+                } else {
+                    load(segmentStore.readAll());
+                }
+            } catch (IOException e) {
+                logger.error("Fehler beim Laden des Inhaltsindex: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void scanStarted(List<File> searchDirs) {
+        seenFiles.clear();
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        int fileId = scanCache.getOrCreate(path, size, lastModified).getId();
+        synchronized (this) {
+            seenFiles.set(fileId);
+            if (indexedFiles.contains(fileId) && fileModified[fileId] == lastModified) {
+                return;
+            }
+        }
+        Set<String> fileWords = tokenize(fileType.parse(content));
+        synchronized (this) {
+            removeFile(fileId);
+            addFile(fileId, lastModified, fileWords);
+            if (segmentStore != null) {
+                changedFiles.add(fileId);
+                removedPaths.remove(path);
+            }
+        }
+    }
+
+    @Override
+    public void scanFinished(List<File> searchDirs, boolean complete) {
+        IndexSegment changes = null;
+        synchronized (this) {
+            if (complete) {
+                List<String> roots = new ArrayList<>();
+                for (File searchDir : searchDirs) {
+                    roots.add(searchDir.getAbsolutePath());
+                }
+                List<Integer> removed = new ArrayList<>();
+                indexedFiles.forEach(fileId -> {
+                    if (!seenFiles.get(fileId) && ScanCache.isBelowAny(scanCache.getPath(fileId), roots)) {
+                        removed.add(fileId);
+                    }
+                });
+                long now = System.currentTimeMillis();
+                for (int fileId : removed) {
+                    removeFile(fileId);
+                    if (segmentStore != null) {
+                        changedFiles.remove(fileId);
+                        removedPaths.put(scanCache.getPath(fileId), now);
+                    }
+                }
+            }
+            logger.info("Inhaltsindex: {} Dateien, {} Wörter", indexedFiles.getCardinality(), tokens.size());
+            if (segmentStore != null && (!changedFiles.isEmpty() || !removedPaths.isEmpty())) {
+                changes = buildSegment(changedFiles, removedPaths, IndexSegment.localSource());
+                changedFiles = new IdBitmap();
+                removedPaths.clear();
+            }
+        }
+        if (changes != null) {
+            try {
+                segmentStore.add(changes);
+            } catch (IOException e) {
+                logger.error("Fehler beim Speichern des Inhaltsindex: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<String> findWords(String term, int maxEdits) {
+        String normalized = normalize(term);
+        List<String> words = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return words;
+        }
+        if (maxEdits == 0) {
+            Integer tokenId = tokenIds.get(normalized);
+            if ((tokenId != null && !postings.get(tokenId).isEmpty()) || isLiveBaseWord(normalized)) {
+                words.add(normalized);
+            }
+            return words;
+        }
+
+        rebuildDictionary();
+        long start = System.nanoTime();
+        int[] matches = new LevenshteinAutomaton(normalized, maxEdits).intersect(dictionary, dictionary.length);
+        for (int index : matches) {
+            words.add(dictionary[index]);
+        }
+        if (base != null) {
+            Set<String> merged = new TreeSet<>(words);
+            for (String word : base.findWords(normalized, maxEdits)) {
+                if (isLiveBaseWord(word)) {
+                    merged.add(word);
+                }
+            }
+            words = new ArrayList<>(merged);
+        }
+        logger.info("Unscharfe Suche '{}'~{}: {} Wörter in {} µs", normalized, maxEdits, words.size(),
+                (System.nanoTime() - start) / 1000);
+        return words;
+    }
+
+    /**
+     * Prüft, ob ein Wort im abgebildeten Grundbestand noch in einer nicht ausgeblendeten Datei
+     * vorkommt.
+     */
+    private boolean isLiveBaseWord(String word) {
+        int index = base != null ? base.indexOf(word) : -1;
+        if (index < 0) {
+            return false;
+        }
+        boolean[] live = new boolean[1];
+        base.forEachFile(index, file -> {
+            int fileId = baseFileIds[file];
+            if (fileId >= 0 && baseFiles.contains(fileId)) {
+                live[0] = true;
+            }
+        });
+        return live[0];
+    }
+
+    @Override
+    public synchronized IdBitmap getFiles(String word) {
+        Integer tokenId = tokenIds.get(word);
+        IdBitmap files = tokenId != null ? postings.get(tokenId).copy() : new IdBitmap();
+        int index = base != null ? base.indexOf(word) : -1;
+        if (index >= 0) {
+            base.forEachFile(index, file -> {
+                int fileId = baseFileIds[file];
+                if (fileId >= 0 && baseFiles.contains(fileId)) {
+                    files.add(fileId);
+                }
+            });
+        }
+        return files;
+    }
+
+    /**
+     * Gibt die Anzahl der Wörter im Heap und im abgebildeten Grundbestand zurück. Ein Wort, das
+     * in beiden vorkommt, wird doppelt gezählt.
+     *
+     * @return Die Anzahl der Wörter
+     */
+    public synchronized int getWordCount() {
+        return tokens.size() + (base != null ? base.getWordCount() : 0);
+    }
+
+    /**
+     * Gibt zurück, ob der Index Dateien enthält.
+     *
+     * @return true, wenn mindestens eine Datei indiziert ist
+     */
+    public synchronized boolean hasFiles() {
+        return !indexedFiles.isEmpty();
+    }
+
+    /**
+     * Erstellt ein Segment mit allen indizierten Dateien und ihren Wörtern. Die Dateien werden
+     * nach Pfad sortiert und im Segment neu nummeriert.
+     *
+     * @param source Der Name des Rechners, auf dem der Index erstellt wurde
+     * @return Das Segment
+     */
+    public synchronized IndexSegment toSegment(String source) {
+        if (base == null) {
+            return buildSegment(indexedFiles, Collections.emptyMap(), source);
+        }
+        // Grundbestand ohne ausgeblendete Dateien mit den Dateien im Heap zusammenführen
+        IdBitmap heapFiles = new IdBitmap();
+        indexedFiles.forEach(fileId -> {
+            if (fileTokens[fileId] != null) {
+                heapFiles.add(fileId);
+            }
+        });
+        Map<String, Long> hidden = new TreeMap<>();
+        for (int file = 0; file < baseFileIds.length; file++) {
+            int fileId = baseFileIds[file];
+            if (fileId < 0 || (!baseFiles.contains(fileId) && !heapFiles.contains(fileId))) {
+                hidden.put(base.getPath(file), base.getLastModified(file));
+            }
+        }
+        return IndexSegment.compact(List.of(base.toIndexSegment(), buildSegment(heapFiles, hidden, source)), false);
+    }
+
+    /**
+     * Normalisiert einen Text wie ein Wort des Index: klein geschrieben, nur Buchstaben und Ziffern.
+     *
+     * @param text Der Text
+     * @return Der normalisierte Text
+     */
+    public static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Zerlegt den Inhalt in Wörter aus Buchstaben und Ziffern und ergänzt die Werte von
+     * "key=value"-Zeilen als Ganzes ohne Trennzeichen.
+     */
+    private static Set<String> tokenize(String text) {
+        Set<String> words = new HashSet<>();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int wordStart = -1;
+            for (int i = lineStart; i <= lineEnd; i++) {
+                boolean letter = i < lineEnd && Character.isLetterOrDigit(text.charAt(i));
+                if (letter && wordStart < 0) {
+                    wordStart = i;
+                } else if (!letter && wordStart >= 0) {
+                    addWord(words, normalize(text.substring(wordStart, i)));
+                    wordStart = -1;
+                }
+            }
+            int separator = text.indexOf('=', lineStart);
+            if (separator >= 0 && separator < lineEnd) {
+                addWord(words, normalize(text.substring(separator + 1, lineEnd)));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return words;
+    }
+
+    private static void addWord(Set<String> words, String word) {
+        if (!word.isEmpty() && word.length() <= MAX_TOKEN_LENGTH) {
+            words.add(word);
+        }
+    }
+
+    /**
+     * Baut das sortierte Wörterbuch aus allen Wörtern auf, die noch in einer Datei vorkommen.
+     */
+    private void rebuildDictionary() {
+        if (!dictionaryDirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        Integer[] order = new Integer[tokens.size()];
+        int count = 0;
+        for (int tokenId = 0; tokenId < tokens.size(); tokenId++) {
+            if (!postings.get(tokenId).isEmpty()) {
+                order[count++] = tokenId;
+            }
+        }
+        Arrays.sort(order, 0, count, (a, b) -> tokens.get(a).compareTo(tokens.get(b)));
+        dictionary = new String[count];
+        for (int i = 0; i < count; i++) {
+            dictionary[i] = tokens.get(order[i]);
+        }
+        dictionaryDirty = false;
+        logger.info("Wörterbuch aufgebaut: {} Wörter in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Erstellt ein Segment aus einem Teil der indizierten Dateien und Löschmarken.
+     *
+     * @param files Die IDs der Dateien, die mit ihren Wörtern aufgenommen werden
+     * @param tombstones Die Pfade entfernter Dateien mit dem Zeitpunkt der Löschung
+     * @param source Der Name des Rechners
+     */
+    private IndexSegment buildSegment(IdBitmap files, Map<String, Long> tombstones, String source) {
+        int fileCount = files.getCardinality() + tombstones.size();
+        String[] paths = new String[fileCount];
+        int[] fileIds = new int[fileCount];
+        int[] count = new int[1];
+        files.forEach(fileId -> {
+            paths[count[0]] = scanCache.getPath(fileId);
+            fileIds[count[0]++] = fileId;
+        });
+        for (String path : tombstones.keySet()) {
+            paths[count[0]] = path;
+            fileIds[count[0]++] = -1;
+        }
+        Integer[] order = new Integer[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> paths[a].compareTo(paths[b]));
+
+        // Datei-IDs des Scan-Caches auf die Nummern im Segment abbilden
+        Map<Integer, Integer> segmentIds = new HashMap<>();
+        String[] segmentPaths = new String[fileCount];
+        long[] lastModified = new long[fileCount];
+        boolean[] deleted = new boolean[fileCount];
+        Set<Integer> tokenSet = new HashSet<>();
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = fileIds[order[i]];
+            segmentPaths[i] = paths[order[i]];
+            if (fileId < 0) {
+                lastModified[i] = tombstones.get(segmentPaths[i]);
+                deleted[i] = true;
+            } else {
+                segmentIds.put(fileId, i);
+                lastModified[i] = fileModified[fileId];
+                for (int tokenId : fileTokens[fileId]) {
+                    tokenSet.add(tokenId);
+                }
+            }
+        }
+
+        Integer[] tokenOrder = tokenSet.toArray(new Integer[0]);
+        Arrays.sort(tokenOrder, (a, b) -> tokens.get(a).compareTo(tokens.get(b)));
+        String[] words = new String[tokenOrder.length];
+        int[][] segmentPostings = new int[tokenOrder.length][];
+        for (int i = 0; i < tokenOrder.length; i++) {
+            IdBitmap wordFiles = IdBitmap.and(postings.get(tokenOrder[i]), files);
+            int[] ids = new int[wordFiles.getCardinality()];
+            int[] size = new int[1];
+            wordFiles.forEach(fileId -> ids[size[0]++] = segmentIds.get(fileId));
+            Arrays.sort(ids);
+            words[i] = tokens.get(tokenOrder[i]);
+            segmentPostings[i] = ids;
+        }
+        return new IndexSegment(new String[] { source }, segmentPaths, lastModified, new int[fileCount], deleted,
+                words, segmentPostings);
+    }
+
+    /**
+     * Übernimmt einen abgebildeten Index als Grundbestand in den leeren Index. Im Heap werden
+     * nur die Zuordnung zu den Datei-IDs und die Änderungszeiten gehalten.
+     */
+    private synchronized void loadBase(MappedSegment segment) {
+        long start = System.nanoTime();
+        int fileCount = segment.getFileCount();
+        baseFileIds = new int[fileCount];
+        int maxFileId = -1;
+        for (int i = 0; i < fileCount; i++) {
+            baseFileIds[i] = scanCache.getId(segment.getPath(i));
+            maxFileId = Math.max(maxFileId, baseFileIds[i]);
+        }
+        fileModified = new long[maxFileId + 1];
+        fileTokens = new int[maxFileId + 1][];
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = baseFileIds[i];
+            if (fileId >= 0) {
+                fileModified[fileId] = segment.getLastModified(i);
+                baseFiles.add(fileId);
+                indexedFiles.add(fileId);
+            }
+        }
+        base = segment;
+        logger.info("Inhaltsindex abgebildet: {} Dateien, {} Wörter, {} Bytes in {} ms", baseFiles.getCardinality(),
+                segment.getWordCount(), segment.getMappedBytes(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Übernimmt den Inhalt eines gespeicherten Segments ohne Löschmarken in den leeren Index.
+     */
+    private synchronized void load(IndexSegment segment) {
+        long start = System.nanoTime();
+        int fileCount = segment.getFileCount();
+        int[] fileIds = new int[fileCount];
+        int maxFileId = -1;
+        for (int i = 0; i < fileCount; i++) {
+            fileIds[i] = segment.isDeleted(i) ? -1 : scanCache.getId(segment.getPath(i));
+            maxFileId = Math.max(maxFileId, fileIds[i]);
+        }
+        fileModified = new long[maxFileId + 1];
+        fileTokens = new int[maxFileId + 1][];
+
+        // Anzahl der Wörter je Datei ermitteln, dann Wörter und Dateimengen übernehmen
+        int[] wordCounts = new int[fileCount];
+        for (int word = 0; word < segment.getWordCount(); word++) {
+            for (int file : segment.getWordFiles(word)) {
+                wordCounts[file]++;
+            }
+        }
+        int[][] wordsOfFile = new int[fileCount][];
+        for (int i = 0; i < fileCount; i++) {
+            wordsOfFile[i] = new int[wordCounts[i]];
+            wordCounts[i] = 0;
+        }
+        for (int word = 0; word < segment.getWordCount(); word++) {
+            int tokenId = tokens.size();
+            tokens.add(segment.getWord(word));
+            tokenIds.put(segment.getWord(word), tokenId);
+            IdBitmap files = new IdBitmap();
+            for (int file : segment.getWordFiles(word)) {
+                if (fileIds[file] >= 0) {
+                    files.add(fileIds[file]);
+                    wordsOfFile[file][wordCounts[file]++] = tokenId;
+                }
+            }
+            postings.add(files);
+        }
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = fileIds[i];
+            if (fileId >= 0) {
+                fileModified[fileId] = segment.getLastModified(i);
+                fileTokens[fileId] = Arrays.copyOf(wordsOfFile[i], wordCounts[i]);
+                indexedFiles.add(fileId);
+            }
+        }
+        dictionaryDirty = true;
+        logger.info("Inhaltsindex geladen: {} Dateien, {} Wörter in {} ms", indexedFiles.getCardinality(),
+                tokens.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Übernimmt die Segmente nach dem Grundbestand: Die enthaltenen Dateien ersetzen ihre Fassung
+     * im Grundbestand, Löschmarken blenden Dateien aus.
+     */
+    private synchronized void applyChanges(IndexSegment changes) {
+        long start = System.nanoTime();
+        int fileCount = changes.getFileCount();
+        List<List<String>> wordsOfFile = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            wordsOfFile.add(new ArrayList<>());
+        }
+        for (int word = 0; word < changes.getWordCount(); word++) {
+            for (int file : changes.getWordFiles(word)) {
+                wordsOfFile.get(file).add(changes.getWord(word));
+            }
+        }
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = scanCache.getId(changes.getPath(i));
+            if (fileId < 0) {
+                continue;
+            }
+            removeFile(fileId);
+            if (!changes.isDeleted(i)) {
+                addFile(fileId, changes.getLastModified(i), wordsOfFile.get(i));
+            }
+        }
+        logger.info("Änderungen nach dem Grundbestand übernommen: {} Dateien, {} Löschmarken in {} ms",
+                fileCount - changes.getTombstoneCount(), changes.getTombstoneCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Nimmt eine Datei mit ihren Wörtern in den Heap auf. Eine vorherige Fassung muss bereits
+     * entfernt sein.
+     */
+    private void addFile(int fileId, long lastModified, Collection<String> fileWords) {
+        if (fileId >= fileModified.length) {
+            int capacity = Math.max(fileId + 1, fileModified.length * 2);
+            fileModified = Arrays.copyOf(fileModified, capacity);
+            fileTokens = Arrays.copyOf(fileTokens, capacity);
+        }
+        int[] ids = new int[fileWords.size()];
+        int count = 0;
+        for (String word : fileWords) {
+            Integer tokenId = tokenIds.get(word);
+            if (tokenId == null) {
+                tokenId = tokens.size();
+                tokenIds.put(word, tokenId);
+                tokens.add(word);
+                postings.add(new IdBitmap());
+                dictionaryDirty = true;
+            }
+            postings.get(tokenId).add(fileId);
+            ids[count++] = tokenId;
+        }
+        fileModified[fileId] = lastModified;
+        fileTokens[fileId] = ids;
+        indexedFiles.add(fileId);
+    }
+
+    /**
+     * Entfernt eine Datei aus den Dateimengen aller ihrer Wörter bzw. blendet sie im
+     * Grundbestand aus.
+     */
+    private void removeFile(int fileId) {
+        if (!indexedFiles.contains(fileId)) {
+            return;
+        }
+        if (fileTokens[fileId] != null) {
+            for (int tokenId : fileTokens[fileId]) {
+                IdBitmap files = postings.get(tokenId);
+                files.remove(fileId);
+                if (files.isEmpty()) {
+                    dictionaryDirty = true;
+                }
+            }
+            fileTokens[fileId] = null;
+        }
+        baseFiles.remove(fileId);
+        indexedFiles.remove(fileId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.configmaster;
+
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Fenster mit dem Bericht über identische Konfigurationsdateien.
+ * Jede Gruppe identischer Dateien wird als aufklappbarer Knoten angezeigt. Die erste Datei
+ * einer Gruppe gilt als Original, alle weiteren werden als redundante Kopien hervorgehoben.
+ */
+public class DuplicateDialog {
+
+    private static final Color COLOR_REDUNDANT = new Color(255, 225, 200);
+
+    private final ConfigFileViewer configFileViewer;
+
+    /**
+     * Erstellt einen neuen DuplicateDialog.
+     *
+     * @param configFileViewer Der Viewer zum Öffnen einzelner Dateien
+     */
+    public DuplicateDialog(ConfigFileViewer configFileViewer) {
+        this.configFileViewer = configFileViewer;
+    }
+
+    /**
+     * Öffnet das Fenster mit den gefundenen Duplikatgruppen.
+     *
+     * @param parentShell Das Elternfenster
+     * @param groups Die Gruppen identischer Dateien
+     */
+    public void open(Shell parentShell, List<DuplicateFinder.DuplicateGroup> groups) {
+        Shell shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Identische Konfigurationsdateien");
+        shell.setSize(800, 500);
+        GridLayout layout = new GridLayout(1, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        int redundantFiles = 0;
+        for (DuplicateFinder.DuplicateGroup group : groups) {
+            redundantFiles += group.getPaths().size() - 1;
+        }
+        Label summaryLabel = new Label(shell, SWT.NONE);
+        summaryLabel.setText(String.format("%d Gruppen, %d redundante Kopien, %.1f KB redundanter Speicher",
+                groups.size(), redundantFiles, DuplicateFinder.totalRedundantBytes(groups) / 1024.0));
+
+        Tree tree = new Tree(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+        tree.setHeaderVisible(true);
+        tree.setLinesVisible(true);
+        tree.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+
+        TreeColumn pathColumn = new TreeColumn(tree, SWT.NONE);
+        pathColumn.setText("Datei");
+        pathColumn.setWidth(560);
+        TreeColumn sizeColumn = new TreeColumn(tree, SWT.NONE);
+        sizeColumn.setText("Größe");
+        sizeColumn.setWidth(80);
+        TreeColumn hashColumn = new TreeColumn(tree, SWT.NONE);
+        hashColumn.setText("Hash");
+        hashColumn.setWidth(140);
+
+        for (DuplicateFinder.DuplicateGroup group : groups) {
+            TreeItem groupItem = new TreeItem(tree, SWT.NONE);
+            groupItem.setText(new String[] {
+                group.getPaths().size() + " identische Dateien",
+                group.getSize() + " B",
+                String.format("%016x", group.getHash())
+            });
+            for (int i = 0; i < group.getPaths().size(); i++) {
+                TreeItem fileItem = new TreeItem(groupItem, SWT.NONE);
+                fileItem.setText(0, group.getPaths().get(i));
+                fileItem.setData(group.getPaths().get(i));
+                if (i > 0) {
+                    fileItem.setBackground(COLOR_REDUNDANT);
+                }
+            }
+            groupItem.setExpanded(true);
+        }
+
+        // Doppelklick öffnet die Datei im Viewer
+        tree.addListener(SWT.MouseDoubleClick, event -> {
+            TreeItem[] selection = tree.getSelection();
+            if (selection.length > 0 && selection[0].getData() instanceof String) {
+                configFileViewer.viewConfigFile(shell, (String) selection[0].getData());
+            }
+        });
+
+        Button closeButton = new Button(shell, SWT.PUSH);
+        closeButton.setText("Schließen");
+        closeButton.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, true, false));
+        closeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                shell.close();
+            }
+        });
+
+        shell.open();
+    }
+}
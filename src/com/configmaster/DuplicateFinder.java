@@ -0,0 +1,212 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sucht byteweise identische .chr-Dateien in einem Verzeichnisbaum.
+ *
+ * Vorgehen:
+ * 1. Alle .chr-Dateien werden nach Dateigröße gruppiert. Dateien mit eindeutiger Größe
+ *    können keine Duplikate haben und werden nicht gelesen.
+ * 2. Nur Dateien mit gleicher Größe werden parallel mit {@link FastHash} gehasht. Hashes
+ *    unveränderter Dateien kommen aus dem {@link ScanCache}.
+ * 3. Dateien mit gleichem Hash werden byteweise verglichen, bevor sie als Duplikate gelten.
+ */
+public class DuplicateFinder {
+
+    private static final Logger logger = LogManager.getLogger(DuplicateFinder.class);
+
+    private final ScanCache scanCache;
+
+    /**
+     * Eine Gruppe identischer Dateien.
+     */
+    public static class DuplicateGroup {
+        private final long size;
+        private final long hash;
+        private final List<String> paths;
+
+        DuplicateGroup(long size, long hash, List<String> paths) {
+            this.size = size;
+            this.hash = hash;
+            this.paths = paths;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Gibt den Speicherplatz zurück, den die redundanten Kopien belegen.
+         *
+         * @return Die Anzahl der redundanten Bytes
+         */
+        public long getRedundantBytes() {
+            return size * (paths.size() - 1);
+        }
+    }
+
+    /**
+     * Eine Datei mit den für die Duplikatsuche benötigten Metadaten.
+     */
+    private static class Candidate {
+        final String path;
+        final long size;
+        final long lastModified;
+        long hash;
+        boolean unreadable;
+
+        Candidate(File file) {
+            this.path = file.getAbsolutePath();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+    }
+
+    /**
+     * Erstellt einen neuen DuplicateFinder.
+     *
+     * @param scanCache Der Cache für bereits berechnete Hashes
+     */
+    public DuplicateFinder(ScanCache scanCache) {
+        this.scanCache = scanCache;
+    }
+
+    /**
+     * Sucht identische .chr-Dateien in den angegebenen Verzeichnissen und allen Unterverzeichnissen.
+     *
+     * @param searchDirs Die zu durchsuchenden Verzeichnisse
+     * @return Die Gruppen identischer Dateien, absteigend nach redundantem Speicherplatz sortiert
+     */
+    public List<DuplicateGroup> findDuplicates(List<File> searchDirs) {
+        long start = System.currentTimeMillis();
+
+        // Schritt 1: nach Größe gruppieren
+        List<Candidate> candidates = new ArrayList<>();
+        for (File file : new ConfigScanner().listChrFiles(searchDirs)) {
+            candidates.add(new Candidate(file));
+        }
+        Map<Long, List<Candidate>> bySize = candidates.stream()
+                .collect(Collectors.groupingBy(c -> c.size));
+
+        List<Candidate> sizeCollisions = new ArrayList<>();
+        for (List<Candidate> group : bySize.values()) {
+            if (group.size() > 1) {
+                sizeCollisions.addAll(group);
+            }
+        }
+
+        // Schritt 2: nur Größenkollisionen parallel hashen
+        AtomicInteger cacheHits = new AtomicInteger();
+        sizeCollisions.parallelStream().forEach(candidate -> hash(candidate, cacheHits));
+        scanCache.save();
+
+        // Schritt 3: nach Größe und Hash gruppieren und Gleichheit bestätigen
+        Map<String, List<Candidate>> byHash = sizeCollisions.stream()
+                .filter(c -> !c.unreadable)
+                .collect(Collectors.groupingBy(c -> c.size + ":" + c.hash));
+        List<DuplicateGroup> groups = byHash.values().parallelStream()
+                .filter(group -> group.size() > 1)
+                .flatMap(group -> confirmEqual(group).stream())
+                .sorted(Comparator.comparingLong(DuplicateGroup::getRedundantBytes).reversed())
+                .collect(Collectors.toList());
+
+        logger.info("Duplikatsuche abgeschlossen in {} ms: {} Dateien, {} gehasht ({} aus Cache), {} Gruppen",
+                System.currentTimeMillis() - start, candidates.size(), sizeCollisions.size(),
+                cacheHits.get(), groups.size());
+        return groups;
+    }
+
+    /**
+     * Ermittelt den Hash einer Datei, bevorzugt aus dem Cache.
+     */
+    private void hash(Candidate candidate, AtomicInteger cacheHits) {
+        ScanCache.Entry entry = scanCache.getOrCreate(candidate.path, candidate.size, candidate.lastModified);
+        if (entry.hasHash()) {
+            candidate.hash = entry.getHash();
+            cacheHits.incrementAndGet();
+            return;
+        }
+        try {
+            candidate.hash = FastHash.hash(Files.readAllBytes(Paths.get(candidate.path)));
+            scanCache.setHash(entry, candidate.hash);
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der Datei {}: {}", candidate.path, e.getMessage());
+            candidate.unreadable = true;
+        }
+    }
+
+    /**
+     * Teilt eine Gruppe mit gleichem Hash in Gruppen byteweise identischer Dateien auf.
+     */
+    private List<DuplicateGroup> confirmEqual(List<Candidate> sameHash) {
+        List<List<Candidate>> identical = new ArrayList<>();
+        for (Candidate candidate : sameHash) {
+            boolean placed = false;
+            for (List<Candidate> group : identical) {
+                if (contentEquals(group.get(0), candidate)) {
+                    group.add(candidate);
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                List<Candidate> group = new ArrayList<>();
+                group.add(candidate);
+                identical.add(group);
+            }
+        }
+
+        List<DuplicateGroup> result = new ArrayList<>();
+        for (List<Candidate> group : identical) {
+            if (group.size() > 1) {
+                List<String> paths = group.stream().map(c -> c.path).sorted().collect(Collectors.toList());
+                result.add(new DuplicateGroup(group.get(0).size, group.get(0).hash, paths));
+            }
+        }
+        return result;
+    }
+
+    private boolean contentEquals(Candidate a, Candidate b) {
+        try {
+            return Files.mismatch(Paths.get(a.path), Paths.get(b.path)) == -1L;
+        } catch (IOException e) {
+            logger.error("Fehler beim Vergleichen von {} und {}: {}", a.path, b.path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Summiert den redundanten Speicherplatz aller Gruppen.
+     *
+     * @param groups Die Duplikatgruppen
+     * @return Die Anzahl der redundanten Bytes
+     */
+    public static long totalRedundantBytes(List<DuplicateGroup> groups) {
+        long total = 0;
+        for (DuplicateGroup group : groups) {
+            total += group.getRedundantBytes();
+        }
+        return total;
+    }
+}
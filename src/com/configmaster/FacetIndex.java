@@ -0,0 +1,307 @@
+package com.configmaster;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Facetten der Chart-Dateien für die gefilterte Anzeige der Ergebnisse: Symbol, Zeitrahmen und
+ * die Namen der verwendeten Indikatoren.
+ *
+ * Zu jedem Facettenwert wird die Menge der Datei-IDs aus dem {@link ScanCache} als
+ * {@link IdBitmap} gehalten. Eine Auswahl mehrerer Werte einer Facette ergibt deren
+ * Vereinigungsmenge, mehrere Facetten werden miteinander geschnitten. Die Anzahlen neben den
+ * Werten sind Schnittmengen mit der aktuellen Auswahl und werden ohne Lesen der Dateien berechnet.
+ *
+ * Der Index wird als {@link ScanListener} während des Scans aus dem Inhalt der .chr-Dateien
+ * aufgebaut und nur im Speicher gehalten.
+ */
+public class FacetIndex implements ScanListener {
+
+    private static final Logger logger = LogManager.getLogger(FacetIndex.class);
+
+    /**
+     * Die Facetten einer Chart-Datei.
+     */
+    public enum Facet {
+        SYMBOL("Symbol"),
+        PERIOD("Zeitrahmen"),
+        INDICATOR("Indikator");
+
+        private final String title;
+
+        Facet(String title) {
+            this.title = title;
+        }
+
+        /**
+         * Gibt die Bezeichnung der Facette für die Anzeige zurück.
+         *
+         * @return Die Bezeichnung
+         */
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    // Zeitrahmen in Minuten und ihre Bezeichnungen im Terminal
+    private static final int[] PERIOD_MINUTES = { 1, 5, 15, 30, 60, 240, 1440, 10080, 43200 };
+    private static final String[] PERIOD_NAMES = { "M1", "M5", "M15", "M30", "H1", "H4", "D1", "W1", "MN" };
+
+    private final ScanCache scanCache;
+    private final Map<Facet, TreeMap<String, IdBitmap>> facets = new EnumMap<>(Facet.class);
+
+    // Pro Datei-ID: Änderungszeit der indizierten Fassung und die Facettenwerte
+    private long[] fileModified = new long[0];
+    private String[][][] fileValues = new String[0][][];
+    private final IdBitmap indexedFiles = new IdBitmap();
+    private final BitSet seenFiles = new BitSet();
+
+    /**
+     * Erstellt einen leeren Facettenindex.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     */
+    public FacetIndex(ScanCache scanCache) {
+        this.scanCache = scanCache;
+        for (Facet facet : Facet.values()) {
+            facets.put(facet, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+        }
+    }
+
+    @Override
+    public synchronized void scanStarted(List<File> searchDirs) {
+        seenFiles.clear();
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        if (!".chr".equals(fileType.getExtension())) {
+            return;
+        }
+        int fileId = scanCache.getOrCreate(path, size, lastModified).getId();
+        synchronized (this) {
+            seenFiles.set(fileId);
+            if (indexedFiles.contains(fileId) && fileModified[fileId] == lastModified) {
+                return;
+            }
+        }
+        String[][] values = extractFacets(content);
+        synchronized (this) {
+            removeFile(fileId);
+            if (fileId >= fileModified.length) {
+                int capacity = Math.max(fileId + 1, fileModified.length * 2);
+                fileModified = Arrays.copyOf(fileModified, capacity);
+                fileValues = Arrays.copyOf(fileValues, capacity);
+            }
+            for (Facet facet : Facet.values()) {
+                for (String value : values[facet.ordinal()]) {
+                    facets.get(facet).computeIfAbsent(value, v -> new IdBitmap()).add(fileId);
+                }
+            }
+            fileModified[fileId] = lastModified;
+            fileValues[fileId] = values;
+            indexedFiles.add(fileId);
+        }
+    }
+
+    @Override
+    public synchronized void scanFinished(List<File> searchDirs, boolean complete) {
+        if (complete) {
+            // Chart-Dateien unterhalb der Suchverzeichnisse, die nicht mehr gefunden wurden, entfernen
+            List<String> roots = new ArrayList<>();
+            for (File searchDir : searchDirs) {
+                roots.add(searchDir.getAbsolutePath());
+            }
+            List<Integer> removed = new ArrayList<>();
+            indexedFiles.forEach(fileId -> {
+                if (!seenFiles.get(fileId) && ScanCache.isBelowAny(scanCache.getPath(fileId), roots)) {
+                    removed.add(fileId);
+                }
+            });
+            for (int fileId : removed) {
+                removeFile(fileId);
+            }
+        }
+        logger.info("Facettenindex: {} Chart-Dateien, {} Symbole, {} Zeitrahmen, {} Indikatoren",
+                indexedFiles.getCardinality(), facets.get(Facet.SYMBOL).size(),
+                facets.get(Facet.PERIOD).size(), facets.get(Facet.INDICATOR).size());
+    }
+
+    /**
+     * Gibt die Werte einer Facette in alphabetischer Reihenfolge zurück.
+     *
+     * @param facet Die Facette
+     * @return Die Werte
+     */
+    public synchronized List<String> getValues(Facet facet) {
+        return new ArrayList<>(facets.get(facet).keySet());
+    }
+
+    /**
+     * Gibt die Datei-IDs zu einem Facettenwert zurück.
+     *
+     * @param facet Die Facette
+     * @param value Der Wert
+     * @return Die IDs der Dateien mit diesem Wert; leer, wenn der Wert unbekannt ist
+     */
+    public synchronized IdBitmap getFiles(Facet facet, String value) {
+        IdBitmap files = facets.get(facet).get(value);
+        return files != null ? files.copy() : new IdBitmap();
+    }
+
+    /**
+     * Schränkt eine Menge von Datei-IDs auf die ausgewählten Facettenwerte ein. Innerhalb einer
+     * Facette genügt einer der Werte, über mehrere Facetten müssen alle zutreffen. Facetten ohne
+     * ausgewählte Werte schränken nicht ein.
+     *
+     * @param files Die Ausgangsmenge, z.B. die Dateien des letzten Scans
+     * @param selection Die ausgewählten Werte je Facette
+     * @param ignored Eine Facette, deren Auswahl nicht berücksichtigt wird, oder null
+     * @return Die eingeschränkte Menge
+     */
+    public synchronized IdBitmap select(IdBitmap files, Map<Facet, ? extends Collection<String>> selection,
+            Facet ignored) {
+        IdBitmap result = files;
+        for (Map.Entry<Facet, ? extends Collection<String>> entry : selection.entrySet()) {
+            if (entry.getKey() == ignored || entry.getValue().isEmpty()) {
+                continue;
+            }
+            IdBitmap facetFiles = new IdBitmap();
+            for (String value : entry.getValue()) {
+                IdBitmap valueFiles = facets.get(entry.getKey()).get(value);
+                if (valueFiles != null) {
+                    facetFiles = IdBitmap.or(facetFiles, valueFiles);
+                }
+            }
+            result = IdBitmap.and(result, facetFiles);
+        }
+        return result;
+    }
+
+    /**
+     * Zählt für jeden Wert einer Facette die Dateien, die bei Auswahl dieses Werts angezeigt
+     * würden. Die Auswahl der Facette selbst bleibt dabei unberücksichtigt, damit weitere Werte
+     * hinzugewählt werden können.
+     *
+     * @param facet Die Facette
+     * @param files Die Ausgangsmenge
+     * @param selection Die ausgewählten Werte je Facette
+     * @return Die Anzahl der Dateien je Wert in alphabetischer Reihenfolge der Werte
+     */
+    public synchronized Map<String, Integer> count(Facet facet, IdBitmap files,
+            Map<Facet, ? extends Collection<String>> selection) {
+        IdBitmap base = select(files, selection, facet);
+        Map<String, Integer> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, IdBitmap> entry : facets.get(facet).entrySet()) {
+            counts.put(entry.getKey(), IdBitmap.andCardinality(base, entry.getValue()));
+        }
+        return counts;
+    }
+
+    /**
+     * Ermittelt Symbol und Zeitrahmen aus dem Abschnitt "chart" und die Namen der Indikatoren
+     * aus den Abschnitten "indicator". Nach dem Ende eines Abschnitts gilt wieder der umgebende.
+     * Der Eintrag "name=main" für das Hauptfenster des Charts ist kein Indikator.
+     *
+     * @return Die Werte je Facette in der Reihenfolge von {@link Facet}
+     */
+    private static String[][] extractFacets(ConfigFileContent content) {
+        List<Set<String>> values = new ArrayList<>();
+        for (int i = 0; i < Facet.values().length; i++) {
+            values.add(new LinkedHashSet<>());
+        }
+        Deque<String> sections = new ArrayDeque<>();
+        for (String line : content.getLines()) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("</") && trimmed.endsWith(">")) {
+                sections.pollFirst();
+                continue;
+            }
+            if (trimmed.startsWith("<") && trimmed.endsWith(">")) {
+                sections.push(trimmed.substring(1, trimmed.length() - 1).toLowerCase(Locale.ROOT));
+                continue;
+            }
+            String section = sections.peekFirst();
+            int separator = trimmed.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String key = trimmed.substring(0, separator).trim();
+            String value = trimmed.substring(separator + 1).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if ("chart".equals(section) && sections.size() == 1) {
+                if (key.equalsIgnoreCase("symbol")) {
+                    values.get(Facet.SYMBOL.ordinal()).add(value);
+                } else if (key.equalsIgnoreCase("period")) {
+                    values.get(Facet.PERIOD.ordinal()).add(periodName(value));
+                }
+            } else if ("indicator".equals(section) && key.equalsIgnoreCase("name") && !value.equalsIgnoreCase("main")) {
+                values.get(Facet.INDICATOR.ordinal()).add(value);
+            }
+        }
+        String[][] result = new String[values.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i).toArray(new String[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Wandelt einen Zeitrahmen in Minuten in die Bezeichnung des Terminals um, z.B. 240 in "H4".
+     */
+    private static String periodName(String minutes) {
+        try {
+            int period = Integer.parseInt(minutes);
+            for (int i = 0; i < PERIOD_MINUTES.length; i++) {
+                if (PERIOD_MINUTES[i] == period) {
+                    return PERIOD_NAMES[i];
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Unbekannte Angabe unverändert übernehmen
+        }
+        return minutes;
+    }
+
+    /**
+     * Entfernt eine Datei aus allen Facettenwerten.
+     */
+    private void removeFile(int fileId) {
+        if (!indexedFiles.contains(fileId)) {
+            return;
+        }
+        String[][] values = fileValues[fileId];
+        for (Facet facet : Facet.values()) {
+            TreeMap<String, IdBitmap> facetValues = facets.get(facet);
+            for (String value : values[facet.ordinal()]) {
+                IdBitmap files = facetValues.get(value);
+                if (files != null) {
+                    files.remove(fileId);
+                    if (files.isEmpty()) {
+                        facetValues.remove(value);
+                    }
+                }
+            }
+        }
+        fileValues[fileId] = null;
+        indexedFiles.remove(fileId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.configmaster;
+
+import java.util.Locale;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Behandlung einer Art von Konfigurationsdateien beim Scan.
+ * Jeder Dateityp legt seine Dateiendung fest, bereitet den dekodierten Inhalt für die Suche auf
+ * und zählt die Treffer eines Suchmusters. Die Dateitypen werden im {@link FileTypeRegistry}
+ * registriert und beim Durchlaufen der Verzeichnisse anhand der Endung ausgewählt.
+ */
+public interface FileTypeHandler {
+
+    /**
+     * Gibt die Bezeichnung des Dateityps zurück.
+     *
+     * @return Die Bezeichnung, z.B. "Chart"
+     */
+    String getName();
+
+    /**
+     * Gibt die Dateiendung des Dateityps zurück.
+     *
+     * @return Die Endung in Kleinbuchstaben inklusive Punkt, z.B. ".chr"
+     */
+    String getExtension();
+
+    /**
+     * Bereitet den dekodierten Inhalt einer Datei für die Suche auf.
+     *
+     * @param content Der dekodierte Dateiinhalt
+     * @return Der Text, in dem nach den Suchmustern gesucht wird
+     */
+    String parse(ConfigFileContent content);
+
+    /**
+     * Zählt die Treffer eines Suchmusters im aufbereiteten Text.
+     * Standardmäßig wird jedes nicht überlappende Vorkommen des Musters gezählt.
+     *
+     * @param text Der mit {@link #parse(ConfigFileContent)} aufbereitete Text
+     * @param pattern Das Suchmuster
+     * @return Die Anzahl der Treffer
+     */
+    default int countMatches(String text, String pattern) {
+        if (pattern.isEmpty()) {
+            // Ein leeres Muster ist in jedem Inhalt enthalten
+            return 1;
+        }
+        int count = 0;
+        for (int index = text.indexOf(pattern); index >= 0; index = text.indexOf(pattern, index + pattern.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Liefert alle Parameter mit numerischem Wert ("key=value") für den {@link NumericIndex}.
+     * Standardmäßig werden die Zeilen des aufbereiteten Textes ausgewertet; der Schlüssel wird
+     * in Kleinbuchstaben übergeben.
+     *
+     * @param content Der dekodierte Dateiinhalt
+     * @param consumer Erhält Schlüssel und Wert jedes numerischen Parameters
+     */
+    default void extractNumbers(ConfigFileContent content, ObjDoubleConsumer<String> consumer) {
+        for (String line : parse(content).split("\n")) {
+            int separator = line.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            double value = parseNumber(line.substring(separator + 1).trim());
+            if (!Double.isNaN(value)) {
+                consumer.accept(line.substring(0, separator).trim().toLowerCase(Locale.ROOT), value);
+            }
+        }
+    }
+
+    /**
+     * Wandelt einen Parameterwert in eine Zahl um.
+     *
+     * @param value Der Wert
+     * @return Die Zahl oder NaN, wenn der Wert keine Dezimalzahl ist
+     */
+    static double parseNumber(String value) {
+        if (value.isEmpty()) {
+            return Double.NaN;
+        }
+        char first = value.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
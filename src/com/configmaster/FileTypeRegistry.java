@@ -0,0 +1,197 @@
+package com.configmaster;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Verzeichnis der Dateitypen, die beim Scan berücksichtigt werden.
+ * Beim Durchlaufen der Verzeichnisse wird jede Datei anhand ihrer Endung dem passenden
+ * {@link FileTypeHandler} zugeordnet. So werden alle Arten von Konfigurationsdateien in einem
+ * einzigen Durchlauf gefunden, statt das Verzeichnis für jeden Typ erneut zu durchlaufen.
+ */
+public class FileTypeRegistry {
+
+    private final Map<String, FileTypeHandler> handlers = new LinkedHashMap<>();
+
+    /**
+     * Chart-Dateien (.chr) und Vorlagen (.tpl) mit der gleichen Tag-Struktur.
+     * Der gesamte Inhalt wird durchsucht.
+     */
+    private static class ChartFileType implements FileTypeHandler {
+        private final String name;
+        private final String extension;
+
+        ChartFileType(String name, String extension) {
+            this.name = name;
+            this.extension = extension;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String parse(ConfigFileContent content) {
+            return content.getText();
+        }
+
+        /**
+         * Stellt jedem Schlüssel den Namen des innersten Abschnitts voran, z.B. "chart.period"
+         * für den Zeitrahmen des Charts und "indicator.period" für die Periode eines Indikators.
+         */
+        @Override
+        public void extractNumbers(ConfigFileContent content, ObjDoubleConsumer<String> consumer) {
+            Deque<String> sections = new ArrayDeque<>();
+            for (String line : content.getLines()) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("</") && trimmed.endsWith(">")) {
+                    if (!sections.isEmpty()) {
+                        sections.pop();
+                    }
+                    continue;
+                }
+                if (trimmed.startsWith("<") && trimmed.endsWith(">")) {
+                    sections.push(trimmed.substring(1, trimmed.length() - 1).toLowerCase(Locale.ROOT));
+                    continue;
+                }
+                int separator = trimmed.indexOf('=');
+                if (separator <= 0) {
+                    continue;
+                }
+                double value = FileTypeHandler.parseNumber(trimmed.substring(separator + 1).trim());
+                if (!Double.isNaN(value)) {
+                    String key = trimmed.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+                    consumer.accept(sections.isEmpty() ? key : sections.peek() + "." + key, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * EA-Parameterdateien (.set). Neben den Werten ("Lots=0.1") enthalten sie Zeilen mit
+     * Optimierungseinstellungen ("Lots,F=0", "Lots,1=0.01"), die bei der Suche übergangen werden.
+     */
+    private static class SetFileType implements FileTypeHandler {
+        @Override
+        public String getName() {
+            return "EA-Parameter";
+        }
+
+        @Override
+        public String getExtension() {
+            return ".set";
+        }
+
+        @Override
+        public String parse(ConfigFileContent content) {
+            StringBuilder text = new StringBuilder();
+            for (String line : content.getLines()) {
+                int separator = line.indexOf('=');
+                if (separator >= 0 && line.lastIndexOf(',', separator) >= 0) {
+                    continue;
+                }
+                text.append(line).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Terminal-Einstellungen (.ini). Kommentarzeilen werden übergangen, und wie bei Windows
+     * üblich wird die Groß-/Kleinschreibung nicht beachtet.
+     */
+    private static class IniFileType implements FileTypeHandler {
+        @Override
+        public String getName() {
+            return "Terminal";
+        }
+
+        @Override
+        public String getExtension() {
+            return ".ini";
+        }
+
+        @Override
+        public String parse(ConfigFileContent content) {
+            StringBuilder text = new StringBuilder();
+            for (String line : content.getLines()) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith(";") || trimmed.startsWith("#")) {
+                    continue;
+                }
+                text.append(line.toLowerCase(Locale.ROOT)).append('\n');
+            }
+            return text.toString();
+        }
+
+        @Override
+        public int countMatches(String text, String pattern) {
+            return FileTypeHandler.super.countMatches(text, pattern.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Erstellt ein leeres Verzeichnis ohne Dateitypen.
+     */
+    public FileTypeRegistry() {
+    }
+
+    /**
+     * Erstellt ein Verzeichnis mit den Standard-Dateitypen .chr, .tpl, .set und .ini.
+     *
+     * @return Das Verzeichnis mit den Standard-Dateitypen
+     */
+    public static FileTypeRegistry defaults() {
+        FileTypeRegistry registry = new FileTypeRegistry();
+        registry.register(new ChartFileType("Chart", ".chr"));
+        registry.register(new ChartFileType("Vorlage", ".tpl"));
+        registry.register(new SetFileType());
+        registry.register(new IniFileType());
+        return registry;
+    }
+
+    /**
+     * Registriert einen Dateityp. Ein bereits registrierter Typ mit derselben Endung wird ersetzt.
+     *
+     * @param handler Der Dateityp
+     */
+    public void register(FileTypeHandler handler) {
+        handlers.put(handler.getExtension().toLowerCase(Locale.ROOT), handler);
+    }
+
+    /**
+     * Ermittelt den Dateityp einer Datei anhand ihrer Endung.
+     *
+     * @param fileName Der Dateiname
+     * @return Der Dateityp oder null, wenn die Endung nicht registriert ist
+     */
+    public FileTypeHandler forFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        return handlers.get(fileName.substring(dot).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gibt alle registrierten Dateitypen in der Reihenfolge ihrer Registrierung zurück.
+     *
+     * @return Die Dateitypen
+     */
+    public List<FileTypeHandler> getHandlers() {
+        return Collections.unmodifiableList(new ArrayList<>(handlers.values()));
+    }
+}
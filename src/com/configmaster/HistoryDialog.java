@@ -0,0 +1,207 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Fenster mit den gespeicherten Versionen einer Datei aus dem {@link HistoryStore}.
+ * Eine Version kann mit der aktuellen Datei verglichen oder wiederhergestellt werden.
+ */
+public class HistoryDialog {
+
+    private static final Logger logger = LogManager.getLogger(HistoryDialog.class);
+
+    private final HistoryStore historyStore;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm:ss");
+
+    private Shell shell;
+    private String path;
+    private Table table;
+
+    /**
+     * Erstellt einen neuen HistoryDialog.
+     *
+     * @param historyStore Der Versionsverlauf
+     */
+    public HistoryDialog(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Öffnet das Fenster mit den Versionen einer Datei.
+     *
+     * @param parentShell Das Elternfenster
+     * @param path Der Pfad der Datei
+     * @param versions Die Versionen der Datei, die älteste zuerst
+     */
+    public void open(Shell parentShell, String path, List<HistoryStore.Version> versions) {
+        this.path = path;
+
+        shell = new Shell(parentShell, SWT.SHELL_TRIM);
+        shell.setText("Versionsverlauf - " + path);
+        shell.setSize(800, 450);
+        GridLayout layout = new GridLayout(1, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        long storedBytes = 0;
+        for (HistoryStore.Version version : versions) {
+            storedBytes += version.getStoredBytes();
+        }
+        Label summaryLabel = new Label(shell, SWT.NONE);
+        summaryLabel.setText(String.format("%d Versionen, %.1f KB gespeichert", versions.size(), storedBytes / 1024.0));
+
+        table = new Table(shell, SWT.BORDER | SWT.SINGLE | SWT.FULL_SELECTION | SWT.V_SCROLL);
+        table.setHeaderVisible(true);
+        table.setLinesVisible(true);
+        table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        String[] titles = { "Version", "Geändert", "Erfasst", "Größe", "Gespeichert", "Art" };
+        int[] widths = { 60, 140, 140, 90, 90, 100 };
+        for (int i = 0; i < titles.length; i++) {
+            TableColumn column = new TableColumn(table, i == 0 || i == 3 || i == 4 ? SWT.RIGHT : SWT.LEFT);
+            column.setText(titles[i]);
+            column.setWidth(widths[i]);
+        }
+        // Neueste Version zuerst
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            HistoryStore.Version version = versions.get(i);
+            TableItem item = new TableItem(table, SWT.NONE);
+            item.setText(new String[] {
+                String.valueOf(version.getNumber() + 1),
+                dateFormat.format(new Date(version.getLastModified())),
+                dateFormat.format(new Date(version.getObservedAt())),
+                version.getSize() + " B",
+                version.getStoredBytes() + " B",
+                version.isFull() ? "Vollständig" : "Delta"
+            });
+            item.setData(version);
+        }
+        if (table.getItemCount() > 0) {
+            table.select(0);
+        }
+
+        Composite buttonArea = new Composite(shell, SWT.NONE);
+        buttonArea.setLayout(new GridLayout(3, false));
+        buttonArea.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, true, false));
+
+        Button compareButton = new Button(buttonArea, SWT.PUSH);
+        compareButton.setText("Mit aktueller Datei vergleichen");
+        compareButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                compareWithCurrent();
+            }
+        });
+
+        Button restoreButton = new Button(buttonArea, SWT.PUSH);
+        restoreButton.setText("Wiederherstellen");
+        restoreButton.setEnabled(!ArchivePaths.isArchivePath(path));
+        restoreButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                restore();
+            }
+        });
+
+        Button closeButton = new Button(buttonArea, SWT.PUSH);
+        closeButton.setText("Schließen");
+        closeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                shell.close();
+            }
+        });
+
+        shell.open();
+    }
+
+    /**
+     * Gibt die ausgewählte Version zurück.
+     */
+    private HistoryStore.Version getSelectedVersion() {
+        TableItem[] selection = table.getSelection();
+        return selection.length > 0 ? (HistoryStore.Version) selection[0].getData() : null;
+    }
+
+    /**
+     * Schreibt die ausgewählte Version in eine temporäre Datei und vergleicht sie mit der
+     * aktuellen Datei.
+     */
+    private void compareWithCurrent() {
+        HistoryStore.Version version = getSelectedVersion();
+        if (version == null) {
+            return;
+        }
+        try {
+            File tempFile = File.createTempFile("version-" + (version.getNumber() + 1) + "-", ".chr");
+            tempFile.deleteOnExit();
+            Files.write(tempFile.toPath(), historyStore.readVersion(path, version.getNumber()));
+            new ConfigCompareViewer().compareConfigFiles(shell, List.of(tempFile.getAbsolutePath(), path));
+        } catch (IOException e) {
+            showError("Die Version konnte nicht gelesen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Überschreibt die aktuelle Datei nach Rückfrage mit der ausgewählten Version. Die Datei
+     * wird zuerst temporär geschrieben und dann umbenannt.
+     */
+    private void restore() {
+        HistoryStore.Version version = getSelectedVersion();
+        if (version == null) {
+            return;
+        }
+        MessageBox confirmBox = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO);
+        confirmBox.setText("Version wiederherstellen");
+        confirmBox.setMessage("Soll die Datei '" + path + "' mit Version " + (version.getNumber() + 1) + " vom "
+                + dateFormat.format(new Date(version.getLastModified())) + " überschrieben werden?");
+        if (confirmBox.open() != SWT.YES) {
+            return;
+        }
+        File file = new File(path);
+        File tempFile = new File(path + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), historyStore.readVersion(path, version.getNumber()));
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Version {} von {} wiederhergestellt", version.getNumber() + 1, path);
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Version " + (version.getNumber() + 1) + " wurde wiederhergestellt.");
+            messageBox.open();
+        } catch (IOException e) {
+            tempFile.delete();
+            logger.error("Fehler beim Wiederherstellen von {}: {}", path, e.getMessage());
+            showError("Die Version konnte nicht wiederhergestellt werden: " + e.getMessage());
+        }
+    }
+
+    private void showError(String message) {
+        MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+        messageBox.setText("Fehler");
+        messageBox.setMessage(message);
+        messageBox.open();
+    }
+}
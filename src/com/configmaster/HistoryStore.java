@@ -0,0 +1,643 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lokaler Versionsverlauf der gescannten Dateien.
+ *
+ * Terminals überschreiben .chr-Dateien ohne Rückfrage. Damit frühere Einstellungen nicht verloren
+ * gehen, wird bei jedem Scan jede Version einer gefundenen Datei festgehalten, deren Inhalt sich
+ * seit der letzten erfassten Version geändert hat. Gespeichert werden die Bytes, wie sie auf dem
+ * Datenträger stehen. Mit {@link Settings#isAllFiles()} werden alle gelesenen Dateien
+ * aufgenommen, nicht nur die mit Treffern. Eine Version wird als {@link VersionDelta} gegenüber
+ * der vorherigen gespeichert; nach {@link Settings#getFullInterval()} Versionen oder wenn die
+ * Deltas seit der letzten vollständigen Version größer als diese werden, wird die Version
+ * vollständig gespeichert. Zum Wiederherstellen einer Version werden daher höchstens so viele
+ * Deltas auf die vorherige vollständige Version angewendet. Alle Versionen werden komprimiert.
+ *
+ * Jede Datei hat eine eigene Verlaufsdatei im Cache-Verzeichnis, an die neue Versionen angehängt
+ * werden. Der Stand der neuesten Version jeder Datei wird in einer Übersicht gehalten, damit
+ * unveränderte Dateien ohne Zugriff auf ihren Verlauf erkannt werden.
+ */
+public class HistoryStore implements ScanListener {
+
+    private static final Logger logger = LogManager.getLogger(HistoryStore.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CACHE_DIR = "cache";
+    private static final String HISTORY_DIR = "history";
+    private static final String SETTINGS_FILE = "history.txt";
+    private static final String INDEX_FILE = "history.idx";
+
+    private static final int MAGIC = 0x434D4853; // "CMHS"
+    private static final int INDEX_MAGIC = 0x434D4849; // "CMHI"
+    private static final int VERSION = 1;
+
+    /** Dateiendung einer Verlaufsdatei. */
+    public static final String EXTENSION = ".cmhs";
+
+    private static final byte FULL = 0;
+    private static final byte DELTA = 1;
+
+    // Größe des Kopfs eines Eintrags ohne Nutzdaten
+    private static final int RECORD_HEADER_BYTES = 1 + 8 + 8 + 4 + 8 + 4;
+
+    private final File directory;
+    private final Settings settings;
+    private final Map<String, Tip> tips = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    /**
+     * Einstellungen des Versionsverlaufs aus "history.txt" im Konfigurationsverzeichnis.
+     */
+    public static class Settings {
+        private final int fullInterval;
+        private final long maxFileBytes;
+        private final boolean allFiles;
+
+        /**
+         * Erstellt neue Einstellungen.
+         *
+         * @param fullInterval Die Anzahl der Versionen, nach der eine Version vollständig gespeichert wird
+         * @param maxFileBytes Die Größe, ab der eine Datei nicht in den Verlauf aufgenommen wird
+         * @param allFiles true, wenn alle gelesenen Dateien aufgenommen werden, nicht nur die mit Treffern
+         */
+        public Settings(int fullInterval, long maxFileBytes, boolean allFiles) {
+            this.fullInterval = Math.max(1, fullInterval);
+            this.maxFileBytes = Math.max(0, maxFileBytes);
+            this.allFiles = allFiles;
+        }
+
+        /**
+         * Lädt die Einstellungen aus der Konfigurationsdatei. Fehlt die Datei, wird jede 16.
+         * Version vollständig gespeichert und Dateien mit Treffern bis 4 MB werden aufgenommen.
+         *
+         * @return Die Einstellungen
+         */
+        public static Settings load() {
+            SettingsFile settings = SettingsFile.load(SETTINGS_FILE);
+            return new Settings(settings.getInt("fullInterval", 16), settings.getLong("maxFileBytes", 4L * 1024 * 1024),
+                    settings.getBoolean("allFiles", false));
+        }
+
+        public int getFullInterval() {
+            return fullInterval;
+        }
+
+        public long getMaxFileBytes() {
+            return maxFileBytes;
+        }
+
+        public boolean isAllFiles() {
+            return allFiles;
+        }
+    }
+
+    /**
+     * Eine gespeicherte Version einer Datei.
+     */
+    public static class Version {
+        private final int number;
+        private final boolean full;
+        private final long lastModified;
+        private final long observedAt;
+        private final int size;
+        private final long hash;
+        private final long offset;
+        private final int payloadLength;
+
+        Version(int number, boolean full, long lastModified, long observedAt, int size, long hash, long offset,
+                int payloadLength) {
+            this.number = number;
+            this.full = full;
+            this.lastModified = lastModified;
+            this.observedAt = observedAt;
+            this.size = size;
+            this.hash = hash;
+            this.offset = offset;
+            this.payloadLength = payloadLength;
+        }
+
+        /**
+         * Gibt die laufende Nummer der Version zurück, beginnend mit 0 für die älteste.
+         *
+         * @return Die Nummer
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * Gibt zurück, ob die Version vollständig und nicht als Delta gespeichert ist.
+         *
+         * @return true bei einer vollständigen Version
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gibt den Zeitpunkt zurück, zu dem die Version beim Scan erfasst wurde.
+         *
+         * @return Der Zeitpunkt in Millisekunden
+         */
+        public long getObservedAt() {
+            return observedAt;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Gibt die Anzahl der gespeicherten Bytes dieser Version zurück.
+         *
+         * @return Die komprimierte Größe
+         */
+        public int getStoredBytes() {
+            return payloadLength;
+        }
+    }
+
+    /**
+     * Stand der neuesten Version einer Datei.
+     */
+    private static final class Tip {
+        int versions;
+        long hash;
+        long fullOffset;
+        int deltasSinceFull;
+        long deltaBytes;
+        int fullBytes;
+        long fileLength;
+    }
+
+    /**
+     * Erstellt einen Versionsverlauf im Standard-Verzeichnis mit den Einstellungen aus der
+     * Konfigurationsdatei.
+     */
+    public HistoryStore() {
+        this(new File(ROOT_PATH + File.separator + CACHE_DIR + File.separator + HISTORY_DIR), Settings.load());
+    }
+
+    /**
+     * Erstellt einen Versionsverlauf in einem bestimmten Verzeichnis und lädt dessen Übersicht.
+     *
+     * @param directory Das Verzeichnis der Verlaufsdateien
+     * @param settings Die Einstellungen
+     */
+    public HistoryStore(File directory, Settings settings) {
+        this.directory = directory;
+        this.settings = settings;
+        loadIndex();
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        if (settings.isAllFiles()) {
+            record(path, lastModified, bytes);
+        }
+    }
+
+    @Override
+    public void fileMatched(String path, long lastModified, byte[] bytes, ConfigFileStore.Metadata metadata) {
+        if (!settings.isAllFiles()) {
+            record(path, lastModified, bytes);
+        }
+    }
+
+    /**
+     * Hält die gelesenen Bytes einer Datei als neue Version fest, wenn sie sich gegenüber der
+     * neuesten erfassten Version geändert haben.
+     */
+    private void record(String path, long lastModified, byte[] bytes) {
+        if (bytes.length > settings.getMaxFileBytes()) {
+            return;
+        }
+        long hash = FastHash.hash(bytes);
+        Tip tip = tips.computeIfAbsent(path, p -> new Tip());
+        synchronized (tip) {
+            if (tip.versions > 0 && tip.hash == hash) {
+                return;
+            }
+            try {
+                append(path, tip, bytes, hash, lastModified);
+                modified = true;
+            } catch (IOException e) {
+                logger.error("Fehler beim Speichern der Version von {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void scanFinished(List<File> searchDirs, boolean complete) {
+        save();
+    }
+
+    /**
+     * Hängt eine neue Version an die Verlaufsdatei an, sofern sie nicht bereits die neueste ist.
+     */
+    private void append(String path, Tip tip, byte[] bytes, long hash, long lastModified) throws IOException {
+        File file = fileFor(path);
+        if (file.length() != tip.fileLength) {
+            // Verlaufsdatei passt nicht zur Übersicht, z.B. nach einem Abbruch oder ohne Übersicht
+            readTip(file, tip);
+            if (tip.versions > 0 && tip.hash == hash) {
+                return;
+            }
+        }
+        byte type = FULL;
+        byte[] payload = null;
+        if (tip.versions > 0 && tip.deltasSinceFull + 1 < settings.getFullInterval()) {
+            byte[] previous = readLatest(file, tip);
+            payload = deflate(VersionDelta.encode(previous, bytes));
+            type = DELTA;
+            // Sind die Deltas zusammen größer als eine vollständige Version, lohnen sie nicht
+            if (tip.deltaBytes + payload.length > tip.fullBytes) {
+                type = FULL;
+            }
+        }
+        if (type == FULL) {
+            payload = deflate(bytes);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(RECORD_HEADER_BYTES + payload.length + 64);
+        DataOutputStream record = new DataOutputStream(buffer);
+        boolean newFile = tip.versions == 0;
+        if (newFile) {
+            file.getParentFile().mkdirs();
+            record.writeInt(MAGIC);
+            record.writeInt(VERSION);
+            record.writeUTF(path);
+        }
+        int headerLength = buffer.size();
+        record.writeByte(type);
+        record.writeLong(lastModified);
+        record.writeLong(System.currentTimeMillis());
+        record.writeInt(bytes.length);
+        record.writeLong(hash);
+        record.writeInt(payload.length);
+        record.write(payload);
+        record.flush();
+
+        long offset = newFile ? headerLength : file.length();
+        try (FileOutputStream out = new FileOutputStream(file, !newFile)) {
+            buffer.writeTo(out);
+        }
+        tip.versions = newFile ? 1 : tip.versions + 1;
+        tip.hash = hash;
+        if (type == FULL) {
+            tip.fullOffset = offset;
+            tip.deltasSinceFull = 0;
+            tip.deltaBytes = 0;
+            tip.fullBytes = payload.length;
+        } else {
+            tip.deltasSinceFull++;
+            tip.deltaBytes += payload.length;
+        }
+        tip.fileLength = (newFile ? 0 : offset) + buffer.size();
+    }
+
+    /**
+     * Gibt die gespeicherten Versionen einer Datei zurück, die älteste zuerst.
+     *
+     * @param path Der Pfad der Datei
+     * @return Die Versionen; leer, wenn es keinen Verlauf gibt
+     * @throws IOException Wenn die Verlaufsdatei nicht gelesen werden kann
+     */
+    public List<Version> getVersions(String path) throws IOException {
+        File file = fileFor(path);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        Object lock = tips.getOrDefault(path, new Tip());
+        synchronized (lock) {
+            return readVersions(file);
+        }
+    }
+
+    /**
+     * Stellt den Inhalt einer Version wieder her.
+     *
+     * @param path Der Pfad der Datei
+     * @param number Die Nummer der Version
+     * @return Die Bytes der Datei in dieser Version
+     * @throws IOException Wenn die Version nicht vorhanden ist oder nicht wiederhergestellt werden kann
+     */
+    public byte[] readVersion(String path, int number) throws IOException {
+        List<Version> versions = getVersions(path);
+        if (number < 0 || number >= versions.size()) {
+            throw new IOException("Version " + number + " von " + path + " ist nicht vorhanden");
+        }
+        return reconstruct(fileFor(path), versions, number);
+    }
+
+    /**
+     * Gibt die Anzahl der Dateien mit Verlauf zurück.
+     *
+     * @return Die Anzahl der Dateien
+     */
+    public int getFileCount() {
+        return tips.size();
+    }
+
+    /**
+     * Gibt die Gesamtgröße aller Verlaufsdateien zurück.
+     *
+     * @return Die Größe in Bytes
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (Tip tip : tips.values()) {
+            total += tip.fileLength;
+        }
+        return total;
+    }
+
+    /**
+     * Liest die neueste Version ausgehend von der letzten vollständigen Version.
+     */
+    private byte[] readLatest(File file, Tip tip) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(tip.fullOffset);
+            byte[] content = null;
+            for (int i = 0; i <= tip.deltasSinceFull; i++) {
+                content = readRecord(in, content);
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Stellt eine Version aus der vorherigen vollständigen Version und den folgenden Deltas her.
+     */
+    private byte[] reconstruct(File file, List<Version> versions, int number) throws IOException {
+        int start = number;
+        while (!versions.get(start).isFull()) {
+            start--;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(versions.get(start).offset);
+            byte[] content = null;
+            for (int i = start; i <= number; i++) {
+                content = readRecord(in, content);
+            }
+            if (FastHash.hash(content) != versions.get(number).hash) {
+                throw new IOException("Version " + number + " ist beschädigt");
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Liest einen Eintrag und wendet ihn auf die vorherige Version an.
+     */
+    private static byte[] readRecord(RandomAccessFile in, byte[] previous) throws IOException {
+        byte type = in.readByte();
+        in.readLong();
+        in.readLong();
+        int size = in.readInt();
+        in.readLong();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        if (type == FULL) {
+            return inflate(payload, size);
+        }
+        if (previous == null) {
+            throw new IOException("Delta ohne vorherige Version");
+        }
+        return VersionDelta.apply(previous, inflate(payload, -1));
+    }
+
+    /**
+     * Liest die Köpfe aller Einträge einer Verlaufsdatei. Ein unvollständiger letzter Eintrag,
+     * z.B. nach einem Abbruch beim Schreiben, wird abgeschnitten.
+     */
+    private static List<Version> readVersions(File file) throws IOException {
+        List<Version> versions = new ArrayList<>();
+        long length = file.length();
+        long validLength;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Keine gültige Verlaufsdatei: " + file.getName());
+            }
+            String path = in.readUTF();
+            long offset = 8 + 2 + utfLength(path);
+            validLength = offset;
+            try {
+                while (offset + RECORD_HEADER_BYTES <= length) {
+                    byte type = in.readByte();
+                    long lastModified = in.readLong();
+                    long observedAt = in.readLong();
+                    int size = in.readInt();
+                    long hash = in.readLong();
+                    int payloadLength = in.readInt();
+                    if (offset + RECORD_HEADER_BYTES + payloadLength > length) {
+                        break;
+                    }
+                    in.skipNBytes(payloadLength);
+                    if (type == DELTA && versions.isEmpty()) {
+                        throw new IOException("Verlaufsdatei beginnt mit einem Delta: " + file.getName());
+                    }
+                    versions.add(new Version(versions.size(), type == FULL, lastModified, observedAt, size, hash,
+                            offset, payloadLength));
+                    offset += RECORD_HEADER_BYTES + payloadLength;
+                    validLength = offset;
+                }
+            } catch (EOFException e) {
+                // Unvollständiger letzter Eintrag
+            }
+        }
+        if (validLength < length) {
+            logger.warn("Unvollständigen Eintrag in {} entfernt", file.getName());
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                out.setLength(validLength);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Baut den Stand der neuesten Version aus der Verlaufsdatei neu auf.
+     */
+    private static void readTip(File file, Tip tip) throws IOException {
+        List<Version> versions = file.exists() ? readVersions(file) : new ArrayList<>();
+        tip.versions = versions.size();
+        tip.deltasSinceFull = 0;
+        tip.deltaBytes = 0;
+        tip.fileLength = file.length();
+        for (Version version : versions) {
+            if (version.isFull()) {
+                tip.fullOffset = version.offset;
+                tip.fullBytes = version.payloadLength;
+                tip.deltasSinceFull = 0;
+                tip.deltaBytes = 0;
+            } else {
+                tip.deltasSinceFull++;
+                tip.deltaBytes += version.payloadLength;
+            }
+            tip.hash = version.hash;
+        }
+    }
+
+    /**
+     * Gibt die Verlaufsdatei eines Pfads zurück. Die Dateien werden nach den ersten beiden
+     * Stellen des Hashs auf Unterverzeichnisse verteilt.
+     */
+    private File fileFor(String path) {
+        String name = String.format("%016x", FastHash.hash(path));
+        return new File(new File(directory, name.substring(0, 2)), name + EXTENSION);
+    }
+
+    private static long utfLength(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int size) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size >= 0 ? size : data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Unvollständige Version im Verlauf");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Beschädigte Version im Verlauf: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Lädt die Übersicht der neuesten Versionen. Fehlt sie oder ist sie veraltet, werden die
+     * Einträge bei Bedarf aus den Verlaufsdateien neu aufgebaut.
+     */
+    private void loadIndex() {
+        File indexFile = new File(directory, INDEX_FILE);
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+                logger.info("Übersicht des Versionsverlaufs hat ein veraltetes Format: {}", indexFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                Tip tip = new Tip();
+                tip.versions = in.readInt();
+                tip.hash = in.readLong();
+                tip.fullOffset = in.readLong();
+                tip.deltasSinceFull = in.readInt();
+                tip.deltaBytes = in.readLong();
+                tip.fullBytes = in.readInt();
+                tip.fileLength = in.readLong();
+                tips.put(path, tip);
+            }
+            logger.info("Versionsverlauf geladen: {} Dateien, {} Bytes", tips.size(), getTotalBytes());
+        } catch (IOException e) {
+            logger.error("Fehler beim Laden des Versionsverlaufs: {}", e.getMessage());
+            tips.clear();
+        }
+    }
+
+    /**
+     * Speichert die Übersicht der neuesten Versionen, sofern seit dem Laden Versionen
+     * hinzugekommen sind. Die Datei wird zuerst temporär geschrieben und dann umbenannt.
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        directory.mkdirs();
+        File indexFile = new File(directory, INDEX_FILE);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            List<Map.Entry<String, Tip>> entries = new ArrayList<>(tips.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Tip> entry : entries) {
+                Tip tip = entry.getValue();
+                synchronized (tip) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(tip.versions);
+                    out.writeLong(tip.hash);
+                    out.writeLong(tip.fullOffset);
+                    out.writeInt(tip.deltasSinceFull);
+                    out.writeLong(tip.deltaBytes);
+                    out.writeInt(tip.fullBytes);
+                    out.writeLong(tip.fileLength);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des Versionsverlaufs: {}", e.getMessage());
+            modified = true;
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Versionsverlauf gespeichert: {} Dateien, {} Bytes", tips.size(), getTotalBytes());
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des Versionsverlaufs: {}", e.getMessage());
+            modified = true;
+        }
+    }
+}
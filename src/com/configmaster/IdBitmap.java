@@ -0,0 +1,474 @@
+package com.configmaster;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Komprimierte Menge von Datei-IDs nach dem Vorbild von Roaring-Bitmaps.
+ *
+ * Die IDs werden nach ihren oberen 16 Bit in Blöcke zu je 65536 IDs aufgeteilt. Ein Block mit
+ * wenigen IDs speichert sie als sortiertes char-Array (2 Bytes pro ID), ein dichter Block als
+ * Bitmap aus 1024 long-Werten (8 KB). Ab {@value #ARRAY_MAX} IDs ist die Bitmap kleiner und
+ * der Block wird umgewandelt. Schnitt- und Vereinigungsmengen werden blockweise gebildet, bei
+ * zwei Bitmaps wortweise mit 64 IDs pro Operation.
+ */
+public class IdBitmap {
+
+    /** Höchstzahl der IDs in einem Array-Block. */
+    static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    /**
+     * Ein Block von 65536 IDs, entweder als sortiertes Array oder als Bitmap.
+     */
+    private static final class Container {
+        private char[] values;
+        private long[] bits;
+        private int cardinality;
+
+        static Container ofArray(char[] values, int cardinality) {
+            Container container = new Container();
+            container.values = values;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        static Container ofBits(long[] bits, int cardinality) {
+            Container container = new Container();
+            container.bits = bits;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        boolean isBitmap() {
+            return bits != null;
+        }
+
+        boolean contains(char low) {
+            if (isBitmap()) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (isBitmap()) {
+                long word = bits[low >>> 6];
+                long newWord = word | (1L << low);
+                bits[low >>> 6] = newWord;
+                if (newWord == word) {
+                    return false;
+                }
+                cardinality++;
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (cardinality == ARRAY_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (isBitmap()) {
+                long word = bits[low >>> 6];
+                long newWord = word & ~(1L << low);
+                if (newWord == word) {
+                    return false;
+                }
+                bits[low >>> 6] = newWord;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    toArray();
+                }
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return true;
+        }
+
+        private void toBitmap() {
+            bits = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArray() {
+            values = new char[cardinality];
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    values[count++] = (char) ((word << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            bits = null;
+        }
+
+        Container copy() {
+            return isBitmap() ? ofBits(bits.clone(), cardinality) : ofArray(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        void forEach(int high, IntConsumer consumer) {
+            if (isBitmap()) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long w = bits[word];
+                    while (w != 0) {
+                        consumer.accept(high | (word << 6) + Long.numberOfTrailingZeros(w));
+                        w &= w - 1;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    consumer.accept(high | values[i]);
+                }
+            }
+        }
+
+        static int andCardinality(Container a, Container b) {
+            if (a.isBitmap() && b.isBitmap()) {
+                int count = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    count += Long.bitCount(a.bits[word] & b.bits[word]);
+                }
+                return count;
+            }
+            if (a.isBitmap() || b.isBitmap()) {
+                Container array = a.isBitmap() ? b : a;
+                Container bitmap = a.isBitmap() ? a : b;
+                int count = 0;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (bitmap.contains(array.values[i])) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.isBitmap() && b.isBitmap()) {
+                long[] bits = new long[BITMAP_WORDS];
+                int count = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    bits[word] = a.bits[word] & b.bits[word];
+                    count += Long.bitCount(bits[word]);
+                }
+                Container result = ofBits(bits, count);
+                if (count <= ARRAY_MAX) {
+                    result.toArray();
+                }
+                return result;
+            }
+            if (a.isBitmap() || b.isBitmap()) {
+                Container array = a.isBitmap() ? b : a;
+                Container bitmap = a.isBitmap() ? a : b;
+                char[] values = new char[array.cardinality];
+                int count = 0;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (bitmap.contains(array.values[i])) {
+                        values[count++] = array.values[i];
+                    }
+                }
+                return ofArray(values, count);
+            }
+            char[] values = new char[Math.min(a.cardinality, b.cardinality)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    values[count++] = a.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return ofArray(values, count);
+        }
+
+        static Container or(Container a, Container b) {
+            if (!a.isBitmap() && !b.isBitmap() && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                        values[count++] = a.values[i++];
+                    } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                        values[count++] = b.values[j++];
+                    } else {
+                        values[count++] = a.values[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return ofArray(values, count);
+            }
+            long[] bits = new long[BITMAP_WORDS];
+            for (Container c : new Container[] { a, b }) {
+                if (c.isBitmap()) {
+                    for (int word = 0; word < BITMAP_WORDS; word++) {
+                        bits[word] |= c.bits[word];
+                    }
+                } else {
+                    for (int i = 0; i < c.cardinality; i++) {
+                        bits[c.values[i] >>> 6] |= 1L << c.values[i];
+                    }
+                }
+            }
+            int count = 0;
+            for (long word : bits) {
+                count += Long.bitCount(word);
+            }
+            Container result = ofBits(bits, count);
+            if (count <= ARRAY_MAX) {
+                result.toArray();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Fügt eine ID hinzu.
+     *
+     * @param id Die nicht negative ID
+     */
+    public void add(int id) {
+        char high = (char) (id >>> 16);
+        int index = Arrays.binarySearch(keys, 0, size, high);
+        if (index < 0) {
+            index = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(4, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                containers = Arrays.copyOf(containers, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(containers, index, containers, index + 1, size - index);
+            keys[index] = high;
+            containers[index] = Container.ofArray(new char[4], 0);
+            size++;
+        }
+        containers[index].add((char) id);
+    }
+
+    /**
+     * Entfernt eine ID.
+     *
+     * @param id Die ID
+     */
+    public void remove(int id) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        if (index < 0 || !containers[index].remove((char) id)) {
+            return;
+        }
+        if (containers[index].cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            size--;
+            containers[size] = null;
+        }
+    }
+
+    /**
+     * Prüft, ob eine ID enthalten ist.
+     *
+     * @param id Die ID
+     * @return true, wenn die ID enthalten ist
+     */
+    public boolean contains(int id) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    /**
+     * Gibt die Anzahl der IDs zurück.
+     *
+     * @return Die Anzahl der IDs
+     */
+    public int getCardinality() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += containers[i].cardinality;
+        }
+        return count;
+    }
+
+    /**
+     * Prüft, ob die Menge leer ist.
+     *
+     * @return true, wenn keine ID enthalten ist
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Übergibt alle IDs in aufsteigender Reihenfolge.
+     *
+     * @param consumer Empfänger der IDs
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Erstellt eine unabhängige Kopie.
+     *
+     * @return Die Kopie
+     */
+    public IdBitmap copy() {
+        IdBitmap result = new IdBitmap();
+        result.keys = Arrays.copyOf(keys, size);
+        result.containers = new Container[size];
+        for (int i = 0; i < size; i++) {
+            result.containers[i] = containers[i].copy();
+        }
+        result.size = size;
+        return result;
+    }
+
+    /**
+     * Bildet die Schnittmenge zweier Mengen.
+     *
+     * @param a Die erste Menge
+     * @param b Die zweite Menge
+     * @return Eine neue Menge mit den IDs, die in beiden enthalten sind
+     */
+    public static IdBitmap and(IdBitmap a, IdBitmap b) {
+        IdBitmap result = new IdBitmap();
+        result.keys = new char[Math.min(a.size, b.size)];
+        result.containers = new Container[result.keys.length];
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = Container.and(a.containers[i], b.containers[j]);
+                if (container.cardinality > 0) {
+                    result.keys[result.size] = a.keys[i];
+                    result.containers[result.size++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Zählt die Schnittmenge zweier Mengen, ohne sie zu bilden.
+     *
+     * @param a Die erste Menge
+     * @param b Die zweite Menge
+     * @return Die Anzahl der IDs, die in beiden enthalten sind
+     */
+    public static int andCardinality(IdBitmap a, IdBitmap b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                count += Container.andCardinality(a.containers[i], b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Bildet die Vereinigungsmenge zweier Mengen.
+     *
+     * @param a Die erste Menge
+     * @param b Die zweite Menge
+     * @return Eine neue Menge mit den IDs, die in mindestens einer enthalten sind
+     */
+    public static IdBitmap or(IdBitmap a, IdBitmap b) {
+        IdBitmap result = new IdBitmap();
+        result.keys = new char[a.size + b.size];
+        result.containers = new Container[result.keys.length];
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.keys[result.size] = a.keys[i];
+                result.containers[result.size++] = a.containers[i++].copy();
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.keys[result.size] = b.keys[j];
+                result.containers[result.size++] = b.containers[j++].copy();
+            } else {
+                result.keys[result.size] = a.keys[i];
+                result.containers[result.size++] = Container.or(a.containers[i++], b.containers[j++]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Schätzt den Speicherbedarf der Menge.
+     *
+     * @return Der geschätzte Speicherbedarf in Bytes
+     */
+    public long estimateHeapBytes() {
+        long bytes = 32 + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            Container container = containers[i];
+            bytes += 32 + (container.isBitmap() ? BITMAP_WORDS * 8L : container.values.length * 2L);
+        }
+        return bytes;
+    }
+}
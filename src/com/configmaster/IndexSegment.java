@@ -0,0 +1,566 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Unveränderlicher, portabler Teil eines Inhaltsindex, z.B. der Index eines einzelnen Rechners.
+ *
+ * Ein Segment enthält die Dateien nach Pfad sortiert und das nach {@link String#compareTo(String)}
+ * sortierte Wörterbuch mit den aufsteigenden Nummern der Dateien je Wort. Weil beides sortiert
+ * ist, lassen sich beliebig viele Segmente in einem Durchlauf zusammenführen: Dateien und Wörter
+ * werden wie sortierte Listen gemischt, ohne erneut Dateien zu lesen. Kommt derselbe Pfad in
+ * mehreren Segmenten vor, gilt die Fassung mit der neuesten Änderungszeit, bei gleicher Zeit die
+ * aus dem späteren Segment.
+ *
+ * Zu jeder Datei wird der Rechner gespeichert, auf dem sie indiziert wurde. Das Segment ist
+ * selbst ein {@link WordIndex} und kann wie der {@link ContentIndex} durchsucht werden; die
+ * Datei-IDs sind dabei die Nummern der Dateien im Segment.
+ *
+ * Ein Segment kann Löschmarken enthalten: Einträge ohne Wörter, die eine gelöschte Datei in
+ * älteren Segmenten verdecken. Als Änderungszeit tragen sie den Zeitpunkt, zu dem die Löschung
+ * erkannt wurde. Der {@link SegmentStore} legt die Änderungen des Inhaltsindex als Folge solcher
+ * Segmente ab und fasst sie mit {@link #compact(List, boolean)} zusammen.
+ *
+ * Aufbau der Datei (DataOutputStream, Big Endian; "varint" sind 7 Bit pro Byte):
+ * <pre>
+ * int    Kennung "CMIS"
+ * int    Version (2; Version 1 ohne Markierungen wird weiter gelesen)
+ * int    Anzahl der Rechner, danach je Rechner ein UTF-String
+ * int    Anzahl der Dateien, danach je Datei: UTF Pfad, long Änderungszeit, varint Rechner,
+ *        ab Version 2 byte Markierungen (1 = Löschmarke)
+ * int    Anzahl der Wörter, danach je Wort: UTF Wort, varint Anzahl der Dateien,
+ *        varint Abstände der aufsteigenden Dateinummern
+ * </pre>
+ */
+public class IndexSegment implements WordIndex {
+
+    private static final Logger logger = LogManager.getLogger(IndexSegment.class);
+
+    /** Übliche Dateiendung für Segmente. */
+    public static final String EXTENSION = ".cmis";
+
+    private static final int MAGIC = 0x434D4953; // "CMIS"
+    private static final int VERSION = 2;
+
+    private static final int FLAG_DELETED = 1;
+
+    private final String[] sources;
+    private final String[] paths;
+    private final long[] lastModified;
+    private final int[] fileSources;
+    private final boolean[] deleted;
+    private final String[] terms;
+    private final int[][] postings;
+
+    /**
+     * Erstellt ein Segment aus bereits sortierten Daten.
+     *
+     * @param sources Die Namen der Rechner
+     * @param paths Die Pfade der Dateien, aufsteigend sortiert
+     * @param lastModified Die Änderungszeit je Datei
+     * @param fileSources Der Index des Rechners je Datei
+     * @param deleted Die Löschmarken je Datei
+     * @param terms Die Wörter, aufsteigend sortiert
+     * @param postings Die aufsteigenden Dateinummern je Wort
+     */
+    IndexSegment(String[] sources, String[] paths, long[] lastModified, int[] fileSources, boolean[] deleted,
+            String[] terms, int[][] postings) {
+        this.sources = sources;
+        this.paths = paths;
+        this.lastModified = lastModified;
+        this.fileSources = fileSources;
+        this.deleted = deleted;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    /**
+     * Gibt den Namen dieses Rechners zurück, mit dem lokal erstellte Segmente gekennzeichnet werden.
+     *
+     * @return Der Rechnername
+     */
+    public static String localSource() {
+        String computerName = System.getenv("COMPUTERNAME");
+        if (computerName != null && !computerName.isEmpty()) {
+            return computerName;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    /**
+     * Liest ein Segment aus einer Datei.
+     *
+     * @param file Die Segmentdatei
+     * @return Das Segment
+     * @throws IOException Wenn die Datei nicht gelesen werden kann oder kein Segment enthält
+     */
+    public static IndexSegment read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in, file.getName());
+        }
+    }
+
+    /**
+     * Liest ein Segment aus einem Datenstrom.
+     *
+     * @param input Der Datenstrom; wird nicht geschlossen
+     * @param name Der Name für Fehlermeldungen
+     * @return Das Segment
+     * @throws IOException Wenn der Datenstrom kein gültiges Segment enthält
+     */
+    static IndexSegment read(InputStream input, String name) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Keine Indexsegment-Datei: " + name);
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Nicht unterstützte Version " + version + " des Indexsegments: " + name);
+        }
+        String[] sources = new String[in.readInt()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = in.readUTF();
+        }
+        int fileCount = in.readInt();
+        String[] paths = new String[fileCount];
+        long[] lastModified = new long[fileCount];
+        int[] fileSources = new int[fileCount];
+        boolean[] deleted = new boolean[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            paths[i] = in.readUTF();
+            lastModified[i] = in.readLong();
+            fileSources[i] = readVarInt(in);
+            if (version >= 2) {
+                deleted[i] = (in.readByte() & FLAG_DELETED) != 0;
+            }
+        }
+        int termCount = in.readInt();
+        String[] terms = new String[termCount];
+        int[][] postings = new int[termCount][];
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = in.readUTF();
+            int[] ids = new int[readVarInt(in)];
+            int id = 0;
+            for (int j = 0; j < ids.length; j++) {
+                id += readVarInt(in);
+                ids[j] = id;
+            }
+            postings[i] = ids;
+        }
+        return new IndexSegment(sources, paths, lastModified, fileSources, deleted, terms, postings);
+    }
+
+    /**
+     * Schreibt das Segment in eine Datei. Die Datei wird zuerst temporär geschrieben und dann
+     * umbenannt.
+     *
+     * @param file Die Segmentdatei
+     * @throws IOException Wenn die Datei nicht geschrieben werden kann
+     */
+    public void write(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            write(out);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Indexsegment geschrieben: {} ({} Dateien, {} Wörter)", file, paths.length, terms.length);
+    }
+
+    /**
+     * Schreibt das Segment in einen Datenstrom.
+     *
+     * @param output Der Datenstrom; wird nicht geschlossen
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    void write(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sources.length);
+        for (String source : sources) {
+            out.writeUTF(source);
+        }
+        out.writeInt(paths.length);
+        for (int i = 0; i < paths.length; i++) {
+            out.writeUTF(paths[i]);
+            out.writeLong(lastModified[i]);
+            writeVarInt(out, fileSources[i]);
+            out.writeByte(deleted[i] ? FLAG_DELETED : 0);
+        }
+        out.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+            out.writeUTF(terms[i]);
+            writeVarInt(out, postings[i].length);
+            int previous = 0;
+            for (int id : postings[i]) {
+                writeVarInt(out, id - previous);
+                previous = id;
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Führt mehrere Segmente zu einem zusammen. Dateien und Wörter werden als sortierte Listen
+     * gemischt; der Aufwand ist linear in der Größe der Segmente (mal log der Segmentanzahl).
+     * Kommt ein Pfad mehrfach vor, gilt die Fassung mit der neuesten Änderungszeit, bei gleicher
+     * Zeit die aus dem späteren Segment. Gewinnt eine Löschmarke, fehlt die Datei im Ergebnis.
+     *
+     * @param segments Die Segmente
+     * @return Das zusammengeführte Segment
+     */
+    public static IndexSegment merge(List<IndexSegment> segments) {
+        return merge(segments, true, false);
+    }
+
+    /**
+     * Fasst eine Folge von Segmenten zusammen, in der jedes Segment die Änderungen nach den
+     * vorherigen enthält. Kommt ein Pfad mehrfach vor, gilt immer die Fassung aus dem späteren
+     * Segment, unabhängig von der Änderungszeit.
+     *
+     * @param segments Die Segmente, das älteste zuerst
+     * @param keepTombstones true, wenn es noch ältere Segmente gibt, deren Dateien die
+     *            Löschmarken weiterhin verdecken müssen
+     * @return Das zusammengefasste Segment
+     */
+    static IndexSegment compact(List<IndexSegment> segments, boolean keepTombstones) {
+        return merge(segments, false, keepTombstones);
+    }
+
+    private static IndexSegment merge(List<IndexSegment> segments, boolean newestModifiedWins,
+            boolean keepTombstones) {
+        long start = System.nanoTime();
+        int segmentCount = segments.size();
+
+        // Rechner zusammenführen
+        Map<String, Integer> sourceIds = new LinkedHashMap<>();
+        int[][] sourceMap = new int[segmentCount][];
+        for (int s = 0; s < segmentCount; s++) {
+            String[] segmentSources = segments.get(s).sources;
+            sourceMap[s] = new int[segmentSources.length];
+            for (int i = 0; i < segmentSources.length; i++) {
+                Integer sourceId = sourceIds.get(segmentSources[i]);
+                if (sourceId == null) {
+                    sourceId = sourceIds.size();
+                    sourceIds.put(segmentSources[i], sourceId);
+                }
+                sourceMap[s][i] = sourceId;
+            }
+        }
+
+        // Dateien nach Pfad mischen; fileMap bildet die Nummern jedes Segments auf die neuen ab
+        int[][] fileMap = new int[segmentCount][];
+        int totalFiles = 0;
+        for (int s = 0; s < segmentCount; s++) {
+            fileMap[s] = new int[segments.get(s).paths.length];
+            totalFiles += fileMap[s].length;
+        }
+        String[] paths = new String[totalFiles];
+        long[] lastModified = new long[totalFiles];
+        int[] fileSources = new int[totalFiles];
+        boolean[] deleted = new boolean[totalFiles];
+        int fileCount = 0;
+        int[] position = new int[segmentCount];
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+            int result = segments.get(a).paths[position[a]].compareTo(segments.get(b).paths[position[b]]);
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        for (int s = 0; s < segmentCount; s++) {
+            if (segments.get(s).paths.length > 0) {
+                queue.add(s);
+            }
+        }
+        List<Integer> group = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            group.clear();
+            String path = segments.get(queue.peek()).paths[position[queue.peek()]];
+            while (!queue.isEmpty() && segments.get(queue.peek()).paths[position[queue.peek()]].equals(path)) {
+                group.add(queue.poll());
+            }
+            int winner = group.get(group.size() - 1);
+            if (newestModifiedWins) {
+                for (int s : group) {
+                    if (segments.get(s).lastModified[position[s]]
+                            >= segments.get(winner).lastModified[position[winner]]) {
+                        winner = s;
+                    }
+                }
+            }
+            IndexSegment segment = segments.get(winner);
+            boolean removed = segment.deleted[position[winner]];
+            for (int s : group) {
+                fileMap[s][position[s]] = s == winner && !removed ? fileCount : -1;
+            }
+            if (!removed || keepTombstones) {
+                paths[fileCount] = path;
+                lastModified[fileCount] = segment.lastModified[position[winner]];
+                fileSources[fileCount] = sourceMap[winner][segment.fileSources[position[winner]]];
+                deleted[fileCount] = removed;
+                fileCount++;
+            }
+            for (int s : group) {
+                if (++position[s] < segments.get(s).paths.length) {
+                    queue.add(s);
+                }
+            }
+        }
+
+        // Wörter mischen und die Dateinummern umrechnen; verdrängte Fassungen fallen weg
+        int totalTerms = 0;
+        for (IndexSegment segment : segments) {
+            totalTerms += segment.terms.length;
+        }
+        String[] terms = new String[totalTerms];
+        int[][] postings = new int[totalTerms][];
+        int termCount = 0;
+        Arrays.fill(position, 0);
+        PriorityQueue<Integer> termQueue = new PriorityQueue<>((a, b) -> {
+            int result = segments.get(a).terms[position[a]].compareTo(segments.get(b).terms[position[b]]);
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        for (int s = 0; s < segmentCount; s++) {
+            if (segments.get(s).terms.length > 0) {
+                termQueue.add(s);
+            }
+        }
+        List<int[]> lists = new ArrayList<>();
+        while (!termQueue.isEmpty()) {
+            group.clear();
+            String term = segments.get(termQueue.peek()).terms[position[termQueue.peek()]];
+            while (!termQueue.isEmpty()
+                    && segments.get(termQueue.peek()).terms[position[termQueue.peek()]].equals(term)) {
+                group.add(termQueue.poll());
+            }
+            lists.clear();
+            for (int s : group) {
+                int[] ids = remap(segments.get(s).postings[position[s]], fileMap[s]);
+                if (ids.length > 0) {
+                    lists.add(ids);
+                }
+                if (++position[s] < segments.get(s).terms.length) {
+                    termQueue.add(s);
+                }
+            }
+            if (!lists.isEmpty()) {
+                terms[termCount] = term;
+                postings[termCount] = mergeSorted(lists);
+                termCount++;
+            }
+        }
+
+        IndexSegment merged = new IndexSegment(sourceIds.keySet().toArray(new String[0]),
+                Arrays.copyOf(paths, fileCount), Arrays.copyOf(lastModified, fileCount),
+                Arrays.copyOf(fileSources, fileCount), Arrays.copyOf(deleted, fileCount),
+                Arrays.copyOf(terms, termCount),
+                Arrays.copyOf(postings, termCount));
+        logger.info("{} Indexsegmente zusammengeführt in {} ms: {} von {} Dateien, {} Wörter", segmentCount,
+                (System.nanoTime() - start) / 1_000_000, fileCount, totalFiles, termCount);
+        return merged;
+    }
+
+    @Override
+    public List<String> findWords(String term, int maxEdits) {
+        String normalized = ContentIndex.normalize(term);
+        List<String> words = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return words;
+        }
+        if (maxEdits == 0) {
+            if (Arrays.binarySearch(terms, normalized) >= 0) {
+                words.add(normalized);
+            }
+            return words;
+        }
+        for (int index : new LevenshteinAutomaton(normalized, maxEdits).intersect(terms, terms.length)) {
+            words.add(terms[index]);
+        }
+        return words;
+    }
+
+    @Override
+    public IdBitmap getFiles(String word) {
+        IdBitmap files = new IdBitmap();
+        int index = Arrays.binarySearch(terms, word);
+        if (index >= 0) {
+            for (int id : postings[index]) {
+                files.add(id);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Gibt die Namen der Rechner zurück, deren Dateien das Segment enthält.
+     *
+     * @return Die Rechnernamen
+     */
+    public String[] getSources() {
+        return sources.clone();
+    }
+
+    public int getFileCount() {
+        return paths.length;
+    }
+
+    /**
+     * Gibt die Anzahl der Löschmarken zurück.
+     *
+     * @return Die Anzahl der gelöschten Dateien, die ältere Segmente verdecken
+     */
+    public int getTombstoneCount() {
+        int count = 0;
+        for (boolean tombstone : deleted) {
+            if (tombstone) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Prüft, ob eine Datei eine Löschmarke ist.
+     *
+     * @param fileId Die Nummer der Datei im Segment
+     * @return true, wenn die Datei gelöscht wurde
+     */
+    public boolean isDeleted(int fileId) {
+        return deleted[fileId];
+    }
+
+    public int getWordCount() {
+        return terms.length;
+    }
+
+    /**
+     * Gibt ein Wort des sortierten Wörterbuchs zurück.
+     *
+     * @param index Die Position im Wörterbuch
+     * @return Das Wort
+     */
+    String getWord(int index) {
+        return terms[index];
+    }
+
+    /**
+     * Gibt die aufsteigenden Nummern der Dateien zurück, die ein Wort enthalten. Das Array darf
+     * nicht verändert werden.
+     *
+     * @param index Die Position des Worts im Wörterbuch
+     * @return Die Dateinummern
+     */
+    int[] getWordFiles(int index) {
+        return postings[index];
+    }
+
+    public String getPath(int fileId) {
+        return paths[fileId];
+    }
+
+    public long getLastModified(int fileId) {
+        return lastModified[fileId];
+    }
+
+    /**
+     * Gibt den Rechner zurück, auf dem eine Datei indiziert wurde.
+     *
+     * @param fileId Die Nummer der Datei im Segment
+     * @return Der Rechnername
+     */
+    public String getSource(int fileId) {
+        return sources[fileSources[fileId]];
+    }
+
+    /**
+     * Rechnet aufsteigende Dateinummern eines Segments um und lässt verdrängte Dateien weg.
+     * Da die Dateien in beiden Segmenten nach Pfad nummeriert sind, bleibt die Reihenfolge erhalten.
+     */
+    private static int[] remap(int[] ids, int[] fileMap) {
+        int[] mapped = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            int newId = fileMap[id];
+            if (newId >= 0) {
+                mapped[count++] = newId;
+            }
+        }
+        return count == mapped.length ? mapped : Arrays.copyOf(mapped, count);
+    }
+
+    /**
+     * Mischt aufsteigende, disjunkte Listen von Dateinummern.
+     */
+    private static int[] mergeSorted(List<int[]> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (int[] list : lists) {
+            total += list.length;
+        }
+        int[] merged = new int[total];
+        int[] position = new int[lists.size()];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(
+                (a, b) -> Integer.compare(lists.get(a)[position[a]], lists.get(b)[position[b]]));
+        for (int i = 0; i < lists.size(); i++) {
+            queue.add(i);
+        }
+        int count = 0;
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            merged[count++] = lists.get(i)[position[i]];
+            if (++position[i] < lists.get(i).length) {
+                queue.add(i);
+            }
+        }
+        return merged;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Ungültige Zahl im Indexsegment");
+    }
+}
@@ -0,0 +1,180 @@
+package com.configmaster;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Verteilt Lesezugriffe auf physische Datenträger mit jeweils eigener Parallelitätsgrenze.
+ * Jeder Datenträger (ermittelt über {@link FileStore}) erhält einen eigenen Thread-Pool.
+ * Dadurch wird eine schnelle SSD nicht auf das Tempo einer Festplatte oder Netzwerkfreigabe
+ * gebremst, und ein langsamer Datenträger kann die übrigen nicht blockieren.
+ *
+ * Die Grenzen können in der Datei "iolimits.txt" im Konfigurationsverzeichnis pro Laufwerk
+ * überschrieben werden, z.B. "D:\=2" oder "\\server\share\=1".
+ */
+public class IoScheduler {
+
+    private static final Logger logger = LogManager.getLogger(IoScheduler.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CONFIG_DIR = "config";
+    private static final String LIMITS_FILE = "iolimits.txt";
+
+    /** Standardgrenze für lokale Datenträger. */
+    public static final int DEFAULT_LOCAL_LIMIT = 8;
+    /** Standardgrenze für Netzwerkfreigaben. */
+    public static final int DEFAULT_NETWORK_LIMIT = 2;
+
+    private static final String[] NETWORK_TYPES = { "smb", "cifs", "nfs", "webdav", "sshfs", "afp", "9p" };
+
+    private final Map<String, Integer> limitOverrides = new HashMap<>();
+    private final Map<FileStore, Volume> volumes = new HashMap<>();
+    private final List<Volume> volumeList = new ArrayList<>();
+
+    /**
+     * Ein Datenträger mit eigenem Thread-Pool.
+     */
+    public static class Volume {
+        private final String name;
+        private final int limit;
+        private final ExecutorService executor;
+
+        Volume(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(limit, runnable -> {
+                Thread thread = new Thread(runnable, "io-" + name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Führt eine Aufgabe im Thread-Pool dieses Datenträgers aus.
+         *
+         * @param task Die Aufgabe
+         * @return Das Ergebnis der Aufgabe
+         */
+        public <T> Future<T> submit(Callable<T> task) {
+            return executor.submit(task);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+    }
+
+    /**
+     * Erstellt einen neuen IoScheduler und lädt die konfigurierten Grenzen.
+     */
+    public IoScheduler() {
+        loadLimitOverrides();
+    }
+
+    /**
+     * Gibt den Datenträger zurück, auf dem der angegebene Pfad liegt.
+     * Pfade auf demselben Datenträger teilen sich einen Thread-Pool.
+     *
+     * @param path Ein Pfad auf dem Datenträger, z.B. ein Suchverzeichnis
+     * @return Der Datenträger
+     */
+    public synchronized Volume getVolume(Path path) {
+        FileStore store;
+        try {
+            store = Files.getFileStore(path);
+        } catch (IOException e) {
+            logger.warn("Datenträger von {} nicht ermittelbar: {}", path, e.getMessage());
+            store = null;
+        }
+
+        Volume volume = volumes.get(store);
+        if (volume == null) {
+            String root = path.toAbsolutePath().getRoot() != null ? path.toAbsolutePath().getRoot().toString() : "?";
+            int limit = limitOverrides.getOrDefault(root.toLowerCase(Locale.ROOT), defaultLimit(store));
+            volume = new Volume(store != null ? store.name() : root, limit);
+            volumes.put(store, volume);
+            volumeList.add(volume);
+            logger.info("Datenträger {} ({}) für {}: max. {} parallele Zugriffe",
+                    volume.getName(), store != null ? store.type() : "unbekannt", root, limit);
+        }
+        return volume;
+    }
+
+    /**
+     * Beendet die Thread-Pools aller Datenträger.
+     */
+    public synchronized void shutdown() {
+        for (Volume volume : volumeList) {
+            volume.executor.shutdown();
+        }
+        volumes.clear();
+        volumeList.clear();
+    }
+
+    /**
+     * Bestimmt die Standardgrenze anhand des Dateisystemtyps.
+     */
+    private static int defaultLimit(FileStore store) {
+        if (store == null) {
+            return DEFAULT_NETWORK_LIMIT;
+        }
+        String type = store.type().toLowerCase(Locale.ROOT);
+        for (String networkType : NETWORK_TYPES) {
+            if (type.contains(networkType)) {
+                return DEFAULT_NETWORK_LIMIT;
+            }
+        }
+        return DEFAULT_LOCAL_LIMIT;
+    }
+
+    /**
+     * Lädt die Grenzen pro Laufwerk aus der Konfigurationsdatei.
+     * Das Format der Datei ist eine Zeile "Laufwerk=Grenze" pro Laufwerk.
+     */
+    private void loadLimitOverrides() {
+        File limitsFile = new File(ROOT_PATH + File.separator + CONFIG_DIR + File.separator + LIMITS_FILE);
+        if (!limitsFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(limitsFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf('=');
+                if (line.trim().isEmpty() || separator <= 0) {
+                    continue;
+                }
+                try {
+                    int limit = Integer.parseInt(line.substring(separator + 1).trim());
+                    limitOverrides.put(line.substring(0, separator).trim().toLowerCase(Locale.ROOT), Math.max(1, limit));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ungültige Zeile in {}: {}", LIMITS_FILE, line);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der I/O-Grenzen: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Zwischenspeicher der Dateien, die ein Schlüsselwort enthalten, für das schnelle Anwenden
+ * gespeicherter Filter.
+ *
+ * Zu jedem bereits abgefragten Schlüsselwort wird die Menge der Datei-IDs aus dem
+ * {@link ScanCache} als {@link IdBitmap} gehalten. Die Mengen werden von allen Filtern gemeinsam
+ * genutzt, da dieselben Schlüsselwörter in vielen Filtern vorkommen. Ein Filter ergibt sich als
+ * Vereinigung der Mengen seiner Schlüsselwörter. Nur für Schlüsselwörter, die noch nicht im
+ * Zwischenspeicher sind, werden die Dateien gelesen, und zwar jede Datei einmal für alle neuen
+ * Schlüsselwörter.
+ *
+ * Als {@link ScanListener} kennt der Index alle beim Scan gelesenen Dateien. Liest der Scan eine
+ * geänderte oder neue Datei, werden nur für diese Datei alle gespeicherten Schlüsselwörter neu
+ * geprüft; die übrigen Mengen bleiben gültig. Dabei wird für jede Datei ein
+ * {@link TokenBloomFilter} im Scan-Cache abgelegt. Dateien, deren Filter alle neuen
+ * Schlüsselwörter ausschließt, werden bei der Suche nach diesen nicht gelesen.
+ */
+public class KeywordIndex implements ScanListener {
+
+    private static final Logger logger = LogManager.getLogger(KeywordIndex.class);
+
+    private final ScanCache scanCache;
+    private final TokenBloomFilter.Settings bloomSettings;
+    private final Map<String, IdBitmap> postings = new HashMap<>();
+
+    // Pro Datei-ID: Änderungszeit der geprüften Fassung und der Dateityp
+    private long[] fileModified = new long[0];
+    private FileTypeHandler[] fileTypes = new FileTypeHandler[0];
+    private final IdBitmap knownFiles = new IdBitmap();
+    private final BitSet seenFiles = new BitSet();
+
+    /**
+     * Erstellt einen leeren Index mit den Bloom-Filter-Einstellungen aus der Konfiguration.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     */
+    public KeywordIndex(ScanCache scanCache) {
+        this(scanCache, TokenBloomFilter.Settings.load());
+    }
+
+    /**
+     * Erstellt einen leeren Index.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt und die Bloom-Filter speichert
+     * @param bloomSettings Die Größe der Bloom-Filter
+     */
+    public KeywordIndex(ScanCache scanCache, TokenBloomFilter.Settings bloomSettings) {
+        this.scanCache = scanCache;
+        this.bloomSettings = bloomSettings;
+    }
+
+    @Override
+    public synchronized void scanStarted(List<File> searchDirs) {
+        seenFiles.clear();
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        ScanCache.Entry entry = scanCache.getOrCreate(path, size, lastModified);
+        int fileId = entry.getId();
+        boolean needsBloomFilter = entry.getBloomFilter() == null;
+        boolean unchanged;
+        String[] keywords;
+        synchronized (this) {
+            seenFiles.set(fileId);
+            unchanged = knownFiles.contains(fileId) && fileModified[fileId] == lastModified;
+            if (unchanged && !needsBloomFilter) {
+                return;
+            }
+            keywords = postings.keySet().toArray(new String[0]);
+        }
+        String text = fileType.parse(content);
+        if (needsBloomFilter) {
+            scanCache.setBloomFilter(entry, TokenBloomFilter.build(text, bloomSettings));
+        }
+        if (unchanged) {
+            return;
+        }
+        // Alle gespeicherten Schlüsselwörter für diese Datei neu prüfen
+        boolean[] matches = new boolean[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            matches[i] = fileType.countMatches(text, keywords[i]) > 0;
+        }
+        synchronized (this) {
+            updateFile(fileId, lastModified, fileType, keywords, matches);
+        }
+    }
+
+    @Override
+    public synchronized void scanFinished(List<File> searchDirs, boolean complete) {
+        List<String> roots = new ArrayList<>();
+        for (File searchDir : searchDirs) {
+            roots.add(searchDir.getAbsolutePath());
+        }
+        // Dateien außerhalb der aktuellen Suchverzeichnisse immer entfernen, damit eine spätere
+        // Suche sie nicht mehr liest; nicht mehr gefundene nur nach einem vollständigen Scan
+        List<Integer> removed = new ArrayList<>();
+        knownFiles.forEach(fileId -> {
+            if (seenFiles.get(fileId)) {
+                return;
+            }
+            boolean belowRoot = ScanCache.isBelowAny(scanCache.getPath(fileId), roots);
+            if (!belowRoot || complete) {
+                removed.add(fileId);
+            }
+        });
+        for (int fileId : removed) {
+            knownFiles.remove(fileId);
+            for (IdBitmap files : postings.values()) {
+                files.remove(fileId);
+            }
+        }
+        logger.info("Schlüsselwort-Index: {} Dateien, {} Schlüsselwörter zwischengespeichert",
+                knownFiles.getCardinality(), postings.size());
+    }
+
+    /**
+     * Gibt zurück, ob der Index Dateien aus einem Scan kennt.
+     *
+     * @return true, wenn mindestens eine Datei bekannt ist
+     */
+    public synchronized boolean hasFiles() {
+        return !knownFiles.isEmpty();
+    }
+
+    /**
+     * Ermittelt die Dateien, die mindestens eines der Schlüsselwörter enthalten. Fehlende
+     * Schlüsselwörter werden vorher durch einmaliges Lesen der bekannten Dateien ergänzt.
+     *
+     * @param keywords Die Schlüsselwörter, z.B. eines Filters
+     * @return Die IDs der passenden Dateien
+     */
+    public IdBitmap resolve(Collection<String> keywords) {
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (this) {
+            for (String keyword : keywords) {
+                if (!postings.containsKey(keyword)) {
+                    missing.add(keyword);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+
+        synchronized (this) {
+            IdBitmap result = new IdBitmap();
+            for (String keyword : keywords) {
+                IdBitmap files = postings.get(keyword);
+                if (files != null) {
+                    result = IdBitmap.or(result, files);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Liest alle bekannten Dateien und prüft sie auf die neuen Schlüsselwörter. Unveränderte
+     * Dateien, deren Bloom-Filter alle neuen Schlüsselwörter ausschließt, werden nicht gelesen.
+     * Hat sich eine Datei seit dem Scan geändert, werden für sie auch die gespeicherten
+     * Schlüsselwörter neu geprüft.
+     */
+    private void load(Set<String> newKeywords) {
+        long start = System.nanoTime();
+        List<Integer> fileIds = new ArrayList<>();
+        synchronized (this) {
+            knownFiles.forEach(fileIds::add);
+        }
+
+        Map<String, IdBitmap> newPostings = new HashMap<>();
+        for (String keyword : newKeywords) {
+            newPostings.put(keyword, new IdBitmap());
+        }
+        int changedFiles = 0;
+        int skippedFiles = 0;
+        int unselectiveFiles = 0;
+        for (int fileId : fileIds) {
+            String path = scanCache.getPath(fileId);
+            FileTypeHandler fileType;
+            long recordedModified;
+            synchronized (this) {
+                fileType = fileTypes[fileId];
+                recordedModified = fileModified[fileId];
+            }
+
+            ScanCache.Entry cacheEntry;
+            long lastModified;
+            if (ArchivePaths.isArchivePath(path)) {
+                cacheEntry = scanCache.getLatest(path);
+                lastModified = recordedModified;
+            } else {
+                File file = new File(path);
+                lastModified = file.lastModified();
+                cacheEntry = scanCache.get(path, file.length(), lastModified);
+            }
+            if (lastModified == recordedModified && cacheEntry != null && !mightContainAny(cacheEntry, newKeywords)) {
+                skippedFiles++;
+                continue;
+            }
+            if (cacheEntry != null && cacheEntry.getBloomFilter() != null && !cacheEntry.getBloomFilter().isSelective()) {
+                unselectiveFiles++;
+            }
+
+            ConfigFileContent content;
+            try {
+                content = ConfigFileContent.decode(ArchivePaths.readAllBytes(path));
+            } catch (IOException e) {
+                logger.debug("Datei kann nicht gelesen werden: {}", path);
+                continue;
+            }
+            String text = fileType.parse(content);
+            for (Map.Entry<String, IdBitmap> entry : newPostings.entrySet()) {
+                if (fileType.countMatches(text, entry.getKey()) > 0) {
+                    entry.getValue().add(fileId);
+                }
+            }
+
+            if (lastModified != recordedModified) {
+                changedFiles++;
+                String[] keywords;
+                synchronized (this) {
+                    keywords = postings.keySet().toArray(new String[0]);
+                }
+                boolean[] matches = new boolean[keywords.length];
+                for (int i = 0; i < keywords.length; i++) {
+                    matches[i] = fileType.countMatches(text, keywords[i]) > 0;
+                }
+                synchronized (this) {
+                    updateFile(fileId, lastModified, fileType, keywords, matches);
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, IdBitmap> entry : newPostings.entrySet()) {
+                postings.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        logger.info("Schlüsselwörter {} in {} Dateien geprüft ({} geändert, {} per Bloom-Filter übersprungen, "
+                + "{} ohne wirksamen Filter) in {} ms",
+                newKeywords, fileIds.size(), changedFiles, skippedFiles, unselectiveFiles, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Prüft anhand des Bloom-Filters einer Datei, ob sie eines der Schlüsselwörter enthalten kann.
+     * Ohne Bloom-Filter muss die Datei gelesen werden.
+     */
+    private static boolean mightContainAny(ScanCache.Entry entry, Set<String> keywords) {
+        TokenBloomFilter bloomFilter = entry.getBloomFilter();
+        if (bloomFilter == null) {
+            return true;
+        }
+        for (String keyword : keywords) {
+            if (bloomFilter.mightContain(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Übernimmt das Ergebnis der Prüfung einer Datei für die angegebenen Schlüsselwörter.
+     */
+    private void updateFile(int fileId, long lastModified, FileTypeHandler fileType, String[] keywords,
+            boolean[] matches) {
+        if (fileId >= fileModified.length) {
+            int capacity = Math.max(fileId + 1, fileModified.length * 2);
+            fileModified = Arrays.copyOf(fileModified, capacity);
+            fileTypes = Arrays.copyOf(fileTypes, capacity);
+        }
+        fileModified[fileId] = lastModified;
+        fileTypes[fileId] = fileType;
+        knownFiles.add(fileId);
+        for (int i = 0; i < keywords.length; i++) {
+            IdBitmap files = postings.get(keywords[i]);
+            if (files == null) {
+                continue;
+            }
+            if (matches[i]) {
+                files.add(fileId);
+            } else {
+                files.remove(fileId);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.configmaster;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein-Automat, der alle Wörter mit höchstens n Änderungen (Einfügen, Löschen, Ersetzen)
+ * gegenüber einem Suchwort akzeptiert.
+ *
+ * Ein Zustand ist die Menge der Positionen im Suchwort, die mit der bisher gelesenen Eingabe
+ * erreichbar sind, zusammen mit der jeweils nötigen Zahl von Änderungen. Er wird als Zeile der
+ * Distanzmatrix dargestellt, deren Werte bei n + 1 abgeschnitten sind. Ein Zustand, in dem jede
+ * Position mehr als n Änderungen benötigt, kann nicht mehr akzeptieren. So lässt sich ein
+ * sortiertes Wörterbuch wie ein Trie durchlaufen und jeder Teilbaum überspringen, sobald sein
+ * Präfix ausgeschlossen ist, statt jedes Wort einzeln zu vergleichen.
+ */
+public class LevenshteinAutomaton {
+
+    private final char[] word;
+    private final int maxEdits;
+
+    /**
+     * Erstellt einen Automaten für ein Suchwort.
+     *
+     * @param word Das Suchwort
+     * @param maxEdits Die höchste erlaubte Zahl von Änderungen
+     */
+    public LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word.toCharArray();
+        this.maxEdits = Math.max(0, maxEdits);
+    }
+
+    /**
+     * Gibt den Startzustand zurück, d.h. den Zustand vor dem ersten Zeichen.
+     *
+     * @return Der Startzustand
+     */
+    public int[] start() {
+        int[] state = new int[word.length + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+        return state;
+    }
+
+    /**
+     * Berechnet den Folgezustand nach einem Zeichen der Eingabe.
+     *
+     * @param state Der aktuelle Zustand
+     * @param c Das gelesene Zeichen
+     * @return Der Folgezustand
+     */
+    public int[] step(int[] state, char c) {
+        int limit = maxEdits + 1;
+        int[] next = new int[state.length];
+        next[0] = Math.min(state[0] + 1, limit);
+        for (int i = 1; i < state.length; i++) {
+            int replace = state[i - 1] + (word[i - 1] == c ? 0 : 1);
+            int delete = state[i] + 1;
+            int insert = next[i - 1] + 1;
+            next[i] = Math.min(Math.min(replace, delete), Math.min(insert, limit));
+        }
+        return next;
+    }
+
+    /**
+     * Prüft, ob die bisher gelesene Eingabe akzeptiert wird.
+     *
+     * @param state Der Zustand nach der Eingabe
+     * @return true, wenn die Eingabe höchstens n Änderungen vom Suchwort entfernt ist
+     */
+    public boolean isAccepting(int[] state) {
+        return state[word.length] <= maxEdits;
+    }
+
+    /**
+     * Prüft, ob eine Verlängerung der bisher gelesenen Eingabe noch akzeptiert werden kann.
+     *
+     * @param state Der Zustand nach der Eingabe
+     * @return false, wenn der Zustand keinen akzeptierenden Zustand mehr erreicht
+     */
+    public boolean canAccept(int[] state) {
+        for (int distance : state) {
+            if (distance <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lesezugriff auf ein nach {@link String#compareTo(String)} sortiertes Wörterbuch, ohne dass
+     * die Wörter als Strings vorliegen müssen.
+     */
+    public interface SortedWords {
+
+        /**
+         * @return Die Anzahl der Wörter
+         */
+        int size();
+
+        /**
+         * @param index Die Position des Worts
+         * @return Die Länge des Worts
+         */
+        int length(int index);
+
+        /**
+         * @param index Die Position des Worts
+         * @param position Die Position des Zeichens im Wort
+         * @return Das Zeichen
+         */
+        char charAt(int index, int position);
+    }
+
+    /**
+     * Ermittelt alle Wörter eines sortierten Wörterbuchs, die der Automat akzeptiert. Die
+     * gemeinsamen Präfixe benachbarter Wörter bilden einen impliziten Trie, der nur so weit
+     * durchlaufen wird, wie der Automat noch akzeptieren kann.
+     *
+     * @param dictionary Die nach {@link String#compareTo(String)} sortierten Wörter
+     * @param count Die Anzahl der zu berücksichtigenden Wörter am Anfang des Arrays
+     * @return Die Positionen der akzeptierten Wörter in aufsteigender Reihenfolge
+     */
+    public int[] intersect(String[] dictionary, int count) {
+        return intersect(new SortedWords() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public int length(int index) {
+                return dictionary[index].length();
+            }
+
+            @Override
+            public char charAt(int index, int position) {
+                return dictionary[index].charAt(position);
+            }
+        });
+    }
+
+    /**
+     * Ermittelt alle Wörter eines sortierten Wörterbuchs, die der Automat akzeptiert.
+     *
+     * @param words Das sortierte Wörterbuch
+     * @return Die Positionen der akzeptierten Wörter in aufsteigender Reihenfolge
+     */
+    public int[] intersect(SortedWords words) {
+        IntList matches = new IntList();
+        if (words.size() > 0) {
+            intersect(words, 0, words.size(), 0, start(), matches);
+        }
+        return matches.toArray();
+    }
+
+    /**
+     * Durchläuft die Wörter im Bereich [from, to), die alle dasselbe Präfix der Länge depth haben.
+     */
+    private void intersect(SortedWords words, int from, int to, int depth, int[] state, IntList matches) {
+        int index = from;
+        if (words.length(index) == depth) {
+            if (isAccepting(state)) {
+                matches.add(index);
+            }
+            index++;
+        }
+        while (index < to) {
+            char c = words.charAt(index, depth);
+            int end = endOfRange(words, index, to, depth, c);
+            int[] next = step(state, c);
+            if (canAccept(next)) {
+                intersect(words, index, end, depth + 1, next, matches);
+            }
+            index = end;
+        }
+    }
+
+    /**
+     * Sucht binär das Ende des Bereichs, dessen Wörter an der Position depth das Zeichen c haben.
+     */
+    private static int endOfRange(SortedWords words, int from, int to, int depth, char c) {
+        int low = from + 1;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words.charAt(mid, depth) == c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Einfache wachsende Liste von int-Werten.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
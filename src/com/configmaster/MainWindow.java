@@ -3,26 +3,40 @@ package com.configmaster;
 import java.io.File;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
@@ -39,6 +53,9 @@ public class MainWindow {
     private static final String CONFIG_FILE = "config.txt";
     private static final String LOG_CONFIG_FILE = "log4j2.xml";
     
+    // Trennzeichen zwischen mehreren Suchpfaden in der Konfigurationsdatei
+    private static final String SEARCH_PATH_SEPARATOR = ";";
+    
     // Logger wird erst nach der Konfiguration initialisiert
     private static Logger logger;
     
@@ -46,25 +63,95 @@ public class MainWindow {
     private Table configFilesTable;
     private ConfigScanner configScanner;
     private ConfigFileViewer configFileViewer;
+    private ContentCache contentCache;
+    private ScanCache scanCache;
+    private NumericIndex numericIndex;
+    private FacetIndex facetIndex;
+    private KeywordIndex keywordIndex;
+    private ContentIndex contentIndex;
+    private SegmentStore segmentStore;
+    private ScanSnapshot scanSnapshot;
+    private HistoryStore historyStore;
+    private final BackupStore backupStore = new BackupStore();
     
     // Gespeicherte Konfigurationswerte
-    private String searchPath = "";
+    private List<String> searchPaths = new ArrayList<>();
     private String searchPattern = "default";
+    private ScanOptions scanOptions = new ScanOptions();
     
     // Musterbeispiel, das im Dialog angezeigt wird
     private static final String PATTERN_EXAMPLE = "pattern1,pattern2";
     
+    // Beispiel für eine Parameterabfrage
+    private static final String QUERY_EXAMPLE = "chart.period >= 240 && chart.scale > 1";
+    
+    // Zuletzt ausgeführte Parameterabfrage
+    private String parameterQuery = QUERY_EXAMPLE;
+    
+    // Beispiel und zuletzt ausgeführte unscharfe Suche
+    private static final String FUZZY_EXAMPLE = "MACD_Custom~1";
+    private String fuzzyQuery = FUZZY_EXAMPLE;
+    // Geöffnete Indexsegmente für die unscharfe Suche; null für den lokalen Inhaltsindex
+    private IndexSegment openedSegment;
+    
+    // Anzahl der Zeilen ober- und unterhalb der Auswahl, deren Dateien vorausgeladen werden
+    private static final int PREFETCH_ROWS = 2;
+    
     // FilterManager für die Filterverwaltung
     private FilterManager filterManager;
     
+    // Ergebnis des letzten Scans bzw. der letzten Abfrage und dessen Datei-IDs
+    private ConfigFileStore scanResults = new ConfigFileStore();
+    private IdBitmap scanResultIds = new IdBitmap();
+    
+    // Angezeigte Ergebnisse nach Anwendung der ausgewählten Facetten
+    private ConfigFileStore currentResults = scanResults;
+    
+    // Facettenlisten neben der Tabelle und die darin ausgewählten Werte
+    private final Map<FacetIndex.Facet, Table> facetTables = new EnumMap<>(FacetIndex.Facet.class);
+    private final Map<FacetIndex.Facet, Set<String>> facetSelection = new EnumMap<>(FacetIndex.Facet.class);
+    
+    // Spalten der Ergebnistabelle in der Reihenfolge der Tabellenspalten
+    private static final ConfigFileStore.Column[] TABLE_COLUMNS = {
+        ConfigFileStore.Column.NAME, ConfigFileStore.Column.PATH, ConfigFileStore.Column.ROOT,
+        ConfigFileStore.Column.SIZE, ConfigFileStore.Column.MODIFIED, ConfigFileStore.Column.ENCODING,
+        ConfigFileStore.Column.MATCHES, ConfigFileStore.Column.PATTERNS, ConfigFileStore.Column.SCAN_TIME
+    };
+    private static final String[] TABLE_COLUMN_TITLES = {
+        "Name", "Pfad", "Suchpfad", "Größe", "Geändert", "Codierung", "Treffer", "Muster", "Scanzeit (µs)"
+    };
+    private static final int[] TABLE_COLUMN_WIDTHS = { 200, 400, 150, 80, 120, 90, 60, 120, 90 };
+    private static final int[] TABLE_COLUMN_ALIGNMENTS = {
+        SWT.LEFT, SWT.LEFT, SWT.LEFT, SWT.RIGHT, SWT.LEFT, SWT.LEFT, SWT.RIGHT, SWT.LEFT, SWT.RIGHT
+    };
+    
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm");
+    
     public MainWindow(Shell shell) {
         // Initialisiere Logger-Konfiguration
         initializeLogger();
         
         this.shell = shell;
         this.configScanner = new ConfigScanner();
-        this.configFileViewer = new ConfigFileViewer();
+        this.contentCache = new ContentCache();
+        this.configFileViewer = new ConfigFileViewer(contentCache);
         this.filterManager = new FilterManager();
+        this.scanCache = new ScanCache();
+        this.numericIndex = new NumericIndex(scanCache);
+        this.configScanner.addScanListener(numericIndex);
+        this.facetIndex = new FacetIndex(scanCache);
+        this.configScanner.addScanListener(facetIndex);
+        this.keywordIndex = new KeywordIndex(scanCache);
+        this.configScanner.addScanListener(keywordIndex);
+        this.segmentStore = new SegmentStore();
+        this.contentIndex = new ContentIndex(scanCache, segmentStore);
+        this.configScanner.addScanListener(contentIndex);
+        shell.addDisposeListener(e -> segmentStore.close());
+        this.scanSnapshot = new ScanSnapshot();
+        this.configScanner.addScanListener(scanSnapshot);
+        this.historyStore = new HistoryStore();
+        this.configScanner.addScanListener(historyStore);
+        this.configScanner.addScanListener(contentCache);
         logger.info("ConfigMaster gestartet");
     }
     
@@ -126,7 +213,7 @@ public class MainWindow {
         
         // Menüpunkt "Suchpfad festlegen" erstellen
         MenuItem setSearchPathItem = new MenuItem(configMenu, SWT.PUSH);
-        setSearchPathItem.setText("Suchpfad festlegen...");
+        setSearchPathItem.setText("Suchpfade festlegen...");
         setSearchPathItem.addSelectionListener(new SelectionAdapter() {
             @Override
             public void widgetSelected(SelectionEvent e) {
@@ -167,6 +254,153 @@ public class MainWindow {
         
         // Menüpunkte für die Filter dynamisch erstellen
         updateFilterMenu(filterMenu);
+        
+        // Menüpunkt "Werkzeuge" erstellen
+        MenuItem toolsMenuItem = new MenuItem(menuBar, SWT.CASCADE);
+        toolsMenuItem.setText("Werkzeuge");
+        
+        // Untermenü für "Werkzeuge" erstellen
+        Menu toolsMenu = new Menu(shell, SWT.DROP_DOWN);
+        toolsMenuItem.setMenu(toolsMenu);
+        
+        // Menüpunkt "Massenbearbeitung" erstellen
+        MenuItem bulkEditItem = new MenuItem(toolsMenu, SWT.PUSH);
+        bulkEditItem.setText("Massenbearbeitung der Ergebnisse...");
+        bulkEditItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                openBulkEditDialog();
+            }
+        });
+        
+        // Menüpunkt "Duplikate suchen" erstellen
+        MenuItem duplicatesItem = new MenuItem(toolsMenu, SWT.PUSH);
+        duplicatesItem.setText("Identische Dateien suchen...");
+        duplicatesItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                findDuplicates();
+            }
+        });
+        
+        // Menüpunkt "Ähnliche Dateien gruppieren" erstellen
+        MenuItem clusterItem = new MenuItem(toolsMenu, SWT.PUSH);
+        clusterItem.setText("Ähnliche Dateien gruppieren...");
+        clusterItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                clusterSimilarFiles();
+            }
+        });
+        
+        // Menüpunkt "Parameterabfrage" erstellen
+        MenuItem queryItem = new MenuItem(toolsMenu, SWT.PUSH);
+        queryItem.setText("Parameterabfrage...");
+        queryItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                openParameterQueryDialog();
+            }
+        });
+        
+        // Menüpunkt "Unscharfe Suche" erstellen
+        MenuItem fuzzyItem = new MenuItem(toolsMenu, SWT.PUSH);
+        fuzzyItem.setText("Unscharfe Suche...");
+        fuzzyItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                openFuzzySearchDialog();
+            }
+        });
+        
+        // Menüpunkt "Ergebnisse exportieren" erstellen
+        MenuItem exportItem = new MenuItem(toolsMenu, SWT.PUSH);
+        exportItem.setText("Ergebnisse exportieren...");
+        exportItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                exportResults();
+            }
+        });
+        
+        // Menüpunkte für Indexsegmente erstellen
+        MenuItem writeSegmentItem = new MenuItem(toolsMenu, SWT.PUSH);
+        writeSegmentItem.setText("Indexsegment schreiben...");
+        writeSegmentItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                writeIndexSegment();
+            }
+        });
+        
+        MenuItem openSegmentsItem = new MenuItem(toolsMenu, SWT.PUSH);
+        openSegmentsItem.setText("Indexsegmente öffnen und durchsuchen...");
+        openSegmentsItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                openIndexSegments();
+            }
+        });
+        
+        MenuItem mergeSegmentsItem = new MenuItem(toolsMenu, SWT.PUSH);
+        mergeSegmentsItem.setText("Indexsegmente zusammenführen...");
+        mergeSegmentsItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                mergeIndexSegments();
+            }
+        });
+        
+        MenuItem localIndexItem = new MenuItem(toolsMenu, SWT.PUSH);
+        localIndexItem.setText("Lokalen Index durchsuchen");
+        localIndexItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                closeIndexSegments();
+            }
+        });
+        
+        new MenuItem(toolsMenu, SWT.SEPARATOR);
+        
+        // Menüpunkt "Änderungen seit dem letzten Scan" erstellen
+        MenuItem changeReportItem = new MenuItem(toolsMenu, SWT.PUSH);
+        changeReportItem.setText("Änderungen seit dem letzten Scan...");
+        changeReportItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                showChangeReport();
+            }
+        });
+        
+        new MenuItem(toolsMenu, SWT.SEPARATOR);
+        
+        // Menüpunkte für Sicherungen erstellen
+        MenuItem backupResultsItem = new MenuItem(toolsMenu, SWT.PUSH);
+        backupResultsItem.setText("Ergebnisse sichern");
+        backupResultsItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                backupResults();
+            }
+        });
+        
+        MenuItem backupDirectoryItem = new MenuItem(toolsMenu, SWT.PUSH);
+        backupDirectoryItem.setText("Profil sichern...");
+        backupDirectoryItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                backupDirectory();
+            }
+        });
+        
+        MenuItem restoreBackupItem = new MenuItem(toolsMenu, SWT.PUSH);
+        restoreBackupItem.setText("Sicherung wiederherstellen...");
+        restoreBackupItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                restoreBackup();
+            }
+        });
     }
     
     /**
@@ -192,18 +426,91 @@ public class MainWindow {
                     // Filter anwenden
                     searchPattern = filter.getKeywordsAsString();
                     saveConfig();
-                    
-                    // Meldung anzeigen
-                    MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
-                    messageBox.setText("Filter angewendet");
-                    messageBox.setMessage("Der Filter '" + filter.getName() + "' wurde angewendet.\n" +
-                                        "Schlüsselwörter: " + searchPattern);
-                    messageBox.open();
+                    applyFilter(filter);
                 }
             });
         }
     }
     
+    /**
+     * Zeigt die Dateien an, die eines der Schlüsselwörter des Filters enthalten. Die Dateien des
+     * letzten Scans werden dazu über den Schlüsselwort-Index ermittelt; ohne vorherigen Scan
+     * wird ein Scan mit den Schlüsselwörtern als Suchmuster gestartet.
+     * 
+     * @param filter Der anzuwendende Filter
+     */
+    private void applyFilter(Filter filter) {
+        if (!keywordIndex.hasFiles()) {
+            readConfigs();
+            return;
+        }
+        
+        IdBitmap[] fileIds = new IdBitmap[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> fileIds[0] = keywordIndex.resolve(filter.getKeywords()));
+        logger.info("Filter '{}': {} Dateien", filter.getName(), fileIds[0].getCardinality());
+        
+        showResults(toResults(fileIds[0]));
+        
+        if (currentResults.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Filter angewendet");
+            messageBox.setMessage("Keine Dateien enthalten die Schlüsselwörter des Filters '" + filter.getName() + "'.");
+            messageBox.open();
+        }
+    }
+    
+    /**
+     * Erstellt eine nach Pfad sortierte Ergebnisliste aus Datei-IDs des Scan-Caches.
+     * 
+     * @param fileIds Die Datei-IDs
+     * @return Die Ergebnisliste
+     */
+    private ConfigFileStore toResults(IdBitmap fileIds) {
+        ConfigFileStore results = new ConfigFileStore();
+        fileIds.forEach(fileId -> {
+            String path = scanCache.getPath(fileId);
+            results.add(path, rootOf(path));
+        });
+        results.sortByPath();
+        return results;
+    }
+    
+    /**
+     * Wandelt Treffer in einem geöffneten Indexsegment in eine Ergebnisliste um. Als Suchpfad
+     * wird der Rechner angezeigt, auf dem die Datei indiziert wurde.
+     * 
+     * @param segment Das Indexsegment
+     * @param fileIds Die Nummern der Dateien im Segment
+     * @return Die Ergebnisliste
+     */
+    private ConfigFileStore toResults(IndexSegment segment, IdBitmap fileIds) {
+        ConfigFileStore results = new ConfigFileStore();
+        fileIds.forEach(fileId -> {
+            if (!segment.isDeleted(fileId)) {
+                results.add(segment.getPath(fileId), segment.getSource(fileId),
+                        new ConfigFileStore.Metadata(-1, segment.getLastModified(fileId), null, 0, 0, 0));
+            }
+        });
+        results.sortByPath();
+        return results;
+    }
+    
+    /**
+     * Ermittelt das Suchverzeichnis, unter dem eine Datei liegt.
+     * 
+     * @param path Der Pfad der Datei
+     * @return Das Suchverzeichnis oder ein leerer Text, wenn die Datei unter keinem liegt
+     */
+    private String rootOf(String path) {
+        for (String searchPath : searchPaths) {
+            String root = new File(searchPath).getAbsolutePath();
+            if (ScanCache.isBelowAny(path, List.of(root))) {
+                return root;
+            }
+        }
+        return "";
+    }
+    
     /**
      * Öffnet den Dialog zur Filterverwaltung.
      */
@@ -217,20 +524,13 @@ public class MainWindow {
     }
     
     /**
-     * Öffnet einen Dialog zum Festlegen des Suchpfads.
+     * Öffnet einen Dialog zum Festlegen der Suchpfade.
      */
     private void openSearchPathDialog() {
-        DirectoryDialog dialog = new DirectoryDialog(shell, SWT.OPEN);
-        dialog.setText("Suchverzeichnis auswählen");
-        dialog.setMessage("Wählen Sie das Verzeichnis, in dem nach Konfigurationsdateien gesucht werden soll");
-        
-        if (!searchPath.isEmpty()) {
-            dialog.setFilterPath(searchPath);
-        }
-        
-        String selectedPath = dialog.open();
-        if (selectedPath != null) {
-            searchPath = selectedPath;
+        SearchPathDialog dialog = new SearchPathDialog(shell, searchPaths);
+        List<String> selectedPaths = dialog.open();
+        if (selectedPaths != null) {
+            searchPaths = selectedPaths;
             saveConfig();
         }
     }
@@ -242,7 +542,7 @@ public class MainWindow {
         // Ein einfaches Dialogfenster mit einem Textfeld erstellen
         Shell dialogShell = new Shell(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
         dialogShell.setText("Suchmuster festlegen");
-        dialogShell.setSize(450, 200);
+        dialogShell.setSize(450, 260);
         
         GridLayout layout = new GridLayout(2, false);
         layout.marginWidth = 10;
@@ -262,13 +562,27 @@ public class MainWindow {
         patternText.setLayoutData(textData);
         
         Label infoLabel = new Label(dialogShell, SWT.NONE);
-        infoLabel.setText("Es werden nur .chr Dateien angezeigt, deren Inhalt eines der\n" +
-                         "angegebenen Muster enthält.");
+        infoLabel.setText("Es werden nur .chr, .tpl, .set und .ini Dateien angezeigt, deren\n" +
+                         "Inhalt eines der angegebenen Muster enthält.");
         GridData infoData = new GridData();
         infoData.horizontalSpan = 2;
         infoData.verticalIndent = 10;
         infoLabel.setLayoutData(infoData);
         
+        // Höchstzahl und Reihenfolge der Ergebnisse; bei einer Höchstzahl endet der Scan vorzeitig
+        Label limitLabel = new Label(dialogShell, SWT.NONE);
+        limitLabel.setText("Max. Ergebnisse (0 = alle):");
+        
+        Spinner limitSpinner = new Spinner(dialogShell, SWT.BORDER);
+        limitSpinner.setValues(scanOptions.getLimit(), 0, 1000000, 0, 10, 100);
+        
+        Button newestFirstCheck = new Button(dialogShell, SWT.CHECK);
+        newestFirstCheck.setText("Zuletzt geänderte Dateien zuerst");
+        newestFirstCheck.setSelection(scanOptions.getOrder() == ScanOptions.Order.MODIFIED_DESC);
+        GridData newestFirstData = new GridData();
+        newestFirstData.horizontalSpan = 2;
+        newestFirstCheck.setLayoutData(newestFirstData);
+        
         Button okButton = new Button(dialogShell, SWT.PUSH);
         okButton.setText("OK");
         okButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false));
@@ -279,6 +593,8 @@ public class MainWindow {
                 if (searchPattern.isEmpty()) {
                     searchPattern = "default"; // Standardwert, wenn nichts eingegeben wurde
                 }
+                scanOptions = new ScanOptions(limitSpinner.getSelection(), newestFirstCheck.getSelection()
+                        ? ScanOptions.Order.MODIFIED_DESC : ScanOptions.Order.PATH);
                 saveConfig();
                 dialogShell.close();
             }
@@ -305,22 +621,41 @@ public class MainWindow {
         Label tableLabel = new Label(shell, SWT.NONE);
         tableLabel.setText("Gefundene Konfigurationsdateien:");
         
+        // Bereich mit den Facetten links und der Tabelle rechts
+        Composite resultsArea = new Composite(shell, SWT.NONE);
+        GridLayout resultsLayout = new GridLayout(2, false);
+        resultsLayout.marginWidth = 0;
+        resultsLayout.marginHeight = 0;
+        resultsArea.setLayout(resultsLayout);
+        resultsArea.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        createFacetPanel(resultsArea);
+        
         // Tabelle erstellen
-        configFilesTable = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+        configFilesTable = new Table(resultsArea, SWT.BORDER | SWT.MULTI | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL | SWT.VIRTUAL);
         configFilesTable.setHeaderVisible(true);
         configFilesTable.setLinesVisible(true);
         
         GridData tableData = new GridData(SWT.FILL, SWT.FILL, true, true);
         configFilesTable.setLayoutData(tableData);
         
-        // Spalten für die Tabelle erstellen
-        TableColumn nameColumn = new TableColumn(configFilesTable, SWT.NONE);
-        nameColumn.setText("Name");
-        nameColumn.setWidth(200);
+        // Virtuelle Tabelle: Zeilen werden erst beim Anzeigen aus der Ergebnisliste gefüllt
+        configFilesTable.addListener(SWT.SetData, event -> {
+            TableItem item = (TableItem) event.item;
+            int index = event.index;
+            item.setText(getRowTexts(index));
+        });
+        
+        // Spalten für die Tabelle erstellen; ein Klick auf den Spaltenkopf sortiert nach der Spalte
+        for (int i = 0; i < TABLE_COLUMNS.length; i++) {
+            TableColumn column = new TableColumn(configFilesTable, TABLE_COLUMN_ALIGNMENTS[i]);
+            column.setText(TABLE_COLUMN_TITLES[i]);
+            column.setWidth(TABLE_COLUMN_WIDTHS[i]);
+            ConfigFileStore.Column storeColumn = TABLE_COLUMNS[i];
+            column.addListener(SWT.Selection, event -> sortTable(column, storeColumn));
+        }
         
-        TableColumn pathColumn = new TableColumn(configFilesTable, SWT.NONE);
-        pathColumn.setText("Pfad");
-        pathColumn.setWidth(400);
+        // Bei Auswahl einer Zeile die Nachbarzeilen vorausladen und die Datei in der Vorschau zeigen
+        configFilesTable.addListener(SWT.Selection, event -> selectionChanged());
         
         // Doppelklick-Event für die Tabelle hinzufügen
         configFilesTable.addListener(SWT.MouseDoubleClick, event -> {
@@ -330,6 +665,169 @@ public class MainWindow {
                 openConfigFile(filePath);
             }
         });
+        
+        // Kontextmenü für die Tabelle erstellen
+        Menu tableMenu = new Menu(configFilesTable);
+        configFilesTable.setMenu(tableMenu);
+        
+        MenuItem compareItem = new MenuItem(tableMenu, SWT.PUSH);
+        compareItem.setText("Ausgewählte Dateien vergleichen");
+        compareItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                compareSelectedFiles();
+            }
+        });
+        
+        MenuItem historyItem = new MenuItem(tableMenu, SWT.PUSH);
+        historyItem.setText("Versionsverlauf anzeigen");
+        historyItem.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                showHistory();
+            }
+        });
+    }
+    
+    /**
+     * Erstellt die Facettenlisten für Symbol, Zeitrahmen und Indikator. Ein Haken bei einem Wert
+     * schränkt die angezeigten Ergebnisse ein; die Anzahlen zeigen, wie viele Dateien bei
+     * zusätzlicher Auswahl des Werts angezeigt würden.
+     * 
+     * @param parent Der übergeordnete Bereich
+     */
+    private void createFacetPanel(Composite parent) {
+        Composite facetPanel = new Composite(parent, SWT.NONE);
+        GridLayout facetLayout = new GridLayout(1, false);
+        facetLayout.marginWidth = 0;
+        facetLayout.marginHeight = 0;
+        facetPanel.setLayout(facetLayout);
+        GridData facetPanelData = new GridData(SWT.FILL, SWT.FILL, false, true);
+        facetPanelData.widthHint = 200;
+        facetPanel.setLayoutData(facetPanelData);
+        
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            facetSelection.put(facet, new TreeSet<>(String.CASE_INSENSITIVE_ORDER));
+            
+            Table facetTable = new Table(facetPanel, SWT.BORDER | SWT.CHECK | SWT.FULL_SELECTION | SWT.V_SCROLL);
+            facetTable.setHeaderVisible(true);
+            facetTable.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+            TableColumn valueColumn = new TableColumn(facetTable, SWT.LEFT);
+            valueColumn.setText(facet.getTitle());
+            valueColumn.setWidth(180);
+            
+            facetTable.addListener(SWT.Selection, event -> {
+                if (event.detail != SWT.CHECK) {
+                    return;
+                }
+                TableItem item = (TableItem) event.item;
+                String value = (String) item.getData();
+                if (item.getChecked()) {
+                    facetSelection.get(facet).add(value);
+                } else {
+                    facetSelection.get(facet).remove(value);
+                }
+                applyFacetSelection();
+            });
+            facetTables.put(facet, facetTable);
+        }
+    }
+    
+    /**
+     * Zeigt neue Ergebnisse an. Die Auswahl der Facetten wird zurückgesetzt.
+     * 
+     * @param results Das Ergebnis eines Scans oder einer Abfrage
+     */
+    private void showResults(ConfigFileStore results) {
+        scanResults = results;
+        scanResultIds = new IdBitmap();
+        for (int i = 0; i < results.size(); i++) {
+            int fileId = scanCache.getId(results.getPath(i));
+            if (fileId >= 0) {
+                scanResultIds.add(fileId);
+            }
+        }
+        for (Set<String> selected : facetSelection.values()) {
+            selected.clear();
+        }
+        applyFacetSelection();
+    }
+    
+    /**
+     * Schränkt die Ergebnisse auf die ausgewählten Facettenwerte ein und aktualisiert die Tabelle
+     * und die Anzahlen in den Facettenlisten.
+     */
+    private void applyFacetSelection() {
+        if (facetSelection.values().stream().allMatch(Set::isEmpty)) {
+            currentResults = scanResults;
+        } else {
+            IdBitmap visible = facetIndex.select(scanResultIds, facetSelection, null);
+            ConfigFileStore results = scanResults;
+            currentResults = results.filter(index -> visible.contains(scanCache.getId(results.getPath(index))));
+        }
+        configFilesTable.removeAll();
+        configFilesTable.setSortColumn(null);
+        configFilesTable.setItemCount(currentResults.size());
+        
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            Table facetTable = facetTables.get(facet);
+            Set<String> selected = facetSelection.get(facet);
+            facetTable.setRedraw(false);
+            facetTable.removeAll();
+            for (Map.Entry<String, Integer> entry : facetIndex.count(facet, scanResultIds, facetSelection).entrySet()) {
+                // Werte ohne Treffer nur anzeigen, solange sie ausgewählt sind
+                if (entry.getValue() == 0 && !selected.contains(entry.getKey())) {
+                    continue;
+                }
+                TableItem item = new TableItem(facetTable, SWT.NONE);
+                item.setText(entry.getKey() + " (" + entry.getValue() + ")");
+                item.setData(entry.getKey());
+                item.setChecked(selected.contains(entry.getKey()));
+            }
+            facetTable.setRedraw(true);
+        }
+    }
+    
+    /**
+     * Liefert die Texte einer Tabellenzeile aus der Ergebnisliste.
+     * 
+     * @param index Die Position in der Ergebnisliste
+     * @return Die Texte der Spalten
+     */
+    private String[] getRowTexts(int index) {
+        long size = currentResults.getSize(index);
+        long lastModified = currentResults.getLastModified(index);
+        Charset charset = currentResults.getCharset(index);
+        return new String[] {
+            currentResults.getName(index),
+            currentResults.getPath(index),
+            currentResults.getRoot(index),
+            size < 0 ? "" : String.valueOf(size),
+            lastModified == 0 ? "" : dateFormat.format(new Date(lastModified)),
+            charset == null ? "" : charset.name(),
+            String.valueOf(currentResults.getMatchCount(index)),
+            currentResults.getMatchedPatterns(index),
+            String.valueOf(currentResults.getScanMicros(index))
+        };
+    }
+    
+    /**
+     * Sortiert die Ergebnisse nach einer Spalte. Ein erneuter Klick auf dieselbe Spalte
+     * kehrt die Sortierrichtung um. Es wird nur die Ergebnisliste im Speicher sortiert.
+     * 
+     * @param column Die angeklickte Tabellenspalte
+     * @param storeColumn Die zugehörige Spalte der Ergebnisliste
+     */
+    private void sortTable(TableColumn column, ConfigFileStore.Column storeColumn) {
+        int direction = SWT.UP;
+        if (configFilesTable.getSortColumn() == column && configFilesTable.getSortDirection() == SWT.UP) {
+            direction = SWT.DOWN;
+        }
+        currentResults.sort(storeColumn, direction == SWT.UP);
+        configFilesTable.setSortColumn(column);
+        configFilesTable.setSortDirection(direction);
+        configFilesTable.deselectAll();
+        configFilesTable.clearAll();
     }
     
     /**
@@ -375,10 +873,15 @@ public class MainWindow {
         try (BufferedReader reader = new BufferedReader(new FileReader(configFile))) {
             String line;
             
-            // Erste Zeile: Suchpfad
+            // Erste Zeile: Suchpfade, durch Semikolon getrennt
             if ((line = reader.readLine()) != null) {
-                searchPath = line.trim();
-                logger.info("Suchpfad geladen: {}", searchPath);
+                searchPaths = new ArrayList<>();
+                for (String searchPath : line.split(SEARCH_PATH_SEPARATOR)) {
+                    if (!searchPath.trim().isEmpty()) {
+                        searchPaths.add(searchPath.trim());
+                    }
+                }
+                logger.info("Suchpfade geladen: {}", searchPaths);
             }
             
             // Zweite Zeile: Suchmuster
@@ -389,6 +892,18 @@ public class MainWindow {
                 }
                 logger.info("Suchmuster geladen: {}", searchPattern);
             }
+            
+            // Dritte Zeile: Höchstzahl und Reihenfolge der Ergebnisse, z.B. "50;MODIFIED_DESC"
+            if ((line = reader.readLine()) != null && !line.trim().isEmpty()) {
+                String[] parts = line.trim().split(";");
+                try {
+                    scanOptions = new ScanOptions(Integer.parseInt(parts[0].trim()),
+                            parts.length > 1 ? ScanOptions.Order.valueOf(parts[1].trim()) : ScanOptions.Order.PATH);
+                    logger.info("Scan-Optionen geladen: {}", scanOptions);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Ungültige Scan-Optionen in der Konfigurationsdatei: {}", line);
+                }
+            }
         } catch (IOException e) {
             logger.error("Fehler beim Lesen der Konfigurationsdatei: {}", e.getMessage());
         }
@@ -409,60 +924,401 @@ public class MainWindow {
         
         // Konfigurationsdatei schreiben
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(configFile))) {
-            // Suchpfad in erster Zeile
-            writer.write(searchPath);
+            // Suchpfade in erster Zeile
+            writer.write(String.join(SEARCH_PATH_SEPARATOR, searchPaths));
             writer.newLine();
             
             // Suchmuster in zweiter Zeile
             writer.write(searchPattern);
+            writer.newLine();
             
-            logger.info("Konfiguration gespeichert. Suchpfad: {}, Suchmuster: {}", searchPath, searchPattern);
+            // Höchstzahl und Reihenfolge der Ergebnisse in dritter Zeile
+            writer.write(scanOptions.getLimit() + ";" + scanOptions.getOrder().name());
+            
+            logger.info("Konfiguration gespeichert. Suchpfade: {}, Suchmuster: {}", searchPaths, searchPattern);
         } catch (IOException e) {
             logger.error("Fehler beim Schreiben der Konfigurationsdatei: {}", e.getMessage());
         }
     }
     
     /**
-     * Durchsucht das Suchverzeichnis nach Konfigurationsdateien und zeigt diese in der Tabelle an.
+     * Durchsucht die Suchverzeichnisse nach Konfigurationsdateien und zeigt diese in der Tabelle an.
      */
     private void readConfigs() {
-        logger.info("Suche Konfigurationsdateien im Pfad: {} mit Muster: {}", searchPath, searchPattern);
+        logger.info("Suche Konfigurationsdateien in den Pfaden: {} mit Muster: {}", searchPaths, searchPattern);
+        
+        List<File> searchDirs = getValidSearchDirs();
+        if (searchDirs == null) {
+            return;
+        }
+        
+        // Tabelle leeren
+        configFilesTable.removeAll();
         
-        if (searchPath.isEmpty()) {
+        // Konfigurationsdateien durchsuchen
+        ConfigFileStore results = configScanner.scanForConfigFiles(searchDirs, searchPattern, scanOptions);
+        scanCache.save();
+        numericIndex.save();
+        scanSnapshot.save(results);
+        
+        // Gefundene Dateien in der Tabelle und ihre Facetten anzeigen
+        showResults(results);
+        
+        // Meldung anzeigen, wenn keine Dateien gefunden wurden
+        if (currentResults.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Keine Konfigurationsdateien gefunden.");
+            messageBox.open();
+        }
+    }
+    
+    /**
+     * Prüft die konfigurierten Suchpfade und zeigt bei einem ungültigen Pfad eine Fehlermeldung an.
+     * 
+     * @return Die Suchverzeichnisse oder null, wenn kein Suchpfad festgelegt oder ein Suchpfad ungültig ist
+     */
+    private List<File> getValidSearchDirs() {
+        if (searchPaths.isEmpty()) {
             MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
             messageBox.setText("Fehler");
-            messageBox.setMessage("Bitte legen Sie unter 'Konfiguration > Suchpfad festlegen' einen gültigen Suchpfad fest.");
+            messageBox.setMessage("Bitte legen Sie unter 'Konfiguration > Suchpfade festlegen' einen gültigen Suchpfad fest.");
             messageBox.open();
+            return null;
+        }
+        
+        List<File> searchDirs = new ArrayList<>();
+        for (String searchPath : searchPaths) {
+            File searchDir = new File(searchPath);
+            if (!searchDir.exists() || !searchDir.isDirectory()) {
+                MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+                messageBox.setText("Fehler");
+                messageBox.setMessage("Der Pfad '" + searchPath + "' existiert nicht oder ist kein Verzeichnis.");
+                messageBox.open();
+                return null;
+            }
+            searchDirs.add(searchDir);
+        }
+        return searchDirs;
+    }
+    
+    /**
+     * Durchsucht die Suchverzeichnisse wie {@link #readConfigs()} und schreibt die Treffer direkt
+     * in eine Datei, ohne sie in der Tabelle anzuzeigen. Das Format ergibt sich aus der Endung.
+     */
+    private void exportResults() {
+        List<File> searchDirs = getValidSearchDirs();
+        if (searchDirs == null) {
+            return;
+        }
+        
+        FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+        fileDialog.setText("Ergebnisse exportieren");
+        fileDialog.setFilterExtensions(new String[] { "*.csv", "*.ndjson", "*.cmx" });
+        fileDialog.setFilterNames(new String[] { "CSV (*.csv)", "NDJSON (*.ndjson)", "Binärformat (*.cmx)" });
+        fileDialog.setOverwrite(true);
+        String fileName = fileDialog.open();
+        if (fileName == null) {
             return;
         }
         
-        File searchDir = new File(searchPath);
-        if (!searchDir.exists() || !searchDir.isDirectory()) {
+        long[] count = new long[1];
+        IOException[] error = new IOException[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> {
+            try {
+                ResultExporter exporter = new ResultExporter(new FileOutputStream(fileName),
+                        ResultExporter.Format.forFileName(fileName));
+                count[0] = configScanner.exportConfigFiles(searchDirs, searchPattern, scanOptions, exporter);
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        scanCache.save();
+        numericIndex.save();
+        
+        MessageBox messageBox;
+        if (error[0] != null) {
+            logger.error("Fehler beim Export nach {}: {}", fileName, error[0].getMessage());
+            messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler beim Export: " + error[0].getMessage());
+        } else {
+            messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage(count[0] + " Ergebnisse nach '" + fileName + "' exportiert.");
+        }
+        messageBox.open();
+    }
+    
+    /**
+     * Schreibt den Inhaltsindex dieses Rechners als Indexsegment in eine Datei, damit er mit
+     * den Segmenten anderer Rechner zusammengeführt werden kann.
+     */
+    private void writeIndexSegment() {
+        if (!contentIndex.hasFiles()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Der Index ist leer. Bitte zuerst die Konfigurationen einlesen.");
+            messageBox.open();
+            return;
+        }
+        
+        FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+        fileDialog.setText("Indexsegment schreiben");
+        fileDialog.setFilterExtensions(new String[] { "*" + IndexSegment.EXTENSION });
+        fileDialog.setFileName(IndexSegment.localSource() + IndexSegment.EXTENSION);
+        fileDialog.setOverwrite(true);
+        String fileName = fileDialog.open();
+        if (fileName == null) {
+            return;
+        }
+        
+        IndexSegment segment = contentIndex.toSegment(IndexSegment.localSource());
+        try {
+            segment.write(new File(fileName));
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Indexsegment mit " + segment.getFileCount() + " Dateien und "
+                    + segment.getWordCount() + " Wörtern geschrieben.");
+            messageBox.open();
+        } catch (IOException e) {
+            logger.error("Fehler beim Schreiben des Indexsegments {}: {}", fileName, e.getMessage());
             MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
             messageBox.setText("Fehler");
-            messageBox.setMessage("Der angegebene Pfad existiert nicht oder ist kein Verzeichnis.");
+            messageBox.setMessage("Fehler beim Schreiben des Indexsegments: " + e.getMessage());
             messageBox.open();
+        }
+    }
+    
+    /**
+     * Öffnet ein oder mehrere Indexsegmente, z.B. von verschiedenen Rechnern, und führt sie im
+     * Speicher zusammen. Die unscharfe Suche durchsucht danach dieses Segment statt des lokalen
+     * Index, bis wieder der lokale Index gewählt wird.
+     */
+    private void openIndexSegments() {
+        FileDialog openDialog = new FileDialog(shell, SWT.OPEN | SWT.MULTI);
+        openDialog.setText("Indexsegmente öffnen");
+        openDialog.setFilterExtensions(new String[] { "*" + IndexSegment.EXTENSION });
+        if (openDialog.open() == null) {
             return;
         }
+        String[] fileNames = openDialog.getFileNames();
+        IndexSegment segment = readIndexSegments(openDialog.getFilterPath(), fileNames, null);
+        if (segment == null) {
+            return;
+        }
+        openedSegment = segment;
+        logger.info("Indexsegmente als Suchindex geöffnet: {} Dateien von {}", segment.getFileCount(),
+                String.join(", ", segment.getSources()));
+        openFuzzySearchDialog();
+    }
+    
+    /**
+     * Führt mehrere Indexsegmente, z.B. von verschiedenen Rechnern, zu einem Segment zusammen,
+     * speichert es und öffnet es als Suchindex der unscharfen Suche.
+     */
+    private void mergeIndexSegments() {
+        FileDialog openDialog = new FileDialog(shell, SWT.OPEN | SWT.MULTI);
+        openDialog.setText("Indexsegmente auswählen");
+        openDialog.setFilterExtensions(new String[] { "*" + IndexSegment.EXTENSION });
+        if (openDialog.open() == null) {
+            return;
+        }
+        String[] fileNames = openDialog.getFileNames();
+        String directory = openDialog.getFilterPath();
         
-        // Tabelle leeren
-        configFilesTable.removeAll();
+        FileDialog saveDialog = new FileDialog(shell, SWT.SAVE);
+        saveDialog.setText("Zusammengeführtes Indexsegment speichern");
+        saveDialog.setFilterExtensions(new String[] { "*" + IndexSegment.EXTENSION });
+        saveDialog.setFileName("merged" + IndexSegment.EXTENSION);
+        saveDialog.setOverwrite(true);
+        String targetName = saveDialog.open();
+        if (targetName == null) {
+            return;
+        }
         
-        // Konfigurationsdateien durchsuchen
-        List<ConfigFile> configFiles = configScanner.scanForConfigFiles(searchDir, searchPattern);
+        IndexSegment merged = readIndexSegments(directory, fileNames, new File(targetName));
+        if (merged == null) {
+            return;
+        }
+        openedSegment = merged;
+        MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+        messageBox.setText("Information");
+        messageBox.setMessage(fileNames.length + " Indexsegmente von " + String.join(", ", merged.getSources())
+                + " zusammengeführt: " + merged.getFileCount() + " Dateien, " + merged.getWordCount()
+                + " Wörter.\nDie unscharfe Suche durchsucht jetzt dieses Segment.");
+        messageBox.open();
+    }
+    
+    /**
+     * Kehrt zur Suche im lokalen Inhaltsindex zurück.
+     */
+    private void closeIndexSegments() {
+        openedSegment = null;
+        MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+        messageBox.setText("Information");
+        messageBox.setMessage("Die unscharfe Suche durchsucht wieder den lokalen Index.");
+        messageBox.open();
+    }
+    
+    /**
+     * Liest Indexsegmente und führt sie im Speicher zusammen. Bei einem Fehler wird eine
+     * Meldung angezeigt.
+     *
+     * @param directory Das Verzeichnis der Segmente
+     * @param fileNames Die Dateinamen der Segmente
+     * @param target Die Datei, in die das Ergebnis geschrieben wird, oder null
+     * @return Das zusammengeführte Segment oder null bei einem Fehler
+     */
+    private IndexSegment readIndexSegments(String directory, String[] fileNames, File target) {
+        IndexSegment[] merged = new IndexSegment[1];
+        IOException[] error = new IOException[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> {
+            try {
+                List<IndexSegment> segments = new ArrayList<>();
+                for (String fileName : fileNames) {
+                    segments.add(IndexSegment.read(new File(directory, fileName)));
+                }
+                merged[0] = IndexSegment.merge(segments);
+                if (target != null) {
+                    merged[0].write(target);
+                }
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
         
-        // Gefundene Dateien in der Tabelle anzeigen
-        for (ConfigFile configFile : configFiles) {
-            TableItem item = new TableItem(configFilesTable, SWT.NONE);
-            item.setText(new String[] { configFile.getName(), configFile.getPath() });
+        if (error[0] != null) {
+            logger.error("Fehler beim Zusammenführen der Indexsegmente: {}", error[0].getMessage());
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler beim Zusammenführen der Indexsegmente: " + error[0].getMessage());
+            messageBox.open();
+            return null;
         }
+        return merged[0];
+    }
+    
+    /**
+     * Zeigt die Änderungen zwischen den beiden letzten vollständigen Scans an.
+     */
+    private void showChangeReport() {
+        List<File> snapshots = scanSnapshot.listSnapshots();
+        if (snapshots.size() < 2) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Für einen Vergleich werden mindestens zwei vollständige Scans ohne Höchstzahl "
+                    + "von Ergebnissen benötigt.");
+            messageBox.open();
+            return;
+        }
+        new ChangeReportDialog(configFileViewer).open(shell, snapshots);
+    }
+    
+    /**
+     * Sichert die aktuell angezeigten Ergebnisse. Alle Ergebnissicherungen bauen aufeinander auf,
+     * sodass nur geänderte Dateien gelesen werden.
+     */
+    private void backupResults() {
+        if (currentResults.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Es werden keine Ergebnisse angezeigt, die gesichert werden könnten.");
+            messageBox.open();
+            return;
+        }
+        ConfigFileStore results = currentResults;
+        runBackup(() -> backupStore.backup("Ergebnisse", results));
+    }
+    
+    /**
+     * Sichert ein ausgewähltes Verzeichnis, z.B. ein Profil, unter dem Namen des Verzeichnisses.
+     */
+    private void backupDirectory() {
+        DirectoryDialog directoryDialog = new DirectoryDialog(shell, SWT.OPEN);
+        directoryDialog.setText("Zu sicherndes Profil auswählen");
+        String directory = directoryDialog.open();
+        if (directory == null) {
+            return;
+        }
+        File sourceDir = new File(directory);
+        runBackup(() -> backupStore.backupDirectory(sourceDir.getName(), sourceDir));
+    }
+    
+    /**
+     * Führt eine Sicherung aus und zeigt deren Ergebnis an.
+     */
+    private void runBackup(BackupTask task) {
+        BackupStore.Summary[] summary = new BackupStore.Summary[1];
+        IOException[] error = new IOException[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> {
+            try {
+                summary[0] = task.run();
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
         
-        // Meldung anzeigen, wenn keine Dateien gefunden wurden
-        if (configFiles.isEmpty()) {
+        MessageBox messageBox;
+        if (error[0] != null) {
+            logger.error("Fehler bei der Sicherung: {}", error[0].getMessage());
+            messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler bei der Sicherung: " + error[0].getMessage());
+        } else {
+            messageBox = new MessageBox(shell, summary[0].getErrorCount() > 0 ? SWT.ICON_WARNING : SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage(String.format("%d Dateien gesichert, davon %d neu gelesen, %.1f KB neu gespeichert, "
+                    + "%d Fehler (%d ms).", summary[0].getFileCount(), summary[0].getProcessedCount(),
+                    summary[0].getBytes() / 1024.0, summary[0].getErrorCount(), summary[0].getMillis()));
+        }
+        messageBox.open();
+    }
+    
+    /**
+     * Eine Sicherung, die während der Anzeige des Busy-Indikators ausgeführt wird.
+     */
+    private interface BackupTask {
+        BackupStore.Summary run() throws IOException;
+    }
+    
+    /**
+     * Öffnet das Fenster zum Wiederherstellen einer Sicherung.
+     */
+    private void restoreBackup() {
+        List<File> manifests = backupStore.listManifests();
+        if (manifests.isEmpty()) {
             MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
             messageBox.setText("Information");
-            messageBox.setMessage("Keine Konfigurationsdateien gefunden.");
+            messageBox.setMessage("Es sind noch keine Sicherungen vorhanden.");
             messageBox.open();
+            return;
+        }
+        new BackupDialog(backupStore).open(shell, manifests);
+    }
+    
+    /**
+     * Lädt die Dateien der Nachbarzeilen der ausgewählten Zeile im Hintergrund in den Cache,
+     * die nächsten Zeilen zuerst. Ist der Viewer geöffnet, wird die ausgewählte Datei in dessen
+     * Vorschau-Reiter angezeigt.
+     */
+    private void selectionChanged() {
+        int index = configFilesTable.getSelectionIndex();
+        if (index < 0 || index >= currentResults.size()) {
+            return;
+        }
+        List<String> neighbours = new ArrayList<>();
+        for (int distance = 1; distance <= PREFETCH_ROWS; distance++) {
+            if (index + distance < currentResults.size()) {
+                neighbours.add(currentResults.getPath(index + distance));
+            }
+            if (index - distance >= 0) {
+                neighbours.add(currentResults.getPath(index - distance));
+            }
+        }
+        configFileViewer.prefetch(neighbours);
+        if (configFilesTable.getSelectionCount() == 1) {
+            configFileViewer.previewConfigFile(currentResults.getPath(index));
         }
     }
     
@@ -475,4 +1331,284 @@ public class MainWindow {
         logger.info("Öffne Datei: {}", filePath);
         configFileViewer.viewConfigFile(shell, filePath);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Zeigt die gespeicherten Versionen der ausgewählten Datei an.
+     */
+    private void showHistory() {
+        TableItem[] selection = configFilesTable.getSelection();
+        if (selection.length == 0) {
+            return;
+        }
+        String filePath = selection[0].getText(1);
+        List<HistoryStore.Version> versions;
+        try {
+            versions = historyStore.getVersions(filePath);
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen des Versionsverlaufs von {}: {}", filePath, e.getMessage());
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_ERROR);
+            messageBox.setText("Fehler");
+            messageBox.setMessage("Fehler beim Lesen des Versionsverlaufs: " + e.getMessage());
+            messageBox.open();
+            return;
+        }
+        if (versions.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Für diese Datei wurden noch keine Versionen gespeichert.");
+            messageBox.open();
+            return;
+        }
+        new HistoryDialog(historyStore).open(shell, filePath, versions);
+    }
+    
+    /**
+     * Vergleicht die in der Tabelle ausgewählten Konfigurationsdateien.
+     * Die erste ausgewählte Datei dient als Referenz.
+     */
+    private void compareSelectedFiles() {
+        TableItem[] selection = configFilesTable.getSelection();
+        if (selection.length < 2) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Bitte wählen Sie mindestens zwei Dateien zum Vergleichen aus.");
+            messageBox.open();
+            return;
+        }
+        
+        List<String> filePaths = new ArrayList<>();
+        for (TableItem item : selection) {
+            filePaths.add(item.getText(1));
+        }
+        logger.info("Vergleiche {} Dateien", filePaths.size());
+        new ConfigCompareViewer().compareConfigFiles(shell, filePaths);
+    }
+    
+    /**
+     * Öffnet den Dialog zur Massenbearbeitung der aktuellen Ergebnisliste.
+     */
+    private void openBulkEditDialog() {
+        if (currentResults.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Bitte führen Sie zuerst eine Suche mit 'ReadConfigs' durch.");
+            messageBox.open();
+            return;
+        }
+        
+        BulkEditDialog bulkEditDialog = new BulkEditDialog(shell, currentResults);
+        bulkEditDialog.open();
+    }
+    
+    /**
+     * Sucht identische Konfigurationsdateien in den Suchverzeichnissen und zeigt sie gruppiert an.
+     */
+    private void findDuplicates() {
+        List<File> searchDirs = getValidSearchDirs();
+        if (searchDirs == null) {
+            return;
+        }
+        
+        List<DuplicateFinder.DuplicateGroup> groups = new ArrayList<>();
+        BusyIndicator.showWhile(shell.getDisplay(),
+                () -> groups.addAll(new DuplicateFinder(scanCache).findDuplicates(searchDirs)));
+        
+        if (groups.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Keine identischen Konfigurationsdateien gefunden.");
+            messageBox.open();
+            return;
+        }
+        new DuplicateDialog(configFileViewer).open(shell, groups);
+    }
+    
+    /**
+     * Gruppiert ähnliche Konfigurationsdateien in den Suchverzeichnissen und zeigt die Gruppen an.
+     */
+    private void clusterSimilarFiles() {
+        List<File> searchDirs = getValidSearchDirs();
+        if (searchDirs == null) {
+            return;
+        }
+        
+        SimilarityClusterer.SignatureSet[] signatureSet = new SimilarityClusterer.SignatureSet[1];
+        BusyIndicator.showWhile(shell.getDisplay(), () -> signatureSet[0] =
+                new SimilarityClusterer().computeSignatures(configScanner.listChrFiles(searchDirs)));
+        new ClusterDialog(configFileViewer).open(shell, signatureSet[0]);
+    }
+    
+    /**
+     * Öffnet einen Dialog für eine Bereichsabfrage über numerische Parameter und zeigt die
+     * passenden Dateien in der Tabelle an. Abgefragt wird der Index des letzten Scans.
+     */
+    private void openParameterQueryDialog() {
+        Shell dialogShell = new Shell(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
+        dialogShell.setText("Parameterabfrage");
+        dialogShell.setSize(450, 200);
+        
+        GridLayout layout = new GridLayout(2, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        dialogShell.setLayout(layout);
+        
+        Label label = new Label(dialogShell, SWT.NONE);
+        label.setText("Bedingungen mit >=, <=, >, < oder =, verknüpft mit &&:");
+        GridData labelData = new GridData();
+        labelData.horizontalSpan = 2;
+        label.setLayoutData(labelData);
+        
+        Text queryText = new Text(dialogShell, SWT.BORDER);
+        queryText.setText(parameterQuery);
+        GridData textData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+        textData.horizontalSpan = 2;
+        queryText.setLayoutData(textData);
+        
+        Label infoLabel = new Label(dialogShell, SWT.NONE);
+        infoLabel.setText("Parameter aus .chr und .tpl Dateien werden mit dem Abschnitt\n" +
+                         "angegeben, z.B. \"chart.period\" oder \"indicator.period\".");
+        GridData infoData = new GridData();
+        infoData.horizontalSpan = 2;
+        infoData.verticalIndent = 10;
+        infoLabel.setLayoutData(infoData);
+        
+        Button okButton = new Button(dialogShell, SWT.PUSH);
+        okButton.setText("Suchen");
+        okButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false));
+        okButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                BitSet fileIds;
+                try {
+                    fileIds = numericIndex.query(queryText.getText());
+                } catch (IllegalArgumentException ex) {
+                    MessageBox messageBox = new MessageBox(dialogShell, SWT.ICON_ERROR);
+                    messageBox.setText("Fehler");
+                    messageBox.setMessage(ex.getMessage());
+                    messageBox.open();
+                    return;
+                }
+                parameterQuery = queryText.getText().trim();
+                dialogShell.close();
+                showQueryResults(fileIds);
+            }
+        });
+        
+        Button cancelButton = new Button(dialogShell, SWT.PUSH);
+        cancelButton.setText("Abbrechen");
+        cancelButton.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                dialogShell.close();
+            }
+        });
+        
+        dialogShell.open();
+    }
+    
+    /**
+     * Zeigt die Dateien zu den Datei-IDs einer Parameterabfrage in der Tabelle an.
+     * 
+     * @param fileIds Die IDs der gefundenen Dateien aus dem Scan-Cache
+     */
+    private void showQueryResults(BitSet fileIds) {
+        logger.info("Parameterabfrage '{}': {} Dateien", parameterQuery, fileIds.cardinality());
+        ConfigFileStore results = new ConfigFileStore();
+        for (int fileId = fileIds.nextSetBit(0); fileId >= 0; fileId = fileIds.nextSetBit(fileId + 1)) {
+            String path = scanCache.getPath(fileId);
+            results.add(path, rootOf(path));
+        }
+        results.sortByPath();
+        showResults(results);
+        
+        if (currentResults.isEmpty()) {
+            MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+            messageBox.setText("Information");
+            messageBox.setMessage("Keine Dateien erfüllen die Abfrage.");
+            messageBox.open();
+        }
+    }
+    
+    /**
+     * Öffnet einen Dialog für die unscharfe Suche im Inhalt der Dateien des letzten Scans und
+     * zeigt die passenden Dateien in der Tabelle an. Sind Indexsegmente geöffnet, wird statt des
+     * lokalen Index deren zusammengeführtes Segment durchsucht.
+     */
+    private void openFuzzySearchDialog() {
+        IndexSegment segment = openedSegment;
+        WordIndex searchIndex = segment != null ? segment : contentIndex;
+        Shell dialogShell = new Shell(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
+        dialogShell.setText(segment != null
+                ? "Unscharfe Suche in Indexsegmenten von " + String.join(", ", segment.getSources())
+                : "Unscharfe Suche");
+        dialogShell.setSize(450, 200);
+        
+        GridLayout layout = new GridLayout(2, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        dialogShell.setLayout(layout);
+        
+        Label label = new Label(dialogShell, SWT.NONE);
+        label.setText("Suchbegriffe (kommagetrennt, \"~n\" erlaubt n Abweichungen):");
+        GridData labelData = new GridData();
+        labelData.horizontalSpan = 2;
+        label.setLayoutData(labelData);
+        
+        Text queryText = new Text(dialogShell, SWT.BORDER);
+        queryText.setText(fuzzyQuery);
+        GridData textData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+        textData.horizontalSpan = 2;
+        queryText.setLayoutData(textData);
+        
+        Label infoLabel = new Label(dialogShell, SWT.NONE);
+        infoLabel.setText("Groß-/Kleinschreibung, Leer- und Trennzeichen werden ignoriert,\n" +
+                         "z.B. findet \"MACD_Custom\" auch \"MACD Custom\" und \"MACDcustom\".");
+        GridData infoData = new GridData();
+        infoData.horizontalSpan = 2;
+        infoData.verticalIndent = 10;
+        infoLabel.setLayoutData(infoData);
+        
+        Button okButton = new Button(dialogShell, SWT.PUSH);
+        okButton.setText("Suchen");
+        okButton.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, true, false));
+        okButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                IdBitmap fileIds;
+                try {
+                    fileIds = searchIndex.search(queryText.getText());
+                } catch (IllegalArgumentException ex) {
+                    MessageBox messageBox = new MessageBox(dialogShell, SWT.ICON_ERROR);
+                    messageBox.setText("Fehler");
+                    messageBox.setMessage(ex.getMessage());
+                    messageBox.open();
+                    return;
+                }
+                fuzzyQuery = queryText.getText().trim();
+                dialogShell.close();
+                logger.info("Unscharfe Suche '{}': {} Dateien", fuzzyQuery, fileIds.getCardinality());
+                showResults(segment != null ? toResults(segment, fileIds) : toResults(fileIds));
+                
+                if (currentResults.isEmpty()) {
+                    MessageBox messageBox = new MessageBox(shell, SWT.ICON_INFORMATION);
+                    messageBox.setText("Information");
+                    messageBox.setMessage("Keine Dateien enthalten die Suchbegriffe.");
+                    messageBox.open();
+                }
+            }
+        });
+        
+        Button cancelButton = new Button(dialogShell, SWT.PUSH);
+        cancelButton.setText("Abbrechen");
+        cancelButton.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                dialogShell.close();
+            }
+        });
+        
+        dialogShell.open();
+    }
+}
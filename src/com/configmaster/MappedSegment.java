@@ -0,0 +1,481 @@
+package com.configmaster;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Schreibgeschütztes {@link IndexSegment} in einer Datei, die über einen {@link MappedByteBuffer}
+ * gelesen wird, statt sie in den Java-Heap zu laden.
+ *
+ * Wörterbuch, Pfade und Dateilisten liegen in Tabellen fester Breite mit Offsets, so dass jedes
+ * Wort und jede Datei direkt adressiert werden kann. Wörter und Pfade werden als UTF-16 abgelegt,
+ * damit ein Zeichen ohne Dekodieren gelesen werden kann und die Reihenfolge der von
+ * {@link String#compareTo(String)} entspricht. Das Öffnen liest nur den Kopf; die Seiten der
+ * Datei lädt das Betriebssystem bei Bedarf. Der Heap enthält nur die Ergebnisse einer Abfrage,
+ * so dass der Index die Pausen der Garbage Collection nicht verlängert.
+ *
+ * Aufbau der Datei (Big Endian, Abschnitte auf 8 Bytes ausgerichtet):
+ * <pre>
+ * int    Kennung "CMMS", int Version, int Anzahl Dateien, int Anzahl Wörter, int Anzahl Rechner
+ * long   Offsets der Abschnitte in der folgenden Reihenfolge
+ * Rechner        je Rechner ein UTF-String
+ * Pfadindex      (Dateien + 1) int: Beginn jedes Pfads in Zeichen
+ * Änderungszeit  je Datei ein long
+ * Rechnerindex   je Datei ein int
+ * Pfade          UTF-16
+ * Wortindex      (Wörter + 1) int: Beginn jedes Worts in Zeichen
+ * Wörter         UTF-16
+ * Listenindex    (Wörter + 1) int: Beginn jeder Dateiliste in Bytes
+ * Listenlängen   je Wort ein int
+ * Dateilisten    varint Abstände der aufsteigenden Dateinummern
+ * </pre>
+ */
+public class MappedSegment implements WordIndex {
+
+    private static final Logger logger = LogManager.getLogger(MappedSegment.class);
+
+    /** Übliche Dateiendung für abgebildete Segmente. */
+    public static final String EXTENSION = ".cmms";
+
+    private static final int MAGIC = 0x434D4D53; // "CMMS"
+    private static final int VERSION = 1;
+    private static final int SECTION_COUNT = 10;
+    private static final int HEADER_BYTES = 20 + SECTION_COUNT * 8;
+
+    private static final int SOURCES = 0;
+    private static final int PATH_INDEX = 1;
+    private static final int MODIFIED = 2;
+    private static final int FILE_SOURCES = 3;
+    private static final int PATHS = 4;
+    private static final int WORD_INDEX = 5;
+    private static final int WORDS = 6;
+    private static final int LIST_INDEX = 7;
+    private static final int LIST_LENGTHS = 8;
+    private static final int LISTS = 9;
+
+    private final MappedByteBuffer buffer;
+    private final int fileCount;
+    private final int wordCount;
+    private final int[] sections = new int[SECTION_COUNT];
+    private final String[] sources;
+
+    /**
+     * Zugriff auf das Wörterbuch für den {@link LevenshteinAutomaton}.
+     */
+    private final LevenshteinAutomaton.SortedWords sortedWords = new LevenshteinAutomaton.SortedWords() {
+        @Override
+        public int size() {
+            return wordCount;
+        }
+
+        @Override
+        public int length(int index) {
+            return wordStart(index + 1) - wordStart(index);
+        }
+
+        @Override
+        public char charAt(int index, int position) {
+            return buffer.getChar(sections[WORDS] + (wordStart(index) + position) * 2);
+        }
+    };
+
+    private MappedSegment(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Keine Datei eines abgebildeten Indexsegments");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Nicht unterstützte Version " + buffer.getInt(4) + " des abgebildeten Indexsegments");
+        }
+        fileCount = buffer.getInt(8);
+        wordCount = buffer.getInt(12);
+        sources = new String[buffer.getInt(16)];
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections[i] = (int) buffer.getLong(20 + i * 8);
+        }
+        // Die Rechnernamen sind als UTF-Strings mit vorangestellter Länge gespeichert
+        int position = sections[SOURCES];
+        for (int i = 0; i < sources.length; i++) {
+            byte[] bytes = new byte[2 + (buffer.getShort(position) & 0xFFFF)];
+            buffer.get(position, bytes);
+            sources[i] = new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+            position += bytes.length;
+        }
+    }
+
+    /**
+     * Bildet eine Segmentdatei in den Speicher ab. Es wird nur der Kopf gelesen.
+     *
+     * @param file Die Datei
+     * @return Das Segment
+     * @throws IOException Wenn die Datei nicht gelesen werden kann oder kein Segment enthält
+     */
+    public static MappedSegment open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Indexsegment zu groß für die Abbildung: " + file.getName());
+            }
+            // Die Abbildung bleibt nach dem Schließen des Kanals gültig
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedSegment(buffer);
+        }
+    }
+
+    /**
+     * Schreibt ein Segment ohne Löschmarken im abbildbaren Format. Die Datei wird zuerst
+     * temporär geschrieben und dann umbenannt.
+     *
+     * @param segment Das Segment
+     * @param file Die Zieldatei
+     * @throws IOException Wenn die Datei nicht geschrieben werden kann
+     */
+    public static void write(IndexSegment segment, File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        long bytes;
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            bytes = write(segment, out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Abgebildetes Indexsegment geschrieben: {} ({} Dateien, {} Wörter, {} Bytes)", file,
+                segment.getFileCount(), segment.getWordCount(), bytes);
+    }
+
+    /**
+     * Schreibt ein Segment ohne Löschmarken im abbildbaren Format in einen Datenstrom.
+     *
+     * @param segment Das Segment
+     * @param output Der Datenstrom; wird nicht geschlossen
+     * @return Die Anzahl der geschriebenen Bytes
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    static long write(IndexSegment segment, OutputStream output) throws IOException {
+        int files = segment.getFileCount();
+        int words = segment.getWordCount();
+        String[] sources = segment.getSources();
+
+        // Größen der Abschnitte vorab berechnen, damit die Offsets im Kopf stehen können
+        long[] sizes = new long[SECTION_COUNT];
+        for (String source : sources) {
+            sizes[SOURCES] += 2 + utfLength(source);
+        }
+        sizes[PATH_INDEX] = (files + 1) * 4L;
+        sizes[MODIFIED] = files * 8L;
+        sizes[FILE_SOURCES] = files * 4L;
+        for (int i = 0; i < files; i++) {
+            sizes[PATHS] += segment.getPath(i).length() * 2L;
+        }
+        sizes[WORD_INDEX] = (words + 1) * 4L;
+        sizes[LIST_INDEX] = (words + 1) * 4L;
+        sizes[LIST_LENGTHS] = words * 4L;
+        for (int i = 0; i < words; i++) {
+            sizes[WORDS] += segment.getWord(i).length() * 2L;
+            int previous = 0;
+            for (int id : segment.getWordFiles(i)) {
+                sizes[LISTS] += varIntSize(id - previous);
+                previous = id;
+            }
+        }
+        long[] offsets = new long[SECTION_COUNT];
+        long position = align(HEADER_BYTES);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            offsets[i] = position;
+            position = align(position + sizes[i]);
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Indexsegment zu groß für die Abbildung");
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(files);
+        out.writeInt(words);
+        out.writeInt(sources.length);
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+        pad(out, offsets[SOURCES]);
+        for (String source : sources) {
+            out.writeUTF(source);
+        }
+        pad(out, offsets[PATH_INDEX]);
+        int chars = 0;
+        for (int i = 0; i < files; i++) {
+            out.writeInt(chars);
+            chars += segment.getPath(i).length();
+        }
+        out.writeInt(chars);
+        pad(out, offsets[MODIFIED]);
+        for (int i = 0; i < files; i++) {
+            out.writeLong(segment.getLastModified(i));
+        }
+        pad(out, offsets[FILE_SOURCES]);
+        List<String> sourceList = List.of(sources);
+        for (int i = 0; i < files; i++) {
+            out.writeInt(sourceList.indexOf(segment.getSource(i)));
+        }
+        pad(out, offsets[PATHS]);
+        for (int i = 0; i < files; i++) {
+            out.writeChars(segment.getPath(i));
+        }
+        pad(out, offsets[WORD_INDEX]);
+        chars = 0;
+        for (int i = 0; i < words; i++) {
+            out.writeInt(chars);
+            chars += segment.getWord(i).length();
+        }
+        out.writeInt(chars);
+        pad(out, offsets[WORDS]);
+        for (int i = 0; i < words; i++) {
+            out.writeChars(segment.getWord(i));
+        }
+        pad(out, offsets[LIST_INDEX]);
+        int bytes = 0;
+        for (int i = 0; i < words; i++) {
+            out.writeInt(bytes);
+            int previous = 0;
+            for (int id : segment.getWordFiles(i)) {
+                bytes += varIntSize(id - previous);
+                previous = id;
+            }
+        }
+        out.writeInt(bytes);
+        pad(out, offsets[LIST_LENGTHS]);
+        for (int i = 0; i < words; i++) {
+            out.writeInt(segment.getWordFiles(i).length);
+        }
+        pad(out, offsets[LISTS]);
+        for (int i = 0; i < words; i++) {
+            int previous = 0;
+            for (int id : segment.getWordFiles(i)) {
+                int value = id - previous;
+                while ((value & ~0x7F) != 0) {
+                    out.writeByte((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                out.writeByte(value);
+                previous = id;
+            }
+        }
+        pad(out, position);
+        out.flush();
+        return position;
+    }
+
+    @Override
+    public List<String> findWords(String term, int maxEdits) {
+        String normalized = ContentIndex.normalize(term);
+        List<String> result = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        if (maxEdits == 0) {
+            if (indexOf(normalized) >= 0) {
+                result.add(normalized);
+            }
+            return result;
+        }
+        for (int index : new LevenshteinAutomaton(normalized, maxEdits).intersect(sortedWords)) {
+            result.add(getWord(index));
+        }
+        return result;
+    }
+
+    @Override
+    public IdBitmap getFiles(String word) {
+        IdBitmap files = new IdBitmap();
+        int index = indexOf(word);
+        if (index >= 0) {
+            forEachFile(index, files::add);
+        }
+        return files;
+    }
+
+    /**
+     * Sucht ein Wort binär im Wörterbuch.
+     *
+     * @param word Das normalisierte Wort
+     * @return Die Position des Worts oder -1, wenn es nicht vorkommt
+     */
+    public int indexOf(String word) {
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compareWord(mid, word);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Übergibt die aufsteigenden Nummern der Dateien, die ein Wort enthalten.
+     *
+     * @param index Die Position des Worts
+     * @param consumer Empfängt die Dateinummern
+     */
+    public void forEachFile(int index, IntConsumer consumer) {
+        int position = sections[LISTS] + buffer.getInt(sections[LIST_INDEX] + index * 4);
+        int count = buffer.getInt(sections[LIST_LENGTHS] + index * 4);
+        int id = 0;
+        for (int i = 0; i < count; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            id += value;
+            consumer.accept(id);
+        }
+    }
+
+    /**
+     * Liest das Segment vollständig in den Heap, z.B. für den Export oder das Zusammenführen.
+     *
+     * @return Das Segment
+     */
+    public IndexSegment toIndexSegment() {
+        String[] paths = new String[fileCount];
+        long[] lastModified = new long[fileCount];
+        int[] fileSources = new int[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            paths[i] = getPath(i);
+            lastModified[i] = getLastModified(i);
+            fileSources[i] = buffer.getInt(sections[FILE_SOURCES] + i * 4);
+        }
+        String[] words = new String[wordCount];
+        int[][] postings = new int[wordCount][];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = getWord(i);
+            int[] ids = new int[buffer.getInt(sections[LIST_LENGTHS] + i * 4)];
+            int[] count = new int[1];
+            forEachFile(i, id -> ids[count[0]++] = id);
+            postings[i] = ids;
+        }
+        return new IndexSegment(sources.clone(), paths, lastModified, fileSources, new boolean[fileCount], words,
+                postings);
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gibt die Größe der abgebildeten Datei zurück.
+     *
+     * @return Die Größe in Bytes
+     */
+    public int getMappedBytes() {
+        return buffer.capacity();
+    }
+
+    public String getWord(int index) {
+        return readChars(sections[WORDS], wordStart(index), wordStart(index + 1));
+    }
+
+    public String getPath(int fileId) {
+        int start = buffer.getInt(sections[PATH_INDEX] + fileId * 4);
+        int end = buffer.getInt(sections[PATH_INDEX] + (fileId + 1) * 4);
+        return readChars(sections[PATHS], start, end);
+    }
+
+    public long getLastModified(int fileId) {
+        return buffer.getLong(sections[MODIFIED] + fileId * 8);
+    }
+
+    public String getSource(int fileId) {
+        return sources[buffer.getInt(sections[FILE_SOURCES] + fileId * 4)];
+    }
+
+    private int wordStart(int index) {
+        return buffer.getInt(sections[WORD_INDEX] + index * 4);
+    }
+
+    /**
+     * Vergleicht ein Wort des Wörterbuchs mit einem String wie {@link String#compareTo(String)}.
+     */
+    private int compareWord(int index, String word) {
+        int start = wordStart(index);
+        int length = wordStart(index + 1) - start;
+        int limit = Math.min(length, word.length());
+        int base = sections[WORDS] + start * 2;
+        for (int i = 0; i < limit; i++) {
+            char c = buffer.getChar(base + i * 2);
+            if (c != word.charAt(i)) {
+                return c - word.charAt(i);
+            }
+        }
+        return length - word.length();
+    }
+
+    private String readChars(int section, int start, int end) {
+        char[] chars = new char[end - start];
+        int base = section + start * 2;
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar(base + i * 2);
+        }
+        return new String(chars);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void pad(DataOutputStream out, long position) throws IOException {
+        while (out.size() < position) {
+            out.writeByte(0);
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int utfLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+}
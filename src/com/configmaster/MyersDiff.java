@@ -0,0 +1,177 @@
+package com.configmaster;
+
+/**
+ * Zeilenvergleich nach dem Algorithmus von Myers ("An O(ND) Difference Algorithm").
+ * Verwendet die speicherlineare Variante mit Mittelschlange (Divide and Conquer),
+ * sodass auch große Dateien mit O(N+M) zusätzlichem Speicher verglichen werden können.
+ * Die Zeilen werden vorab auf ganzzahlige IDs abgebildet, der Vergleich arbeitet nur auf diesen IDs.
+ */
+public class MyersDiff {
+
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+    private final int[] forward;
+    private final int[] backward;
+
+    private MyersDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.deleted = new boolean[a.length];
+        this.inserted = new boolean[b.length];
+        int size = 2 * ((a.length + b.length + 1) / 2) + 3;
+        this.forward = new int[size];
+        this.backward = new int[size];
+    }
+
+    /**
+     * Ergebnis eines Vergleichs: markiert gelöschte Zeilen der linken und
+     * eingefügte Zeilen der rechten Seite. Alle übrigen Zeilen sind gleich.
+     */
+    public static class Result {
+        private final boolean[] deleted;
+        private final boolean[] inserted;
+
+        Result(boolean[] deleted, boolean[] inserted) {
+            this.deleted = deleted;
+            this.inserted = inserted;
+        }
+
+        /**
+         * Gibt zurück, ob die Zeile der linken Seite gelöscht wurde.
+         *
+         * @param index Der Zeilenindex der linken Seite
+         * @return true, wenn die Zeile rechts nicht vorkommt
+         */
+        public boolean isDeleted(int index) {
+            return deleted[index];
+        }
+
+        /**
+         * Gibt zurück, ob die Zeile der rechten Seite eingefügt wurde.
+         *
+         * @param index Der Zeilenindex der rechten Seite
+         * @return true, wenn die Zeile links nicht vorkommt
+         */
+        public boolean isInserted(int index) {
+            return inserted[index];
+        }
+    }
+
+    /**
+     * Vergleicht zwei Folgen von Zeilen-IDs.
+     *
+     * @param a Die Zeilen-IDs der linken Seite
+     * @param b Die Zeilen-IDs der rechten Seite
+     * @return Das Ergebnis mit den Markierungen für gelöschte und eingefügte Zeilen
+     */
+    public static Result diff(int[] a, int[] b) {
+        MyersDiff diff = new MyersDiff(a, b);
+        diff.compare(0, a.length, 0, b.length);
+        return new Result(diff.deleted, diff.inserted);
+    }
+
+    /**
+     * Vergleicht die Teilbereiche [aLo, aHi) und [bLo, bHi) rekursiv.
+     */
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        // Gemeinsamen Anfang und gemeinsames Ende überspringen
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+
+        if (aLo == aHi) {
+            for (int i = bLo; i < bHi; i++) {
+                inserted[i] = true;
+            }
+            return;
+        }
+        if (bLo == bHi) {
+            for (int i = aLo; i < aHi; i++) {
+                deleted[i] = true;
+            }
+            return;
+        }
+
+        // Mittelschlange suchen und beide Hälften getrennt vergleichen
+        int[] snake = middleSnake(aLo, aHi, bLo, bHi);
+        compare(aLo, snake[0], bLo, snake[1]);
+        compare(snake[2], aHi, snake[3], bHi);
+    }
+
+    /**
+     * Sucht die Mittelschlange eines kürzesten Editierpfads.
+     *
+     * @return Start- und Endpunkt der Schlange als {x, y, u, v} in absoluten Indizes
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int max = (n + m + 1) / 2;
+        int offset = max + 1;
+
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        for (int d = 0; d <= max; d++) {
+            // Vorwärtssuche vom Anfang
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) {
+                    x = forward[offset + k + 1];
+                } else {
+                    x = forward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                forward[offset + k] = x;
+
+                int reverseK = delta - k;
+                if (odd && reverseK >= -(d - 1) && reverseK <= d - 1
+                        && x + backward[offset + reverseK] >= n) {
+                    return new int[] { aLo + startX, bLo + startY, aLo + x, bLo + y };
+                }
+            }
+
+            // Rückwärtssuche vom Ende
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])) {
+                    x = backward[offset + k + 1];
+                } else {
+                    x = backward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+                while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x++;
+                    y++;
+                }
+                backward[offset + k] = x;
+
+                int forwardK = delta - k;
+                if (!odd && forwardK >= -d && forwardK <= d
+                        && x + forward[offset + forwardK] >= n) {
+                    return new int[] { aHi - x, bHi - y, aHi - startX, bHi - startY };
+                }
+            }
+        }
+
+        // Nicht erreichbar: ein Pfad der Länge <= n + m existiert immer
+        throw new IllegalStateException("Keine Mittelschlange gefunden");
+    }
+}
@@ -0,0 +1,537 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Index über numerische Parameter ("key=value") aller gescannten Dateien für Bereichsabfragen
+ * wie "chart.period >= 240" oder "lots > 0.5".
+ *
+ * Für jeden Schlüssel werden die Werte sortiert in einem double-Array gehalten, daneben in einem
+ * int-Array die Datei-ID aus dem {@link ScanCache} (Posting-Liste). Eine Abfrage sucht die Grenzen
+ * des Bereichs per binärer Suche. Der Index wird als {@link ScanListener} während des Scans
+ * aktualisiert: Unveränderte Dateien werden übersprungen, für geänderte Dateien werden die neuen
+ * Werte zunächst unsortiert angehängt und die alten durch eine Generationsnummer ungültig gemacht.
+ * Erst bei der nächsten Abfrage eines Schlüssels wird dessen Liste bereinigt und sortiert.
+ *
+ * Der Index wird binär neben dem Scan-Cache im Cache-Verzeichnis gespeichert.
+ */
+public class NumericIndex implements ScanListener {
+
+    private static final Logger logger = LogManager.getLogger(NumericIndex.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CACHE_DIR = "cache";
+    private static final String INDEX_FILE = "numindex.bin";
+
+    private static final int MAGIC = 0x434D4E49; // "CMNI"
+    private static final int VERSION = 1;
+
+    // Bedingung einer Abfrage, z.B. "chart.period >= 240"
+    private static final Pattern CONDITION = Pattern.compile("\\s*([^<>=!\\s]+)\\s*(>=|<=|>|<|=)\\s*(\\S+)\\s*");
+
+    private final File indexFile;
+    private final ScanCache scanCache;
+
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final List<KeyPostings> keys = new ArrayList<>();
+
+    // Pro Datei-ID: Änderungszeit der indizierten Fassung, Generation und beteiligte Schlüssel
+    private long[] fileModified = new long[0];
+    private int[] fileGeneration = new int[0];
+    private int[][] fileKeys = new int[0][];
+    private final BitSet indexedFiles = new BitSet();
+    private final BitSet seenFiles = new BitSet();
+    private boolean modified;
+
+    /**
+     * Sortierte Werte und Datei-IDs eines Schlüssels.
+     * Einträge ab {@code sortedCount} sind neu hinzugekommen und noch nicht sortiert.
+     */
+    private static class KeyPostings {
+        private final String key;
+        private double[] values = new double[4];
+        private int[] fileIds = new int[4];
+        private int[] generations = new int[4];
+        private int count;
+        private int sortedCount;
+        private boolean dirty;
+
+        KeyPostings(String key) {
+            this.key = key;
+        }
+
+        void add(double value, int fileId, int generation) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                fileIds = Arrays.copyOf(fileIds, count * 2);
+                generations = Arrays.copyOf(generations, count * 2);
+            }
+            values[count] = value;
+            fileIds[count] = fileId;
+            generations[count] = generation;
+            count++;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Erstellt einen Index mit der Standard-Indexdatei und lädt deren Inhalt.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     */
+    public NumericIndex(ScanCache scanCache) {
+        this(scanCache, new File(ROOT_PATH + File.separator + CACHE_DIR + File.separator + INDEX_FILE));
+    }
+
+    /**
+     * Erstellt einen Index mit der angegebenen Indexdatei und lädt deren Inhalt.
+     *
+     * @param scanCache Der Scan-Cache, der die Datei-IDs vergibt
+     * @param indexFile Die Datei, in der der Index gespeichert wird
+     */
+    public NumericIndex(ScanCache scanCache, File indexFile) {
+        this.scanCache = scanCache;
+        this.indexFile = indexFile;
+        load();
+    }
+
+    @Override
+    public synchronized void scanStarted(List<File> searchDirs) {
+        seenFiles.clear();
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        int fileId = scanCache.getOrCreate(path, size, lastModified).getId();
+        synchronized (this) {
+            seenFiles.set(fileId);
+            if (indexedFiles.get(fileId) && fileId < fileModified.length && fileModified[fileId] == lastModified) {
+                return;
+            }
+        }
+
+        // Werte außerhalb der Sperre ermitteln, das Einfügen ist danach kurz
+        List<String> foundKeys = new ArrayList<>();
+        List<Double> foundValues = new ArrayList<>();
+        fileType.extractNumbers(content, (key, value) -> {
+            foundKeys.add(key);
+            foundValues.add(value);
+        });
+        synchronized (this) {
+            replaceFile(fileId, lastModified, foundKeys, foundValues);
+        }
+    }
+
+    @Override
+    public synchronized void scanFinished(List<File> searchDirs, boolean complete) {
+        if (!complete) {
+            return;
+        }
+        // Dateien unterhalb der Suchverzeichnisse, die nicht mehr gefunden wurden, entfernen
+        List<String> roots = new ArrayList<>();
+        for (File searchDir : searchDirs) {
+            roots.add(searchDir.getAbsolutePath());
+        }
+        int removed = 0;
+        for (int fileId = indexedFiles.nextSetBit(0); fileId >= 0; fileId = indexedFiles.nextSetBit(fileId + 1)) {
+            if (seenFiles.get(fileId)) {
+                continue;
+            }
+            if (ScanCache.isBelowAny(scanCache.getPath(fileId), roots)) {
+                removeFile(fileId);
+                removed++;
+            }
+        }
+        logger.info("Numerischer Index aktualisiert: {} Dateien, {} Schlüssel, {} entfernt",
+                indexedFiles.cardinality(), keys.size(), removed);
+    }
+
+    /**
+     * Sucht alle Dateien, deren Wert für einen Schlüssel im angegebenen Bereich liegt.
+     *
+     * @param key Der Schlüssel, z.B. "chart.period"
+     * @param min Die untere Grenze
+     * @param minInclusive true, wenn die untere Grenze eingeschlossen ist
+     * @param max Die obere Grenze
+     * @param maxInclusive true, wenn die obere Grenze eingeschlossen ist
+     * @return Die IDs der passenden Dateien
+     */
+    public synchronized BitSet query(String key, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        BitSet result = new BitSet();
+        Integer keyId = keyIds.get(key.toLowerCase(Locale.ROOT));
+        if (keyId == null) {
+            return result;
+        }
+        KeyPostings postings = keys.get(keyId);
+        compact(postings);
+
+        int from = minInclusive ? lowerBound(postings, min) : upperBound(postings, min);
+        int to = maxInclusive ? upperBound(postings, max) : lowerBound(postings, max);
+        for (int i = from; i < to; i++) {
+            result.set(postings.fileIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Wertet eine Abfrage aus einer oder mehreren mit "&&" verknüpften Bedingungen aus,
+     * z.B. "chart.period >= 240 && chart.scale = 4".
+     *
+     * @param expression Die Abfrage
+     * @return Die IDs der Dateien, die alle Bedingungen erfüllen
+     * @throws IllegalArgumentException Wenn die Abfrage nicht gelesen werden kann
+     */
+    public BitSet query(String expression) {
+        BitSet result = null;
+        for (String condition : expression.split("&&")) {
+            Matcher matcher = CONDITION.matcher(condition);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Ungültige Bedingung: " + condition.trim());
+            }
+            String key = matcher.group(1);
+            String operator = matcher.group(2);
+            double value = FileTypeHandler.parseNumber(matcher.group(3));
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("Ungültiger Zahlenwert: " + matcher.group(3));
+            }
+
+            BitSet matches;
+            switch (operator) {
+                case ">=":
+                    matches = query(key, value, true, Double.POSITIVE_INFINITY, true);
+                    break;
+                case ">":
+                    matches = query(key, value, false, Double.POSITIVE_INFINITY, true);
+                    break;
+                case "<=":
+                    matches = query(key, Double.NEGATIVE_INFINITY, true, value, true);
+                    break;
+                case "<":
+                    matches = query(key, Double.NEGATIVE_INFINITY, true, value, false);
+                    break;
+                default:
+                    matches = query(key, value, true, value, true);
+                    break;
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    /**
+     * Gibt die Schlüssel des Index in alphabetischer Reihenfolge zurück.
+     *
+     * @return Die Schlüssel
+     */
+    public synchronized List<String> getKeys() {
+        List<String> result = new ArrayList<>(keyIds.keySet());
+        result.sort(null);
+        return result;
+    }
+
+    /**
+     * Speichert den Index, sofern er seit dem Laden geändert wurde. Vorher werden alle
+     * Schlüssel bereinigt und sortiert. Die Datei wird zuerst temporär geschrieben und dann
+     * umbenannt.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        File cacheDir = indexFile.getParentFile();
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(indexedFiles.cardinality());
+            for (int fileId = indexedFiles.nextSetBit(0); fileId >= 0; fileId = indexedFiles.nextSetBit(fileId + 1)) {
+                out.writeInt(fileId);
+                out.writeUTF(scanCache.getPath(fileId));
+                out.writeLong(fileModified[fileId]);
+            }
+
+            out.writeInt(keys.size());
+            for (KeyPostings postings : keys) {
+                compact(postings);
+                out.writeUTF(postings.key);
+                out.writeInt(postings.count);
+                for (int i = 0; i < postings.count; i++) {
+                    out.writeDouble(postings.values[i]);
+                    out.writeInt(postings.fileIds[i]);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des numerischen Index: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+            logger.info("Numerischer Index gespeichert: {} Dateien, {} Schlüssel",
+                    indexedFiles.cardinality(), keys.size());
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des numerischen Index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lädt den Index aus der Indexdatei. Fehlt die Datei oder hat sie ein unbekanntes Format,
+     * beginnt der Index leer. Ebenso, wenn die Datei-IDs nicht mehr zum Scan-Cache passen,
+     * etwa weil dieser gelöscht wurde. Die Schlüssellisten jeder Datei werden aus den Posting-Listen
+     * wiederhergestellt.
+     */
+    private void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Indexdatei hat ein veraltetes Format und wird neu aufgebaut: {}", indexFile);
+                return;
+            }
+
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                int fileId = in.readInt();
+                String path = in.readUTF();
+                if (fileId >= scanCache.getIdCount() || !scanCache.getPath(fileId).equals(path)) {
+                    throw new IOException("Datei-IDs passen nicht zum Scan-Cache");
+                }
+                ensureFileCapacity(fileId + 1);
+                fileModified[fileId] = in.readLong();
+                fileKeys[fileId] = new int[0];
+                indexedFiles.set(fileId);
+            }
+
+            int keyCount = in.readInt();
+            Map<Integer, List<Integer>> keysByFile = new HashMap<>();
+            for (int keyId = 0; keyId < keyCount; keyId++) {
+                KeyPostings postings = new KeyPostings(in.readUTF());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    double value = in.readDouble();
+                    int fileId = in.readInt();
+                    postings.add(value, fileId, 0);
+                    List<Integer> fileKeyList = keysByFile.computeIfAbsent(fileId, id -> new ArrayList<>());
+                    if (fileKeyList.isEmpty() || fileKeyList.get(fileKeyList.size() - 1) != keyId) {
+                        fileKeyList.add(keyId);
+                    }
+                }
+                // Gespeicherte Listen sind bereits sortiert
+                postings.sortedCount = postings.count;
+                postings.dirty = false;
+                keyIds.put(postings.key, keyId);
+                keys.add(postings);
+            }
+            for (Map.Entry<Integer, List<Integer>> entry : keysByFile.entrySet()) {
+                fileKeys[entry.getKey()] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            }
+            logger.info("Numerischer Index geladen: {} Dateien, {} Schlüssel", fileCount, keyCount);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Fehler beim Laden des numerischen Index: {}", e.getMessage());
+            keyIds.clear();
+            keys.clear();
+            indexedFiles.clear();
+            fileModified = new long[0];
+            fileGeneration = new int[0];
+            fileKeys = new int[0][];
+        }
+    }
+
+    /**
+     * Ersetzt die Werte einer Datei. Die bisherigen Einträge werden über die Generation
+     * ungültig und beim nächsten Bereinigen der betroffenen Schlüssel entfernt.
+     */
+    private void replaceFile(int fileId, long lastModified, List<String> foundKeys, List<Double> foundValues) {
+        removeFile(fileId);
+        ensureFileCapacity(fileId + 1);
+        int generation = fileGeneration[fileId];
+
+        int[] keyList = new int[foundKeys.size()];
+        int keyListSize = 0;
+        for (int i = 0; i < foundKeys.size(); i++) {
+            String key = foundKeys.get(i);
+            Integer keyId = keyIds.get(key);
+            if (keyId == null) {
+                keyId = keys.size();
+                keyIds.put(key, keyId);
+                keys.add(new KeyPostings(key));
+            }
+            keys.get(keyId).add(foundValues.get(i), fileId, generation);
+            if (keyListSize == 0 || keyList[keyListSize - 1] != keyId) {
+                keyList[keyListSize++] = keyId;
+            }
+        }
+        fileKeys[fileId] = Arrays.copyOf(keyList, keyListSize);
+        fileModified[fileId] = lastModified;
+        indexedFiles.set(fileId);
+        modified = true;
+    }
+
+    /**
+     * Macht alle Einträge einer Datei ungültig.
+     */
+    private void removeFile(int fileId) {
+        if (!indexedFiles.get(fileId)) {
+            return;
+        }
+        fileGeneration[fileId]++;
+        for (int keyId : fileKeys[fileId]) {
+            keys.get(keyId).dirty = true;
+        }
+        fileKeys[fileId] = new int[0];
+        indexedFiles.clear(fileId);
+        modified = true;
+    }
+
+    /**
+     * Entfernt ungültige Einträge eines Schlüssels und sortiert die Liste nach Wert.
+     */
+    private void compact(KeyPostings postings) {
+        if (!postings.dirty) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < postings.count; i++) {
+            int fileId = postings.fileIds[i];
+            if (indexedFiles.get(fileId) && postings.generations[i] == fileGeneration[fileId]) {
+                postings.values[kept] = postings.values[i];
+                postings.fileIds[kept] = fileId;
+                postings.generations[kept] = postings.generations[i];
+                kept++;
+            }
+        }
+        postings.count = kept;
+        sort(postings.values, postings.fileIds, postings.generations, 0, kept - 1);
+        postings.sortedCount = kept;
+        postings.dirty = false;
+    }
+
+    /**
+     * Sortiert die parallelen Arrays nach Wert (Quicksort ohne Objekte).
+     */
+    private static void sort(double[] values, int[] fileIds, int[] generations, int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                for (int i = low + 1; i <= high; i++) {
+                    for (int j = i; j > low && values[j - 1] > values[j]; j--) {
+                        swap(values, fileIds, generations, j - 1, j);
+                    }
+                }
+                return;
+            }
+            double pivot = values[(low + high) >>> 1];
+            int left = low;
+            int right = high;
+            while (left <= right) {
+                while (values[left] < pivot) {
+                    left++;
+                }
+                while (values[right] > pivot) {
+                    right--;
+                }
+                if (left <= right) {
+                    swap(values, fileIds, generations, left++, right--);
+                }
+            }
+            // Kleineren Teil rekursiv, größeren iterativ sortieren
+            if (right - low < high - left) {
+                sort(values, fileIds, generations, low, right);
+                low = left;
+            } else {
+                sort(values, fileIds, generations, left, high);
+                high = right;
+            }
+        }
+    }
+
+    private static void swap(double[] values, int[] fileIds, int[] generations, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        int fileId = fileIds[i];
+        fileIds[i] = fileIds[j];
+        fileIds[j] = fileId;
+        int generation = generations[i];
+        generations[i] = generations[j];
+        generations[j] = generation;
+    }
+
+    /**
+     * Erste Position mit einem Wert größer oder gleich dem angegebenen Wert.
+     */
+    private static int lowerBound(KeyPostings postings, double value) {
+        int low = 0;
+        int high = postings.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (postings.values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Erste Position mit einem Wert größer als der angegebene Wert.
+     */
+    private static int upperBound(KeyPostings postings, double value) {
+        int low = 0;
+        int high = postings.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (postings.values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureFileCapacity(int capacity) {
+        if (capacity > fileModified.length) {
+            int newCapacity = Math.max(capacity, fileModified.length * 2);
+            fileModified = Arrays.copyOf(fileModified, newCapacity);
+            fileGeneration = Arrays.copyOf(fileGeneration, newCapacity);
+            int oldLength = fileKeys.length;
+            fileKeys = Arrays.copyOf(fileKeys, newCapacity);
+            Arrays.fill(fileKeys, oldLength, newCapacity, new int[0]);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.configmaster;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Schreibt Scan-Ergebnisse direkt während des Scans als CSV, NDJSON oder in einem kompakten
+ * Binärformat.
+ *
+ * Die Treffer werden von den Lese-Threads des Scans in eine begrenzte Warteschlange gelegt und
+ * von einem eigenen Schreib-Thread gepuffert ausgegeben. Ist die Ausgabe langsamer als der Scan,
+ * läuft die Warteschlange voll und die Lese-Threads warten, bis wieder Platz ist. So bleibt der
+ * Speicherbedarf unabhängig von der Zahl der Ergebnisse, und es wird keine Ergebnisliste
+ * aufgebaut. Die Ergebnisse erscheinen in der Reihenfolge, in der sie gefunden werden.
+ *
+ * Aufbau des Binärformats (DataOutputStream, Big Endian):
+ * <pre>
+ * int    Kennung "CMEX"
+ * int    Version
+ * int    Anzahl der Suchmuster, danach je Muster ein UTF-String
+ * je Ergebnis:
+ *   byte   1
+ *   UTF    Pfad, UTF Suchverzeichnis
+ *   long   Größe, long Änderungszeit (ms), UTF Codierung ("" wenn unbekannt)
+ *   int    Treffer, long Mustermaske, int Scanzeit (µs)
+ * byte   0 als Endekennung, danach long Anzahl der Ergebnisse
+ * </pre>
+ */
+public class ResultExporter implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ResultExporter.class);
+
+    /** Standardgröße der Warteschlange zwischen Scan und Ausgabe. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private static final int MAGIC = 0x434D4558; // "CMEX"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Ausgabeformat.
+     */
+    public enum Format {
+        CSV(".csv"),
+        NDJSON(".ndjson"),
+        BINARY(".cmx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Ermittelt das Format anhand der Dateiendung.
+         *
+         * @param fileName Der Dateiname
+         * @return Das Format; CSV, wenn die Endung unbekannt ist
+         */
+        public static Format forFileName(String fileName) {
+            String lower = fileName.toLowerCase();
+            for (Format format : values()) {
+                if (lower.endsWith(format.extension)) {
+                    return format;
+                }
+            }
+            return CSV;
+        }
+    }
+
+    /**
+     * Ein Ergebnis in der Warteschlange.
+     */
+    private static final class Row {
+        private final String path;
+        private final String root;
+        private final ConfigFileStore.Metadata metadata;
+
+        Row(String path, String root, ConfigFileStore.Metadata metadata) {
+            this.path = path;
+            this.root = root;
+            this.metadata = metadata;
+        }
+    }
+
+    // Markiert das Ende der Ergebnisse für den Schreib-Thread
+    private static final Row END = new Row(null, null, null);
+
+    // Wie lange ein Aufrufer bei voller Warteschlange wartet, bevor er den Schreib-Thread prüft
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final OutputStream out;
+    private final Format format;
+    private final BlockingQueue<Row> queue;
+    private final AtomicLong waits = new AtomicLong();
+
+    private String[] patterns = new String[0];
+    private Thread writerThread;
+    private volatile IOException failure;
+    // Wird gesetzt, sobald der Schreib-Thread keine Ergebnisse mehr entnimmt
+    private volatile boolean writerFinished;
+    private long count;
+    private boolean closed;
+
+    /**
+     * Erstellt einen Exporter mit der Standardgröße der Warteschlange.
+     *
+     * @param out Der Ausgabestrom; wird beim Schließen mit geschlossen
+     * @param format Das Ausgabeformat
+     */
+    public ResultExporter(OutputStream out, Format format) {
+        this(out, format, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Erstellt einen Exporter.
+     *
+     * @param out Der Ausgabestrom; wird beim Schließen mit geschlossen
+     * @param format Das Ausgabeformat
+     * @param queueCapacity Die Anzahl der Ergebnisse, die höchstens auf die Ausgabe warten
+     */
+    public ResultExporter(OutputStream out, Format format, int queueCapacity) {
+        this.out = out;
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Startet den Schreib-Thread und schreibt den Kopf der Ausgabe.
+     *
+     * @param patterns Die Suchmuster des Scans, auf die sich die Mustermasken beziehen
+     */
+    public synchronized void start(String[] patterns) {
+        if (writerThread != null) {
+            throw new IllegalStateException("Export wurde bereits gestartet");
+        }
+        this.patterns = patterns.clone();
+        writerThread = new Thread(this::writeRows, "ResultExporter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Übergibt ein Ergebnis an die Ausgabe. Ist die Warteschlange voll, wartet der Aufrufer,
+     * bis der Schreib-Thread wieder Platz geschaffen hat. Wird er dabei unterbrochen, gilt der
+     * Export als fehlgeschlagen und {@link #close()} meldet den Fehler. Nach einem Fehler oder
+     * wenn der Schreib-Thread beendet ist, wird das Ergebnis verworfen, statt zu warten.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @param root Das Suchverzeichnis
+     * @param metadata Die Metadaten des Treffers
+     */
+    public void write(String path, String root, ConfigFileStore.Metadata metadata) {
+        if (failure != null || writerFinished) {
+            return;
+        }
+        Row row = new Row(path, root, metadata);
+        try {
+            if (!queue.offer(row)) {
+                waits.incrementAndGet();
+                while (!queue.offer(row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (failure != null || writerFinished) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Export unterbrochen, Ergebnis {} nicht geschrieben", path);
+            synchronized (this) {
+                if (failure == null) {
+                    failure = new IOException("Export unterbrochen");
+                }
+            }
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der geschriebenen Ergebnisse zurück. Erst nach {@link #close()} vollständig.
+     *
+     * @return Die Anzahl der Ergebnisse
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Wartet, bis alle Ergebnisse geschrieben sind, schreibt das Ende der Ausgabe und schließt
+     * den Ausgabestrom.
+     *
+     * @throws IOException Wenn beim Schreiben ein Fehler aufgetreten ist
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (writerThread != null) {
+            try {
+                while (!queue.offer(END, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) && !writerFinished) {
+                    // Der Schreib-Thread leert die Warteschlange noch
+                }
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export unterbrochen");
+            }
+        } else {
+            out.close();
+        }
+        logger.info("Export abgeschlossen: {} Ergebnisse als {}, {} mal auf die Ausgabe gewartet",
+                getCount(), format, waits.get());
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Schreib-Thread: entnimmt die Ergebnisse der Warteschlange, bis das Ende erreicht ist.
+     * Nach einem Fehler wird die Warteschlange weiter geleert, damit der Scan nicht blockiert.
+     */
+    private void writeRows() {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        DataOutputStream data = format == Format.BINARY ? new DataOutputStream(buffered) : null;
+        Writer text = format == Format.BINARY ? null : new OutputStreamWriter(buffered, StandardCharsets.UTF_8);
+        long written = 0;
+        try {
+            writeHeader(data, text);
+            while (true) {
+                Row row = queue.take();
+                if (row == END) {
+                    break;
+                }
+                if (failure != null) {
+                    continue;
+                }
+                try {
+                    writeRow(data, text, row);
+                    written++;
+                    if ((written & 1023) == 0) {
+                        synchronized (this) {
+                            count = written;
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.error("Fehler beim Export: {}", e.getMessage());
+                    failure = e;
+                }
+            }
+            if (failure == null) {
+                writeFooter(data, text, written);
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Export: {}", e.getMessage());
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Schreib-Thread des Exports unterbrochen");
+            failure = new IOException("Export unterbrochen");
+        } finally {
+            // Wartende Aufrufer freigeben; weitere Ergebnisse werden ab jetzt verworfen
+            writerFinished = true;
+            queue.clear();
+            synchronized (this) {
+                count = written;
+            }
+            try {
+                if (text != null) {
+                    text.close();
+                } else {
+                    data.close();
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeHeader(DataOutputStream data, Writer text) throws IOException {
+        switch (format) {
+            case BINARY:
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(patterns.length);
+                for (String pattern : patterns) {
+                    data.writeUTF(pattern);
+                }
+                break;
+            case CSV:
+                text.write("path,root,size,lastModified,encoding,matches,patterns,scanMicros\n");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeRow(DataOutputStream data, Writer text, Row row) throws IOException {
+        ConfigFileStore.Metadata metadata = row.metadata;
+        Charset charset = metadata.getCharset();
+        int scanMicros = (int) Math.min(Integer.MAX_VALUE, metadata.getScanNanos() / 1000);
+        switch (format) {
+            case BINARY:
+                data.writeByte(1);
+                data.writeUTF(row.path);
+                data.writeUTF(row.root);
+                data.writeLong(metadata.getSize());
+                data.writeLong(metadata.getLastModified());
+                data.writeUTF(charset != null ? charset.name() : "");
+                data.writeInt(metadata.getMatchCount());
+                data.writeLong(metadata.getPatternMask());
+                data.writeInt(scanMicros);
+                break;
+            case CSV:
+                text.write(csv(row.path));
+                text.write(',');
+                text.write(csv(row.root));
+                text.write(',');
+                text.write(Long.toString(metadata.getSize()));
+                text.write(',');
+                text.write(Instant.ofEpochMilli(metadata.getLastModified()).toString());
+                text.write(',');
+                text.write(charset != null ? charset.name() : "");
+                text.write(',');
+                text.write(Integer.toString(metadata.getMatchCount()));
+                text.write(',');
+                text.write(csv(String.join(";", matchedPatterns(metadata.getPatternMask()))));
+                text.write(',');
+                text.write(Integer.toString(scanMicros));
+                text.write('\n');
+                break;
+            default:
+                text.write("{\"path\":");
+                text.write(json(row.path));
+                text.write(",\"root\":");
+                text.write(json(row.root));
+                text.write(",\"size\":");
+                text.write(Long.toString(metadata.getSize()));
+                text.write(",\"lastModified\":\"");
+                text.write(Instant.ofEpochMilli(metadata.getLastModified()).toString());
+                text.write("\",\"encoding\":");
+                text.write(charset != null ? json(charset.name()) : "null");
+                text.write(",\"matches\":");
+                text.write(Integer.toString(metadata.getMatchCount()));
+                text.write(",\"patterns\":[");
+                String[] matched = matchedPatterns(metadata.getPatternMask());
+                for (int i = 0; i < matched.length; i++) {
+                    if (i > 0) {
+                        text.write(',');
+                    }
+                    text.write(json(matched[i]));
+                }
+                text.write("],\"scanMicros\":");
+                text.write(Integer.toString(scanMicros));
+                text.write("}\n");
+                break;
+        }
+    }
+
+    private void writeFooter(DataOutputStream data, Writer text, long written) throws IOException {
+        if (format == Format.BINARY) {
+            data.writeByte(0);
+            data.writeLong(written);
+        }
+    }
+
+    /**
+     * Ermittelt die Suchmuster zu einer Mustermaske.
+     */
+    private String[] matchedPatterns(long patternMask) {
+        String[] matched = new String[Long.bitCount(patternMask)];
+        int count = 0;
+        for (int id = 0; id < patterns.length && id < ConfigFileStore.MAX_PATTERN_IDS; id++) {
+            if ((patternMask & (1L << id)) != 0) {
+                matched[count++] = patterns[id];
+            }
+        }
+        return count == matched.length ? matched : Arrays.copyOf(matched, count);
+    }
+
+    /**
+     * Setzt einen Wert für CSV in Anführungszeichen, wenn er Trennzeichen enthält.
+     */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Erzeugt eine JSON-Zeichenkette mit maskierten Sonderzeichen.
+     */
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2);
+        escaped.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                    break;
+            }
+        }
+        return escaped.append('"').toString();
+    }
+}
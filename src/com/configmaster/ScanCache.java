@@ -0,0 +1,352 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Zwischenspeicher für Dateimetadaten und daraus abgeleitete Werte wie Inhalts-Hashes.
+ * Ein Eintrag ist nur gültig, solange Größe und Änderungszeitpunkt der Datei unverändert sind,
+ * sodass wiederholte Läufe unveränderte Dateien nicht erneut lesen müssen.
+ * Jeder Pfad erhält beim ersten Eintrag eine feste Datei-ID, die auch bei späteren Änderungen der
+ * Datei erhalten bleibt. Indizes wie der {@link NumericIndex} verweisen über diese ID auf Dateien.
+ * Zu jeder beim Scan gelesenen Datei kann außerdem ein {@link TokenBloomFilter} ihres Inhalts
+ * gespeichert werden.
+ * Der Cache wird binär im Cache-Verzeichnis von ConfigMaster gespeichert.
+ */
+public class ScanCache {
+
+    private static final Logger logger = LogManager.getLogger(ScanCache.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CACHE_DIR = "cache";
+    private static final String CACHE_FILE = "scancache.bin";
+
+    private static final int MAGIC = 0x434D5343; // "CMSC"
+    private static final int VERSION = 3;
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<String> paths = new ArrayList<>();
+    private volatile boolean modified;
+
+    /**
+     * Ein Cache-Eintrag für eine Datei.
+     */
+    public static class Entry {
+        private final int id;
+        private final long size;
+        private final long lastModified;
+        private volatile boolean hasHash;
+        private volatile long hash;
+        private volatile TokenBloomFilter bloomFilter;
+
+        Entry(int id, long size, long lastModified) {
+            this.id = id;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public boolean hasHash() {
+            return hasHash;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public TokenBloomFilter getBloomFilter() {
+            return bloomFilter;
+        }
+    }
+
+    /**
+     * Erstellt einen Cache mit der Standard-Cache-Datei und lädt deren Inhalt.
+     */
+    public ScanCache() {
+        this(new File(ROOT_PATH + File.separator + CACHE_DIR + File.separator + CACHE_FILE));
+    }
+
+    /**
+     * Erstellt einen Cache mit der angegebenen Cache-Datei und lädt deren Inhalt.
+     *
+     * @param cacheFile Die Datei, in der der Cache gespeichert wird
+     */
+    public ScanCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+        load();
+    }
+
+    /**
+     * Gibt den Eintrag einer Datei zurück, wenn Größe und Änderungszeitpunkt übereinstimmen.
+     *
+     * @param path Der absolute Pfad der Datei
+     * @param size Die aktuelle Dateigröße
+     * @param lastModified Der aktuelle Änderungszeitpunkt
+     * @return Der gültige Eintrag oder null
+     */
+    public Entry get(String path, long size, long lastModified) {
+        Entry entry = entries.get(path);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Gibt den gültigen Eintrag einer Datei zurück oder legt einen neuen an.
+     * Ein veralteter Eintrag wird dabei verworfen.
+     *
+     * @param path Der absolute Pfad der Datei
+     * @param size Die aktuelle Dateigröße
+     * @param lastModified Der aktuelle Änderungszeitpunkt
+     * @return Der Eintrag
+     */
+    public Entry getOrCreate(String path, long size, long lastModified) {
+        Entry entry = get(path, size, lastModified);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (paths) {
+            // Die ID eines veralteten Eintrags wird weiterverwendet
+            Entry staleEntry = entries.get(path);
+            int id;
+            if (staleEntry != null) {
+                id = staleEntry.id;
+            } else {
+                id = paths.size();
+                paths.add(path);
+            }
+            entry = new Entry(id, size, lastModified);
+            entries.put(path, entry);
+            modified = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Gibt den zuletzt angelegten Eintrag eines Pfads zurück, ohne Größe und Änderungszeitpunkt
+     * zu prüfen, z.B. für Archiveinträge, deren Metadaten nur beim Lesen des Archivs bekannt sind.
+     *
+     * @param path Der absolute Pfad der Datei
+     * @return Der Eintrag oder null, wenn der Pfad unbekannt ist
+     */
+    public Entry getLatest(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Gibt die Datei-ID eines Pfads zurück, auch wenn dessen Eintrag veraltet ist.
+     *
+     * @param path Der absolute Pfad der Datei
+     * @return Die Datei-ID oder -1, wenn der Pfad unbekannt ist
+     */
+    public int getId(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.id : -1;
+    }
+
+    /**
+     * Gibt den Pfad zu einer Datei-ID zurück.
+     *
+     * @param id Die Datei-ID
+     * @return Der absolute Pfad der Datei
+     */
+    public String getPath(int id) {
+        synchronized (paths) {
+            return paths.get(id);
+        }
+    }
+
+    /**
+     * Prüft, ob ein Pfad einem der Verzeichnisse entspricht oder darunter liegt. Das Verzeichnis
+     * "C:\charts" umfasst dabei nicht "C:\charts2".
+     *
+     * @param path Der absolute Pfad einer Datei
+     * @param roots Die absoluten Pfade der Verzeichnisse
+     * @return true, wenn der Pfad unter einem der Verzeichnisse liegt
+     */
+    public static boolean isBelowAny(String path, List<String> roots) {
+        for (String root : roots) {
+            if (path.equals(root)) {
+                return true;
+            }
+            String prefix = root.endsWith(File.separator) ? root : root + File.separator;
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gibt die Anzahl der vergebenen Datei-IDs zurück.
+     *
+     * @return Die Anzahl der IDs; alle IDs sind kleiner als dieser Wert
+     */
+    public int getIdCount() {
+        synchronized (paths) {
+            return paths.size();
+        }
+    }
+
+    /**
+     * Speichert den Inhalts-Hash einer Datei im Eintrag.
+     *
+     * @param entry Der Eintrag
+     * @param hash Der Hashwert
+     */
+    public void setHash(Entry entry, long hash) {
+        entry.hash = hash;
+        entry.hasHash = true;
+        modified = true;
+    }
+
+    /**
+     * Speichert den Bloom-Filter des Inhalts einer Datei im Eintrag.
+     *
+     * @param entry Der Eintrag
+     * @param bloomFilter Der Bloom-Filter
+     */
+    public void setBloomFilter(Entry entry, TokenBloomFilter bloomFilter) {
+        entry.bloomFilter = bloomFilter;
+        modified = true;
+    }
+
+    /**
+     * Gibt die Anzahl der Einträge zurück.
+     *
+     * @return Die Anzahl der Einträge
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Lädt den Cache aus der Cache-Datei. Fehlt die Datei oder hat sie ein unbekanntes
+     * Format, beginnt der Cache leer.
+     */
+    private void load() {
+        if (!cacheFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Cache-Datei hat ein veraltetes Format und wird neu aufgebaut: {}", cacheFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                paths.add(path);
+                if (in.readBoolean()) {
+                    Entry entry = new Entry(i, in.readLong(), in.readLong());
+                    entry.hasHash = in.readBoolean();
+                    entry.hash = in.readLong();
+                    int bloomWords = in.readInt();
+                    if (bloomWords > 0) {
+                        int hashCount = in.readInt();
+                        long[] bits = new long[bloomWords];
+                        for (int j = 0; j < bloomWords; j++) {
+                            bits[j] = in.readLong();
+                        }
+                        entry.bloomFilter = new TokenBloomFilter(bits, hashCount);
+                    } else if (bloomWords < 0) {
+                        entry.bloomFilter = TokenBloomFilter.UNSELECTIVE;
+                    }
+                    entries.put(path, entry);
+                }
+            }
+            logger.info("Cache geladen: {} Einträge", entries.size());
+        } catch (IOException e) {
+            logger.error("Fehler beim Laden des Caches: {}", e.getMessage());
+            entries.clear();
+            paths.clear();
+        }
+    }
+
+    /**
+     * Speichert den Cache, sofern er seit dem Laden geändert wurde.
+     * Die Datei wird zuerst temporär geschrieben und dann umbenannt.
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        File cacheDir = cacheFile.getParentFile();
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // Einträge in der Reihenfolge ihrer IDs, damit die IDs beim Laden erhalten bleiben
+            synchronized (paths) {
+                out.writeInt(paths.size());
+                for (String path : paths) {
+                    Entry entry = entries.get(path);
+                    out.writeUTF(path);
+                    out.writeBoolean(entry != null);
+                    if (entry != null) {
+                        out.writeLong(entry.size);
+                        out.writeLong(entry.lastModified);
+                        out.writeBoolean(entry.hasHash);
+                        out.writeLong(entry.hash);
+                        TokenBloomFilter bloomFilter = entry.bloomFilter;
+                        if (bloomFilter == null) {
+                            out.writeInt(0);
+                        } else if (!bloomFilter.isSelective()) {
+                            out.writeInt(-1);
+                        } else {
+                            out.writeInt(bloomFilter.getBits().length);
+                            out.writeInt(bloomFilter.getHashCount());
+                            for (long word : bloomFilter.getBits()) {
+                                out.writeLong(word);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des Caches: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+            logger.info("Cache gespeichert: {} Einträge", entries.size());
+        } catch (IOException e) {
+            logger.error("Fehler beim Speichern des Caches: {}", e.getMessage());
+        }
+    }
+}
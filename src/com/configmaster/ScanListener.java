@@ -0,0 +1,58 @@
+package com.configmaster;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Wird während eines Scans über gelesene Dateien benachrichtigt.
+ * Dadurch können Indizes im selben Durchlauf aufgebaut werden, in dem der Scanner die Dateien
+ * ohnehin liest. Die Methoden werden aus den Lese-Threads aufgerufen und müssen daher
+ * threadsicher sein.
+ */
+public interface ScanListener {
+
+    /**
+     * Wird vor dem Durchlaufen der Suchverzeichnisse aufgerufen.
+     *
+     * @param searchDirs Die Suchverzeichnisse
+     */
+    default void scanStarted(List<File> searchDirs) {
+    }
+
+    /**
+     * Wird für jede gelesene Datei aufgerufen, unabhängig davon, ob sie ein Suchmuster enthält.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @param size Die Größe in Bytes
+     * @param lastModified Die Änderungszeit in Millisekunden
+     * @param fileType Der Dateityp
+     * @param content Der dekodierte Inhalt
+     * @param bytes Die Bytes der Datei, wie sie gelesen wurden; dürfen nicht verändert werden
+     */
+    default void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+    }
+
+    /**
+     * Wird für jede gelesene Datei aufgerufen, die mindestens ein Suchmuster enthält, nach
+     * {@link #fileRead}.
+     *
+     * @param path Der Pfad der Datei oder des Archiveintrags
+     * @param lastModified Die Änderungszeit in Millisekunden
+     * @param bytes Die Bytes der Datei, wie sie gelesen wurden; dürfen nicht verändert werden
+     * @param metadata Die Metadaten des Treffers
+     */
+    default void fileMatched(String path, long lastModified, byte[] bytes, ConfigFileStore.Metadata metadata) {
+    }
+
+    /**
+     * Wird nach dem Scan aufgerufen.
+     *
+     * @param searchDirs Die Suchverzeichnisse
+     * @param complete true, wenn alle Dateien gelesen wurden; false, wenn der Scan wegen einer
+     *                 Höchstzahl von Ergebnissen vorzeitig beendet wurde, ein Suchverzeichnis
+     *                 fehlgeschlagen ist oder der Scan unterbrochen wurde
+     */
+    default void scanFinished(List<File> searchDirs, boolean complete) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.configmaster;
+
+/**
+ * Optionen für einen Scan nach Konfigurationsdateien.
+ * Mit einer Höchstzahl an Ergebnissen bricht der Scan ab, sobald feststeht, dass keine weiteren
+ * Ergebnisse mehr benötigt werden. Das ist deutlich schneller als ein vollständiger Scan, wenn
+ * nur einige Beispiele oder die zuletzt geänderten Dateien gesucht werden.
+ */
+public class ScanOptions {
+
+    /**
+     * Reihenfolge der Ergebnisse.
+     */
+    public enum Order {
+        /** Nach Pfad sortiert; bei einer Höchstzahl die ersten gefundenen Dateien. */
+        PATH,
+        /** Die zuletzt geänderten Dateien zuerst. */
+        MODIFIED_DESC
+    }
+
+    private int limit;
+    private Order order;
+
+    /**
+     * Erstellt Optionen für einen vollständigen Scan ohne Höchstzahl.
+     */
+    public ScanOptions() {
+        this(0, Order.PATH);
+    }
+
+    /**
+     * Erstellt neue Scan-Optionen.
+     *
+     * @param limit Die Höchstzahl der Ergebnisse oder 0 für alle Ergebnisse
+     * @param order Die Reihenfolge der Ergebnisse
+     */
+    public ScanOptions(int limit, Order order) {
+        this.limit = Math.max(0, limit);
+        this.order = order;
+    }
+
+    /**
+     * Gibt die Höchstzahl der Ergebnisse zurück.
+     *
+     * @return Die Höchstzahl oder 0 für alle Ergebnisse
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Setzt die Höchstzahl der Ergebnisse.
+     *
+     * @param limit Die Höchstzahl oder 0 für alle Ergebnisse
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Gibt zurück, ob die Anzahl der Ergebnisse begrenzt ist.
+     *
+     * @return true, wenn eine Höchstzahl festgelegt ist
+     */
+    public boolean isLimited() {
+        return limit > 0;
+    }
+
+    /**
+     * Gibt die Reihenfolge der Ergebnisse zurück.
+     *
+     * @return Die Reihenfolge
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Setzt die Reihenfolge der Ergebnisse.
+     *
+     * @param order Die Reihenfolge
+     */
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    @Override
+    public String toString() {
+        return (isLimited() ? "max. " + limit : "alle") + ", " + order;
+    }
+}
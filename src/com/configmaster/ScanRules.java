@@ -0,0 +1,317 @@
+package com.configmaster;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Ein- und Ausschlussregeln für den Scan in Form von Glob-Mustern.
+ * Die Muster beziehen sich auf den Pfad relativ zum Suchverzeichnis mit "/" als Trennzeichen
+ * und werden ohne Beachtung der Groß-/Kleinschreibung verglichen. Ein Muster gilt in beliebiger
+ * Tiefe, z.B. "history" für jedes Verzeichnis dieses Namens und "MQL4/Files" für diesen Ordner in
+ * jedem Terminal. Ein Muster mit führendem "/" gilt nur direkt ab dem Suchverzeichnis.
+ * Unterstützt werden "*", "?", "**" und Alternativen wie "{a,b}".
+ *
+ * Ausschlussregeln gelten für Verzeichnisse und Dateien; ein ausgeschlossenes Verzeichnis wird
+ * nicht mehr aufgelistet. Einschlussregeln gelten nur für Dateien; sind keine angegeben, werden
+ * alle Dateien berücksichtigt. Alle Regeln einer Art werden zu einem einzigen regulären Ausdruck
+ * mit einer Gruppe pro Regel zusammengefasst, so dass jeder Pfad nur einmal geprüft wird.
+ *
+ * Die Regeln werden aus der Datei "scanrules.txt" im Konfigurationsverzeichnis gelesen:
+ * <pre>
+ * [include]
+ * *.chr
+ * [exclude]
+ * history
+ * MQL4/Files
+ * </pre>
+ */
+public class ScanRules {
+
+    private static final Logger logger = LogManager.getLogger(ScanRules.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CONFIG_DIR = "config";
+    private static final String RULES_FILE = "scanrules.txt";
+
+    /** Ausschlussregeln, wenn keine Konfigurationsdatei vorhanden ist. */
+    public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(
+            Arrays.asList("history", "logs", "MQL4/Files"));
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final Pattern includePattern;
+    private final Pattern excludePattern;
+    private final AtomicLongArray skippedDirectories;
+    private final AtomicLongArray skippedFiles;
+
+    /**
+     * Erstellt Regeln aus den angegebenen Glob-Mustern.
+     *
+     * @param includes Die Einschlussregeln für Dateien; leer für alle Dateien
+     * @param excludes Die Ausschlussregeln für Verzeichnisse und Dateien
+     */
+    public ScanRules(List<String> includes, List<String> excludes) {
+        this.includes = new ArrayList<>(includes);
+        this.excludes = new ArrayList<>(excludes);
+        this.includePattern = compile(this.includes);
+        this.excludePattern = compile(this.excludes);
+        this.skippedDirectories = new AtomicLongArray(this.excludes.size());
+        this.skippedFiles = new AtomicLongArray(this.excludes.size());
+    }
+
+    /**
+     * Lädt die Regeln aus der Konfigurationsdatei. Fehlt die Datei, werden die
+     * Standard-Ausschlussregeln verwendet.
+     *
+     * @return Die geladenen Regeln
+     */
+    public static ScanRules load() {
+        File rulesFile = new File(ROOT_PATH + File.separator + CONFIG_DIR + File.separator + RULES_FILE);
+        if (!rulesFile.exists()) {
+            return new ScanRules(Collections.emptyList(), DEFAULT_EXCLUDES);
+        }
+
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>();
+        List<String> section = excludes;
+        try (BufferedReader reader = new BufferedReader(new FileReader(rulesFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.equalsIgnoreCase("[include]")) {
+                    section = includes;
+                } else if (line.equalsIgnoreCase("[exclude]")) {
+                    section = excludes;
+                } else {
+                    section.add(line);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der Scan-Regeln: {}", e.getMessage());
+            return new ScanRules(Collections.emptyList(), DEFAULT_EXCLUDES);
+        }
+        logger.info("Scan-Regeln geladen: einschließen {}, ausschließen {}", includes, excludes);
+        return new ScanRules(includes, excludes);
+    }
+
+    /**
+     * Prüft, ob ein Verzeichnis übersprungen werden soll, und zählt den Treffer bei der Regel.
+     *
+     * @param relativePath Der Pfad des Verzeichnisses relativ zum Suchverzeichnis
+     * @return true, wenn das Verzeichnis ausgeschlossen ist
+     */
+    public boolean isExcludedDirectory(String relativePath) {
+        int rule = matchingRule(excludePattern, excludes.size(), relativePath);
+        if (rule < 0) {
+            return false;
+        }
+        skippedDirectories.incrementAndGet(rule);
+        return true;
+    }
+
+    /**
+     * Prüft, ob eine Datei berücksichtigt werden soll. Eine ausgeschlossene Datei wird bei der
+     * Regel gezählt.
+     *
+     * @param relativePath Der Pfad der Datei relativ zum Suchverzeichnis
+     * @return true, wenn die Datei eingeschlossen und nicht ausgeschlossen ist
+     */
+    public boolean isIncludedFile(String relativePath) {
+        if (includePattern != null && matchingRule(includePattern, includes.size(), relativePath) < 0) {
+            return false;
+        }
+        return !isExcludedFile(relativePath);
+    }
+
+    /**
+     * Prüft, ob eine Datei durch eine Ausschlussregel ausgeschlossen ist, und zählt den Treffer
+     * bei der Regel. Einschlussregeln werden nicht geprüft, z.B. für Zip-Archive.
+     *
+     * @param relativePath Der Pfad der Datei relativ zum Suchverzeichnis
+     * @return true, wenn die Datei ausgeschlossen ist
+     */
+    public boolean isExcludedFile(String relativePath) {
+        int rule = matchingRule(excludePattern, excludes.size(), relativePath);
+        if (rule < 0) {
+            return false;
+        }
+        skippedFiles.incrementAndGet(rule);
+        return true;
+    }
+
+    /**
+     * Bildet den Pfad einer Datei relativ zum Suchverzeichnis mit "/" als Trennzeichen.
+     *
+     * @param rootPath Der absolute Pfad des Suchverzeichnisses
+     * @param file Die Datei oder das Verzeichnis unterhalb des Suchverzeichnisses
+     * @return Der relative Pfad
+     */
+    public static String relativePath(String rootPath, File file) {
+        String path = file.getAbsolutePath();
+        if (path.startsWith(rootPath)) {
+            path = path.substring(rootPath.length());
+        }
+        path = path.replace(File.separatorChar, '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Setzt die Zähler aller Regeln zurück.
+     */
+    public void resetCounters() {
+        for (int i = 0; i < excludes.size(); i++) {
+            skippedDirectories.set(i, 0);
+            skippedFiles.set(i, 0);
+        }
+    }
+
+    /**
+     * Protokolliert, wie viele Verzeichnisse und Dateien jede Ausschlussregel übersprungen hat.
+     */
+    public void logCounters() {
+        for (int i = 0; i < excludes.size(); i++) {
+            logger.info("Ausschlussregel '{}': {} Verzeichnisse, {} Dateien übersprungen",
+                    excludes.get(i), skippedDirectories.get(i), skippedFiles.get(i));
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der von einer Ausschlussregel übersprungenen Verzeichnisse zurück.
+     *
+     * @param rule Der Index der Regel in {@link #getExcludes()}
+     * @return Die Anzahl der übersprungenen Verzeichnisse
+     */
+    public long getSkippedDirectories(int rule) {
+        return skippedDirectories.get(rule);
+    }
+
+    /**
+     * Gibt die Einschlussregeln zurück.
+     *
+     * @return Die Einschlussregeln
+     */
+    public List<String> getIncludes() {
+        return Collections.unmodifiableList(includes);
+    }
+
+    /**
+     * Gibt die Ausschlussregeln zurück.
+     *
+     * @return Die Ausschlussregeln
+     */
+    public List<String> getExcludes() {
+        return Collections.unmodifiableList(excludes);
+    }
+
+    /**
+     * Ermittelt die erste Regel, die auf den Pfad passt.
+     *
+     * @return Der Index der Regel oder -1, wenn keine Regel passt
+     */
+    private static int matchingRule(Pattern pattern, int ruleCount, String relativePath) {
+        if (pattern == null) {
+            return -1;
+        }
+        Matcher matcher = pattern.matcher(relativePath);
+        if (!matcher.matches()) {
+            return -1;
+        }
+        for (int i = 0; i < ruleCount; i++) {
+            if (matcher.start(i + 1) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fasst die Glob-Muster zu einem regulären Ausdruck mit einer Gruppe pro Muster zusammen.
+     *
+     * @return Der reguläre Ausdruck oder null, wenn keine Muster angegeben sind
+     */
+    private static Pattern compile(List<String> globs) {
+        if (globs.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append('(').append(globToRegex(glob)).append(')');
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    /**
+     * Wandelt ein Glob-Muster in einen regulären Ausdruck ohne einfangende Gruppen um.
+     *
+     * @param glob Das Glob-Muster
+     * @return Der reguläre Ausdruck
+     */
+    static String globToRegex(String glob) {
+        String normalized = glob.replace('\\', '/');
+        boolean anchored = normalized.startsWith("/");
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        // Muster ohne führendes "/" gelten in jeder Tiefe
+        if (!anchored && !normalized.startsWith("**")) {
+            normalized = "**/" + normalized;
+        }
+
+        StringBuilder regex = new StringBuilder();
+        boolean inAlternatives = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == '*' && i + 1 < normalized.length() && normalized.charAt(i + 1) == '*') {
+                boolean slashBefore = i == 0 || normalized.charAt(i - 1) == '/';
+                boolean slashAfter = i + 2 < normalized.length() && normalized.charAt(i + 2) == '/';
+                if (slashBefore && slashAfter) {
+                    // "**/" passt auf beliebig viele Verzeichnisse, auch auf keines
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '{') {
+                regex.append("(?:");
+                inAlternatives = true;
+            } else if (c == '}' && inAlternatives) {
+                regex.append(')');
+                inAlternatives = false;
+            } else if (c == ',' && inAlternatives) {
+                regex.append('|');
+            } else {
+                if ("\\.[]()^$+|".indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,358 @@
+package com.configmaster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hält das Ergebnis jedes vollständigen Scans als Momentaufnahme fest, damit zwei Scans mit
+ * {@link SnapshotDiff} verglichen werden können.
+ *
+ * Während des Scans werden Pfad, Größe, Änderungszeit und ein Hash des Inhalts jeder gelesenen
+ * Datei gesammelt. Nach dem Scan werden die Treffer der Suchmuster ergänzt und die Einträge nach
+ * Pfad sortiert in eine Datei "snap-&lt;Zeitpunkt&gt;.cmsn" im Cache-Verzeichnis geschrieben.
+ * Aufeinanderfolgende Pfade teilen meist einen langen Anfang, der nur einmal gespeichert wird.
+ * Eine Momentaufnahme wird mit einem {@link Reader} Eintrag für Eintrag gelesen, ohne sie
+ * vollständig in den Speicher zu laden. Es werden höchstens {@link #MAX_SNAPSHOTS} Dateien
+ * aufbewahrt.
+ */
+public class ScanSnapshot implements ScanListener {
+
+    private static final Logger logger = LogManager.getLogger(ScanSnapshot.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CACHE_DIR = "cache";
+    private static final String SNAPSHOT_DIR = "snapshots";
+
+    private static final int MAGIC = 0x434D534E; // "CMSN"
+    private static final int VERSION = 1;
+
+    /** Dateiendung einer Momentaufnahme. */
+    public static final String EXTENSION = ".cmsn";
+
+    /** Höchstzahl der aufbewahrten Momentaufnahmen. */
+    public static final int MAX_SNAPSHOTS = 30;
+
+    private final File directory;
+
+    // Während des laufenden Scans gelesene Dateien
+    private final List<Entry> scannedFiles = new ArrayList<>();
+    private List<File> scannedDirs = Collections.emptyList();
+    private boolean complete;
+
+    /**
+     * Eine Datei in einer Momentaufnahme.
+     */
+    public static class Entry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+        private final int matchCount;
+        private final long patternMask;
+
+        Entry(String path, long size, long lastModified, long hash, int matchCount, long patternMask) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.matchCount = matchCount;
+            this.patternMask = patternMask;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public int getMatchCount() {
+            return matchCount;
+        }
+
+        public long getPatternMask() {
+            return patternMask;
+        }
+
+        /**
+         * Gibt zurück, ob die Datei beim Scan mindestens ein Suchmuster enthielt.
+         *
+         * @return true, wenn die Datei ein Treffer war
+         */
+        public boolean matches() {
+            return matchCount > 0;
+        }
+
+        /**
+         * Vergleicht Größe, Änderungszeit und Inhalt mit einem anderen Eintrag desselben Pfads.
+         *
+         * @param other Der andere Eintrag
+         * @return true, wenn sich die Datei unterscheidet
+         */
+        public boolean isModified(Entry other) {
+            return size != other.size || lastModified != other.lastModified || hash != other.hash;
+        }
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme im Standard-Verzeichnis von ConfigMaster.
+     */
+    public ScanSnapshot() {
+        this(new File(ROOT_PATH + File.separator + CACHE_DIR + File.separator + SNAPSHOT_DIR));
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme in einem bestimmten Verzeichnis.
+     *
+     * @param directory Das Verzeichnis der Momentaufnahmen
+     */
+    public ScanSnapshot(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized void scanStarted(List<File> searchDirs) {
+        scannedFiles.clear();
+        scannedDirs = new ArrayList<>(searchDirs);
+        complete = false;
+    }
+
+    @Override
+    public void fileRead(String path, long size, long lastModified, FileTypeHandler fileType,
+            ConfigFileContent content, byte[] bytes) {
+        Entry entry = new Entry(path, size, lastModified, FastHash.hash(content.getText()), 0, 0);
+        synchronized (this) {
+            scannedFiles.add(entry);
+        }
+    }
+
+    @Override
+    public synchronized void scanFinished(List<File> searchDirs, boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Schreibt die Dateien des letzten Scans mit den Treffern aus dessen Ergebnisliste als neue
+     * Momentaufnahme. Ein Scan mit einer Höchstzahl von Ergebnissen, mit einem fehlgeschlagenen
+     * Suchverzeichnis oder ein unterbrochener Scan hat nicht alle Dateien gelesen und wird nicht
+     * festgehalten.
+     *
+     * @param results Die Ergebnisliste des Scans
+     * @return Die geschriebene Datei oder null, wenn keine Momentaufnahme geschrieben wurde
+     */
+    public synchronized File save(ConfigFileStore results) {
+        if (!complete) {
+            logger.info("Scan war nicht vollständig, keine Momentaufnahme geschrieben");
+            return null;
+        }
+        Map<String, Integer> matches = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            matches.put(results.getPath(i), i);
+        }
+        scannedFiles.sort(Comparator.comparing(Entry::getPath));
+        // Eine Datei unter mehreren überlappenden Suchpfaden nur einmal festhalten
+        int unique = 0;
+        for (Entry entry : scannedFiles) {
+            if (unique == 0 || !scannedFiles.get(unique - 1).path.equals(entry.path)) {
+                scannedFiles.set(unique++, entry);
+            }
+        }
+        scannedFiles.subList(unique, scannedFiles.size()).clear();
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, String.format("snap-%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS%1$tL%2$s",
+                System.currentTimeMillis(), EXTENSION));
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(scannedDirs.size());
+            for (File searchDir : scannedDirs) {
+                out.writeUTF(searchDir.getAbsolutePath());
+            }
+            String[] patterns = results.getPatterns();
+            out.writeInt(patterns.length);
+            for (String pattern : patterns) {
+                out.writeUTF(pattern);
+            }
+            out.writeInt(scannedFiles.size());
+            String previous = "";
+            for (Entry entry : scannedFiles) {
+                // Gemeinsamen Anfang mit dem vorherigen Pfad nur als Länge speichern
+                int prefix = commonPrefix(previous, entry.path);
+                out.writeShort(prefix);
+                out.writeUTF(entry.path.substring(prefix));
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.hash);
+                Integer index = matches.get(entry.path);
+                out.writeInt(index != null ? results.getMatchCount(index) : 0);
+                out.writeLong(index != null ? results.getPatternMask(index) : 0);
+                previous = entry.path;
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Schreiben der Momentaufnahme: {}", e.getMessage());
+            tempFile.delete();
+            return null;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Fehler beim Schreiben der Momentaufnahme: {}", e.getMessage());
+            return null;
+        }
+        logger.info("Momentaufnahme geschrieben: {} ({} Dateien, {} Treffer)", file.getName(),
+                scannedFiles.size(), matches.size());
+        scannedFiles.clear();
+
+        // Älteste Momentaufnahmen entfernen
+        List<File> snapshots = listSnapshots();
+        for (int i = MAX_SNAPSHOTS; i < snapshots.size(); i++) {
+            snapshots.get(i).delete();
+        }
+        return file;
+    }
+
+    /**
+     * Gibt die vorhandenen Momentaufnahmen zurück, die neueste zuerst.
+     *
+     * @return Die Dateien der Momentaufnahmen
+     */
+    public List<File> listSnapshots() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("snap-") && name.endsWith(EXTENSION));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        // Die Namen enthalten den Zeitpunkt und sind daher in zeitlicher Reihenfolge
+        Arrays.sort(files, Comparator.comparing(File::getName).reversed());
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int length = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Liest eine Momentaufnahme Eintrag für Eintrag in Pfad-Reihenfolge.
+     */
+    public static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final long createdAt;
+        private final List<String> searchDirs = new ArrayList<>();
+        private final List<String> patterns = new ArrayList<>();
+        private final int count;
+        private int read;
+        private String previous = "";
+
+        /**
+         * Öffnet eine Momentaufnahme und liest deren Kopf.
+         *
+         * @param file Die Datei der Momentaufnahme
+         * @throws IOException Wenn die Datei nicht gelesen werden kann oder kein gültiges Format hat
+         */
+        public Reader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Keine gültige Momentaufnahme: " + file.getName());
+                }
+                createdAt = in.readLong();
+                int dirCount = in.readInt();
+                for (int i = 0; i < dirCount; i++) {
+                    searchDirs.add(in.readUTF());
+                }
+                int patternCount = in.readInt();
+                for (int i = 0; i < patternCount; i++) {
+                    patterns.add(in.readUTF());
+                }
+                count = in.readInt();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Liest den nächsten Eintrag.
+         *
+         * @return Der Eintrag oder null am Ende der Momentaufnahme
+         * @throws IOException Wenn die Datei nicht gelesen werden kann oder nicht sortiert ist
+         */
+        public Entry next() throws IOException {
+            if (read == count) {
+                return null;
+            }
+            int prefix = in.readUnsignedShort();
+            if (prefix > previous.length()) {
+                throw new IOException("Ungültiger Eintrag in der Momentaufnahme");
+            }
+            String path = previous.substring(0, prefix) + in.readUTF();
+            if (read > 0 && path.compareTo(previous) <= 0) {
+                throw new IOException("Momentaufnahme ist nicht nach Pfad sortiert: " + path);
+            }
+            Entry entry = new Entry(path, in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readLong());
+            previous = path;
+            read++;
+            return entry;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public List<String> getSearchDirs() {
+            return searchDirs;
+        }
+
+        public List<String> getPatterns() {
+            return patterns;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
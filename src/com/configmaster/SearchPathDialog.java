@@ -0,0 +1,161 @@
+package com.configmaster;
+
+import java.util.ArrayList;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.List;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Dialog zur Verwaltung der Suchverzeichnisse.
+ * Ermöglicht das Hinzufügen und Entfernen mehrerer Suchverzeichnisse, z.B. für
+ * MT4-Terminals auf verschiedenen Laufwerken.
+ */
+public class SearchPathDialog extends Dialog {
+
+    private Shell shell;
+    private java.util.List<String> searchPaths;
+    private java.util.List<String> result = null;
+    private List pathList;
+
+    /**
+     * Erstellt einen neuen SearchPathDialog.
+     *
+     * @param parent Das Elternfenster
+     * @param searchPaths Die aktuellen Suchverzeichnisse
+     */
+    public SearchPathDialog(Shell parent, java.util.List<String> searchPaths) {
+        super(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
+        this.searchPaths = new ArrayList<>(searchPaths);
+    }
+
+    /**
+     * Öffnet den Dialog und gibt die neuen Suchverzeichnisse zurück.
+     *
+     * @return Die Suchverzeichnisse oder null, wenn der Dialog abgebrochen wurde
+     */
+    public java.util.List<String> open() {
+        Shell parent = getParent();
+        shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.APPLICATION_MODAL);
+        shell.setText("Suchverzeichnisse festlegen");
+        shell.setSize(500, 320);
+
+        createContents();
+
+        shell.open();
+        Display display = parent.getDisplay();
+        while (!shell.isDisposed()) {
+            if (!display.readAndDispatch()) {
+                display.sleep();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Erstellt den Inhalt des Dialogs.
+     */
+    private void createContents() {
+        GridLayout layout = new GridLayout(2, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 10;
+        shell.setLayout(layout);
+
+        Label label = new Label(shell, SWT.NONE);
+        label.setText("Verzeichnisse, die nach Konfigurationsdateien durchsucht werden:");
+        GridData labelData = new GridData();
+        labelData.horizontalSpan = 2;
+        label.setLayoutData(labelData);
+
+        pathList = new List(shell, SWT.BORDER | SWT.SINGLE | SWT.V_SCROLL | SWT.H_SCROLL);
+        GridData pathListData = new GridData(SWT.FILL, SWT.FILL, true, true);
+        pathListData.verticalSpan = 2;
+        pathList.setLayoutData(pathListData);
+        for (String searchPath : searchPaths) {
+            pathList.add(searchPath);
+        }
+
+        Button addButton = new Button(shell, SWT.PUSH);
+        addButton.setText("Hinzufügen...");
+        addButton.setLayoutData(new GridData(SWT.FILL, SWT.TOP, false, false));
+        addButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                addSearchPath();
+            }
+        });
+
+        Button removeButton = new Button(shell, SWT.PUSH);
+        removeButton.setText("Entfernen");
+        removeButton.setLayoutData(new GridData(SWT.FILL, SWT.TOP, false, false));
+        removeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                int selectedIndex = pathList.getSelectionIndex();
+                if (selectedIndex >= 0) {
+                    searchPaths.remove(selectedIndex);
+                    pathList.remove(selectedIndex);
+                }
+            }
+        });
+
+        // Container für die Buttons
+        org.eclipse.swt.widgets.Composite buttonComposite = new org.eclipse.swt.widgets.Composite(shell, SWT.NONE);
+        buttonComposite.setLayout(new GridLayout(2, true));
+        GridData buttonCompositeData = new GridData(SWT.RIGHT, SWT.CENTER, true, false);
+        buttonCompositeData.horizontalSpan = 2;
+        buttonComposite.setLayoutData(buttonCompositeData);
+
+        Button okButton = new Button(buttonComposite, SWT.PUSH);
+        okButton.setText("OK");
+        okButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        okButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                result = searchPaths;
+                shell.close();
+            }
+        });
+
+        Button cancelButton = new Button(buttonComposite, SWT.PUSH);
+        cancelButton.setText("Abbrechen");
+        cancelButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                result = null;
+                shell.close();
+            }
+        });
+
+        shell.setDefaultButton(okButton);
+    }
+
+    /**
+     * Fügt über einen Verzeichnisdialog ein weiteres Suchverzeichnis hinzu.
+     */
+    private void addSearchPath() {
+        DirectoryDialog dialog = new DirectoryDialog(shell, SWT.OPEN);
+        dialog.setText("Suchverzeichnis auswählen");
+        dialog.setMessage("Wählen Sie ein Verzeichnis, in dem nach Konfigurationsdateien gesucht werden soll");
+        if (!searchPaths.isEmpty()) {
+            dialog.setFilterPath(searchPaths.get(searchPaths.size() - 1));
+        }
+
+        String selectedPath = dialog.open();
+        if (selectedPath != null && !searchPaths.contains(selectedPath)) {
+            searchPaths.add(selectedPath);
+            pathList.add(selectedPath);
+        }
+    }
+}
@@ -0,0 +1,676 @@
+package com.configmaster;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Ablage des Inhaltsindex als Folge unveränderlicher {@link IndexSegment}-Dateien nach dem
+ * Prinzip eines Log-Structured Merge Tree.
+ *
+ * Jede Änderung des Index, d.h. die neu gelesenen Dateien und Löschmarken für entfernte Dateien
+ * eines Scans, wird als kleines neues Segment geschrieben; vorhandene Segmente werden nie
+ * verändert. Ein Hintergrund-Thread fasst benachbarte Segmente derselben Größenstufe zusammen,
+ * sobald genügend davon vorhanden sind. Die Größenstufe eines Segments ist der Logarithmus seiner
+ * Größe zur Basis des Stufenfaktors, so dass jede Datei nur wenige Male neu geschrieben wird.
+ * Löschmarken werden entfernt, sobald das älteste Segment an der Zusammenfassung beteiligt ist.
+ *
+ * Das Lesen und Schreiben beim Zusammenfassen ist auf eine Datenrate begrenzt, damit der
+ * Hintergrund-Thread den Datenträger nicht für Scans und Abfragen blockiert. Die Einstellungen
+ * stehen in der Datei "compaction.txt" im Konfigurationsverzeichnis:
+ * <pre>
+ * minMerge=4
+ * tierFactor=4
+ * maxBytesPerSecond=4194304
+ * </pre>
+ *
+ * Für den Start wird der Index als Grundbestand "base-&lt;letzte&gt;.cmms" außerhalb des Heaps
+ * abgebildet ({@link MappedSegment}); nur die danach geschriebenen Segmente werden in den Heap
+ * gelesen. Den Grundbestand schreibt der Hintergrund-Thread neu, wenn es noch keinen gibt oder die
+ * danach geschriebenen Segmente ein Achtel seiner Größe erreichen. Ältere Grundbestände werden
+ * erst gelöscht, wenn der neue geschrieben ist. Solange ein Segment Änderungen nach dem
+ * Grundbestand enthält, behält es beim Zusammenfassen seine Löschmarken.
+ *
+ * Die Dateinamen "seg-&lt;erste&gt;-&lt;letzte&gt;.cmis" enthalten den Bereich der Folgenummern,
+ * den ein Segment abdeckt. Wird das Zusammenfassen unterbrochen, nachdem das neue Segment schon
+ * umbenannt wurde, verdeckt dessen Bereich die übrig gebliebenen Eingaben, die beim nächsten
+ * Start gelöscht werden.
+ */
+public class SegmentStore implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SegmentStore.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CACHE_DIR = "cache";
+    private static final String SEGMENT_DIR = "segments";
+    private static final String SETTINGS_FILE = "compaction.txt";
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("seg-(\\d+)-(\\d+)\\.cmis");
+    private static final Pattern BASE_NAME = Pattern.compile("base-(\\d+)\\.cmms");
+
+    // Segmente bis zu dieser Größe gehören zur untersten Stufe
+    private static final long MIN_TIER_BYTES = 64 * 1024;
+    // Höchstzahl der Segmente, die in einem Schritt zusammengefasst werden
+    private static final int MAX_MERGE = 16;
+    // Der Grundbestand wird neu geschrieben, wenn die Segmente danach 1/8 seiner Größe erreichen
+    private static final int BASE_REBUILD_RATIO = 8;
+
+    /**
+     * Einstellungen der Zusammenfassung.
+     */
+    public static class Settings {
+        private final int minMerge;
+        private final int tierFactor;
+        private final long maxBytesPerSecond;
+
+        /**
+         * Erstellt neue Einstellungen.
+         *
+         * @param minMerge Die Anzahl benachbarter Segmente einer Stufe, ab der sie zusammengefasst werden
+         * @param tierFactor Der Größenfaktor zwischen zwei Stufen
+         * @param maxBytesPerSecond Die höchste Datenrate beim Zusammenfassen, 0 für unbegrenzt
+         */
+        public Settings(int minMerge, int tierFactor, long maxBytesPerSecond) {
+            this.minMerge = Math.max(2, minMerge);
+            this.tierFactor = Math.max(2, tierFactor);
+            this.maxBytesPerSecond = Math.max(0, maxBytesPerSecond);
+        }
+
+        /**
+         * Lädt die Einstellungen aus der Konfigurationsdatei. Fehlt die Datei, werden je vier
+         * Segmente einer Stufe mit höchstens 4 MB/s zusammengefasst.
+         *
+         * @return Die Einstellungen
+         */
+        public static Settings load() {
+            SettingsFile settings = SettingsFile.load(SETTINGS_FILE);
+            return new Settings(settings.getInt("minMerge", 4), settings.getInt("tierFactor", 4),
+                    settings.getLong("maxBytesPerSecond", 4L * 1024 * 1024));
+        }
+
+        public int getMinMerge() {
+            return minMerge;
+        }
+
+        public int getTierFactor() {
+            return tierFactor;
+        }
+
+        public long getMaxBytesPerSecond() {
+            return maxBytesPerSecond;
+        }
+    }
+
+    /**
+     * Der abgebildete Grundbestand und die danach geschriebenen Änderungen.
+     */
+    public static final class MappedIndex {
+        private final MappedSegment base;
+        private final IndexSegment changes;
+
+        MappedIndex(MappedSegment base, IndexSegment changes) {
+            this.base = base;
+            this.changes = changes;
+        }
+
+        /**
+         * Gibt den abgebildeten Grundbestand zurück.
+         *
+         * @return Der Grundbestand oder null, wenn noch keiner geschrieben wurde
+         */
+        public MappedSegment getBase() {
+            return base;
+        }
+
+        /**
+         * Gibt die Segmente nach dem Grundbestand als ein Segment zurück. Gibt es einen
+         * Grundbestand, enthält es Löschmarken für die seither entfernten Dateien.
+         *
+         * @return Die Änderungen oder null, wenn es keine gibt
+         */
+        public IndexSegment getChanges() {
+            return changes;
+        }
+    }
+
+    /**
+     * Eine Segmentdatei mit dem Bereich der Folgenummern, die sie abdeckt.
+     */
+    private static final class SegmentFile {
+        private final File file;
+        private final long first;
+        private final long last;
+        private final long bytes;
+
+        SegmentFile(File file, long first, long last) {
+            this.file = file;
+            this.first = first;
+            this.last = last;
+            this.bytes = file.length();
+        }
+
+        boolean covers(SegmentFile other) {
+            return first <= other.first && other.last <= last && this != other;
+        }
+    }
+
+    private final File directory;
+    private final Settings settings;
+    private final IoBudget budget;
+    private final List<SegmentFile> segments = new ArrayList<>();
+    private long nextSequence = 1;
+    private long baseSequence;
+    private File baseFile;
+    private long compactedBytes;
+    private volatile boolean closed;
+    private final Thread compactor;
+
+    /**
+     * Öffnet die Segmente im Cache-Verzeichnis von ConfigMaster.
+     */
+    public SegmentStore() {
+        this(new File(ROOT_PATH + File.separator + CACHE_DIR + File.separator + SEGMENT_DIR), Settings.load());
+    }
+
+    /**
+     * Öffnet die Segmente in einem Verzeichnis und startet den Hintergrund-Thread.
+     *
+     * @param directory Das Verzeichnis der Segmentdateien
+     * @param settings Die Einstellungen der Zusammenfassung
+     */
+    public SegmentStore(File directory, Settings settings) {
+        this.directory = directory;
+        this.settings = settings;
+        this.budget = new IoBudget(settings.maxBytesPerSecond);
+        load();
+        compactor = new Thread(this::compactLoop, "SegmentCompactor");
+        compactor.setDaemon(true);
+        compactor.setPriority(Thread.MIN_PRIORITY);
+        compactor.start();
+    }
+
+    /**
+     * Schreibt ein neues Segment mit den Änderungen seit dem letzten Segment.
+     *
+     * @param segment Das Segment
+     * @throws IOException Wenn das Segment nicht geschrieben werden kann
+     */
+    public synchronized void add(IndexSegment segment) throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        long sequence = nextSequence++;
+        File file = new File(directory, fileName(sequence, sequence));
+        segment.write(file);
+        segments.add(new SegmentFile(file, sequence, sequence));
+        notifyAll();
+    }
+
+    /**
+     * Liest alle Segmente und fasst sie zu einem Segment ohne Löschmarken zusammen.
+     * Während des Lesens wird nicht zusammengefasst.
+     *
+     * @return Der vollständige Index; leer, wenn es noch keine Segmente gibt
+     * @throws IOException Wenn ein Segment nicht gelesen werden kann
+     */
+    public synchronized IndexSegment readAll() throws IOException {
+        List<IndexSegment> loaded = new ArrayList<>();
+        for (SegmentFile segment : segments) {
+            loaded.add(IndexSegment.read(segment.file));
+        }
+        return IndexSegment.compact(loaded, false);
+    }
+
+    /**
+     * Bildet den zuletzt geschriebenen Grundbestand ab und liest nur die danach geschriebenen
+     * Segmente in den Heap. Der Grundbestand selbst wird nie beim Öffnen, sondern nur im
+     * Hintergrund-Thread geschrieben. Gibt es noch keinen, werden alle Segmente gelesen.
+     *
+     * @return Grundbestand und Änderungen; beide null, wenn es noch keine Segmente gibt
+     * @throws IOException Wenn ein Segment nicht gelesen werden kann
+     */
+    public synchronized MappedIndex openMapped() throws IOException {
+        MappedSegment base = null;
+        if (baseFile != null) {
+            try {
+                base = MappedSegment.open(baseFile);
+            } catch (IOException e) {
+                logger.error("Grundbestand {} kann nicht abgebildet werden: {}", baseFile.getName(), e.getMessage());
+                baseFile = null;
+                baseSequence = 0;
+                notifyAll();
+            }
+        }
+        List<IndexSegment> newer = new ArrayList<>();
+        for (SegmentFile segment : segments) {
+            if (segment.last > baseSequence) {
+                newer.add(IndexSegment.read(segment.file));
+            }
+        }
+        IndexSegment changes = newer.isEmpty() ? null : IndexSegment.compact(newer, base != null);
+        return new MappedIndex(base, changes);
+    }
+
+    /**
+     * Gibt die Anzahl der Segmentdateien zurück.
+     *
+     * @return Die Anzahl der Segmente
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Gibt die Gesamtgröße der Segmentdateien zurück.
+     *
+     * @return Die Größe in Bytes
+     */
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (SegmentFile segment : segments) {
+            total += segment.bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Gibt die Anzahl der Bytes zurück, die beim Zusammenfassen gelesen und geschrieben wurden.
+     *
+     * @return Die Anzahl der Bytes seit dem Öffnen
+     */
+    public synchronized long getCompactedBytes() {
+        return compactedBytes;
+    }
+
+    /**
+     * Wartet, bis keine Zusammenfassung mehr fällig ist und der Grundbestand nicht neu geschrieben
+     * werden muss. Für Wartungsaufgaben und Messungen.
+     *
+     * @throws InterruptedException Wenn das Warten unterbrochen wird
+     */
+    public synchronized void awaitCompaction() throws InterruptedException {
+        while (!closed && (findCompaction() != null || needsBase())) {
+            wait();
+        }
+    }
+
+    /**
+     * Beendet den Hintergrund-Thread. Eine laufende Zusammenfassung wird abgebrochen; ihre
+     * Eingaben bleiben erhalten.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        compactor.interrupt();
+        try {
+            compactor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Liest die vorhandenen Segmentdateien. Reste abgebrochener Schreibvorgänge und Segmente,
+     * deren Bereich von einem zusammengefassten Segment abgedeckt wird, werden gelöscht.
+     */
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+            if (matcher.matches()) {
+                segments.add(new SegmentFile(file, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
+            } else if (file.getName().endsWith(".tmp")) {
+                file.delete();
+            }
+        }
+        List<SegmentFile> covered = new ArrayList<>();
+        for (SegmentFile segment : segments) {
+            for (SegmentFile other : segments) {
+                if (other.covers(segment) && !covered.contains(segment)) {
+                    covered.add(segment);
+                }
+            }
+        }
+        for (SegmentFile segment : covered) {
+            logger.info("Überholtes Segment wird gelöscht: {}", segment.file.getName());
+            segment.file.delete();
+            segments.remove(segment);
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.first));
+        if (!segments.isEmpty()) {
+            nextSequence = segments.get(segments.size() - 1).last + 1;
+        }
+        for (File file : files) {
+            Matcher matcher = BASE_NAME.matcher(file.getName());
+            if (matcher.matches()) {
+                long sequence = Long.parseLong(matcher.group(1));
+                if (sequence > baseSequence && sequence < nextSequence) {
+                    baseSequence = sequence;
+                    baseFile = file;
+                }
+            }
+        }
+        if (baseFile != null) {
+            deleteOtherBases();
+        }
+        logger.info("Segmente geladen: {} Dateien, {} Bytes, Grundbestand bis {}", segments.size(), getTotalBytes(),
+                baseSequence);
+    }
+
+    /**
+     * Hintergrund-Thread: fasst Segmente zusammen, solange eine Zusammenfassung fällig ist, und
+     * wartet sonst auf neue Segmente.
+     */
+    private void compactLoop() {
+        while (true) {
+            List<SegmentFile> run;
+            List<SegmentFile> baseInputs = null;
+            boolean dropTombstones = false;
+            synchronized (this) {
+                while (!closed && findCompaction() == null && !needsBase()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        if (closed) {
+                            return;
+                        }
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                run = findCompaction();
+                if (run != null) {
+                    // Löschmarken werden erst entfernt, wenn der Grundbestand die Segmente abdeckt
+                    dropTombstones = segments.get(0) == run.get(0)
+                            && (baseFile == null || run.get(run.size() - 1).last <= baseSequence);
+                } else {
+                    baseInputs = new ArrayList<>(segments);
+                }
+            }
+            try {
+                if (run != null) {
+                    compact(run, dropTombstones);
+                } else {
+                    writeBase(baseInputs);
+                }
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                logger.error("Fehler beim Zusammenfassen der Segmente oder Schreiben des Grundbestands: {}",
+                        e.getMessage());
+                synchronized (this) {
+                    try {
+                        // Nicht sofort erneut versuchen, z.B. bei vollem Datenträger
+                        wait(60_000);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sucht die erste Folge benachbarter Segmente derselben Größenstufe, die lang genug für eine
+     * Zusammenfassung ist. Nur benachbarte Segmente dürfen zusammengefasst werden, da spätere
+     * Segmente frühere verdecken.
+     *
+     * @return Die Segmente oder null, wenn keine Zusammenfassung fällig ist
+     */
+    private List<SegmentFile> findCompaction() {
+        int runStart = 0;
+        for (int i = 1; i <= segments.size(); i++) {
+            if (i == segments.size() || tier(segments.get(i)) != tier(segments.get(runStart))) {
+                if (i - runStart >= settings.minMerge) {
+                    return new ArrayList<>(segments.subList(runStart, Math.min(i, runStart + MAX_MERGE)));
+                }
+                runStart = i;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prüft, ob der Grundbestand neu geschrieben werden soll: wenn es noch keinen gibt oder die
+     * danach geschriebenen Segmente ein Achtel seiner Größe erreichen.
+     */
+    private boolean needsBase() {
+        long newerBytes = 0;
+        for (SegmentFile segment : segments) {
+            if (segment.last > baseSequence) {
+                newerBytes += segment.bytes;
+            }
+        }
+        if (newerBytes == 0) {
+            return false;
+        }
+        return baseFile == null || newerBytes * BASE_REBUILD_RATIO >= baseFile.length();
+    }
+
+    private int tier(SegmentFile segment) {
+        int tier = 0;
+        long limit = MIN_TIER_BYTES;
+        while (segment.bytes > limit) {
+            limit *= settings.tierFactor;
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * Fasst eine Folge von Segmenten zu einem neuen Segment zusammen, das ihren gesamten Bereich
+     * abdeckt, und ersetzt sie danach.
+     */
+    private void compact(List<SegmentFile> run, boolean dropTombstones) throws IOException {
+        long start = System.nanoTime();
+        long inputBytes = 0;
+        List<IndexSegment> inputs = new ArrayList<>();
+        for (SegmentFile segment : run) {
+            try (InputStream in = new ThrottledInputStream(new FileInputStream(segment.file), budget)) {
+                inputs.add(IndexSegment.read(in, segment.file.getName()));
+            }
+            inputBytes += segment.bytes;
+        }
+        IndexSegment merged = IndexSegment.compact(inputs, !dropTombstones);
+
+        SegmentFile first = run.get(0);
+        SegmentFile last = run.get(run.size() - 1);
+        File target = new File(directory, fileName(first.first, last.last));
+        File tempFile = new File(target.getPath() + ".tmp");
+        try (OutputStream out = new ThrottledOutputStream(new FileOutputStream(tempFile), budget)) {
+            merged.write(out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                tempFile.delete();
+                return;
+            }
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            SegmentFile result = new SegmentFile(target, first.first, last.last);
+            int index = segments.indexOf(first);
+            segments.removeAll(run);
+            segments.add(index, result);
+            for (SegmentFile segment : run) {
+                if (!segment.file.equals(target)) {
+                    segment.file.delete();
+                }
+            }
+            compactedBytes += inputBytes + result.bytes;
+            logger.info("{} Segmente zusammengefasst zu {} in {} ms: {} -> {} Bytes, {} Dateien, {} Löschmarken",
+                    run.size(), target.getName(), (System.nanoTime() - start) / 1_000_000, inputBytes,
+                    result.bytes, merged.getFileCount(), merged.getTombstoneCount());
+            notifyAll();
+        }
+    }
+
+    /**
+     * Fasst alle Segmente zu einem neuen Grundbestand zusammen und löscht danach die älteren.
+     * Die Segmente werden mit begrenzter Datenrate gelesen und der Grundbestand ebenso
+     * geschrieben, da er die größte Datei des Speichers ist. Nur der Hintergrund-Thread fasst
+     * Segmente zusammen, daher bleiben die Eingaben während des Lesens erhalten.
+     */
+    private void writeBase(List<SegmentFile> inputs) throws IOException {
+        long start = System.nanoTime();
+        long inputBytes = 0;
+        List<IndexSegment> loaded = new ArrayList<>();
+        for (SegmentFile segment : inputs) {
+            try (InputStream in = new ThrottledInputStream(new FileInputStream(segment.file), budget)) {
+                loaded.add(IndexSegment.read(in, segment.file.getName()));
+            }
+            inputBytes += segment.bytes;
+        }
+        long sequence = inputs.get(inputs.size() - 1).last;
+        File target = new File(directory, String.format("base-%010d%s", sequence, MappedSegment.EXTENSION));
+        File tempFile = new File(target.getPath() + ".tmp");
+        long baseBytes;
+        try (OutputStream out = new ThrottledOutputStream(new FileOutputStream(tempFile), budget)) {
+            baseBytes = MappedSegment.write(IndexSegment.compact(loaded, false), out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this) {
+            compactedBytes += inputBytes + baseBytes;
+            baseSequence = sequence;
+            baseFile = target;
+            deleteOtherBases();
+            logger.info("Grundbestand {} aus {} Segmenten geschrieben in {} ms: {} -> {} Bytes", target.getName(),
+                    inputs.size(), (System.nanoTime() - start) / 1_000_000, inputBytes, baseBytes);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Löscht alle Grundbestände außer dem aktuellen. Ein noch abgebildeter Grundbestand kann unter
+     * Windows nicht gelöscht werden; er wird beim nächsten Mal erneut versucht.
+     */
+    private void deleteOtherBases() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (BASE_NAME.matcher(file.getName()).matches() && !file.equals(baseFile) && !file.delete()) {
+                logger.debug("Alter Grundbestand kann noch nicht gelöscht werden: {}", file.getName());
+            }
+        }
+    }
+
+    private static String fileName(long first, long last) {
+        return String.format("seg-%010d-%010d.cmis", first, last);
+    }
+
+    /**
+     * Begrenzt die Datenrate über ein Guthaben an Bytes, das mit der erlaubten Rate nachwächst.
+     * Höchstens eine Sekunde Guthaben wird angespart.
+     */
+    private static final class IoBudget {
+        private final long bytesPerSecond;
+        private double available;
+        private long lastRefill = System.nanoTime();
+
+        IoBudget(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.available = bytesPerSecond;
+        }
+
+        synchronized void acquire(int bytes) throws IOException {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            available = Math.min(bytesPerSecond, available + (now - lastRefill) * bytesPerSecond / 1e9);
+            lastRefill = now;
+            available -= bytes;
+            if (available < 0) {
+                long sleepNanos = (long) (-available * 1e9 / bytesPerSecond);
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Zusammenfassung unterbrochen");
+                }
+            }
+        }
+    }
+
+    private static final class ThrottledInputStream extends FilterInputStream {
+        private final IoBudget budget;
+
+        ThrottledInputStream(InputStream in, IoBudget budget) {
+            super(in);
+            this.budget = budget;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                budget.acquire(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                budget.acquire(count);
+            }
+            return count;
+        }
+    }
+
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+        private final IoBudget budget;
+
+        ThrottledOutputStream(OutputStream out, IoBudget budget) {
+            super(out);
+            this.budget = budget;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            budget.acquire(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            budget.acquire(length);
+            out.write(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.configmaster;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Eine Einstellungsdatei im Konfigurationsverzeichnis mit Zeilen der Form {@code schlüssel=wert}.
+ * Zeilen, die mit '#' beginnen, sind Kommentare. Schlüssel werden ohne Beachtung der Groß- und
+ * Kleinschreibung verglichen. Fehlt die Datei oder ein Schlüssel oder ist ein Wert ungültig,
+ * gilt der übergebene Standardwert.
+ */
+public class SettingsFile {
+
+    private static final Logger logger = LogManager.getLogger(SettingsFile.class);
+
+    private static final String ROOT_PATH = "c:\\forex\\ConfigMaster";
+    private static final String CONFIG_DIR = "config";
+
+    private final File file;
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Liest eine Einstellungsdatei.
+     *
+     * @param file Die Datei; fehlt sie, sind keine Einstellungen gesetzt
+     */
+    public SettingsFile(File file) {
+        this.file = file;
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('=');
+                if (line.trim().startsWith("#") || separator < 0) {
+                    continue;
+                }
+                values.put(line.substring(0, separator).trim().toLowerCase(), line.substring(separator + 1).trim());
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der Einstellungen aus {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Liest eine Einstellungsdatei aus dem Konfigurationsverzeichnis.
+     *
+     * @param fileName Der Name der Datei, z.B. "compaction.txt"
+     * @return Die Einstellungen
+     */
+    public static SettingsFile load(String fileName) {
+        return new SettingsFile(new File(ROOT_PATH + File.separator + CONFIG_DIR + File.separator + fileName));
+    }
+
+    /**
+     * Gibt einen ganzzahligen Wert zurück.
+     *
+     * @param key Der Schlüssel
+     * @param defaultValue Der Wert, wenn der Schlüssel fehlt oder ungültig ist
+     * @return Der Wert
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key.toLowerCase());
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                logInvalid(key, value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Gibt einen ganzzahligen Wert zurück.
+     *
+     * @param key Der Schlüssel
+     * @param defaultValue Der Wert, wenn der Schlüssel fehlt oder ungültig ist
+     * @return Der Wert
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key.toLowerCase());
+        if (value != null) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                logInvalid(key, value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Gibt einen Gleitkommawert zurück.
+     *
+     * @param key Der Schlüssel
+     * @param defaultValue Der Wert, wenn der Schlüssel fehlt oder ungültig ist
+     * @return Der Wert
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = values.get(key.toLowerCase());
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                logInvalid(key, value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Gibt einen Wahrheitswert zurück.
+     *
+     * @param key Der Schlüssel
+     * @param defaultValue Der Wert, wenn der Schlüssel fehlt oder ungültig ist
+     * @return true bei "true", false bei "false"
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key.toLowerCase());
+        if (value != null) {
+            if (value.equalsIgnoreCase("true")) {
+                return true;
+            } else if (value.equalsIgnoreCase("false")) {
+                return false;
+            }
+            logInvalid(key, value);
+        }
+        return defaultValue;
+    }
+
+    private void logInvalid(String key, String value) {
+        logger.error("Ungültiger Wert für {} in {}: {}", key, file, value);
+    }
+}
@@ -0,0 +1,316 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Gruppiert ähnliche Konfigurationsdateien mit MinHash und Locality-Sensitive Hashing (LSH).
+ *
+ * Jede Datei wird auf die Menge ihrer key=value-Zeilen (jeweils mit dem umgebenden Abschnitt)
+ * reduziert. Für diese Menge wird parallel eine MinHash-Signatur berechnet, deren Anteil
+ * übereinstimmender Positionen die Jaccard-Ähnlichkeit zweier Dateien schätzt. Damit nicht
+ * alle Paare verglichen werden müssen, wird die Signatur in Bänder zerlegt; nur Dateien, die
+ * in mindestens einem Band übereinstimmen, werden als Kandidaten geprüft.
+ *
+ * Die Signatur wird per One-Permutation-Hashing berechnet: jede Zeile wird nur einmal
+ * gehasht und einem der {@value #SIGNATURE_LENGTH} Fächer zugeordnet. Leere Fächer werden
+ * aus dem nächsten belegten Fach aufgefüllt. Das hält die Berechnung auch bei 100.000
+ * Dateien im Bereich des reinen Dateilesens.
+ */
+public class SimilarityClusterer {
+
+    private static final Logger logger = LogManager.getLogger(SimilarityClusterer.class);
+
+    /** Anzahl der Fächer einer Signatur (Zweierpotenz). */
+    public static final int SIGNATURE_LENGTH = 128;
+    private static final int BIN_SHIFT = 64 - Integer.numberOfTrailingZeros(SIGNATURE_LENGTH);
+
+    /** Bis zu dieser Größe werden in einem LSH-Bucket alle Paare geprüft, darüber nur gegen das erste Element. */
+    private static final int FULL_COMPARE_BUCKET_SIZE = 64;
+
+    /**
+     * Die Signaturen einer Menge von Dateien. Unabhängig vom Schwellwert und daher
+     * für mehrere Clusterläufe wiederverwendbar.
+     */
+    public static class SignatureSet {
+        private final List<String> paths;
+        private final int[][] signatures;
+
+        SignatureSet(List<String> paths, int[][] signatures) {
+            this.paths = paths;
+            this.signatures = signatures;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public int size() {
+            return paths.size();
+        }
+    }
+
+    /**
+     * Eine Gruppe ähnlicher Dateien.
+     */
+    public static class Cluster {
+        private final List<String> paths;
+        private final double[] similarities;
+
+        Cluster(List<String> paths, double[] similarities) {
+            this.paths = paths;
+            this.similarities = similarities;
+        }
+
+        /**
+         * Gibt die Dateien der Gruppe zurück. Die erste Datei ist der Repräsentant.
+         *
+         * @return Die Pfade der Dateien
+         */
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Gibt die geschätzte Ähnlichkeit einer Datei zum Repräsentanten zurück.
+         *
+         * @param index Der Index der Datei in der Gruppe
+         * @return Die geschätzte Jaccard-Ähnlichkeit zwischen 0 und 1
+         */
+        public double getSimilarity(int index) {
+            return similarities[index];
+        }
+    }
+
+    /**
+     * Berechnet parallel die MinHash-Signaturen aller angegebenen Dateien.
+     *
+     * @param files Die Dateien
+     * @return Die Signaturen
+     */
+    public SignatureSet computeSignatures(List<File> files) {
+        long start = System.currentTimeMillis();
+        List<String> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            paths.add(file.getAbsolutePath());
+        }
+
+        int[][] signatures = new int[files.size()][];
+        IntStream.range(0, files.size()).parallel().forEach(i -> signatures[i] = signature(paths.get(i)));
+
+        logger.info("MinHash-Signaturen für {} Dateien berechnet in {} ms",
+                files.size(), System.currentTimeMillis() - start);
+        return new SignatureSet(paths, signatures);
+    }
+
+    /**
+     * Gruppiert die Dateien, deren geschätzte Ähnlichkeit mindestens dem Schwellwert entspricht.
+     *
+     * @param signatureSet Die Signaturen
+     * @param threshold Der Schwellwert der Jaccard-Ähnlichkeit zwischen 0 und 1
+     * @return Die Gruppen mit mindestens zwei Dateien, absteigend nach Größe sortiert
+     */
+    public List<Cluster> cluster(SignatureSet signatureSet, double threshold) {
+        long start = System.currentTimeMillis();
+        int[][] signatures = signatureSet.signatures;
+        int rows = rowsPerBand(threshold);
+        int bands = SIGNATURE_LENGTH / rows;
+        logger.info("LSH mit {} Bändern zu je {} Zeilen für Schwellwert {}", bands, rows, threshold);
+
+        int[] parent = new int[signatures.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.length; i++) {
+                if (signatures[i] == null) {
+                    continue;
+                }
+                long key = bandKey(signatures[i], band * rows, rows);
+                buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                if (bucket.size() > 1) {
+                    unionSimilar(bucket, signatures, threshold, parent);
+                }
+            }
+        }
+
+        // Gruppen aus der Union-Find-Struktur bilden
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < parent.length; i++) {
+            if (signatures[i] != null) {
+                groups.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>();
+        for (List<Integer> members : groups.values()) {
+            if (members.size() < 2) {
+                continue;
+            }
+            int representative = members.get(0);
+            List<String> paths = new ArrayList<>(members.size());
+            double[] similarities = new double[members.size()];
+            for (int i = 0; i < members.size(); i++) {
+                paths.add(signatureSet.paths.get(members.get(i)));
+                similarities[i] = similarity(signatures[representative], signatures[members.get(i)]);
+            }
+            clusters.add(new Cluster(paths, similarities));
+        }
+        clusters.sort(Comparator.comparingInt((Cluster c) -> c.getPaths().size()).reversed());
+
+        logger.info("{} Gruppen ähnlicher Dateien gebildet in {} ms", clusters.size(),
+                System.currentTimeMillis() - start);
+        return clusters;
+    }
+
+    /**
+     * Prüft die Kandidaten eines Buckets und vereinigt ähnliche Dateien.
+     * Große Buckets werden nur gegen ihr erstes Element geprüft, damit der Aufwand linear bleibt.
+     */
+    private void unionSimilar(List<Integer> bucket, int[][] signatures, double threshold, int[] parent) {
+        int limit = bucket.size() <= FULL_COMPARE_BUCKET_SIZE ? bucket.size() : 1;
+        for (int i = 0; i < limit; i++) {
+            int a = bucket.get(i);
+            for (int j = i + 1; j < bucket.size(); j++) {
+                int b = bucket.get(j);
+                int rootA = find(parent, a);
+                int rootB = find(parent, b);
+                if (rootA != rootB && similarity(signatures[a], signatures[b]) >= threshold) {
+                    parent[rootB] = rootA;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wählt die Anzahl der Zeilen pro Band so, dass die LSH-Schwelle (1/b)^(1/r) möglichst nahe
+     * unterhalb des gewünschten Schwellwerts liegt. Dadurch werden kaum ähnliche Paare übersehen.
+     */
+    private static int rowsPerBand(double threshold) {
+        int best = 1;
+        for (int rows = 1; rows <= SIGNATURE_LENGTH; rows++) {
+            int bands = SIGNATURE_LENGTH / rows;
+            double lshThreshold = Math.pow(1.0 / bands, 1.0 / rows);
+            if (lshThreshold <= threshold) {
+                best = rows;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Schätzt die Jaccard-Ähnlichkeit aus dem Anteil übereinstimmender Fächer.
+     */
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_LENGTH;
+    }
+
+    private static long bandKey(int[] signature, int from, int rows) {
+        long key = 1;
+        for (int i = from; i < from + rows; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return key;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Berechnet die Signatur einer Datei per One-Permutation-Hashing.
+     *
+     * @return Die Signatur oder null, wenn die Datei nicht gelesen werden kann oder leer ist
+     */
+    private int[] signature(String path) {
+        String[] lines;
+        try {
+            lines = ConfigFileContent.read(path).getLines();
+        } catch (IOException e) {
+            logger.error("Fehler beim Lesen der Datei {}: {}", path, e.getMessage());
+            return null;
+        }
+
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        boolean[] filled = new boolean[SIGNATURE_LENGTH];
+        int filledCount = 0;
+
+        // Nur öffnende Tags beginnen einen Abschnitt; nach dem schließenden gilt der umgebende
+        Deque<String> sections = new ArrayDeque<>();
+        StringBuilder shingle = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("</") && trimmed.endsWith(">")) {
+                sections.pollFirst();
+                continue;
+            }
+            if (trimmed.startsWith("<") && trimmed.endsWith(">")) {
+                sections.push(trimmed);
+                continue;
+            }
+            if (trimmed.indexOf('=') <= 0) {
+                continue;
+            }
+            shingle.setLength(0);
+            shingle.append(sections.isEmpty() ? "" : sections.peekFirst()).append('|').append(trimmed);
+            long hash = FastHash.hash(shingle);
+            int bin = (int) (hash >>> BIN_SHIFT);
+            int value = (int) hash & Integer.MAX_VALUE;
+            if (value < signature[bin]) {
+                signature[bin] = value;
+            }
+            if (!filled[bin]) {
+                filled[bin] = true;
+                filledCount++;
+            }
+        }
+
+        if (filledCount == 0) {
+            return null;
+        }
+
+        // Leere Fächer aus dem nächsten belegten Fach auffüllen (Densifizierung)
+        if (filledCount < SIGNATURE_LENGTH) {
+            for (int bin = 0; bin < SIGNATURE_LENGTH; bin++) {
+                if (filled[bin]) {
+                    continue;
+                }
+                int source = bin;
+                int distance = 0;
+                do {
+                    source = (source + 1) % SIGNATURE_LENGTH;
+                    distance++;
+                } while (!filled[source]);
+                signature[bin] = signature[source] + distance * 0x3C6EF372;
+            }
+        }
+        return signature;
+    }
+}
@@ -0,0 +1,186 @@
+package com.configmaster;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Vergleicht zwei Momentaufnahmen von {@link ScanSnapshot}.
+ *
+ * Beide Momentaufnahmen sind nach Pfad sortiert und werden wie beim Mischen sortierter Listen
+ * gleichzeitig Eintrag für Eintrag gelesen: Der kleinere Pfad ist in der anderen Momentaufnahme
+ * nicht enthalten, gleiche Pfade werden verglichen. Der Vergleich braucht dadurch nur einen
+ * Durchlauf und hält nie mehr als einen Eintrag je Momentaufnahme im Speicher. Jede Änderung
+ * wird sofort an einen {@link ChangeHandler} gemeldet.
+ *
+ * Ob eine Datei einen Treffer darstellt, bezieht sich auf die Suchmuster des jeweiligen Scans.
+ * Wurden die Scans mit unterschiedlichen Suchmustern durchgeführt, liefert
+ * {@link #isPatternChanged()} true.
+ */
+public class SnapshotDiff {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotDiff.class);
+
+    /**
+     * Die Art einer Änderung zwischen zwei Scans.
+     */
+    public enum Kind {
+        /** Die Datei ist hinzugekommen. */
+        ADDED("Neu"),
+        /** Die Datei ist nicht mehr vorhanden. */
+        REMOVED("Entfernt"),
+        /** Die Datei wurde geändert, ohne dass sich ihr Treffer-Status geändert hat. */
+        MODIFIED("Geändert"),
+        /** Die Datei enthält jetzt ein Suchmuster, vorher nicht. */
+        NOW_MATCHING("Trifft jetzt zu"),
+        /** Die Datei enthielt vorher ein Suchmuster, jetzt nicht mehr. */
+        NO_LONGER_MATCHING("Trifft nicht mehr zu");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Empfängt die Änderungen eines Vergleichs in Pfad-Reihenfolge.
+     */
+    public interface ChangeHandler {
+
+        /**
+         * Wird für jede geänderte Datei aufgerufen.
+         *
+         * @param kind Die Art der Änderung
+         * @param before Der Eintrag im älteren Scan oder null bei {@link Kind#ADDED}
+         * @param after Der Eintrag im neueren Scan oder null bei {@link Kind#REMOVED}
+         */
+        void change(Kind kind, ScanSnapshot.Entry before, ScanSnapshot.Entry after);
+    }
+
+    private final File before;
+    private final File after;
+    private final Map<Kind, Integer> counts = new EnumMap<>(Kind.class);
+    private int unchanged;
+    private List<String> patternsBefore;
+    private List<String> patternsAfter;
+    private boolean searchDirsChanged;
+
+    /**
+     * Erstellt einen Vergleich zweier Momentaufnahmen.
+     *
+     * @param before Die ältere Momentaufnahme
+     * @param after Die neuere Momentaufnahme
+     */
+    public SnapshotDiff(File before, File after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Vergleicht die Momentaufnahmen und meldet jede Änderung.
+     *
+     * @param handler Der Empfänger der Änderungen
+     * @throws IOException Wenn eine Momentaufnahme nicht gelesen werden kann
+     */
+    public void run(ChangeHandler handler) throws IOException {
+        long start = System.nanoTime();
+        counts.clear();
+        unchanged = 0;
+        try (ScanSnapshot.Reader beforeReader = new ScanSnapshot.Reader(before);
+                ScanSnapshot.Reader afterReader = new ScanSnapshot.Reader(after)) {
+            patternsBefore = beforeReader.getPatterns();
+            patternsAfter = afterReader.getPatterns();
+            searchDirsChanged = !beforeReader.getSearchDirs().equals(afterReader.getSearchDirs());
+
+            ScanSnapshot.Entry oldEntry = beforeReader.next();
+            ScanSnapshot.Entry newEntry = afterReader.next();
+            while (oldEntry != null || newEntry != null) {
+                int order = oldEntry == null ? 1 : newEntry == null ? -1
+                        : oldEntry.getPath().compareTo(newEntry.getPath());
+                if (order < 0) {
+                    report(handler, Kind.REMOVED, oldEntry, null);
+                    oldEntry = beforeReader.next();
+                } else if (order > 0) {
+                    report(handler, Kind.ADDED, null, newEntry);
+                    newEntry = afterReader.next();
+                } else {
+                    if (oldEntry.matches() != newEntry.matches()) {
+                        report(handler, newEntry.matches() ? Kind.NOW_MATCHING : Kind.NO_LONGER_MATCHING,
+                                oldEntry, newEntry);
+                    } else if (oldEntry.isModified(newEntry)) {
+                        report(handler, Kind.MODIFIED, oldEntry, newEntry);
+                    } else {
+                        unchanged++;
+                    }
+                    oldEntry = beforeReader.next();
+                    newEntry = afterReader.next();
+                }
+            }
+        }
+        logger.info("Vergleich {} mit {}: {}, {} unverändert in {} ms", before.getName(), after.getName(), counts,
+                unchanged, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void report(ChangeHandler handler, Kind kind, ScanSnapshot.Entry oldEntry, ScanSnapshot.Entry newEntry) {
+        counts.merge(kind, 1, Integer::sum);
+        handler.change(kind, oldEntry, newEntry);
+    }
+
+    /**
+     * Gibt die Anzahl der Änderungen einer Art aus dem letzten Vergleich zurück.
+     *
+     * @param kind Die Art der Änderung
+     * @return Die Anzahl
+     */
+    public int getCount(Kind kind) {
+        return counts.getOrDefault(kind, 0);
+    }
+
+    /**
+     * Gibt die Anzahl der unveränderten Dateien aus dem letzten Vergleich zurück.
+     *
+     * @return Die Anzahl
+     */
+    public int getUnchangedCount() {
+        return unchanged;
+    }
+
+    /**
+     * Gibt die Suchmuster des neueren Scans zurück.
+     *
+     * @return Die Suchmuster
+     */
+    public List<String> getPatterns() {
+        return patternsAfter;
+    }
+
+    /**
+     * Gibt zurück, ob die Scans mit unterschiedlichen Suchmustern durchgeführt wurden. Dann
+     * beruhen geänderte Treffer nicht nur auf geänderten Dateien.
+     *
+     * @return true, wenn sich die Suchmuster unterscheiden
+     */
+    public boolean isPatternChanged() {
+        return !patternsBefore.equals(patternsAfter);
+    }
+
+    /**
+     * Gibt zurück, ob die Scans unterschiedliche Suchverzeichnisse hatten. Dann erscheinen ganze
+     * Verzeichnisse als hinzugekommen oder entfernt.
+     *
+     * @return true, wenn sich die Suchverzeichnisse unterscheiden
+     */
+    public boolean isSearchDirsChanged() {
+        return searchDirsChanged;
+    }
+}
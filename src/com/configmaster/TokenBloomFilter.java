@@ -0,0 +1,227 @@
+package com.configmaster;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bloom-Filter über die Trigramme des Inhalts einer Datei, mit dem Suchbegriffe ohne Lesen der
+ * Datei ausgeschlossen werden können.
+ *
+ * Da die Suchmuster als Teilzeichenfolge gesucht werden, werden alle Folgen von drei Zeichen des
+ * aufbereiteten Inhalts eingetragen. Ein Suchbegriff kann nur enthalten sein, wenn alle seine
+ * Trigramme im Filter gesetzt sind; fehlt eines, ist die Datei sicher kein Treffer. Ganze Wörter
+ * sind darin bereits enthalten und werden nicht zusätzlich eingetragen. Groß- und Kleinschreibung
+ * werden nicht unterschieden, damit der Filter auch für Dateitypen gilt, die so vergleichen.
+ * Begriffe mit weniger als drei Zeichen werden nie ausgeschlossen.
+ *
+ * Die Größe wird aus der gewünschten Fehlerrate und der Zahl der verschiedenen Trigramme berechnet
+ * und durch eine Höchstzahl an Bits pro Datei begrenzt. Wäre ein Filter wegen dieser Grenze so
+ * voll, dass er kaum etwas ausschließt, wird stattdessen {@link #UNSELECTIVE} verwendet. Fehlerrate
+ * und Höchstzahl werden in der Datei "bloomfilter.txt" im
+ * Konfigurationsverzeichnis festgelegt:
+ * <pre>
+ * fpp=0.01
+ * maxBits=4096
+ * </pre>
+ */
+public class TokenBloomFilter {
+
+    private static final Logger logger = LogManager.getLogger(TokenBloomFilter.class);
+
+    private static final String SETTINGS_FILE = "bloomfilter.txt";
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int MIN_BITS = 64;
+    private static final int MAX_HASHES = 8;
+
+    // Ab dieser Fehlerrate pro Trigramm wird kein Filter gespeichert
+    private static final double MAX_USEFUL_RATE = 0.5;
+
+    /**
+     * Filter ohne Bits für Dateien mit zu vielen Trigrammen. Jeder Begriff kann enthalten sein.
+     */
+    public static final TokenBloomFilter UNSELECTIVE = new TokenBloomFilter(new long[0], 0);
+
+    private final long[] bits;
+    private final int hashCount;
+
+    /**
+     * Größe der Filter: gewünschte Fehlerrate und Höchstzahl an Bits pro Datei.
+     */
+    public static class Settings {
+        private final double falsePositiveRate;
+        private final int maxBits;
+
+        /**
+         * Erstellt neue Einstellungen.
+         *
+         * @param falsePositiveRate Die gewünschte Wahrscheinlichkeit, dass ein einzelnes Trigramm
+         *            fälschlich als enthalten gilt, z.B. 0.01
+         * @param maxBits Die Höchstzahl an Bits pro Datei
+         */
+        public Settings(double falsePositiveRate, int maxBits) {
+            this.falsePositiveRate = Math.min(0.5, Math.max(1e-6, falsePositiveRate));
+            this.maxBits = Math.max(MIN_BITS, maxBits);
+        }
+
+        /**
+         * Lädt die Einstellungen aus der Konfigurationsdatei. Fehlt die Datei, gelten
+         * eine Fehlerrate von 1 % und höchstens 4096 Bits (512 Bytes) pro Datei.
+         *
+         * @return Die Einstellungen
+         */
+        public static Settings load() {
+            SettingsFile settings = SettingsFile.load(SETTINGS_FILE);
+            return new Settings(settings.getDouble("fpp", 0.01), settings.getInt("maxBits", 4096));
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public int getMaxBits() {
+            return maxBits;
+        }
+    }
+
+    /**
+     * Erstellt einen Filter aus gespeicherten Bits.
+     *
+     * @param bits Die Bits des Filters
+     * @param hashCount Die Anzahl der Hashfunktionen
+     */
+    public TokenBloomFilter(long[] bits, int hashCount) {
+        this.bits = bits;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Erstellt den Filter für einen Text.
+     *
+     * @param text Der aufbereitete Inhalt einer Datei
+     * @param settings Die Größe des Filters
+     * @return Der Filter oder {@link #UNSELECTIVE}, wenn er kaum etwas ausschließen würde
+     */
+    public static TokenBloomFilter build(String text, Settings settings) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        // Verschiedene Trigramme über ihre Hashes zählen
+        long[] hashes = new long[Math.max(0, lower.length() - GRAM_LENGTH + 1)];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = gramHash(lower, i);
+        }
+        Arrays.sort(hashes);
+        int grams = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[grams++] = hashes[i];
+            }
+        }
+
+        int distinct = Math.max(1, grams);
+        double optimalBits = -distinct * Math.log(settings.falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int bitCount = (int) Math.min(settings.maxBits, Math.max(MIN_BITS, optimalBits));
+        bitCount = (bitCount + 63) & ~63;
+        int hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / distinct * Math.log(2))));
+
+        TokenBloomFilter filter = new TokenBloomFilter(new long[bitCount >>> 6], hashCount);
+        for (int i = 0; i < grams; i++) {
+            filter.add(hashes[i]);
+        }
+        double rate = filter.getFalsePositiveRate();
+        if (rate > MAX_USEFUL_RATE) {
+            logger.debug("Bloom-Filter für {} Trigramme verworfen: Fehlerrate {} bei {} Bits", grams, rate, bitCount);
+            return UNSELECTIVE;
+        }
+        return filter;
+    }
+
+    /**
+     * Prüft, ob ein Suchbegriff im Text enthalten sein kann.
+     *
+     * @param keyword Der Suchbegriff
+     * @return false, wenn der Begriff sicher nicht enthalten ist
+     */
+    public boolean mightContain(String keyword) {
+        if (keyword.length() < GRAM_LENGTH || bits.length == 0) {
+            return true;
+        }
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            if (!contains(gramHash(lower, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long[] getBits() {
+        return bits;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Gibt zurück, ob der Filter Begriffe ausschließen kann.
+     *
+     * @return false für {@link #UNSELECTIVE}
+     */
+    public boolean isSelective() {
+        return bits.length > 0;
+    }
+
+    /**
+     * Schätzt aus dem Anteil gesetzter Bits die Wahrscheinlichkeit, dass ein fehlendes Trigramm
+     * als enthalten gilt.
+     *
+     * @return Die Fehlerrate pro Trigramm, 1 für {@link #UNSELECTIVE}
+     */
+    public double getFalsePositiveRate() {
+        if (bits.length == 0) {
+            return 1;
+        }
+        long setBits = 0;
+        for (long word : bits) {
+            setBits += Long.bitCount(word);
+        }
+        return Math.pow((double) setBits / (bits.length << 6), hashCount);
+    }
+
+    private void add(long hash) {
+        int bitCount = bits.length << 6;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private boolean contains(long hash) {
+        int bitCount = bits.length << 6;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash eines Trigramms aus drei Zeichen (Mischfunktion aus SplitMix64).
+     */
+    private static long gramHash(String text, int start) {
+        long z = ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,189 @@
+package com.configmaster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Beschreibt eine Dateiversion als Folge von Kopier- und Einfügebefehlen gegenüber der
+ * vorherigen Version.
+ *
+ * Die vorherige Version wird in Blöcke von {@link #BLOCK_SIZE} Bytes zerlegt, die über ihren
+ * Hash gefunden werden. Die neue Version wird Byte für Byte durchlaufen: Stimmt der Block ab der
+ * aktuellen Stelle mit einem Block der vorherigen Version überein, wird die Übereinstimmung in
+ * beide Richtungen verlängert und als COPY(Position, Länge) ausgegeben. Alle Bytes dazwischen
+ * werden als INSERT(Bytes) übernommen. Da in .chr-Dateien meist nur einzelne Parameter geändert
+ * werden, besteht ein Delta typischerweise aus wenigen Befehlen.
+ *
+ * Format: Länge der neuen Version, dann je Befehl (Länge &lt;&lt; 1 | Art) und bei COPY die
+ * Position bzw. bei INSERT die Bytes; alle Zahlen als Varint.
+ */
+public final class VersionDelta {
+
+    /** Größe der Blöcke, über die Übereinstimmungen gefunden werden. */
+    public static final int BLOCK_SIZE = 16;
+
+    private static final int COPY = 0;
+    private static final int INSERT = 1;
+
+    // Höchstzahl geprüfter Blöcke mit demselben Hash
+    private static final int MAX_PROBES = 8;
+
+    private VersionDelta() {
+    }
+
+    /**
+     * Berechnet das Delta einer neuen Version gegenüber der vorherigen.
+     *
+     * @param base Die vorherige Version
+     * @param target Die neue Version
+     * @return Das Delta
+     */
+    public static byte[] encode(byte[] base, byte[] target) {
+        // Hash-Tabelle der Blöcke der vorherigen Version mit offener Adressierung
+        int blocks = base.length / BLOCK_SIZE;
+        int tableSize = Integer.highestOneBit(Math.max(blocks, 1) * 2) * 2;
+        int mask = tableSize - 1;
+        int[] tableHashes = new int[tableSize];
+        int[] tableOffsets = new int[tableSize];
+        Arrays.fill(tableOffsets, -1);
+        for (int block = 0; block < blocks; block++) {
+            int offset = block * BLOCK_SIZE;
+            int hash = hashBlock(base, offset);
+            int slot = hash & mask;
+            while (tableOffsets[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            tableHashes[slot] = hash;
+            tableOffsets[slot] = offset;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(16, target.length / 8));
+        writeVarint(out, target.length);
+        int position = 0;
+        int insertStart = 0;
+        while (blocks > 0 && position + BLOCK_SIZE <= target.length) {
+            int match = findBlock(base, target, position, tableHashes, tableOffsets, mask);
+            if (match < 0) {
+                position++;
+                continue;
+            }
+            // Übereinstimmung rückwärts in die noch nicht ausgegebenen Bytes und vorwärts verlängern
+            int start = position;
+            int baseStart = match;
+            while (start > insertStart && baseStart > 0 && target[start - 1] == base[baseStart - 1]) {
+                start--;
+                baseStart--;
+            }
+            int end = position + BLOCK_SIZE;
+            int baseEnd = match + BLOCK_SIZE;
+            while (end < target.length && baseEnd < base.length && target[end] == base[baseEnd]) {
+                end++;
+                baseEnd++;
+            }
+            writeInsert(out, target, insertStart, start);
+            writeVarint(out, ((long) (end - start) << 1) | COPY);
+            writeVarint(out, baseStart);
+            position = end;
+            insertStart = end;
+        }
+        writeInsert(out, target, insertStart, target.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Stellt eine Version aus der vorherigen Version und dem Delta wieder her.
+     *
+     * @param base Die vorherige Version
+     * @param delta Das Delta
+     * @return Die neue Version
+     * @throws IOException Wenn das Delta nicht zur vorherigen Version passt
+     */
+    public static byte[] apply(byte[] base, byte[] delta) throws IOException {
+        int[] position = { 0 };
+        long length = readVarint(delta, position);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Ungültiges Delta");
+        }
+        byte[] target = new byte[(int) length];
+        int written = 0;
+        while (position[0] < delta.length) {
+            long command = readVarint(delta, position);
+            int count = (int) (command >>> 1);
+            if (count < 0 || written + count > target.length) {
+                throw new IOException("Ungültiges Delta");
+            }
+            if ((command & 1) == COPY) {
+                long offset = readVarint(delta, position);
+                if (offset + count > base.length) {
+                    throw new IOException("Delta passt nicht zur vorherigen Version");
+                }
+                System.arraycopy(base, (int) offset, target, written, count);
+            } else {
+                if (position[0] + count > delta.length) {
+                    throw new IOException("Ungültiges Delta");
+                }
+                System.arraycopy(delta, position[0], target, written, count);
+                position[0] += count;
+            }
+            written += count;
+        }
+        if (written != target.length) {
+            throw new IOException("Ungültiges Delta");
+        }
+        return target;
+    }
+
+    private static int findBlock(byte[] base, byte[] target, int position, int[] tableHashes, int[] tableOffsets,
+            int mask) {
+        int hash = hashBlock(target, position);
+        int slot = hash & mask;
+        for (int probe = 0; probe < MAX_PROBES && tableOffsets[slot] >= 0; probe++) {
+            if (tableHashes[slot] == hash
+                    && Arrays.equals(base, tableOffsets[slot], tableOffsets[slot] + BLOCK_SIZE,
+                            target, position, position + BLOCK_SIZE)) {
+                return tableOffsets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hashBlock(byte[] data, int offset) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + BLOCK_SIZE; i++) {
+            hash = (hash ^ (data[i] & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+        if (to > from) {
+            writeVarint(out, ((long) (to - from) << 1) | INSERT);
+            out.write(target, from, to - from);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IOException("Ungültiges Delta");
+            }
+            int b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Ungültiges Delta");
+    }
+}
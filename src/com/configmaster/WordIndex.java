@@ -0,0 +1,71 @@
+package com.configmaster;
+
+import java.util.List;
+
+/**
+ * Ein durchsuchbarer Wortindex, der zu normalisierten Wörtern die IDs der Dateien liefert, in
+ * denen sie vorkommen. Implementiert vom {@link ContentIndex}, von {@link IndexSegment} und von
+ * {@link MappedSegment}.
+ *
+ * Suchbegriffe haben die Form "wort" für eine genaue Suche oder "wort~n" für höchstens
+ * n Änderungen, z.B. "MACD_Custom~1".
+ */
+public interface WordIndex {
+
+    /** Höchste erlaubte Fehlertoleranz eines Suchbegriffs. */
+    int MAX_EDITS = 3;
+
+    /**
+     * Ermittelt die Wörter des Wörterbuchs, die höchstens maxEdits Änderungen vom Suchbegriff
+     * entfernt sind.
+     *
+     * @param term Der Suchbegriff; er wird wie der Inhalt normalisiert
+     * @param maxEdits Die Fehlertoleranz
+     * @return Die gefundenen Wörter in alphabetischer Reihenfolge
+     */
+    List<String> findWords(String term, int maxEdits);
+
+    /**
+     * Gibt die Dateien zurück, die ein Wort enthalten.
+     *
+     * @param word Das normalisierte Wort
+     * @return Die IDs der Dateien
+     */
+    IdBitmap getFiles(String word);
+
+    /**
+     * Sucht Dateien, die einen der Suchbegriffe enthalten. Jeder Begriff kann mit "~n" eine
+     * Fehlertoleranz von n Änderungen erhalten.
+     *
+     * @param query Die komma-getrennten Suchbegriffe, z.B. "MACD_Custom~1, Stochastic~2"
+     * @return Die IDs der Dateien, die mindestens einen der Begriffe enthalten
+     * @throws IllegalArgumentException Wenn eine Fehlertoleranz ungültig ist
+     */
+    default IdBitmap search(String query) {
+        IdBitmap result = new IdBitmap();
+        for (String term : query.split(",")) {
+            term = term.trim();
+            if (term.isEmpty()) {
+                continue;
+            }
+            int maxEdits = 0;
+            int tilde = term.lastIndexOf('~');
+            if (tilde >= 0) {
+                try {
+                    maxEdits = Integer.parseInt(term.substring(tilde + 1).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Ungültige Fehlertoleranz: " + term);
+                }
+                if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+                    throw new IllegalArgumentException("Die Fehlertoleranz muss zwischen 0 und " + MAX_EDITS
+                            + " liegen: " + term);
+                }
+                term = term.substring(0, tilde);
+            }
+            for (String word : findWords(term, maxEdits)) {
+                result = IdBitmap.or(result, getFiles(word));
+            }
+        }
+        return result;
+    }
+}